@@ -0,0 +1,30 @@
+package com.example;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// Kör med olika trådantal för att se hur generatorerna skalar, t.ex. -t 1, -t 4, -t 16
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BookingIdGeneratorBenchmark {
+
+    @Param({"uuid", "snowflake"})
+    public String generator;
+
+    private BookingIdGenerator idGenerator;
+
+    @Setup
+    public void setUp() {
+        idGenerator = generator.equals("uuid") ? BookingIdGenerator.RANDOM_UUID : new SnowflakeIdGenerator(1);
+    }
+
+    @Benchmark
+    public String nextId() {
+        return idGenerator.nextId();
+    }
+}
@@ -0,0 +1,146 @@
+package com.example;
+
+import com.example.metrics.BookingMetrics;
+import com.example.metrics.RecordingBookingMetrics;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.ThreadParams;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BookingSystemBenchmark {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2030, 1, 1, 0, 0);
+
+    @State(Scope.Benchmark)
+    public static class Fleet {
+        @Param({"100", "10000"})
+        int rooms;
+
+        @Param({"10", "1000"})
+        int bookingsPerRoom;
+
+        // Jämför avstängd mätning (NOOP) med full mätning för att se instrumenteringens kostnad
+        @Param({"false", "true"})
+        boolean metrics;
+
+        BookingSystem bookingSystem;
+        // Förutsägbara id:n så att bokningar som benchmarken själv gjort kan avbokas efter varje iteration
+        final AtomicLong issuedIds = new AtomicLong();
+
+        @Setup(Level.Trial)
+        public void setUp() {
+            InMemoryRoomRepository roomRepository = new InMemoryRoomRepository();
+            for (int i = 0; i < rooms; i++) {
+                Room room = new Room("room" + i, "Room" + i);
+                // Befintliga bokningar varannan timme, lediga luckor däremellan
+                for (int j = 0; j < bookingsPerRoom; j++) {
+                    LocalDateTime start = NOW.plusHours(2L * j);
+                    room.addBooking(new Booking("room" + i + "-" + j, room.getId(), start, start.plusMinutes(50)));
+                }
+                roomRepository.save(room);
+            }
+            bookingSystem = BookingSystem.builder(() -> NOW, roomRepository, new NoOpNotificationService())
+                    .metrics(metrics ? new RecordingBookingMetrics() : BookingMetrics.NOOP)
+                    .idGenerator(() -> "bench-" + issuedIds.getAndIncrement())
+                    .build();
+        }
+
+        LocalDateTime randomStart() {
+            return NOW.plusHours(2L * ThreadLocalRandom.current().nextInt(bookingsPerRoom)).plusHours(1);
+        }
+    }
+
+    static final int BATCH_SIZE = 500;
+
+    // Bokningar och avbokningar ändrar flottans tillstånd. De mäts därför i batchar om BATCH_SIZE operationer;
+    // varje iteration börjar från samma tillstånd och går igenom lediga luckor med riktiga längder.
+    // Varje lucka mellan två befintliga bokningar (70 minuter) rymmer två egna 25-minutersbokningar och
+    // varje tråd får ett eget intervall av luckor.
+    @State(Scope.Thread)
+    public static class FreeSlots {
+        private int next;
+
+        @Setup(Level.Iteration)
+        public void reset(Fleet fleet, ThreadParams threads) {
+            if ((long) threads.getThreadCount() * BATCH_SIZE > 2L * fleet.rooms * fleet.bookingsPerRoom) {
+                throw new IllegalStateException("För få lediga luckor för " + threads.getThreadCount() + " trådar");
+            }
+            next = threads.getThreadIndex() * BATCH_SIZE;
+        }
+
+        BookingRequest nextRequest(Fleet fleet) {
+            int slot = next++;
+            int gapSlot = slot / fleet.rooms;
+            LocalDateTime start = NOW.plusHours(2L * (gapSlot / 2)).plusMinutes(55 + 30L * (gapSlot % 2));
+            return new BookingRequest("room" + slot % fleet.rooms, start, start.plusMinutes(25));
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class BookedSlots {
+        private long firstId;
+
+        @Setup(Level.Iteration)
+        public void recordFirstId(Fleet fleet) {
+            firstId = fleet.issuedIds.get();
+        }
+
+        @TearDown(Level.Iteration)
+        public void cancelBooked(Fleet fleet) {
+            for (long id = firstId; id < fleet.issuedIds.get(); id++) {
+                fleet.bookingSystem.cancelBooking("bench-" + id);
+            }
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class PendingCancellations {
+        private final String[] bookingIds = new String[BATCH_SIZE];
+        private int next;
+
+        @Setup(Level.Iteration)
+        public void bookBatch(Fleet fleet, FreeSlots slots) {
+            for (int i = 0; i < BATCH_SIZE; i++) {
+                bookingIds[i] = fleet.bookingSystem.bookRooms(List.of(slots.nextRequest(fleet)), BulkBookingMode.BEST_EFFORT)
+                        .get(0).getBooking()
+                        .map(Booking::getId)
+                        .orElseThrow(() -> new IllegalStateException("Luckan var inte ledig"));
+            }
+            next = 0;
+        }
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 5, batchSize = BATCH_SIZE)
+    @Measurement(iterations = 10, batchSize = BATCH_SIZE)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public boolean bookRoom(Fleet fleet, FreeSlots slots, BookedSlots booked) {
+        BookingRequest request = slots.nextRequest(fleet);
+        return fleet.bookingSystem.bookRoom(request.getRoomId(), request.getStartTime(), request.getEndTime());
+    }
+
+    @Benchmark
+    public List<Room> getAvailableRooms(Fleet fleet) {
+        LocalDateTime start = fleet.randomStart();
+        return fleet.bookingSystem.getAvailableRooms(start, start.plusMinutes(30));
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @Warmup(iterations = 5, batchSize = BATCH_SIZE)
+    @Measurement(iterations = 10, batchSize = BATCH_SIZE)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public boolean cancelBooking(Fleet fleet, PendingCancellations pending) {
+        return fleet.bookingSystem.cancelBooking(pending.bookingIds[pending.next++]);
+    }
+}
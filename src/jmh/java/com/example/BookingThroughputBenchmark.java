@@ -0,0 +1,61 @@
+package com.example;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Kör med olika trådantal för att se skalningen, t.ex. -t 1, -t 4, -t 16
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BookingThroughputBenchmark {
+
+    private static final LocalDateTime FIRST_SLOT = LocalDateTime.of(2030, 1, 1, 0, 0);
+    private static final int ROOMS = 1024;
+
+    @State(Scope.Benchmark)
+    public static class Fleet {
+        BookingSystem bookingSystem;
+        final AtomicInteger nextRoom = new AtomicInteger();
+
+        @Setup(Level.Iteration)
+        public void setUp() {
+            InMemoryRoomRepository roomRepository = new InMemoryRoomRepository();
+            for (int i = 0; i < ROOMS; i++) {
+                roomRepository.save(new Room("room" + i, "Room" + i));
+            }
+            bookingSystem = new BookingSystem(() -> FIRST_SLOT, roomRepository, new NoOpNotificationService());
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class OwnRoom {
+        String roomId;
+
+        @Setup
+        public void setUp(Fleet fleet) {
+            roomId = "room" + (fleet.nextRoom.getAndIncrement() % ROOMS);
+        }
+    }
+
+    private static LocalDateTime randomStart() {
+        return FIRST_SLOT.plusMinutes(30L * ThreadLocalRandom.current().nextInt(1_000_000));
+    }
+
+    @Benchmark
+    public boolean uncontendedRooms(Fleet fleet, OwnRoom ownRoom) {
+        LocalDateTime start = randomStart();
+        return fleet.bookingSystem.bookRoom(ownRoom.roomId, start, start.plusMinutes(20));
+    }
+
+    @Benchmark
+    public boolean sharedRoom(Fleet fleet) {
+        LocalDateTime start = randomStart();
+        return fleet.bookingSystem.bookRoom("room0", start, start.plusMinutes(20));
+    }
+}
@@ -0,0 +1,102 @@
+package com.example;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class CachingRoomRepositoryBenchmark {
+
+    @Param({"1000"})
+    private int rooms;
+
+    @Param({"100", "1000"})
+    private int cacheSize;
+
+    @Param({"50"})
+    private int backingLatencyMicros;
+
+    private RoomRepository backing;
+    private CachingRoomRepository cached;
+
+    @Setup
+    public void setUp() {
+        InMemoryRoomRepository store = new InMemoryRoomRepository();
+        for (int i = 0; i < rooms; i++) {
+            store.save(new Room("room" + i, "Room" + i));
+        }
+        backing = new SlowRoomRepository(store, TimeUnit.MICROSECONDS.toNanos(backingLatencyMicros));
+        cached = new CachingRoomRepository(backing, cacheSize);
+    }
+
+    private String randomRoomId() {
+        // Skev fördelning, hälften av uppslagen går till de 10 % populäraste rummen
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        int room = random.nextBoolean() ? random.nextInt(rooms / 10) : random.nextInt(rooms);
+        return "room" + room;
+    }
+
+    @Benchmark
+    public Optional<Room> findByIdUncached() {
+        return backing.findById(randomRoomId());
+    }
+
+    @Benchmark
+    public Optional<Room> findByIdCached() {
+        return cached.findById(randomRoomId());
+    }
+
+    @Benchmark
+    public List<Room> findAllUncached() {
+        return backing.findAll();
+    }
+
+    @Benchmark
+    public List<Room> findAllCached() {
+        return cached.findAll();
+    }
+
+    // Lokal ersättare för en databas, varje anrop kostar en fast fördröjning
+    static class SlowRoomRepository implements RoomRepository {
+        private final RoomRepository delegate;
+        private final long latencyNanos;
+
+        SlowRoomRepository(RoomRepository delegate, long latencyNanos) {
+            this.delegate = delegate;
+            this.latencyNanos = latencyNanos;
+        }
+
+        @Override
+        public Optional<Room> findById(String id) {
+            LockSupport.parkNanos(latencyNanos);
+            return delegate.findById(id);
+        }
+
+        @Override
+        public List<Room> findAll() {
+            LockSupport.parkNanos(latencyNanos);
+            return delegate.findAll();
+        }
+
+        @Override
+        public void save(Room room) {
+            LockSupport.parkNanos(latencyNanos);
+            delegate.save(room);
+        }
+
+        @Override
+        public List<Room> findChunk(String afterRoomId, int limit) {
+            LockSupport.parkNanos(latencyNanos);
+            return delegate.findChunk(afterRoomId, limit);
+        }
+    }
+}
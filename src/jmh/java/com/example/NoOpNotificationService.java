@@ -0,0 +1,11 @@
+package com.example;
+
+public class NoOpNotificationService implements NotificationService {
+    @Override
+    public void sendBookingConfirmation(Booking booking) {
+    }
+
+    @Override
+    public void sendCancellationConfirmation(Booking booking) {
+    }
+}
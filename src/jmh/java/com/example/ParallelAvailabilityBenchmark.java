@@ -0,0 +1,78 @@
+package com.example;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Skalning från 1 till N kärnor: jämför parallelism=1 med större värden på samma maskin
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ParallelAvailabilityBenchmark {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2030, 1, 1, 0, 0);
+
+    @Param({"50000"})
+    private int rooms;
+
+    @Param({"8"})
+    private int windowCount;
+
+    @Param({"1", "2", "4", "8"})
+    private int parallelism;
+
+    private BookingSystem bookingSystem;
+    private ForkJoinPool pool;
+    private List<TimeWindow> windows;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        InMemoryRoomRepository roomRepository = new InMemoryRoomRepository();
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < rooms; i++) {
+            Room room = new Room("room" + i, "Room" + i);
+            for (int j = 0; j < 20; j++) {
+                LocalDateTime start = NOW.plusHours(random.nextInt(24 * 7));
+                room.addBooking(new Booking("room" + i + "-" + j, room.getId(), start, start.plusMinutes(45)));
+            }
+            roomRepository.save(room);
+        }
+        bookingSystem = new BookingSystem(() -> NOW, roomRepository, new NoOpNotificationService());
+        pool = new ForkJoinPool(parallelism);
+
+        windows = new ArrayList<>();
+        for (int i = 0; i < windowCount; i++) {
+            LocalDateTime start = NOW.plusHours(9L + 24L * i);
+            windows.add(new TimeWindow(start, start.plusHours(1)));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public Map<TimeWindow, List<Room>> parallelMatrix() {
+        return bookingSystem.getAvailableRooms(windows, pool);
+    }
+
+    // Referens: ett sekventiellt anrop per fönster
+    @Benchmark
+    public int sequentialPerWindow() {
+        int available = 0;
+        for (TimeWindow window : windows) {
+            available += bookingSystem.getAvailableRooms(window.getStartTime(), window.getEndTime()).size();
+        }
+        return available;
+    }
+}
@@ -0,0 +1,63 @@
+package com.example;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class RoomAvailabilityBenchmark {
+
+    private static final LocalDateTime FIRST_START = LocalDateTime.of(2030, 1, 1, 8, 0);
+
+    @Param({"10", "1000", "100000"})
+    private int bookingsPerRoom;
+
+    private Room room;
+    private Set<Booking> streamScanBookings;
+
+    @Setup
+    public void setUp() {
+        room = new Room("room1", "Room1");
+        streamScanBookings = new HashSet<>();
+        for (int i = 0; i < bookingsPerRoom; i++) {
+            LocalDateTime start = FIRST_START.plusHours(2L * i);
+            Booking booking = new Booking("booking" + i, "room1", start, start.plusHours(1));
+            room.addBooking(booking);
+            streamScanBookings.add(booking);
+        }
+    }
+
+    private LocalDateTime randomStart() {
+        return FIRST_START.plusHours(ThreadLocalRandom.current().nextInt(2 * bookingsPerRoom)).plusMinutes(10);
+    }
+
+    @Benchmark
+    public boolean intervalIndex() {
+        LocalDateTime start = randomStart();
+        return room.isAvailable(start, start.plusMinutes(30));
+    }
+
+    @Benchmark
+    public boolean streamScan() {
+        LocalDateTime start = randomStart();
+        LocalDateTime end = start.plusMinutes(30);
+        return streamScanBookings.stream()
+                .noneMatch(booking -> booking.overlaps(start, end));
+    }
+
+    @Benchmark
+    public void addAndRemoveBooking() {
+        LocalDateTime start = randomStart();
+        room.addBooking(new Booking("extra", "room1", start, start.plusMinutes(30)));
+        room.removeBooking("extra");
+    }
+}
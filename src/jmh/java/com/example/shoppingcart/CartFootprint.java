@@ -0,0 +1,66 @@
+package com.example.shoppingcart;
+
+import java.lang.ref.Reference;
+import java.util.ArrayList;
+import java.util.List;
+
+// Measures retained heap for many small carts, e.g.
+// java -cp target/classes:target/test-classes com.example.shoppingcart.CartFootprint 1000000 3
+public class CartFootprint {
+
+    public static void main(String[] args) {
+        int carts = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int linesPerCart = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+
+        long baseline = usedHeap();
+        List<ShoppingCart> shoppingCarts = new ArrayList<>(carts);
+        for (int i = 0; i < carts; i++) {
+            ShoppingCart cart = new ShoppingCart();
+            for (int line = 0; line < linesPerCart; line++) {
+                cart.addItem(itemName(i, line), 9.99, 1);
+            }
+            shoppingCarts.add(cart);
+        }
+        long shoppingCartBytes = usedHeap() - baseline;
+        report("ShoppingCart", shoppingCartBytes, carts, linesPerCart, shoppingCarts.size());
+        Reference.reachabilityFence(shoppingCarts);
+        shoppingCarts = null;
+
+        baseline = usedHeap();
+        CartStore store = new CartStore(carts, carts * linesPerCart);
+        long[] cartIds = new long[carts];
+        for (int i = 0; i < carts; i++) {
+            cartIds[i] = store.createCart();
+            Cart cart = store.cart(cartIds[i]);
+            for (int line = 0; line < linesPerCart; line++) {
+                cart.addItem(itemName(i, line), 9.99, 1);
+            }
+        }
+        long storeBytes = usedHeap() - baseline;
+        report("CartStore", storeBytes, carts, linesPerCart, store.getCartCount());
+        Reference.reachabilityFence(cartIds);
+    }
+
+    private static String itemName(int cart, int line) {
+        // Names drawn from a catalogue-sized set, as the same products recur across real carts
+        return "Item" + ((cart * 31 + line) % 10_000);
+    }
+
+    private static void report(String name, long bytes, int carts, int linesPerCart, int live) {
+        System.out.printf("%-12s %,14d bytes  %,8.1f bytes/cart  %,8.1f bytes/line  (%d carts)%n",
+                name, bytes, (double) bytes / carts, (double) bytes / ((long) carts * linesPerCart), live);
+    }
+
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.shoppingcart;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Checkout latency against rule count; incrementalCheckout should stay flat as ruleCount grows
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PricingPipelineBenchmark {
+
+    private static final int CART_SIZE = 100;
+
+    @Param({"10", "100", "1000"})
+    private int ruleCount;
+
+    private PricingPipeline pipeline;
+    private List<PricingRule> rules;
+    private PricedCart pricedCart;
+    private ShoppingCart plainCart;
+    private String[] itemNames;
+
+    @Setup
+    public void setUp() {
+        itemNames = new String[CART_SIZE];
+        for (int i = 0; i < CART_SIZE; i++) {
+            itemNames[i] = "Item" + i;
+        }
+
+        rules = new ArrayList<>();
+        for (int i = 0; i < ruleCount; i++) {
+            String itemName = "Item" + (i % (CART_SIZE * 4));
+            switch (i % 4) {
+                case 0 -> rules.add(new ItemDiscountRule(itemName, 5));
+                case 1 -> rules.add(new QuantityTierRule(itemName, Map.of(3, 10.0, 10, 15.0)));
+                case 2 -> rules.add(new BundleRule(Set.of(itemName, "Item" + ((i + 1) % CART_SIZE)), 15.00));
+                default -> rules.add(CouponRule.percentageOff(1));
+            }
+        }
+        pipeline = PricingPipeline.compile(rules);
+
+        plainCart = new ShoppingCart();
+        for (String itemName : itemNames) {
+            plainCart.addItem(itemName, 10.00, 1);
+        }
+        pricedCart = new PricedCart(plainCart, pipeline);
+    }
+
+    @Benchmark
+    public long incrementalCheckout() {
+        pricedCart.addItem(itemNames[ThreadLocalRandom.current().nextInt(CART_SIZE)], 10.00, 1);
+        return pricedCart.getTotalInMinorUnits();
+    }
+
+    // Baseline: every rule re-evaluated on each checkout, as the external promotion layer does
+    @Benchmark
+    public long fullReevaluation() {
+        plainCart.addItem(itemNames[ThreadLocalRandom.current().nextInt(CART_SIZE)], 10.00, 1);
+        LineTotals lines = new LineTotals(plainCart);
+        for (PricingRule rule : rules) {
+            rule.discountLines(lines);
+        }
+        long total = plainCart.getSubtotalInMinorUnits() - lines.getDiscountInMinorUnits();
+        for (PricingRule rule : rules) {
+            total = rule.applyToTotal(total);
+        }
+        return total;
+    }
+
+    @Benchmark
+    public PricingPipeline compile() {
+        return PricingPipeline.compile(rules);
+    }
+}
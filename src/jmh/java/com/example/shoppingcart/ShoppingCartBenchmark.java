@@ -0,0 +1,43 @@
+package com.example.shoppingcart;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ShoppingCartBenchmark {
+
+    @Param({"10", "1000", "10000"})
+    private int cartSize;
+
+    private ShoppingCart cart;
+    private String[] itemNames;
+
+    @Setup
+    public void setUp() {
+        cart = new ShoppingCart();
+        itemNames = new String[cartSize];
+        for (int i = 0; i < cartSize; i++) {
+            itemNames[i] = "Item" + i;
+            cart.addItem(itemNames[i], 10.0 + i % 100, 1);
+        }
+        cart.applyDiscount(10);
+    }
+
+    @Benchmark
+    public void addItem() {
+        String itemName = itemNames[ThreadLocalRandom.current().nextInt(cartSize)];
+        cart.addItem(itemName, 10.0, 1);
+    }
+
+    @Benchmark
+    public double getTotalPrice() {
+        return cart.getTotalPrice();
+    }
+}
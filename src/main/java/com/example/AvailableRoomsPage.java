@@ -0,0 +1,23 @@
+package com.example;
+
+import java.util.List;
+import java.util.Optional;
+
+public class AvailableRoomsPage {
+    private final List<Room> rooms;
+    private final String nextCursor;
+
+    AvailableRoomsPage(List<Room> rooms, String nextCursor) {
+        this.rooms = List.copyOf(rooms);
+        this.nextCursor = nextCursor;
+    }
+
+    public List<Room> getRooms() {
+        return rooms;
+    }
+
+    // Skickas tillbaka som cursor för att hämta nästa sida; tom när alla rum har gåtts igenom
+    public Optional<String> getNextCursor() {
+        return Optional.ofNullable(nextCursor);
+    }
+}
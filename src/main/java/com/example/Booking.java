@@ -5,18 +5,26 @@ import java.time.LocalDateTime;
 public class Booking {
     private final String id;
     private final String roomId;
-    private final LocalDateTime startTime;
-    private final LocalDateTime endTime;
+    private final long startEpochNanos;
+    private final long endEpochNanos;
 
     public Booking(String id, String roomId, LocalDateTime startTime, LocalDateTime endTime) {
+        this(id, roomId, EpochTime.toEpochNanos(startTime), EpochTime.toEpochNanos(endTime));
+    }
+
+    public Booking(String id, String roomId, long startEpochNanos, long endEpochNanos) {
         this.id = id;
         this.roomId = roomId;
-        this.startTime = startTime;
-        this.endTime = endTime;
+        this.startEpochNanos = startEpochNanos;
+        this.endEpochNanos = endEpochNanos;
     }
 
     public boolean overlaps(LocalDateTime start, LocalDateTime end) {
-        return !endTime.isBefore(start) && !startTime.isAfter(end);
+        return overlaps(EpochTime.toEpochNanosSaturated(start), EpochTime.toEpochNanosSaturated(end));
+    }
+
+    public boolean overlaps(long startEpochNanos, long endEpochNanos) {
+        return this.endEpochNanos >= startEpochNanos && this.startEpochNanos <= endEpochNanos;
     }
 
     public String getId() {
@@ -28,10 +36,18 @@ public class Booking {
     }
 
     public LocalDateTime getStartTime() {
-        return startTime;
+        return EpochTime.toLocalDateTime(startEpochNanos);
     }
 
     public LocalDateTime getEndTime() {
-        return endTime;
+        return EpochTime.toLocalDateTime(endEpochNanos);
+    }
+
+    public long getStartEpochNanos() {
+        return startEpochNanos;
+    }
+
+    public long getEndEpochNanos() {
+        return endEpochNanos;
     }
 }
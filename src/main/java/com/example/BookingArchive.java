@@ -0,0 +1,10 @@
+package com.example;
+
+import java.util.Collection;
+import java.util.Optional;
+
+public interface BookingArchive {
+    void archive(Collection<Booking> bookings);
+    Optional<Booking> findById(String bookingId);
+    long size();
+}
@@ -0,0 +1,75 @@
+package com.example;
+
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Flyttar regelbundet avslutade bokningar från rummen till arkivet i bakgrunden
+public final class BookingCompactor implements AutoCloseable {
+    private final BookingSystem bookingSystem;
+    private final Duration retention;
+    private final ScheduledExecutorService scheduler;
+    private final AtomicLong archived = new AtomicLong();
+    private final AtomicLong runs = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+    public BookingCompactor(BookingSystem bookingSystem, Duration interval) {
+        this(bookingSystem, interval, Duration.ZERO);
+    }
+
+    public BookingCompactor(BookingSystem bookingSystem, Duration interval, Duration retention) {
+        if (bookingSystem == null || interval == null || retention == null
+                || interval.isNegative() || interval.isZero() || retention.isNegative()) {
+            throw new IllegalArgumentException("Måste ange bokningssystem, positivt intervall och kvarhållningstid");
+        }
+        if (!bookingSystem.hasArchive()) {
+            throw new IllegalArgumentException("Bokningssystemet saknar arkiv att flytta bokningarna till");
+        }
+        this.bookingSystem = bookingSystem;
+        this.retention = retention;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "booking-compactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(this::compactNow, interval.toNanos(), interval.toNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    public int compactNow() {
+        try {
+            int count = bookingSystem.archiveExpiredBookings(retention);
+            archived.addAndGet(count);
+            return count;
+        } catch (RuntimeException e) {
+            // Ett misslyckat svep får inte stoppa kommande körningar
+            failures.incrementAndGet();
+            return 0;
+        } finally {
+            runs.incrementAndGet();
+        }
+    }
+
+    public long getArchivedCount() {
+        return archived.get();
+    }
+
+    public long getRunCount() {
+        return runs.get();
+    }
+
+    public long getFailureCount() {
+        return failures.get();
+    }
+
+    @Override
+    public void close() {
+        scheduler.shutdown();
+        try {
+            scheduler.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
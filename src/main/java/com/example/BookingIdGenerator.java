@@ -0,0 +1,9 @@
+package com.example;
+
+import java.util.UUID;
+
+public interface BookingIdGenerator {
+    BookingIdGenerator RANDOM_UUID = () -> UUID.randomUUID().toString();
+
+    String nextId();
+}
@@ -0,0 +1,53 @@
+package com.example;
+
+import java.util.Optional;
+
+public class BookingResult {
+    public enum Status {
+        BOOKED,
+        UNAVAILABLE,
+        ROOM_NOT_FOUND,
+        INVALID,
+        ABORTED
+    }
+
+    private final BookingRequest request;
+    private final Status status;
+    private final Booking booking;
+    private final String message;
+
+    private BookingResult(BookingRequest request, Status status, Booking booking, String message) {
+        this.request = request;
+        this.status = status;
+        this.booking = booking;
+        this.message = message;
+    }
+
+    static BookingResult booked(BookingRequest request, Booking booking) {
+        return new BookingResult(request, Status.BOOKED, booking, null);
+    }
+
+    static BookingResult failed(BookingRequest request, Status status, String message) {
+        return new BookingResult(request, status, null, message);
+    }
+
+    public boolean isBooked() {
+        return status == Status.BOOKED;
+    }
+
+    public BookingRequest getRequest() {
+        return request;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public Optional<Booking> getBooking() {
+        return Optional.ofNullable(booking);
+    }
+
+    public Optional<String> getMessage() {
+        return Optional.ofNullable(message);
+    }
+}
@@ -1,100 +1,1107 @@
 package com.example;
 
+import com.example.journal.BookingJournal;
+import com.example.metrics.BookingMetrics;
+import com.example.metrics.Operation;
+import com.example.metrics.Outcome;
+import com.example.metrics.Phase;
+
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 public class BookingSystem {
+    private static final int ROOM_CHUNK_SIZE = 64;
+
     private final TimeProvider timeProvider;
     private final RoomRepository roomRepository;
     private final NotificationService notificationService;
+    private final SlotAvailabilityEngine availabilityEngine;
+    private final BookingMetrics metrics;
+    private final BookingArchive archive;
+    private final BookingIdGenerator idGenerator;
+    private final BookingJournal journal;
+    private final IdempotencyCache idempotencyCache;
+    private final Map<String, String> roomIdByBookingId = new ConcurrentHashMap<>();
+    private final Lock[] roomLocks;
 
     public BookingSystem(TimeProvider timeProvider,
                          RoomRepository roomRepository,
                          NotificationService notificationService) {
-        this.timeProvider = timeProvider;
-        this.roomRepository = roomRepository;
-        this.notificationService = notificationService;
+        this(builder(timeProvider, roomRepository, notificationService));
+    }
+
+    private BookingSystem(Builder builder) {
+        this.timeProvider = builder.timeProvider;
+        // Utan aktiverad mätning används repositoryt direkt så att avstängd mätning inte kostar något
+        this.roomRepository = builder.metrics.isEnabled()
+                ? new MeteredRoomRepository(builder.roomRepository, builder.metrics)
+                : builder.roomRepository;
+        this.notificationService = builder.notificationService;
+        this.availabilityEngine = builder.availabilityEngine;
+        this.metrics = builder.metrics;
+        this.archive = builder.archive;
+        this.idGenerator = builder.idGenerator;
+        this.journal = builder.journal;
+        this.idempotencyCache = builder.idempotencyCache != null ? builder.idempotencyCache : new IdempotencyCache();
+        this.roomLocks = createRoomLocks(Runtime.getRuntime().availableProcessors() * 4);
+        // Motorn måste känna till befintliga rum, annars saknas rum utan bokningar i dess svar
+        if (availabilityEngine != null) {
+            availabilityEngine.addRooms(builder.roomRepository.findAll());
+        }
+        if (idGenerator instanceof SnowflakeIdGenerator snowflake) {
+            resumeAfterStoredIds(snowflake, builder.roomRepository.findAll());
+        }
+    }
+
+    // Efter en omstart kan generatorn ligga efter id som redan delats ut, se SnowflakeIdGenerator
+    private static void resumeAfterStoredIds(SnowflakeIdGenerator generator, Collection<Room> rooms) {
+        for (Room room : rooms) {
+            for (Booking booking : room.getBookings()) {
+                resumeAfterIfOwn(generator, booking.getId());
+            }
+            for (RecurringBooking series : room.getRecurringBookings()) {
+                resumeAfterIfOwn(generator, series.getId());
+            }
+        }
+    }
+
+    private static void resumeAfterIfOwn(SnowflakeIdGenerator generator, String id) {
+        try {
+            long decoded = SnowflakeIdGenerator.decode(id);
+            if (SnowflakeIdGenerator.nodeOf(decoded) == generator.getNodeId()) {
+                generator.resumeAfter(decoded);
+            }
+        } catch (IllegalArgumentException e) {
+            // Id från en annan generator, till exempel UUID från före bytet
+        }
+    }
+
+    // Tidskälla, repository och notifieringar krävs; övriga delar har standardvärden som kan bytas i byggaren
+    public static Builder builder(TimeProvider timeProvider,
+                                  RoomRepository roomRepository,
+                                  NotificationService notificationService) {
+        return new Builder(timeProvider, roomRepository, notificationService);
+    }
+
+    // Nya rum läggs till här så att motorn känner till dem innan de har någon bokning
+    public void addRoom(Room room) {
+        if (room == null) {
+            throw new IllegalArgumentException("Rummet kan inte vara null");
+        }
+        Lock lock = lockFor(room.getId());
+        lock.lock();
+        try {
+            roomRepository.save(room);
+            if (availabilityEngine != null) {
+                availabilityEngine.addRooms(List.of(room));
+            }
+        } finally {
+            lock.unlock();
+        }
     }
 
     public boolean bookRoom(String roomId, LocalDateTime startTime, LocalDateTime endTime) {
-        if (startTime == null || endTime == null || roomId == null) {
-            throw new IllegalArgumentException("Bokning kräver giltiga start- och sluttider samt rum-id");
+        long started = metrics.startTimer();
+        try {
+            return attemptBooking(roomId, startTime, endTime, started).isPresent();
+        } finally {
+            metrics.recordPhase(Operation.BOOK_ROOM, Phase.TOTAL, started);
         }
+    }
 
-        if (startTime.isBefore(timeProvider.getCurrentTime())) {
-            throw new IllegalArgumentException("Kan inte boka tid i dåtid");
+    // Omförsök med samma nyckel får det ursprungliga resultatet utan att repositoryt anropas igen
+    public BookingResult bookRoom(String idempotencyKey, String roomId, LocalDateTime startTime, LocalDateTime endTime) {
+        if (idempotencyKey == null) {
+            throw new IllegalArgumentException("Idempotensnyckel kan inte vara null");
+        }
+        BookingRequest request = new BookingRequest(roomId, startTime, endTime);
+        IdempotencyCache.Claim claim = idempotencyCache.claim(idempotencyKey, request, timeProvider.getCurrentEpochNanos());
+        if (!claim.isOwner()) {
+            return claim.await();
         }
 
-        if (endTime.isBefore(startTime)) {
-            throw new IllegalArgumentException("Sluttid måste vara efter starttid");
+        long started = metrics.startTimer();
+        try {
+            BookingResult result = attemptBooking(roomId, startTime, endTime, started)
+                    .map(booking -> BookingResult.booked(request, booking))
+                    .orElseGet(() -> BookingResult.failed(request, BookingResult.Status.UNAVAILABLE, "Rummet är redan bokat"));
+            claim.complete(result);
+            return result;
+        } catch (Throwable e) {
+            // Även Error måste avsluta anspråket, annars väntar dubbletterna förgäves
+            claim.fail(e);
+            throw e;
+        } finally {
+            metrics.recordPhase(Operation.BOOK_ROOM, Phase.TOTAL, started);
         }
+    }
 
-        Room room = roomRepository.findById(roomId)
-                .orElseThrow(() -> new IllegalArgumentException("Rummet existerar inte"));
+    private Optional<Booking> attemptBooking(String roomId, LocalDateTime startTime, LocalDateTime endTime, long started) {
+        validateBooking(Operation.BOOK_ROOM, roomId, startTime, endTime);
+        long phaseStarted = metrics.recordPhase(Operation.BOOK_ROOM, Phase.VALIDATION, started);
+
+        Booking booking;
+        // Kontroll och bokning måste ske atomärt per rum, annars kan två anrop boka samma tid
+        Lock lock = lockFor(roomId);
+        lock.lock();
+        try {
+            phaseStarted = metrics.recordPhase(Operation.BOOK_ROOM, Phase.LOCK_WAIT, phaseStarted);
+            Room room = roomRepository.findById(roomId)
+                    .orElseThrow(() -> roomNotFound(Operation.BOOK_ROOM));
+            phaseStarted = metrics.recordPhase(Operation.BOOK_ROOM, Phase.FIND_ROOM, phaseStarted);
+
+            boolean available = room.isAvailable(startTime, endTime);
+            phaseStarted = metrics.recordPhase(Operation.BOOK_ROOM, Phase.AVAILABILITY_CHECK, phaseStarted);
+            if (!available) {
+                metrics.recordOutcome(Operation.BOOK_ROOM, Outcome.DOUBLE_BOOKED);
+                return Optional.empty();
+            }
+
+            booking = new Booking(idGenerator.nextId(), roomId, startTime, endTime);
+            room.addBooking(booking);
+            saveOrRollBack(room, () -> room.removeBooking(booking.getId()));
+            roomIdByBookingId.put(booking.getId(), roomId);
+            if (availabilityEngine != null) {
+                availabilityEngine.bookingAdded(room, booking);
+            }
+            // Skrivs under rummets lås så att journalens ordning per rum följer bokningarnas ordning
+            if (journal != null) {
+                journal.appendCreated(booking);
+            }
+            phaseStarted = metrics.recordPhase(Operation.BOOK_ROOM, Phase.SAVE, phaseStarted);
+        } finally {
+            lock.unlock();
+        }
+
+        try {
+            notificationService.sendBookingConfirmation(booking);
+        } catch (NotificationException e) {
+            // Fortsätt även om notifieringen misslyckas
+        }
+        metrics.recordPhase(Operation.BOOK_ROOM, Phase.NOTIFICATION, phaseStarted);
+
+        metrics.recordOutcome(Operation.BOOK_ROOM, Outcome.BOOKED);
+        return Optional.of(booking);
+    }
+
+    // Första tillfället anger tid och längd; serien sparas som en regel på rummet
+    public Optional<RecurringBooking> bookRecurring(String roomId, LocalDateTime startTime, LocalDateTime endTime,
+                                                    RecurrenceRule rule) {
+        long started = metrics.startTimer();
+        try {
+            return attemptRecurringBooking(roomId, startTime, endTime, rule);
+        } finally {
+            metrics.recordPhase(Operation.BOOK_RECURRING, Phase.TOTAL, started);
+        }
+    }
+
+    private Optional<RecurringBooking> attemptRecurringBooking(String roomId, LocalDateTime startTime, LocalDateTime endTime,
+                                                               RecurrenceRule rule) {
+        validateBooking(Operation.BOOK_RECURRING, roomId, startTime, endTime);
+        RecurringBooking series;
+        try {
+            if (rule == null) {
+                throw new IllegalArgumentException("Måste ange regel för serien");
+            }
+            series = new RecurringBooking(idGenerator.nextId(), roomId, startTime, endTime, rule);
+        } catch (IllegalArgumentException e) {
+            metrics.recordOutcome(Operation.BOOK_RECURRING, Outcome.INVALID);
+            throw e;
+        }
+
+        Lock lock = lockFor(roomId);
+        lock.lock();
+        try {
+            Room room = roomRepository.findById(roomId)
+                    .orElseThrow(() -> roomNotFound(Operation.BOOK_RECURRING));
+
+            if (!room.isAvailable(series)) {
+                metrics.recordOutcome(Operation.BOOK_RECURRING, Outcome.DOUBLE_BOOKED);
+                return Optional.empty();
+            }
+
+            room.addRecurringBooking(series);
+            saveOrRollBack(room, () -> room.removeRecurringBooking(series.getId()));
+            roomIdByBookingId.put(series.getId(), roomId);
+            if (availabilityEngine != null) {
+                availabilityEngine.recurringBookingsChanged(room);
+            }
+            if (journal != null) {
+                journal.appendSeriesCreated(series);
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        try {
+            notificationService.sendBookingConfirmation(series.occurrence(0));
+        } catch (NotificationException e) {
+            // Fortsätt även om notifieringen misslyckas
+        }
+
+        metrics.recordOutcome(Operation.BOOK_RECURRING, Outcome.BOOKED);
+        return Optional.of(series);
+    }
+
+    // Avbokning av ett tillfälle sparas som ett undantag i serien, övriga tillfällen påverkas inte
+    public boolean cancelOccurrence(String seriesId, LocalDateTime occurrenceStart) {
+        long started = metrics.startTimer();
+        try {
+            return attemptOccurrenceCancellation(seriesId, occurrenceStart);
+        } finally {
+            metrics.recordPhase(Operation.CANCEL_OCCURRENCE, Phase.TOTAL, started);
+        }
+    }
+
+    private boolean attemptOccurrenceCancellation(String seriesId, LocalDateTime occurrenceStart) {
+        if (seriesId == null || occurrenceStart == null) {
+            metrics.recordOutcome(Operation.CANCEL_OCCURRENCE, Outcome.INVALID);
+            throw new IllegalArgumentException("Måste ange serie och tillfälle");
+        }
+
+        Optional<String> roomId = findRoomIdForBooking(seriesId);
+        if (roomId.isEmpty()) {
+            metrics.recordOutcome(Operation.CANCEL_OCCURRENCE, Outcome.BOOKING_NOT_FOUND);
+            return false;
+        }
+
+        Booking occurrence;
+        Lock lock = lockFor(roomId.get());
+        lock.lock();
+        try {
+            Optional<Room> roomWithSeries = roomRepository.findById(roomId.get())
+                    .filter(room -> room.hasRecurringBooking(seriesId));
+            if (roomWithSeries.isEmpty()) {
+                roomIdByBookingId.remove(seriesId);
+                metrics.recordOutcome(Operation.CANCEL_OCCURRENCE, Outcome.BOOKING_NOT_FOUND);
+                return false;
+            }
 
-        if (!room.isAvailable(startTime, endTime)) {
+            Room room = roomWithSeries.get();
+            RecurringBooking series = room.getRecurringBooking(seriesId);
+            OptionalLong index = series.indexOf(EpochTime.toEpochNanosSaturated(occurrenceStart));
+            if (index.isEmpty() || series.isCancelled(index.getAsLong())) {
+                metrics.recordOutcome(Operation.CANCEL_OCCURRENCE, Outcome.BOOKING_NOT_FOUND);
+                return false;
+            }
+
+            occurrence = series.occurrence(index.getAsLong());
+            if (occurrence.getStartEpochNanos() < timeProvider.getCurrentEpochNanos()) {
+                metrics.recordOutcome(Operation.CANCEL_OCCURRENCE, Outcome.CANCEL_REJECTED);
+                throw new IllegalStateException("Kan inte avboka påbörjad eller avslutad bokning");
+            }
+
+            RecurringBooking changed = series.withCancelledOccurrence(index.getAsLong());
+            room.addRecurringBooking(changed);
+            saveOrRollBack(room, () -> room.addRecurringBooking(series));
+            if (availabilityEngine != null) {
+                availabilityEngine.recurringBookingsChanged(room);
+            }
+            if (journal != null) {
+                journal.appendSeriesChanged(changed);
+            }
+        } finally {
+            lock.unlock();
+        }
+
+        try {
+            notificationService.sendCancellationConfirmation(occurrence);
+        } catch (NotificationException e) {
+            // Fortsätt även om notifieringen misslyckas
+        }
+
+        metrics.recordOutcome(Operation.CANCEL_OCCURRENCE, Outcome.CANCELLED);
+        return true;
+    }
+
+    // Avbokar alla tillfällen som inte har börjat; redan påbörjade ligger kvar så att historiken stämmer
+    public boolean cancelSeries(String seriesId) {
+        long started = metrics.startTimer();
+        try {
+            return attemptSeriesCancellation(seriesId);
+        } finally {
+            metrics.recordPhase(Operation.CANCEL_SERIES, Phase.TOTAL, started);
+        }
+    }
+
+    private boolean attemptSeriesCancellation(String seriesId) {
+        if (seriesId == null) {
+            metrics.recordOutcome(Operation.CANCEL_SERIES, Outcome.INVALID);
+            throw new IllegalArgumentException("Serie-id kan inte vara null");
+        }
+
+        Optional<String> roomId = findRoomIdForBooking(seriesId);
+        if (roomId.isEmpty()) {
+            metrics.recordOutcome(Operation.CANCEL_SERIES, Outcome.BOOKING_NOT_FOUND);
             return false;
         }
 
-        Booking booking = new Booking(UUID.randomUUID().toString(), roomId, startTime, endTime);
-        room.addBooking(booking);
-        roomRepository.save(room);
+        Booking firstCancelled;
+        Lock lock = lockFor(roomId.get());
+        lock.lock();
+        try {
+            Optional<Room> roomWithSeries = roomRepository.findById(roomId.get())
+                    .filter(room -> room.hasRecurringBooking(seriesId));
+            if (roomWithSeries.isEmpty()) {
+                roomIdByBookingId.remove(seriesId);
+                metrics.recordOutcome(Operation.CANCEL_SERIES, Outcome.BOOKING_NOT_FOUND);
+                return false;
+            }
+
+            Room room = roomWithSeries.get();
+            RecurringBooking series = room.getRecurringBooking(seriesId);
+            long now = timeProvider.getCurrentEpochNanos();
+            OptionalLong firstUpcoming = series.firstIndexStartingAtOrAfter(now);
+            if (firstUpcoming.isEmpty()) {
+                metrics.recordOutcome(Operation.CANCEL_SERIES, Outcome.CANCEL_REJECTED);
+                throw new IllegalStateException("Alla tillfällen i serien har redan börjat");
+            }
+            firstCancelled = series.occurrence(firstUpcoming.getAsLong());
+
+            if (firstUpcoming.getAsLong() == 0) {
+                room.removeRecurringBooking(seriesId);
+                saveOrRollBack(room, () -> room.addRecurringBooking(series));
+                roomIdByBookingId.remove(seriesId);
+                if (journal != null) {
+                    journal.appendSeriesCancelled(series);
+                }
+            } else {
+                RecurringBooking ended = series.endingBefore(firstUpcoming.getAsLong());
+                room.addRecurringBooking(ended);
+                saveOrRollBack(room, () -> room.addRecurringBooking(series));
+                if (journal != null) {
+                    journal.appendSeriesChanged(ended);
+                }
+            }
+            if (availabilityEngine != null) {
+                availabilityEngine.recurringBookingsChanged(room);
+            }
+        } finally {
+            lock.unlock();
+        }
 
         try {
-            notificationService.sendBookingConfirmation(booking);
+            notificationService.sendCancellationConfirmation(firstCancelled);
         } catch (NotificationException e) {
             // Fortsätt även om notifieringen misslyckas
         }
 
+        metrics.recordOutcome(Operation.CANCEL_SERIES, Outcome.CANCELLED);
         return true;
     }
 
+    public List<BookingResult> bookRooms(List<BookingRequest> requests, BulkBookingMode mode) {
+        long started = metrics.startTimer();
+        try {
+            List<BookingResult> results = attemptBookings(requests, mode);
+            if (metrics.isEnabled()) {
+                results.forEach(result -> metrics.recordOutcome(Operation.BOOK_ROOMS, outcomeOf(result)));
+            }
+            return results;
+        } finally {
+            metrics.recordPhase(Operation.BOOK_ROOMS, Phase.TOTAL, started);
+        }
+    }
+
+    private List<BookingResult> attemptBookings(List<BookingRequest> requests, BulkBookingMode mode) {
+        if (requests == null || mode == null) {
+            throw new IllegalArgumentException("Måste ange bokningsförfrågningar och läge");
+        }
+
+        BookingResult[] results = new BookingResult[requests.size()];
+        Map<String, List<Integer>> requestIndexesByRoom = new LinkedHashMap<>();
+        for (int i = 0; i < requests.size(); i++) {
+            BookingRequest request = requests.get(i);
+            try {
+                if (request == null) {
+                    throw new IllegalArgumentException("Bokning kräver giltiga start- och sluttider samt rum-id");
+                }
+                validateBooking(Operation.BOOK_ROOMS, request.getRoomId(), request.getStartTime(), request.getEndTime());
+                requestIndexesByRoom.computeIfAbsent(request.getRoomId(), roomId -> new ArrayList<>()).add(i);
+            } catch (IllegalArgumentException e) {
+                results[i] = BookingResult.failed(request, BookingResult.Status.INVALID, e.getMessage());
+            }
+        }
+
+        List<Booking> booked = new ArrayList<>();
+        if (mode == BulkBookingMode.ATOMIC && Arrays.stream(results).anyMatch(Objects::nonNull)) {
+            abortRemaining(requests, results);
+        } else if (mode == BulkBookingMode.ATOMIC) {
+            // Alla berörda rum låses i fast ordning så att samtidiga bulkbokningar inte kan låsa varandra
+            List<Lock> locks = locksFor(requestIndexesByRoom.keySet());
+            locks.forEach(Lock::lock);
+            try {
+                List<PlannedBookings> plans = new ArrayList<>();
+                for (Map.Entry<String, List<Integer>> group : requestIndexesByRoom.entrySet()) {
+                    planGroup(group.getKey(), group.getValue(), requests, results).ifPresent(plans::add);
+                }
+
+                if (Arrays.stream(results).allMatch(BookingResult::isBooked)) {
+                    persistAll(plans);
+                    plans.forEach(plan -> booked.addAll(publish(plan)));
+                } else {
+                    abortRemaining(requests, results);
+                }
+            } finally {
+                locks.forEach(Lock::unlock);
+            }
+        } else {
+            for (Map.Entry<String, List<Integer>> group : requestIndexesByRoom.entrySet()) {
+                Lock lock = lockFor(group.getKey());
+                lock.lock();
+                try {
+                    planGroup(group.getKey(), group.getValue(), requests, results)
+                            .ifPresent(plan -> {
+                                persist(plan);
+                                booked.addAll(publish(plan));
+                            });
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+
+        long notificationStarted = metrics.startTimer();
+        for (Booking booking : booked) {
+            try {
+                notificationService.sendBookingConfirmation(booking);
+            } catch (NotificationException e) {
+                // Fortsätt även om notifieringen misslyckas
+            }
+        }
+        metrics.recordPhase(Operation.BOOK_ROOMS, Phase.NOTIFICATION, notificationStarted);
+
+        return Arrays.asList(results);
+    }
+
     public List<Room> getAvailableRooms(LocalDateTime startTime, LocalDateTime endTime) {
-        if (startTime == null || endTime == null) {
-            throw new IllegalArgumentException("Måste ange både start- och sluttid");
+        long started = metrics.startTimer();
+        try {
+            return queryAvailableRooms(startTime, endTime, started);
+        } finally {
+            metrics.recordPhase(Operation.GET_AVAILABLE_ROOMS, Phase.TOTAL, started);
         }
+    }
 
-        if (endTime.isBefore(startTime)) {
-            throw new IllegalArgumentException("Sluttid måste vara efter starttid");
+    private List<Room> queryAvailableRooms(LocalDateTime startTime, LocalDateTime endTime, long started) {
+        validateAvailabilityQuery(startTime, endTime);
+        long phaseStarted = metrics.recordPhase(Operation.GET_AVAILABLE_ROOMS, Phase.VALIDATION, started);
+
+        if (availabilityEngine != null) {
+            List<Room> available = availabilityEngine.findAvailableRooms(startTime, endTime);
+            metrics.recordPhase(Operation.GET_AVAILABLE_ROOMS, Phase.AVAILABILITY_CHECK, phaseStarted);
+            return available;
         }
 
-        return roomRepository.findAll().stream()
+        List<Room> rooms = roomRepository.findAll();
+        phaseStarted = metrics.recordPhase(Operation.GET_AVAILABLE_ROOMS, Phase.FIND_ALL, phaseStarted);
+        List<Room> available = rooms.stream()
                 .filter(room -> room.isAvailable(startTime, endTime))
                 .collect(Collectors.toList());
+        metrics.recordPhase(Operation.GET_AVAILABLE_ROOMS, Phase.AVAILABILITY_CHECK, phaseStarted);
+        return available;
     }
 
-    public boolean cancelBooking(String bookingId) {
+    public Map<TimeWindow, List<Room>> getAvailableRooms(List<TimeWindow> windows) {
+        return getAvailableRooms(windows, ForkJoinPool.commonPool());
+    }
+
+    // Alla fönster utvärderas i ett svep över rummen, uppdelat på poolens trådar
+    public Map<TimeWindow, List<Room>> getAvailableRooms(List<TimeWindow> windows, ForkJoinPool pool) {
+        if (windows == null || pool == null || windows.stream().anyMatch(Objects::isNull)) {
+            throw new IllegalArgumentException("Måste ange tidsfönster och trådpool");
+        }
+
+        long[] starts = new long[windows.size()];
+        long[] ends = new long[windows.size()];
+        for (int i = 0; i < windows.size(); i++) {
+            starts[i] = EpochTime.toEpochNanosSaturated(windows.get(i).getStartTime());
+            ends[i] = EpochTime.toEpochNanosSaturated(windows.get(i).getEndTime());
+        }
+
+        List<Room> rooms = roomRepository.findAll();
+        int threshold = Math.max(64, rooms.size() / (pool.getParallelism() * 8));
+        ParallelAvailabilityTask task = new ParallelAvailabilityTask(rooms, starts, ends, threshold);
+        pool.invoke(task);
+
+        List<List<Room>> availableByWindow = new ArrayList<>(windows.size());
+        for (int window = 0; window < windows.size(); window++) {
+            availableByWindow.add(new ArrayList<>());
+        }
+        task.collect(availableByWindow);
+
+        Map<TimeWindow, List<Room>> availableRooms = new LinkedHashMap<>();
+        for (int window = 0; window < windows.size(); window++) {
+            availableRooms.put(windows.get(window), availableByWindow.get(window));
+        }
+        return availableRooms;
+    }
+
+    // Rummen hämtas i bitar från repositoryt först när strömmen konsumeras, t.ex. findFirst() eller limit(5)
+    public Stream<Room> streamAvailableRooms(LocalDateTime startTime, LocalDateTime endTime) {
+        validateAvailabilityQuery(startTime, endTime);
+
+        return streamRoomsAfter(null)
+                .filter(room -> room.isAvailable(startTime, endTime));
+    }
+
+    public AvailableRoomsPage getAvailableRooms(LocalDateTime startTime, LocalDateTime endTime, int limit, String cursor) {
+        validateAvailabilityQuery(startTime, endTime);
+        if (limit < 1) {
+            throw new IllegalArgumentException("Antal rum per sida måste vara minst 1");
+        }
+
+        List<Room> rooms = streamRoomsAfter(cursor)
+                .filter(room -> room.isAvailable(startTime, endTime))
+                .limit(limit)
+                .collect(Collectors.toList());
+        String nextCursor = rooms.size() == limit ? rooms.get(limit - 1).getId() : null;
+        return new AvailableRoomsPage(rooms, nextCursor);
+    }
+
+    public Optional<AvailableSlot> findNextAvailableSlot(String roomId, Duration duration, LocalDateTime from, LocalDateTime until) {
+        if (roomId == null || until == null) {
+            throw new IllegalArgumentException("Måste ange rum-id och senaste sluttid");
+        }
+        long durationNanos = validateSlotSearch(duration, from);
+
+        Room room = roomRepository.findById(roomId)
+                .orElseThrow(() -> new IllegalArgumentException("Rummet existerar inte"));
+        long latestStart = EpochTime.saturatedSubtract(EpochTime.toEpochNanosSaturated(until), durationNanos);
+        return firstFreeSlot(room, durationNanos, earliestBookableStart(from), latestStart);
+    }
+
+    public Optional<AvailableSlot> findEarliestSlotAcrossRooms(Duration duration, LocalDateTime from) {
+        List<AvailableSlot> earliest = findEarliestSlotsAcrossRooms(duration, from, 1);
+        return earliest.isEmpty() ? Optional.empty() : Optional.of(earliest.get(0));
+    }
+
+    public List<AvailableSlot> findEarliestSlotsAcrossRooms(Duration duration, LocalDateTime from, int limit) {
+        long durationNanos = validateSlotSearch(duration, from);
+        if (limit < 1) {
+            throw new IllegalArgumentException("Antal tider måste vara minst 1");
+        }
+
+        long start = earliestBookableStart(from);
+        // Max-heap med de limit bästa hittills; ett rum behöver bara slå den sämsta av dem
+        PriorityQueue<AvailableSlot> best = new PriorityQueue<>(
+                Comparator.comparing(AvailableSlot::getStartTime).thenComparing(AvailableSlot::getRoomId).reversed());
+        Iterator<Room> rooms = new RoomChunkIterator(roomRepository, null);
+        while (rooms.hasNext()) {
+            Room room = rooms.next();
+            long latestStart = best.size() < limit
+                    ? Long.MAX_VALUE
+                    : EpochTime.toEpochNanosSaturated(best.peek().getStartTime());
+            Optional<AvailableSlot> slot = firstFreeSlot(room, durationNanos, start, latestStart);
+            if (slot.isEmpty()) {
+                continue;
+            }
+            best.add(slot.get());
+            if (best.size() > limit) {
+                best.poll();
+            }
+            // Ingen tid kan bli tidigare än sökningens start, så fulla träffar där avslutar sökningen
+            if (best.size() == limit && EpochTime.toEpochNanosSaturated(best.peek().getStartTime()) == start) {
+                break;
+            }
+        }
+
+        List<AvailableSlot> result = new ArrayList<>(best);
+        result.sort(Comparator.comparing(AvailableSlot::getStartTime).thenComparing(AvailableSlot::getRoomId));
+        return result;
+    }
+
+    // Letar först bland aktuella bokningar och därefter i arkivet
+    public Optional<Booking> findBooking(String bookingId) {
         if (bookingId == null) {
             throw new IllegalArgumentException("Boknings-id kan inte vara null");
         }
 
-        Optional<Room> roomWithBooking = roomRepository.findAll().stream()
+        String roomId = roomIdByBookingId.get(bookingId);
+        if (roomId != null) {
+            Optional<Booking> live = roomRepository.findById(roomId)
+                    .filter(room -> room.hasBooking(bookingId))
+                    .map(room -> room.getBooking(bookingId));
+            if (live.isPresent()) {
+                return live;
+            }
+        }
+
+        if (archive != null) {
+            Optional<Booking> archived = archive.findById(bookingId);
+            if (archived.isPresent()) {
+                return archived;
+            }
+        }
+
+        return roomRepository.findByBookingId(bookingId)
                 .filter(room -> room.hasBooking(bookingId))
-                .findFirst();
+                .map(room -> room.getBooking(bookingId));
+    }
 
-        if (roomWithBooking.isEmpty()) {
-            return false;
+    public boolean hasArchive() {
+        return archive != null;
+    }
+
+    public int archiveExpiredBookings(Duration retention) {
+        if (retention == null || retention.isNegative()) {
+            throw new IllegalArgumentException("Kvarhållningstiden kan inte vara negativ");
+        }
+        if (archive == null) {
+            throw new IllegalStateException("Inget arkiv är valt, ange ett med BookingSystem.Builder.archive");
+        }
+        long cutoff = EpochTime.saturatedSubtract(timeProvider.getCurrentEpochNanos(), retention.toNanos());
+
+        int archived = 0;
+        Iterator<Room> rooms = new RoomChunkIterator(roomRepository, null);
+        while (rooms.hasNext()) {
+            String roomId = rooms.next().getId();
+            Lock lock = lockFor(roomId);
+            lock.lock();
+            try {
+                Optional<Room> room = roomRepository.findById(roomId);
+                if (room.isEmpty()) {
+                    continue;
+                }
+                List<Booking> expired = room.get().getBookingsEndingBefore(cutoff);
+                if (expired.isEmpty()) {
+                    continue;
+                }
+
+                // Arkivet skrivs före borttagningen så att en uppslagning alltid hittar bokningen på något av ställena
+                archive.archive(expired);
+                for (Booking booking : expired) {
+                    room.get().removeBooking(booking.getId());
+                }
+                saveOrRollBack(room.get(), () -> expired.forEach(room.get()::addBooking));
+                for (Booking booking : expired) {
+                    roomIdByBookingId.remove(booking.getId());
+                    if (availabilityEngine != null) {
+                        availabilityEngine.bookingRemoved(room.get(), booking);
+                    }
+                    if (journal != null) {
+                        journal.appendArchived(booking);
+                    }
+                }
+                archived += expired.size();
+            } finally {
+                lock.unlock();
+            }
+        }
+        return archived;
+    }
+
+    public boolean cancelBooking(String bookingId) {
+        long started = metrics.startTimer();
+        try {
+            return attemptCancellation(bookingId, started);
+        } finally {
+            metrics.recordPhase(Operation.CANCEL_BOOKING, Phase.TOTAL, started);
+        }
+    }
+
+    private boolean attemptCancellation(String bookingId, long started) {
+        if (bookingId == null) {
+            metrics.recordOutcome(Operation.CANCEL_BOOKING, Outcome.INVALID);
+            throw new IllegalArgumentException("Boknings-id kan inte vara null");
         }
+        long phaseStarted = metrics.recordPhase(Operation.CANCEL_BOOKING, Phase.VALIDATION, started);
 
-        Room room = roomWithBooking.get();
-        Booking booking = room.getBooking(bookingId);
+        Optional<String> roomId = findRoomIdForBooking(bookingId);
 
-        if (booking.getStartTime().isBefore(timeProvider.getCurrentTime())) {
-            throw new IllegalStateException("Kan inte avboka påbörjad eller avslutad bokning");
+        if (roomId.isEmpty()) {
+            metrics.recordOutcome(Operation.CANCEL_BOOKING, Outcome.BOOKING_NOT_FOUND);
+            return false;
         }
 
-        room.removeBooking(bookingId);
-        roomRepository.save(room);
+        // Ett serie-id avbokar hela serien; kontrollen görs om under seriens lås
+        if (roomRepository.findById(roomId.get()).filter(room -> room.hasRecurringBooking(bookingId)).isPresent()) {
+            return cancelSeries(bookingId);
+        }
+
+        Booking booking;
+        Lock lock = lockFor(roomId.get());
+        lock.lock();
+        try {
+            phaseStarted = metrics.recordPhase(Operation.CANCEL_BOOKING, Phase.LOCK_WAIT, phaseStarted);
+            Optional<Room> roomWithBooking = roomRepository.findById(roomId.get())
+                    .filter(room -> room.hasBooking(bookingId));
+            phaseStarted = metrics.recordPhase(Operation.CANCEL_BOOKING, Phase.FIND_ROOM, phaseStarted);
+
+            if (roomWithBooking.isEmpty()) {
+                removeStaleIndexEntry(roomId.get(), bookingId);
+                metrics.recordOutcome(Operation.CANCEL_BOOKING, Outcome.BOOKING_NOT_FOUND);
+                return false;
+            }
+
+            Room room = roomWithBooking.get();
+            booking = room.getBooking(bookingId);
+
+            if (booking.getStartEpochNanos() < timeProvider.getCurrentEpochNanos()) {
+                metrics.recordOutcome(Operation.CANCEL_BOOKING, Outcome.CANCEL_REJECTED);
+                throw new IllegalStateException("Kan inte avboka påbörjad eller avslutad bokning");
+            }
+
+            room.removeBooking(bookingId);
+            saveOrRollBack(room, () -> room.addBooking(booking));
+            roomIdByBookingId.remove(bookingId);
+            if (availabilityEngine != null) {
+                availabilityEngine.bookingRemoved(room, booking);
+            }
+            if (journal != null) {
+                journal.appendCancelled(booking);
+            }
+            phaseStarted = metrics.recordPhase(Operation.CANCEL_BOOKING, Phase.SAVE, phaseStarted);
+        } finally {
+            lock.unlock();
+        }
 
         try {
             notificationService.sendCancellationConfirmation(booking);
         } catch (NotificationException e) {
             // Fortsätt även om notifieringen misslyckas
         }
+        metrics.recordPhase(Operation.CANCEL_BOOKING, Phase.NOTIFICATION, phaseStarted);
 
+        metrics.recordOutcome(Operation.CANCEL_BOOKING, Outcome.CANCELLED);
         return true;
     }
-}
 
-// Stödklasser och interface som behövs:
+    private void validateAvailabilityQuery(LocalDateTime startTime, LocalDateTime endTime) {
+        if (startTime == null || endTime == null) {
+            metrics.recordOutcome(Operation.GET_AVAILABLE_ROOMS, Outcome.INVALID);
+            throw new IllegalArgumentException("Måste ange både start- och sluttid");
+        }
+
+        if (endTime.isBefore(startTime)) {
+            metrics.recordOutcome(Operation.GET_AVAILABLE_ROOMS, Outcome.INVALID);
+            throw new IllegalArgumentException("Sluttid måste vara efter starttid");
+        }
+    }
+
+    private long validateSlotSearch(Duration duration, LocalDateTime from) {
+        if (duration == null || from == null) {
+            throw new IllegalArgumentException("Måste ange längd och tidigaste starttid");
+        }
+        if (duration.isNegative()) {
+            throw new IllegalArgumentException("Längden kan inte vara negativ");
+        }
+        return duration.toNanos();
+    }
+
+    private long earliestBookableStart(LocalDateTime from) {
+        // Tider före nu kan ändå inte bokas
+        return Math.max(EpochTime.toEpochNanosSaturated(from), timeProvider.getCurrentEpochNanos());
+    }
+
+    private static Optional<AvailableSlot> firstFreeSlot(Room room, long durationNanos, long from, long latestStart) {
+        OptionalLong start = room.findFirstFreeStart(from, durationNanos, latestStart);
+        if (start.isEmpty()) {
+            return Optional.empty();
+        }
+        long end = EpochTime.saturatedAdd(start.getAsLong(), durationNanos);
+        return Optional.of(new AvailableSlot(room.getId(),
+                EpochTime.toLocalDateTime(start.getAsLong()), EpochTime.toLocalDateTime(end)));
+    }
+
+    private Stream<Room> streamRoomsAfter(String cursor) {
+        Iterator<Room> rooms = new RoomChunkIterator(roomRepository, cursor);
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(rooms, Spliterator.ORDERED | Spliterator.NONNULL), false);
+    }
+
+    private void validateBooking(Operation operation, String roomId, LocalDateTime startTime, LocalDateTime endTime) {
+        try {
+            validateBooking(roomId, startTime, endTime);
+        } catch (IllegalArgumentException e) {
+            metrics.recordOutcome(operation, Outcome.INVALID);
+            throw e;
+        }
+    }
+
+    private void validateBooking(String roomId, LocalDateTime startTime, LocalDateTime endTime) {
+        if (startTime == null || endTime == null || roomId == null) {
+            throw new IllegalArgumentException("Bokning kräver giltiga start- och sluttider samt rum-id");
+        }
+
+        long start = EpochTime.toEpochNanos(startTime);
+        if (start < timeProvider.getCurrentEpochNanos()) {
+            throw new IllegalArgumentException("Kan inte boka tid i dåtid");
+        }
+
+        if (EpochTime.toEpochNanos(endTime) < start) {
+            throw new IllegalArgumentException("Sluttid måste vara efter starttid");
+        }
+    }
+
+    private Optional<PlannedBookings> planGroup(String roomId,
+                                                List<Integer> requestIndexes,
+                                                List<BookingRequest> requests,
+                                                BookingResult[] results) {
+        Optional<Room> room = roomRepository.findById(roomId);
+        if (room.isEmpty()) {
+            for (int i : requestIndexes) {
+                results[i] = BookingResult.failed(requests.get(i), BookingResult.Status.ROOM_NOT_FOUND, "Rummet existerar inte");
+            }
+            return Optional.empty();
+        }
+
+        // Förfrågningar i samma batch kan krocka med varandra, de godkända samlas i ett eget index
+        Room acceptedInBatch = new Room(roomId, room.get().getName());
+        List<Booking> bookings = new ArrayList<>();
+        for (int i : requestIndexes) {
+            BookingRequest request = requests.get(i);
+            if (room.get().isAvailable(request.getStartTime(), request.getEndTime())
+                    && acceptedInBatch.isAvailable(request.getStartTime(), request.getEndTime())) {
+                Booking booking = new Booking(idGenerator.nextId(), roomId, request.getStartTime(), request.getEndTime());
+                acceptedInBatch.addBooking(booking);
+                bookings.add(booking);
+                results[i] = BookingResult.booked(request, booking);
+            } else {
+                results[i] = BookingResult.failed(request, BookingResult.Status.UNAVAILABLE, "Rummet är redan bokat");
+            }
+        }
+        return Optional.of(new PlannedBookings(room.get(), bookings));
+    }
+
+    // Sparar alla rum eller inget: misslyckas ett rum tas bokningarna bort igen ur de rum som redan sparats
+    private void persistAll(List<PlannedBookings> plans) {
+        List<PlannedBookings> persisted = new ArrayList<>();
+        try {
+            for (PlannedBookings plan : plans) {
+                persist(plan);
+                persisted.add(plan);
+            }
+        } catch (RuntimeException e) {
+            for (PlannedBookings plan : persisted) {
+                try {
+                    plan.bookings.forEach(booking -> plan.room.removeBooking(booking.getId()));
+                    roomRepository.save(plan.room);
+                } catch (RuntimeException rollbackFailure) {
+                    e.addSuppressed(rollbackFailure);
+                }
+            }
+            throw e;
+        }
+    }
+
+    private void persist(PlannedBookings plan) {
+        if (plan.bookings.isEmpty()) {
+            return;
+        }
+        for (Booking booking : plan.bookings) {
+            plan.room.addBooking(booking);
+        }
+        saveOrRollBack(plan.room, () -> plan.bookings.forEach(booking -> plan.room.removeBooking(booking.getId())));
+    }
+
+    // Index, motor och journal uppdateras först när bokningarna är sparade
+    private List<Booking> publish(PlannedBookings plan) {
+        for (Booking booking : plan.bookings) {
+            roomIdByBookingId.put(booking.getId(), plan.room.getId());
+            if (availabilityEngine != null) {
+                availabilityEngine.bookingAdded(plan.room, booking);
+            }
+            if (journal != null) {
+                journal.appendCreated(booking);
+            }
+        }
+        return plan.bookings;
+    }
+
+    // Rummet ändras före save; misslyckas sparningen återställs ändringen så att ingen ser en bokning som aldrig sparats
+    private void saveOrRollBack(Room room, Runnable rollback) {
+        try {
+            roomRepository.save(room);
+        } catch (RuntimeException e) {
+            rollback.run();
+            throw e;
+        }
+    }
+
+    private IllegalArgumentException roomNotFound(Operation operation) {
+        metrics.recordOutcome(operation, Outcome.ROOM_NOT_FOUND);
+        return new IllegalArgumentException("Rummet existerar inte");
+    }
+
+    private static Outcome outcomeOf(BookingResult result) {
+        return switch (result.getStatus()) {
+            case BOOKED -> Outcome.BOOKED;
+            case UNAVAILABLE -> Outcome.DOUBLE_BOOKED;
+            case ROOM_NOT_FOUND -> Outcome.ROOM_NOT_FOUND;
+            case INVALID -> Outcome.INVALID;
+            case ABORTED -> Outcome.ABORTED;
+        };
+    }
+
+    private static void abortRemaining(List<BookingRequest> requests, BookingResult[] results) {
+        for (int i = 0; i < results.length; i++) {
+            if (results[i] == null || results[i].isBooked()) {
+                results[i] = BookingResult.failed(requests.get(i), BookingResult.Status.ABORTED,
+                        "Bokningen avbröts eftersom en annan förfrågan misslyckades");
+            }
+        }
+    }
+
+    // Indexet delas av bokningar och serier, så posten tas bara bort om id:t inte heller är en serie i rummet
+    private void removeStaleIndexEntry(String roomId, String bookingId) {
+        boolean series = roomRepository.findById(roomId)
+                .filter(room -> room.hasRecurringBooking(bookingId))
+                .isPresent();
+        if (!series) {
+            roomIdByBookingId.remove(bookingId);
+        }
+    }
+
+    private Optional<String> findRoomIdForBooking(String bookingId) {
+        String roomId = roomIdByBookingId.get(bookingId);
+        if (roomId != null) {
+            return Optional.of(roomId);
+        }
+
+        // Bokningar gjorda före uppstart (eller av en annan instans) finns inte i indexet
+        return roomRepository.findByBookingId(bookingId).map(Room::getId);
+    }
+
+    private Lock lockFor(String roomId) {
+        return roomLocks[stripeFor(roomId)];
+    }
+
+    private List<Lock> locksFor(Collection<String> roomIds) {
+        return roomIds.stream()
+                .map(this::stripeFor)
+                .distinct()
+                .sorted()
+                .map(stripe -> roomLocks[stripe])
+                .collect(Collectors.toList());
+    }
+
+    private int stripeFor(String roomId) {
+        int hash = roomId.hashCode();
+        return (hash ^ (hash >>> 16)) & (roomLocks.length - 1);
+    }
+
+    private static Lock[] createRoomLocks(int minimumStripes) {
+        Lock[] locks = new Lock[Integer.highestOneBit(Math.max(1, minimumStripes - 1)) << 1];
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        return locks;
+    }
+
+    private static final class RoomChunkIterator implements Iterator<Room> {
+        private final RoomRepository roomRepository;
+        private Iterator<Room> chunk = Collections.emptyIterator();
+        private String lastRoomId;
+        private boolean exhausted;
+
+        private RoomChunkIterator(RoomRepository roomRepository, String cursor) {
+            this.roomRepository = roomRepository;
+            this.lastRoomId = cursor;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (!chunk.hasNext() && !exhausted) {
+                List<Room> rooms = roomRepository.findChunk(lastRoomId, ROOM_CHUNK_SIZE);
+                exhausted = rooms.size() < ROOM_CHUNK_SIZE;
+                if (!rooms.isEmpty()) {
+                    lastRoomId = rooms.get(rooms.size() - 1).getId();
+                }
+                chunk = rooms.iterator();
+            }
+            return chunk.hasNext();
+        }
+
+        @Override
+        public Room next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return chunk.next();
+        }
+    }
+
+    private static final class PlannedBookings {
+        private final Room room;
+        private final List<Booking> bookings;
+
+        private PlannedBookings(Room room, List<Booking> bookings) {
+            this.room = room;
+            this.bookings = bookings;
+        }
+    }
+
+    public static final class Builder {
+        private final TimeProvider timeProvider;
+        private final RoomRepository roomRepository;
+        private final NotificationService notificationService;
+        private SlotAvailabilityEngine availabilityEngine;
+        private BookingMetrics metrics = BookingMetrics.NOOP;
+        // Utan arkiv arkiveras inget; i drift rekommenderas FileBookingArchive
+        private BookingArchive archive;
+        // Utan nod-id blir standard slumpade UUID, eftersom Snowflake-id bara är unika när varje process har eget nod-id
+        private BookingIdGenerator idGenerator = BookingIdGenerator.RANDOM_UUID;
+        private BookingJournal journal;
+        private IdempotencyCache idempotencyCache;
+
+        private Builder(TimeProvider timeProvider, RoomRepository roomRepository, NotificationService notificationService) {
+            if (timeProvider == null || roomRepository == null || notificationService == null) {
+                throw new IllegalArgumentException("Måste ange tidskälla, repository och notifieringstjänst");
+            }
+            this.timeProvider = timeProvider;
+            this.roomRepository = roomRepository;
+            this.notificationService = notificationService;
+        }
+
+        // Utan motor söks lediga rum genom att gå igenom repositoryt
+        public Builder availabilityEngine(SlotAvailabilityEngine availabilityEngine) {
+            this.availabilityEngine = availabilityEngine;
+            return this;
+        }
+
+        public Builder metrics(BookingMetrics metrics) {
+            this.metrics = Objects.requireNonNull(metrics);
+            return this;
+        }
+
+        public Builder archive(BookingArchive archive) {
+            this.archive = Objects.requireNonNull(archive);
+            return this;
+        }
+
+        public Builder idGenerator(BookingIdGenerator idGenerator) {
+            this.idGenerator = Objects.requireNonNull(idGenerator);
+            return this;
+        }
+
+        // Ger tidsordnade 64-bitars Snowflake-id; nod-id måste vara unikt bland processer som delar lagring
+        public Builder nodeId(int nodeId) {
+            this.idGenerator = new SnowflakeIdGenerator(nodeId);
+            return this;
+        }
+
+        // Utan journal skrivs inga händelser för läsmodellerna
+        public Builder journal(BookingJournal journal) {
+            this.journal = journal;
+            return this;
+        }
+
+        public Builder idempotencyCache(IdempotencyCache idempotencyCache) {
+            this.idempotencyCache = Objects.requireNonNull(idempotencyCache);
+            return this;
+        }
+
+        // Standardcachen skapas per system så att byggaren kan återanvändas
+        public BookingSystem build() {
+            return new BookingSystem(this);
+        }
+    }
+}
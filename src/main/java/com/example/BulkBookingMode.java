@@ -0,0 +1,7 @@
+package com.example;
+
+public enum BulkBookingMode {
+    // Alla bokningar eller ingen; misslyckas sparningen av ett rum återställs de rum som redan sparats
+    ATOMIC,
+    BEST_EFFORT
+}
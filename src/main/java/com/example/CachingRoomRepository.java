@@ -0,0 +1,188 @@
+package com.example;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+public class CachingRoomRepository implements RoomRepository {
+    private static final int VERSION_STRIPES = 1024;
+
+    private final RoomRepository delegate;
+    private final int maxSize;
+    private final Map<String, CachedRoom> cache = new ConcurrentHashMap<>();
+    // Utträdesordning för clock-algoritmen: en post som lästs sedan förra varvet får en ny chans
+    private final Queue<CachedRoom> evictionOrder = new ConcurrentLinkedQueue<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    // Ökas vid skrivning till ett rum så att en samtidig inläsning av just det rummet inte sparas; rum delar version per stripe
+    private final AtomicLongArray writeVersions = new AtomicLongArray(VERSION_STRIPES);
+    private final AtomicLong allRoomsVersion = new AtomicLong();
+    private volatile List<Room> allRoomsSnapshot;
+
+    public CachingRoomRepository(RoomRepository delegate, int maxSize) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Cachestorleken måste vara positiv");
+        }
+        this.delegate = delegate;
+        this.maxSize = maxSize;
+    }
+
+    @Override
+    public Optional<Room> findById(String id) {
+        CachedRoom cached = cache.get(id);
+        if (cached != null) {
+            cached.referenced = true;
+            hits.incrementAndGet();
+            return Optional.of(cached.room);
+        }
+
+        misses.incrementAndGet();
+        int stripe = stripeOf(id);
+        long version = writeVersions.get(stripe);
+        Optional<Room> room = delegate.findById(id);
+        room.ifPresent(loaded -> {
+            if (writeVersions.get(stripe) != version) {
+                return;
+            }
+            CachedRoom entry = new CachedRoom(id, loaded);
+            if (cache.putIfAbsent(id, entry) == null) {
+                // En skrivning kan ha hunnit emellan kontrollen och insättningen
+                if (writeVersions.get(stripe) != version) {
+                    cache.remove(id, entry);
+                } else {
+                    admitted(entry);
+                }
+            }
+        });
+        return room;
+    }
+
+    @Override
+    public List<Room> findAll() {
+        List<Room> snapshot = allRoomsSnapshot;
+        if (snapshot != null) {
+            hits.incrementAndGet();
+            return new ArrayList<>(snapshot);
+        }
+
+        misses.incrementAndGet();
+        long version = allRoomsVersion.get();
+        List<Room> rooms = delegate.findAll();
+        if (allRoomsVersion.get() == version) {
+            allRoomsSnapshot = List.copyOf(rooms);
+            if (allRoomsVersion.get() != version) {
+                allRoomsSnapshot = null;
+            }
+        }
+        return new ArrayList<>(rooms);
+    }
+
+    // Sidvisa genomläsningar går direkt till källan så att de inte trycker ut de heta rummen ur cachen
+    @Override
+    public List<Room> findChunk(String afterRoomId, int limit) {
+        return delegate.findChunk(afterRoomId, limit);
+    }
+
+    @Override
+    public void save(Room room) {
+        int stripe = stripeOf(room.getId());
+        try {
+            delegate.save(room);
+        } catch (RuntimeException e) {
+            // Rummet kan redan vara ändrat av anroparen; nästa läsning ska hämta det som faktiskt sparats
+            writeVersions.incrementAndGet(stripe);
+            cache.remove(room.getId());
+            invalidateAllRooms();
+            throw e;
+        }
+
+        writeVersions.incrementAndGet(stripe);
+        CachedRoom[] inserted = new CachedRoom[1];
+        cache.compute(room.getId(), (id, existing) -> {
+            if (existing == null) {
+                inserted[0] = new CachedRoom(id, room);
+                return inserted[0];
+            }
+            existing.room = room;
+            existing.referenced = true;
+            return existing;
+        });
+        if (inserted[0] != null) {
+            admitted(inserted[0]);
+        }
+        invalidateAllRooms();
+    }
+
+    public void invalidateAll() {
+        for (int stripe = 0; stripe < VERSION_STRIPES; stripe++) {
+            writeVersions.incrementAndGet(stripe);
+        }
+        cache.clear();
+        evictionOrder.clear();
+        invalidateAllRooms();
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    public int size() {
+        return cache.size();
+    }
+
+    private void invalidateAllRooms() {
+        allRoomsVersion.incrementAndGet();
+        allRoomsSnapshot = null;
+    }
+
+    private void admitted(CachedRoom entry) {
+        evictionOrder.add(entry);
+        while (cache.size() > maxSize) {
+            CachedRoom candidate = evictionOrder.poll();
+            if (candidate == null) {
+                return;
+            }
+            if (cache.get(candidate.id) != candidate) {
+                // Ersatt eller redan borttagen post ligger kvar i kön, den räknas inte
+                continue;
+            }
+            if (candidate.referenced) {
+                candidate.referenced = false;
+                evictionOrder.add(candidate);
+            } else if (cache.remove(candidate.id, candidate)) {
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    private static int stripeOf(String id) {
+        return Math.floorMod(id.hashCode(), VERSION_STRIPES);
+    }
+
+    private static final class CachedRoom {
+        private final String id;
+        private volatile Room room;
+        private volatile boolean referenced;
+
+        private CachedRoom(String id, Room room) {
+            this.id = id;
+            this.room = room;
+        }
+    }
+}
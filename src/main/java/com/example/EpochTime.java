@@ -0,0 +1,59 @@
+package com.example;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+// Tider lagras som nanosekunder sedan 1970-01-01T00:00 (utan tidszon). Det behåller LocalDateTimes precision
+// men begränsar bokningar till MIN_TIME-MAX_TIME (ungefär åren 1677-2262); tider utanför avvisas.
+public final class EpochTime {
+    private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
+    public static final LocalDateTime MIN_TIME = toLocalDateTime(Long.MIN_VALUE);
+    public static final LocalDateTime MAX_TIME = toLocalDateTime(Long.MAX_VALUE);
+
+    private EpochTime() {
+    }
+
+    public static long toEpochNanos(LocalDateTime time) {
+        try {
+            return exactEpochNanos(time.toEpochSecond(ZoneOffset.UTC), time.getNano());
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException(
+                    "Tiden ligger utanför det intervall som stöds (" + MIN_TIME + " till " + MAX_TIME + ")");
+        }
+    }
+
+    public static long toEpochNanosSaturated(LocalDateTime time) {
+        long seconds = time.toEpochSecond(ZoneOffset.UTC);
+        try {
+            return exactEpochNanos(seconds, time.getNano());
+        } catch (ArithmeticException e) {
+            return seconds < 0 ? Long.MIN_VALUE : Long.MAX_VALUE;
+        }
+    }
+
+    // Negativa sekunder räknas från sekunden efter så att MIN_TIME inte svämmar över innan nanosekunderna läggs till
+    private static long exactEpochNanos(long seconds, int nanos) {
+        if (seconds < 0) {
+            return Math.addExact(Math.multiplyExact(seconds + 1, NANOS_PER_SECOND), nanos - NANOS_PER_SECOND);
+        }
+        return Math.addExact(Math.multiplyExact(seconds, NANOS_PER_SECOND), nanos);
+    }
+
+    public static LocalDateTime toLocalDateTime(long epochNanos) {
+        return LocalDateTime.ofEpochSecond(
+                Math.floorDiv(epochNanos, NANOS_PER_SECOND),
+                (int) Math.floorMod(epochNanos, NANOS_PER_SECOND),
+                ZoneOffset.UTC);
+    }
+
+    public static long saturatedSubtract(long time, long nanos) {
+        long result = time - nanos;
+        return ((time ^ nanos) & (time ^ result)) < 0 ? Long.MIN_VALUE : result;
+    }
+
+    public static long saturatedAdd(long time, long nanos) {
+        long result = time + nanos;
+        return ((time ^ result) & (nanos ^ result)) < 0 ? Long.MAX_VALUE : result;
+    }
+}
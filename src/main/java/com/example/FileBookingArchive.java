@@ -0,0 +1,234 @@
+package com.example;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.zip.CRC32;
+
+// Arkiv på disk som bara växer. I minnet hålls endast en hashtabell med 64-bitars hash av id och filposition,
+// 16 byte per bokning; själva bokningen läses från filen vid uppslagning. archive() returnerar först när
+// posterna är synkade till disk, så bokningarna kan därefter tas bort ur rummens lagring.
+public class FileBookingArchive implements BookingArchive, AutoCloseable {
+    private static final int RECORD_HEADER_SIZE = 8;
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private final FileChannel channel;
+    private long endPosition;
+    // Öppen adressering: hash 0 betyder tom plats, därför mappas hash 0 till 1
+    private long[] hashes = new long[INITIAL_CAPACITY];
+    private long[] positions = new long[INITIAL_CAPACITY];
+    private int count;
+
+    public FileBookingArchive(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        this.channel = FileChannel.open(directory.resolve("bookings.archive"),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.endPosition = load();
+    }
+
+    @Override
+    public synchronized void archive(Collection<Booking> bookings) {
+        try {
+            ByteArrayOutputStream batch = new ByteArrayOutputStream();
+            long[] batchHashes = new long[bookings.size()];
+            long[] batchPositions = new long[bookings.size()];
+            int added = 0;
+            long position = endPosition;
+            for (Booking booking : bookings) {
+                // En bokning som arkiverats tidigare (t.ex. när borttagningen ur rummet misslyckades) skrivs inte igen
+                if (find(booking.getId()).isPresent()) {
+                    continue;
+                }
+                byte[] record = record(booking);
+                batch.write(record);
+                batchHashes[added] = hash(booking.getId());
+                batchPositions[added] = position;
+                position += record.length;
+                added++;
+            }
+            if (added == 0) {
+                return;
+            }
+
+            ByteBuffer bytes = ByteBuffer.wrap(batch.toByteArray());
+            long writePosition = endPosition;
+            while (bytes.hasRemaining()) {
+                writePosition += channel.write(bytes, writePosition);
+            }
+            channel.force(false);
+
+            endPosition = position;
+            for (int i = 0; i < added; i++) {
+                index(batchHashes[i], batchPositions[i]);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Kunde inte arkivera bokningarna", e);
+        }
+    }
+
+    @Override
+    public synchronized Optional<Booking> findById(String bookingId) {
+        try {
+            return find(bookingId);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Kunde inte läsa arkivet", e);
+        }
+    }
+
+    @Override
+    public synchronized long size() {
+        return count;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        channel.close();
+    }
+
+    private Optional<Booking> find(String bookingId) throws IOException {
+        long hash = hash(bookingId);
+        int mask = hashes.length - 1;
+        for (int slot = spread(hash) & mask; hashes[slot] != 0; slot = (slot + 1) & mask) {
+            if (hashes[slot] == hash) {
+                Booking booking = read(positions[slot]);
+                if (booking.getId().equals(bookingId)) {
+                    return Optional.of(booking);
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    private long load() throws IOException {
+        long position = 0;
+        long size = channel.size();
+        ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_SIZE);
+        CRC32 crc = new CRC32();
+        while (position + RECORD_HEADER_SIZE <= size) {
+            header.clear();
+            readFully(header, position);
+            int length = header.getInt(0);
+            if (length <= 0 || position + RECORD_HEADER_SIZE + length > size) {
+                break;
+            }
+            ByteBuffer payload = ByteBuffer.allocate(length);
+            readFully(payload, position + RECORD_HEADER_SIZE);
+            crc.reset();
+            crc.update(payload.array());
+            if ((int) crc.getValue() != header.getInt(4)) {
+                break;
+            }
+            index(hash(readBooking(payload.rewind()).getId()), position);
+            position += RECORD_HEADER_SIZE + length;
+        }
+
+        // Rester av en avbruten skrivning kapas så att nästa post hamnar direkt efter den sista giltiga
+        if (position < size) {
+            channel.truncate(position);
+        }
+        return position;
+    }
+
+    private Booking read(long position) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(RECORD_HEADER_SIZE);
+        readFully(header, position);
+        ByteBuffer payload = ByteBuffer.allocate(header.getInt(0));
+        readFully(payload, position + RECORD_HEADER_SIZE);
+        return readBooking(payload.rewind());
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Arkivet tog slut mitt i en post");
+            }
+        }
+    }
+
+    private void index(long hash, long position) {
+        if ((count + 1) * 2 > hashes.length) {
+            resize();
+        }
+        int mask = hashes.length - 1;
+        int slot = spread(hash) & mask;
+        while (hashes[slot] != 0) {
+            slot = (slot + 1) & mask;
+        }
+        hashes[slot] = hash;
+        positions[slot] = position;
+        count++;
+    }
+
+    private void resize() {
+        long[] oldHashes = hashes;
+        long[] oldPositions = positions;
+        hashes = new long[oldHashes.length * 2];
+        positions = new long[oldHashes.length * 2];
+        count = 0;
+        for (int i = 0; i < oldHashes.length; i++) {
+            if (oldHashes[i] != 0) {
+                index(oldHashes[i], oldPositions[i]);
+            }
+        }
+    }
+
+    private static byte[] record(Booking booking) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        writeString(out, booking.getId());
+        writeString(out, booking.getRoomId());
+        out.writeLong(booking.getStartEpochNanos());
+        out.writeLong(booking.getEndEpochNanos());
+        byte[] payload = bytes.toByteArray();
+
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        return ByteBuffer.allocate(RECORD_HEADER_SIZE + payload.length)
+                .putInt(payload.length)
+                .putInt((int) crc.getValue())
+                .put(payload)
+                .array();
+    }
+
+    private static Booking readBooking(ByteBuffer payload) {
+        String id = readString(payload);
+        String roomId = readString(payload);
+        return new Booking(id, roomId, payload.getLong(), payload.getLong());
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0xFFFF) {
+            throw new IllegalArgumentException("Id får vara högst 65535 byte");
+        }
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getShort() & 0xFFFF];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static long hash(String id) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < id.length(); i++) {
+            hash = (hash ^ id.charAt(i)) * 0x100000001b3L;
+        }
+        return hash == 0 ? 1 : hash;
+    }
+
+    private static int spread(long hash) {
+        return (int) (hash ^ (hash >>> 32));
+    }
+}
@@ -0,0 +1,599 @@
+package com.example;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Collectors;
+import java.util.zip.CRC32;
+
+public class FileRoomRepository implements RoomRepository, AutoCloseable {
+    private static final int LOG_MAGIC = 0x524F4C47;
+    private static final int SNAPSHOT_MAGIC = 0x524F534E;
+    // Version 2 av ögonblicksbilden har även serier per rum; version 1 läses fortfarande
+    private static final int SNAPSHOT_MAGIC_V2 = 0x524F5332;
+    private static final int LOG_HEADER_SIZE = 12;
+    private static final int RECORD_HEADER_SIZE = 8;
+    private static final int INITIAL_LOG_CAPACITY = 1 << 20;
+
+    private static final byte ROOM_CREATED = 1;
+    private static final byte BOOKING_ADDED = 2;
+    private static final byte BOOKING_REMOVED = 3;
+    private static final byte RECURRING_ADDED = 4;
+    private static final byte RECURRING_REMOVED = 5;
+    private static final byte OCCURRENCE_CANCELLED = 6;
+
+    private final Path directory;
+    private final Path snapshotFile;
+    private final Path snapshotTempFile;
+    private final Path logFile;
+    private final long snapshotThreshold;
+    private final boolean forceOnSave;
+
+    private final ConcurrentNavigableMap<String, Room> rooms = new ConcurrentSkipListMap<>();
+    private final Map<String, String> roomIdByBookingId = new ConcurrentHashMap<>();
+
+    private FileChannel logChannel;
+    private MappedByteBuffer log;
+    private int logPosition;
+    private long generation;
+
+    public FileRoomRepository(Path directory) throws IOException {
+        this(directory, 64L << 20);
+    }
+
+    public FileRoomRepository(Path directory, long snapshotThreshold) throws IOException {
+        this(directory, snapshotThreshold, false);
+    }
+
+    // Med forceOnSave synkas varje save till disken innan den returnerar, så att den även överlever strömavbrott
+    public FileRoomRepository(Path directory, long snapshotThreshold, boolean forceOnSave) throws IOException {
+        Files.createDirectories(directory);
+        this.directory = directory;
+        this.forceOnSave = forceOnSave;
+        this.snapshotFile = directory.resolve("rooms.snapshot");
+        this.snapshotTempFile = directory.resolve("rooms.snapshot.tmp");
+        this.logFile = directory.resolve("rooms.log");
+        this.snapshotThreshold = snapshotThreshold;
+
+        long snapshotGeneration = loadSnapshot();
+        openLog(snapshotGeneration);
+        // Från och med nu samlar rummen sina ändringar så att save bara skriver det som ändrats
+        rooms.values().forEach(Room::trackChanges);
+    }
+
+    @Override
+    public Optional<Room> findById(String id) {
+        return Optional.ofNullable(rooms.get(id));
+    }
+
+    @Override
+    public List<Room> findAll() {
+        return new ArrayList<>(rooms.values());
+    }
+
+    @Override
+    public List<Room> findChunk(String afterRoomId, int limit) {
+        Map<String, Room> remaining = afterRoomId == null ? rooms : rooms.tailMap(afterRoomId, false);
+        return remaining.values().stream()
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public Optional<Room> findByBookingId(String bookingId) {
+        String roomId = roomIdByBookingId.get(bookingId);
+        return roomId == null ? Optional.empty() : findById(roomId);
+    }
+
+    // Utan forceOnSave skrivs loggen till en minnesmappad fil: en sparad ändring överlever att processen kraschar
+    // men inte strömavbrott förrän flush, close eller nästa ögonblicksbild har körts
+    @Override
+    public synchronized void save(Room room) {
+        try {
+            Room stored = rooms.get(room.getId());
+            if (stored == room) {
+                appendChanges(room);
+            } else {
+                appendReplacement(stored, room);
+            }
+
+            if (logPosition >= snapshotThreshold) {
+                snapshot();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Kunde inte spara rummet", e);
+        }
+    }
+
+    // Rummet har sparats förut och spårar sina ändringar; bara de skrivs till loggen.
+    // Misslyckas skrivningen läggs ändringarna tillbaka i rummet så att nästa save försöker igen.
+    private void appendChanges(Room room) throws IOException {
+        String roomId = room.getId();
+        RoomChanges changes = room.drainChanges();
+        boolean appended = false;
+        try {
+            List<byte[]> records = new ArrayList<>();
+            for (Booking booking : changes.getRemovedBookings().values()) {
+                records.add(bookingRemoved(roomId, booking.getId()));
+            }
+            for (Booking booking : changes.getAddedBookings().values()) {
+                records.add(bookingAdded(booking));
+            }
+            for (Map.Entry<String, RecurringBooking> entry : changes.getSeriesBefore().entrySet()) {
+                addSeriesChange(records, roomId, entry.getValue(), changes.getSeriesAfter(entry.getKey()));
+            }
+            appendAll(records);
+            appended = true;
+        } finally {
+            if (!appended) {
+                room.restoreChanges(changes);
+            }
+        }
+
+        for (Booking booking : changes.getRemovedBookings().values()) {
+            roomIdByBookingId.remove(booking.getId());
+        }
+        for (Booking booking : changes.getAddedBookings().values()) {
+            roomIdByBookingId.put(booking.getId(), roomId);
+        }
+        for (Map.Entry<String, RecurringBooking> entry : changes.getSeriesBefore().entrySet()) {
+            indexSeriesChange(roomId, entry.getValue(), changes.getSeriesAfter(entry.getKey()));
+        }
+    }
+
+    // Ett nytt rum, eller en annan instans med samma id, jämförs en gång mot det som senast sparades.
+    // Därefter spårar instansen sina egna ändringar.
+    private void appendReplacement(Room stored, Room room) throws IOException {
+        Collection<Booking> bookings;
+        Collection<RecurringBooking> recurring;
+        synchronized (room) {
+            room.trackChanges();
+            bookings = room.getBookings();
+            recurring = room.getRecurringBookings();
+        }
+
+        List<byte[]> records = new ArrayList<>();
+        Map<String, Booking> storedBookings = new HashMap<>();
+        Map<String, RecurringBooking> storedRecurring = new HashMap<>();
+        if (stored == null) {
+            records.add(roomCreated(room.getId(), room.getName()));
+        } else {
+            stored.getSavedBookings().forEach(booking -> storedBookings.put(booking.getId(), booking));
+            stored.getSavedRecurringBookings().forEach(series -> storedRecurring.put(series.getId(), series));
+        }
+
+        Set<String> currentBookingIds = new HashSet<>();
+        for (Booking booking : bookings) {
+            currentBookingIds.add(booking.getId());
+        }
+        List<String> removedBookingIds = new ArrayList<>();
+        for (String bookingId : storedBookings.keySet()) {
+            if (!currentBookingIds.contains(bookingId)) {
+                records.add(bookingRemoved(room.getId(), bookingId));
+                removedBookingIds.add(bookingId);
+            }
+        }
+        for (Booking booking : bookings) {
+            if (!storedBookings.containsKey(booking.getId())) {
+                records.add(bookingAdded(booking));
+            }
+        }
+
+        Map<String, RecurringBooking> currentRecurring = new HashMap<>();
+        for (RecurringBooking series : recurring) {
+            currentRecurring.put(series.getId(), series);
+        }
+        for (RecurringBooking series : storedRecurring.values()) {
+            if (!currentRecurring.containsKey(series.getId())) {
+                addSeriesChange(records, room.getId(), series, null);
+            }
+        }
+        for (RecurringBooking series : recurring) {
+            addSeriesChange(records, room.getId(), storedRecurring.get(series.getId()), series);
+        }
+        // Misslyckas skrivningen ligger den sparade instansen kvar, så nästa save jämför om från den
+        appendAll(records);
+
+        removedBookingIds.forEach(roomIdByBookingId::remove);
+        for (Booking booking : bookings) {
+            roomIdByBookingId.put(booking.getId(), room.getId());
+        }
+        for (RecurringBooking series : storedRecurring.values()) {
+            if (!currentRecurring.containsKey(series.getId())) {
+                roomIdByBookingId.remove(series.getId());
+            }
+        }
+        for (RecurringBooking series : recurring) {
+            roomIdByBookingId.put(series.getId(), room.getId());
+        }
+        rooms.put(room.getId(), room);
+    }
+
+    private void addSeriesChange(List<byte[]> records, String roomId, RecurringBooking before, RecurringBooking after)
+            throws IOException {
+        if (after == null) {
+            if (before != null) {
+                records.add(recurringRemoved(roomId, before.getId()));
+            }
+            return;
+        }
+
+        if (before != null && sameSchedule(before, after)
+                && after.getCancelledIndexes().containsAll(before.getCancelledIndexes())) {
+            // Oftast har bara ett tillfälle avbokats, då räcker en liten post per undantag
+            for (long index : after.getCancelledIndexes()) {
+                if (!before.isCancelled(index)) {
+                    records.add(occurrenceCancelled(roomId, after.getId(), index));
+                }
+            }
+            return;
+        }
+        if (before != null) {
+            records.add(recurringRemoved(roomId, before.getId()));
+        }
+        records.add(recurringAdded(after));
+    }
+
+    private void indexSeriesChange(String roomId, RecurringBooking before, RecurringBooking after) {
+        if (after != null) {
+            roomIdByBookingId.put(after.getId(), roomId);
+        } else if (before != null) {
+            roomIdByBookingId.remove(before.getId());
+        }
+    }
+
+    private static boolean sameSchedule(RecurringBooking a, RecurringBooking b) {
+        RecurrenceRule ruleA = a.getRule();
+        RecurrenceRule ruleB = b.getRule();
+        return a.getFirstStartEpochNanos() == b.getFirstStartEpochNanos()
+                && a.getDurationNanos() == b.getDurationNanos()
+                && ruleA.getFrequency() == ruleB.getFrequency()
+                && ruleA.getInterval() == ruleB.getInterval()
+                && ruleA.getCount() == ruleB.getCount()
+                && ruleA.getUntil().equals(ruleB.getUntil());
+    }
+
+    public synchronized void snapshot() throws IOException {
+        try (FileChannel channel = FileChannel.open(snapshotTempFile,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel)));
+            out.writeInt(SNAPSHOT_MAGIC_V2);
+            out.writeLong(generation);
+            out.writeInt(rooms.size());
+            for (Room room : rooms.values()) {
+                // Ändringar som ännu inte sparats hör till loggen efter ögonblicksbilden, inte till den
+                Collection<Booking> bookings = room.getSavedBookings();
+                Collection<RecurringBooking> recurring = room.getSavedRecurringBookings();
+                writeString(out, room.getId());
+                writeString(out, room.getName());
+                out.writeInt(bookings.size());
+                for (Booking booking : bookings) {
+                    writeString(out, booking.getId());
+                    out.writeLong(booking.getStartEpochNanos());
+                    out.writeLong(booking.getEndEpochNanos());
+                }
+                out.writeInt(recurring.size());
+                for (RecurringBooking series : recurring) {
+                    writeRecurring(out, series);
+                }
+            }
+            out.flush();
+            channel.force(true);
+        }
+        Files.move(snapshotTempFile, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        // Namnbytet måste ligga på disk innan loggen töms, annars kan ett strömavbrott lämna gammal bild och tom logg
+        forceDirectory();
+
+        // Ögonblicksbilden täcker nu hela loggen, en ny generation börjar om från tom logg
+        startNewLog(generation + 1);
+    }
+
+    private void forceDirectory() throws IOException {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (AccessDeniedException e) {
+            // Alla plattformar låter inte en katalog öppnas, till exempel Windows; där är namnbytet redan synkront
+        }
+    }
+
+    public synchronized void flush() {
+        log.force();
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        log.force();
+        logChannel.close();
+    }
+
+    private long loadSnapshot() throws IOException {
+        if (!Files.exists(snapshotFile)) {
+            return 0;
+        }
+
+        try (FileChannel channel = FileChannel.open(snapshotFile, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            int magic = buffer.getInt();
+            if (magic != SNAPSHOT_MAGIC && magic != SNAPSHOT_MAGIC_V2) {
+                throw new IOException("Ogiltig ögonblicksbild: " + snapshotFile);
+            }
+            long snapshotGeneration = buffer.getLong();
+            int roomCount = buffer.getInt();
+            for (int i = 0; i < roomCount; i++) {
+                String roomId = readString(buffer);
+                applyRoomCreated(roomId, readString(buffer));
+                int bookingCount = buffer.getInt();
+                for (int j = 0; j < bookingCount; j++) {
+                    applyBookingAdded(new Booking(readString(buffer), roomId, buffer.getLong(), buffer.getLong()));
+                }
+                int seriesCount = magic == SNAPSHOT_MAGIC_V2 ? buffer.getInt() : 0;
+                for (int j = 0; j < seriesCount; j++) {
+                    applyRecurringAdded(readRecurring(buffer, roomId));
+                }
+            }
+            return snapshotGeneration;
+        }
+    }
+
+    private void openLog(long snapshotGeneration) throws IOException {
+        if (!Files.exists(logFile) || Files.size(logFile) < LOG_HEADER_SIZE) {
+            startNewLog(snapshotGeneration + 1);
+            return;
+        }
+
+        logChannel = FileChannel.open(logFile, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        log = logChannel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(logChannel.size(), INITIAL_LOG_CAPACITY));
+        long logGeneration = log.getLong(4);
+        if (log.getInt(0) != LOG_MAGIC || logGeneration <= snapshotGeneration) {
+            // Loggen är redan inbakad i ögonblicksbilden (krasch mellan snapshot och ny logg)
+            logChannel.close();
+            startNewLog(snapshotGeneration + 1);
+            return;
+        }
+
+        generation = logGeneration;
+        logPosition = replayLog();
+    }
+
+    private int replayLog() {
+        int position = LOG_HEADER_SIZE;
+        CRC32 crc = new CRC32();
+        while (position + RECORD_HEADER_SIZE <= log.capacity()) {
+            int length = log.getInt(position);
+            if (length <= 0 || position + RECORD_HEADER_SIZE + length > log.capacity()) {
+                break;
+            }
+
+            byte[] payload = new byte[length];
+            log.get(position + RECORD_HEADER_SIZE, payload);
+            crc.reset();
+            crc.update(payload);
+            if ((int) crc.getValue() != log.getInt(position + 4)) {
+                break;
+            }
+
+            apply(ByteBuffer.wrap(payload));
+            position += RECORD_HEADER_SIZE + length;
+        }
+
+        // Rester av en avbruten skrivning efter sista giltiga post nollställs så att de inte läses vid nästa start
+        byte[] zeros = new byte[8192];
+        for (int i = position; i < log.capacity(); i += zeros.length) {
+            log.put(i, zeros, 0, Math.min(zeros.length, log.capacity() - i));
+        }
+        return position;
+    }
+
+    private void startNewLog(long newGeneration) throws IOException {
+        if (logChannel != null && logChannel.isOpen()) {
+            logChannel.close();
+        }
+        logChannel = FileChannel.open(logFile,
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        log = logChannel.map(FileChannel.MapMode.READ_WRITE, 0, INITIAL_LOG_CAPACITY);
+        log.putInt(0, LOG_MAGIC);
+        log.putLong(4, newGeneration);
+        generation = newGeneration;
+        logPosition = LOG_HEADER_SIZE;
+    }
+
+    // Hela batchen får plats innan något skrivs, så antingen hamnar alla poster i loggen eller ingen
+    private void appendAll(List<byte[]> payloads) throws IOException {
+        long needed = logPosition;
+        for (byte[] payload : payloads) {
+            needed += RECORD_HEADER_SIZE + payload.length;
+        }
+        if (needed > log.capacity()) {
+            long capacity = log.capacity();
+            while (capacity < needed) {
+                capacity *= 2;
+            }
+            if (capacity > Integer.MAX_VALUE) {
+                throw new IOException("Loggen är full, ta en ögonblicksbild");
+            }
+            log = logChannel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+        }
+
+        int start = logPosition;
+        CRC32 crc = new CRC32();
+        for (byte[] payload : payloads) {
+            crc.reset();
+            crc.update(payload);
+            log.put(logPosition + RECORD_HEADER_SIZE, payload);
+            log.putInt(logPosition + 4, (int) crc.getValue());
+            // Längden skrivs sist, en post utan längd räknas som slutet på loggen
+            log.putInt(logPosition, payload.length);
+            logPosition += RECORD_HEADER_SIZE + payload.length;
+        }
+        if (forceOnSave && logPosition > start) {
+            log.force(start, logPosition - start);
+        }
+    }
+
+    private void apply(ByteBuffer record) {
+        byte type = record.get();
+        String roomId = readString(record);
+        switch (type) {
+            case ROOM_CREATED -> applyRoomCreated(roomId, readString(record));
+            case BOOKING_ADDED -> applyBookingAdded(new Booking(readString(record), roomId, record.getLong(), record.getLong()));
+            case BOOKING_REMOVED -> applyBookingRemoved(roomId, readString(record));
+            case RECURRING_ADDED -> applyRecurringAdded(readRecurring(record, roomId));
+            case RECURRING_REMOVED -> applyRecurringRemoved(roomId, readString(record));
+            case OCCURRENCE_CANCELLED -> applyOccurrenceCancelled(roomId, readString(record), record.getLong());
+            default -> throw new IllegalStateException("Okänd posttyp i loggen: " + type);
+        }
+    }
+
+    private void applyRoomCreated(String roomId, String name) {
+        rooms.computeIfAbsent(roomId, id -> new Room(id, name));
+    }
+
+    private void applyBookingAdded(Booking booking) {
+        roomIdByBookingId.put(booking.getId(), booking.getRoomId());
+        Room room = rooms.get(booking.getRoomId());
+        if (!room.hasBooking(booking.getId())) {
+            room.addBooking(booking);
+        }
+    }
+
+    private void applyBookingRemoved(String roomId, String bookingId) {
+        roomIdByBookingId.remove(bookingId);
+        rooms.get(roomId).removeBooking(bookingId);
+    }
+
+    private void applyRecurringAdded(RecurringBooking series) {
+        roomIdByBookingId.put(series.getId(), series.getRoomId());
+        rooms.get(series.getRoomId()).addRecurringBooking(series);
+    }
+
+    private void applyRecurringRemoved(String roomId, String seriesId) {
+        roomIdByBookingId.remove(seriesId);
+        rooms.get(roomId).removeRecurringBooking(seriesId);
+    }
+
+    private void applyOccurrenceCancelled(String roomId, String seriesId, long index) {
+        Room room = rooms.get(roomId);
+        RecurringBooking series = room.getRecurringBooking(seriesId);
+        if (!series.isCancelled(index)) {
+            room.addRecurringBooking(series.withCancelledOccurrence(index));
+        }
+    }
+
+    private static byte[] roomCreated(String roomId, String name) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(ROOM_CREATED);
+        writeString(out, roomId);
+        writeString(out, name);
+        return bytes.toByteArray();
+    }
+
+    private static byte[] bookingAdded(Booking booking) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(BOOKING_ADDED);
+        writeString(out, booking.getRoomId());
+        writeString(out, booking.getId());
+        out.writeLong(booking.getStartEpochNanos());
+        out.writeLong(booking.getEndEpochNanos());
+        return bytes.toByteArray();
+    }
+
+    private static byte[] bookingRemoved(String roomId, String bookingId) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(BOOKING_REMOVED);
+        writeString(out, roomId);
+        writeString(out, bookingId);
+        return bytes.toByteArray();
+    }
+
+    private static byte[] recurringAdded(RecurringBooking series) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(RECURRING_ADDED);
+        writeString(out, series.getRoomId());
+        writeRecurring(out, series);
+        return bytes.toByteArray();
+    }
+
+    private static byte[] recurringRemoved(String roomId, String seriesId) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(RECURRING_REMOVED);
+        writeString(out, roomId);
+        writeString(out, seriesId);
+        return bytes.toByteArray();
+    }
+
+    private static byte[] occurrenceCancelled(String roomId, String seriesId, long index) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeByte(OCCURRENCE_CANCELLED);
+        writeString(out, roomId);
+        writeString(out, seriesId);
+        out.writeLong(index);
+        return bytes.toByteArray();
+    }
+
+    private static void writeRecurring(DataOutput out, RecurringBooking series) throws IOException {
+        RecurrenceRule rule = series.getRule();
+        writeString(out, series.getId());
+        out.writeLong(series.getFirstStartEpochNanos());
+        out.writeLong(series.getDurationNanos());
+        out.writeByte(rule.getFrequency().ordinal());
+        out.writeInt(rule.getInterval());
+        out.writeInt(rule.getCount());
+        out.writeLong(rule.getUntil().map(EpochTime::toEpochNanos).orElse(Long.MIN_VALUE));
+        out.writeInt(series.getCancelledIndexes().size());
+        for (long index : series.getCancelledIndexes()) {
+            out.writeLong(index);
+        }
+    }
+
+    private static RecurringBooking readRecurring(ByteBuffer buffer, String roomId) {
+        String seriesId = readString(buffer);
+        long firstStart = buffer.getLong();
+        long duration = buffer.getLong();
+        RecurrenceRule.Frequency frequency = RecurrenceRule.Frequency.values()[buffer.get()];
+        int interval = buffer.getInt();
+        int count = buffer.getInt();
+        long until = buffer.getLong();
+        RecurrenceRule rule = count > 0
+                ? new RecurrenceRule(frequency, interval, count)
+                : new RecurrenceRule(frequency, interval, EpochTime.toLocalDateTime(until));
+        List<Long> cancelled = new ArrayList<>();
+        int cancelledCount = buffer.getInt();
+        for (int i = 0; i < cancelledCount; i++) {
+            cancelled.add(buffer.getLong());
+        }
+        return new RecurringBooking(seriesId, roomId, firstStart, duration, rule, cancelled);
+    }
+
+    private static void writeString(DataOutput out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > 0xFFFF) {
+            throw new IllegalArgumentException("Id och namn får vara högst 65535 byte");
+        }
+        out.writeShort(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        byte[] bytes = new byte[buffer.getShort() & 0xFFFF];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
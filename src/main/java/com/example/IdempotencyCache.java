@@ -0,0 +1,171 @@
+package com.example;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+// Minns resultatet per idempotensnyckel en begränsad tid; dubbletter som kommer under körningen väntar på samma resultat
+public class IdempotencyCache {
+    private final int maxEntries;
+    private final long ttlNanos;
+    private final long awaitTimeoutNanos;
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    // Insättningsordning är också utgångsordning eftersom alla poster lever lika länge
+    private final Queue<Entry> insertionOrder = new ConcurrentLinkedQueue<>();
+
+    public IdempotencyCache() {
+        this(10_000, Duration.ofHours(24));
+    }
+
+    public IdempotencyCache(int maxEntries, Duration ttl) {
+        this(maxEntries, ttl, Duration.ofSeconds(30));
+    }
+
+    public IdempotencyCache(int maxEntries, Duration ttl, Duration awaitTimeout) {
+        if (maxEntries < 1 || ttl == null || ttl.isNegative() || ttl.isZero()
+                || awaitTimeout == null || awaitTimeout.isNegative() || awaitTimeout.isZero()) {
+            throw new IllegalArgumentException("Storlek, livslängd och väntetid måste vara positiva");
+        }
+        this.maxEntries = maxEntries;
+        this.ttlNanos = ttl.toNanos();
+        this.awaitTimeoutNanos = awaitTimeout.toNanos();
+    }
+
+    Claim claim(String key, BookingRequest request, long nowEpochNanos) {
+        evictExpired(nowEpochNanos);
+
+        Entry[] created = new Entry[1];
+        Entry entry = entries.compute(key, (k, existing) -> {
+            if (existing != null && !existing.isExpired(nowEpochNanos)) {
+                return existing;
+            }
+            created[0] = new Entry(key, request, EpochTime.saturatedAdd(nowEpochNanos, ttlNanos));
+            return created[0];
+        });
+
+        if (created[0] == null) {
+            if (!entry.matches(request)) {
+                throw new IllegalArgumentException("Idempotensnyckeln har redan använts för en annan bokning");
+            }
+            return new Claim(this, entry, false);
+        }
+
+        insertionOrder.add(entry);
+        evictOverflow();
+        return new Claim(this, entry, true);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private void remove(Entry entry) {
+        entries.remove(entry.key, entry);
+    }
+
+    // Pågående poster tas aldrig bort, då skulle en dubblett kunna köra samma bokning en gång till
+    private void evictExpired(long nowEpochNanos) {
+        Entry eldest;
+        while ((eldest = insertionOrder.peek()) != null) {
+            if (entries.get(eldest.key) != eldest) {
+                insertionOrder.remove(eldest);
+            } else if (eldest.isExpired(nowEpochNanos)) {
+                insertionOrder.remove(eldest);
+                entries.remove(eldest.key, eldest);
+            } else {
+                return;
+            }
+        }
+    }
+
+    // Tar bort den äldsta avslutade posten; är alla pågående får cachen tillfälligt överskrida sin storlek
+    private void evictOverflow() {
+        Iterator<Entry> eldest = insertionOrder.iterator();
+        while (entries.size() > maxEntries && eldest.hasNext()) {
+            Entry candidate = eldest.next();
+            if (entries.get(candidate.key) != candidate) {
+                eldest.remove();
+            } else if (candidate.result.isDone()) {
+                eldest.remove();
+                entries.remove(candidate.key, candidate);
+            }
+        }
+    }
+
+    static final class Claim {
+        private final IdempotencyCache cache;
+        private final Entry entry;
+        private final boolean owner;
+
+        private Claim(IdempotencyCache cache, Entry entry, boolean owner) {
+            this.cache = cache;
+            this.entry = entry;
+            this.owner = owner;
+        }
+
+        boolean isOwner() {
+            return owner;
+        }
+
+        BookingResult await() {
+            try {
+                return entry.result.get(cache.awaitTimeoutNanos, TimeUnit.NANOSECONDS);
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                if (e.getCause() instanceof Error cause) {
+                    throw cause;
+                }
+                throw new IllegalStateException(e.getCause());
+            } catch (TimeoutException e) {
+                throw new IllegalStateException("Det ursprungliga anropet med samma idempotensnyckel blev inte klart i tid");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Avbröts i väntan på det ursprungliga anropet", e);
+            }
+        }
+
+        void complete(BookingResult result) {
+            entry.result.complete(result);
+        }
+
+        // Fel sparas inte; nästa försök med samma nyckel körs på nytt
+        void fail(Throwable error) {
+            cache.remove(entry);
+            entry.result.completeExceptionally(error);
+        }
+    }
+
+    private static final class Entry {
+        private final String key;
+        private final BookingRequest request;
+        private final long expiresAtEpochNanos;
+        private final CompletableFuture<BookingResult> result = new CompletableFuture<>();
+
+        private Entry(String key, BookingRequest request, long expiresAtEpochNanos) {
+            this.key = key;
+            this.request = request;
+            this.expiresAtEpochNanos = expiresAtEpochNanos;
+        }
+
+        // En pågående post räknas aldrig som utgången
+        private boolean isExpired(long nowEpochNanos) {
+            return result.isDone() && expiresAtEpochNanos <= nowEpochNanos;
+        }
+
+        private boolean matches(BookingRequest other) {
+            return Objects.equals(request.getRoomId(), other.getRoomId())
+                    && Objects.equals(request.getStartTime(), other.getStartTime())
+                    && Objects.equals(request.getEndTime(), other.getEndTime());
+        }
+    }
+}
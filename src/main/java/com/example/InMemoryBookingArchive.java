@@ -0,0 +1,28 @@
+package com.example;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+// För tester: arkivet finns bara i minnet och försvinner med processen, använd FileBookingArchive i drift
+public class InMemoryBookingArchive implements BookingArchive {
+    private final Map<String, Booking> bookings = new ConcurrentHashMap<>();
+
+    @Override
+    public void archive(Collection<Booking> toArchive) {
+        for (Booking booking : toArchive) {
+            bookings.put(booking.getId(), booking);
+        }
+    }
+
+    @Override
+    public Optional<Booking> findById(String bookingId) {
+        return Optional.ofNullable(bookings.get(bookingId));
+    }
+
+    @Override
+    public long size() {
+        return bookings.size();
+    }
+}
@@ -0,0 +1,36 @@
+package com.example;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.stream.Collectors;
+
+public class InMemoryRoomRepository implements RoomRepository {
+    private final ConcurrentNavigableMap<String, Room> rooms = new ConcurrentSkipListMap<>();
+
+    @Override
+    public Optional<Room> findById(String id) {
+        return Optional.ofNullable(rooms.get(id));
+    }
+
+    @Override
+    public List<Room> findAll() {
+        return new ArrayList<>(rooms.values());
+    }
+
+    @Override
+    public List<Room> findChunk(String afterRoomId, int limit) {
+        Map<String, Room> remaining = afterRoomId == null ? rooms : rooms.tailMap(afterRoomId, false);
+        return remaining.values().stream()
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public void save(Room room) {
+        rooms.put(room.getId(), room);
+    }
+}
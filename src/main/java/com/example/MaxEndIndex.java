@@ -0,0 +1,138 @@
+package com.example;
+
+import java.util.SplittableRandom;
+
+// Balanserat sökträd (treap) över starttider där varje nod känner till största sluttiden i sitt delträd.
+// Då kan största sluttiden bland alla bokningar som startar senast en viss tid hittas i O(log n).
+final class MaxEndIndex {
+    private final SplittableRandom priorities = new SplittableRandom(0x5EED);
+    private Node root;
+
+    void put(long start, long end) {
+        if (!update(root, start, end)) {
+            root = insert(root, new Node(start, end, priorities.nextInt()));
+        }
+    }
+
+    void remove(long start) {
+        root = delete(root, start);
+    }
+
+    // Long.MIN_VALUE om ingen bokning startar senast tidpunkten
+    long maxEndAtOrBefore(long start) {
+        long maxEnd = Long.MIN_VALUE;
+        Node node = root;
+        while (node != null) {
+            if (node.start <= start) {
+                maxEnd = Math.max(maxEnd, Math.max(node.end, maxEndOf(node.left)));
+                node = node.right;
+            } else {
+                node = node.left;
+            }
+        }
+        return maxEnd;
+    }
+
+    private static boolean update(Node node, long start, long end) {
+        if (node == null) {
+            return false;
+        }
+        boolean found;
+        if (start < node.start) {
+            found = update(node.left, start, end);
+        } else if (start > node.start) {
+            found = update(node.right, start, end);
+        } else {
+            node.end = end;
+            found = true;
+        }
+        if (found) {
+            recompute(node);
+        }
+        return found;
+    }
+
+    private static Node insert(Node node, Node added) {
+        if (node == null) {
+            return added;
+        }
+        if (added.start < node.start) {
+            node.left = insert(node.left, added);
+            if (node.left.priority > node.priority) {
+                node = rotateRight(node);
+            }
+        } else {
+            node.right = insert(node.right, added);
+            if (node.right.priority > node.priority) {
+                node = rotateLeft(node);
+            }
+        }
+        recompute(node);
+        return node;
+    }
+
+    private static Node delete(Node node, long start) {
+        if (node == null) {
+            return null;
+        }
+        if (start < node.start) {
+            node.left = delete(node.left, start);
+        } else if (start > node.start) {
+            node.right = delete(node.right, start);
+        } else if (node.left == null) {
+            return node.right;
+        } else if (node.right == null) {
+            return node.left;
+        } else if (node.left.priority > node.right.priority) {
+            node = rotateRight(node);
+            node.right = delete(node.right, start);
+        } else {
+            node = rotateLeft(node);
+            node.left = delete(node.left, start);
+        }
+        recompute(node);
+        return node;
+    }
+
+    private static Node rotateRight(Node node) {
+        Node left = node.left;
+        node.left = left.right;
+        left.right = node;
+        recompute(node);
+        recompute(left);
+        return left;
+    }
+
+    private static Node rotateLeft(Node node) {
+        Node right = node.right;
+        node.right = right.left;
+        right.left = node;
+        recompute(node);
+        recompute(right);
+        return right;
+    }
+
+    private static void recompute(Node node) {
+        node.maxEnd = Math.max(node.end, Math.max(maxEndOf(node.left), maxEndOf(node.right)));
+    }
+
+    private static long maxEndOf(Node node) {
+        return node == null ? Long.MIN_VALUE : node.maxEnd;
+    }
+
+    private static final class Node {
+        private final long start;
+        private final int priority;
+        private long end;
+        private long maxEnd;
+        private Node left;
+        private Node right;
+
+        private Node(long start, long end, int priority) {
+            this.start = start;
+            this.end = end;
+            this.maxEnd = end;
+            this.priority = priority;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.example;
+
+import com.example.metrics.BookingMetrics;
+import com.example.metrics.RepositoryCall;
+
+import java.util.List;
+import java.util.Optional;
+
+public class MeteredRoomRepository implements RoomRepository {
+    private final RoomRepository delegate;
+    private final BookingMetrics metrics;
+
+    public MeteredRoomRepository(RoomRepository delegate, BookingMetrics metrics) {
+        this.delegate = delegate;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public Optional<Room> findById(String id) {
+        metrics.recordRepositoryCall(RepositoryCall.FIND_BY_ID);
+        return delegate.findById(id);
+    }
+
+    @Override
+    public List<Room> findAll() {
+        metrics.recordRepositoryCall(RepositoryCall.FIND_ALL);
+        return delegate.findAll();
+    }
+
+    @Override
+    public List<Room> findChunk(String afterRoomId, int limit) {
+        metrics.recordRepositoryCall(RepositoryCall.FIND_CHUNK);
+        return delegate.findChunk(afterRoomId, limit);
+    }
+
+    @Override
+    public void save(Room room) {
+        metrics.recordRepositoryCall(RepositoryCall.SAVE);
+        delegate.save(room);
+    }
+
+    @Override
+    public Optional<Room> findByBookingId(String bookingId) {
+        metrics.recordRepositoryCall(RepositoryCall.FIND_BY_BOOKING_ID);
+        return delegate.findByBookingId(bookingId);
+    }
+}
@@ -0,0 +1,281 @@
+package com.example;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+public class NotificationDispatcher implements NotificationService, AutoCloseable {
+    private final NotificationService delegate;
+    private final BlockingQueue<PendingNotification> queue;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration initialBackoff;
+    private final Duration offerTimeout;
+    private final Thread worker;
+    // En gemensam schemaläggare för alla omförsök i stället för en sovande tråd per omförsök
+    private final ScheduledExecutorService retryScheduler =
+            Executors.newSingleThreadScheduledExecutor(Thread.ofVirtual().name("notification-retry").factory());
+
+    private final AtomicLong sent = new AtomicLong();
+    private final AtomicLong retried = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    // Accepterade notifieringar som ännu inte skickats eller gett upp, inklusive väntande omförsök
+    private final AtomicLong pending = new AtomicLong();
+    private final Object idleMonitor = new Object();
+    // enqueue håller läslåset medan det kontrollerar closed och lägger i kön; close tar skrivlåset så att
+    // ingen notifiering kan hamna i kön efter att arbetstråden fått besked om att avsluta
+    private final ReadWriteLock closeLock = new ReentrantReadWriteLock();
+    private volatile boolean closed;
+    private volatile boolean stopped;
+
+    public NotificationDispatcher(NotificationService delegate) {
+        this(delegate, 10_000, 100, 5, Duration.ofMillis(100), Duration.ofMillis(50));
+    }
+
+    public NotificationDispatcher(NotificationService delegate,
+                                  int capacity,
+                                  int batchSize,
+                                  int maxAttempts,
+                                  Duration initialBackoff,
+                                  Duration offerTimeout) {
+        if (capacity < 1 || batchSize < 1 || maxAttempts < 1) {
+            throw new IllegalArgumentException("Kapacitet, batchstorlek och antal försök måste vara positiva");
+        }
+        this.delegate = delegate;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.initialBackoff = initialBackoff;
+        this.offerTimeout = offerTimeout;
+        this.worker = Thread.ofVirtual().name("notification-dispatcher").start(this::drainLoop);
+    }
+
+    @Override
+    public void sendBookingConfirmation(Booking booking) throws NotificationException {
+        enqueue(new PendingNotification(booking, false));
+    }
+
+    @Override
+    public void sendCancellationConfirmation(Booking booking) throws NotificationException {
+        enqueue(new PendingNotification(booking, true));
+    }
+
+    public boolean awaitIdle(Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        synchronized (idleMonitor) {
+            while (pending.get() > 0) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return false;
+                }
+                TimeUnit.NANOSECONDS.timedWait(idleMonitor, remaining);
+            }
+        }
+        return true;
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    public long getSentCount() {
+        return sent.get();
+    }
+
+    public long getRetryCount() {
+        return retried.get();
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+
+    // Avbryts stängningen stoppas arbetstråden ändå, men notifieringar som ligger kvar i kön skickas inte
+    @Override
+    public void close() {
+        closeLock.writeLock().lock();
+        try {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        } finally {
+            closeLock.writeLock().unlock();
+        }
+
+        // Redan schemalagda omförsök körs klart och lägger tillbaka sina notifieringar i kön
+        retryScheduler.shutdown();
+        try {
+            retryScheduler.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            stopped = true;
+            worker.join();
+        } catch (InterruptedException e) {
+            stopped = true;
+            Thread.currentThread().interrupt();
+            return;
+        }
+
+        List<PendingNotification> leftovers = new ArrayList<>();
+        queue.drainTo(leftovers);
+        dispatchBatch(leftovers);
+    }
+
+    private void enqueue(PendingNotification notification) throws NotificationException {
+        boolean accepted;
+        closeLock.readLock().lock();
+        try {
+            if (closed) {
+                rejected.incrementAndGet();
+                throw new NotificationException("Notifieringstjänsten är stängd");
+            }
+
+            pending.incrementAndGet();
+            try {
+                // Blockerar anroparen en kort stund när kön är full i stället för att växa obegränsat
+                accepted = queue.offer(notification, offerTimeout.toNanos(), TimeUnit.NANOSECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                accepted = false;
+            }
+        } finally {
+            closeLock.readLock().unlock();
+        }
+
+        if (!accepted) {
+            rejected.incrementAndGet();
+            completed();
+            throw new NotificationException("Notifieringskön är full");
+        }
+    }
+
+    private void drainLoop() {
+        List<PendingNotification> batch = new ArrayList<>(batchSize);
+        while (!stopped || !queue.isEmpty()) {
+            try {
+                PendingNotification first = queue.poll(50, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+
+            dispatchBatch(batch);
+            batch.clear();
+        }
+    }
+
+    private void dispatchBatch(List<PendingNotification> batch) {
+        List<PendingNotification> confirmations = new ArrayList<>();
+        List<PendingNotification> cancellations = new ArrayList<>();
+        for (PendingNotification notification : batch) {
+            (notification.cancellation ? cancellations : confirmations).add(notification);
+        }
+        if (!confirmations.isEmpty()) {
+            dispatch(confirmations, false);
+        }
+        if (!cancellations.isEmpty()) {
+            dispatch(cancellations, true);
+        }
+    }
+
+    private void dispatch(List<PendingNotification> notifications, boolean cancellation) {
+        List<Booking> bookings = new ArrayList<>(notifications.size());
+        for (PendingNotification notification : notifications) {
+            bookings.add(notification.booking);
+        }
+
+        List<Booking> failed;
+        try {
+            failed = cancellation
+                    ? delegate.sendCancellationConfirmations(bookings)
+                    : delegate.sendBookingConfirmations(bookings);
+        } catch (RuntimeException e) {
+            failed = bookings;
+        }
+
+        // Varje misslyckad bokning matchas mot en notifiering så att dubbletter i samma batch räknas rätt
+        List<PendingNotification> remaining = new ArrayList<>(notifications);
+        for (Booking booking : failed) {
+            for (int i = 0; i < remaining.size(); i++) {
+                if (remaining.get(i).booking == booking) {
+                    scheduleRetry(remaining.remove(i));
+                    break;
+                }
+            }
+        }
+        for (int i = 0; i < remaining.size(); i++) {
+            sent.incrementAndGet();
+            completed();
+        }
+    }
+
+    private void scheduleRetry(PendingNotification notification) {
+        if (notification.attempt >= maxAttempts || closed) {
+            dropped.incrementAndGet();
+            completed();
+            return;
+        }
+
+        Duration backoff = initialBackoff.multipliedBy(1L << Math.min(notification.attempt - 1, 20));
+        PendingNotification retry = notification.nextAttempt();
+        try {
+            retryScheduler.schedule(() -> {
+                if (!queue.offer(retry)) {
+                    dropped.incrementAndGet();
+                    completed();
+                }
+            }, backoff.toNanos(), TimeUnit.NANOSECONDS);
+            retried.incrementAndGet();
+        } catch (RejectedExecutionException e) {
+            // close har hunnit stänga schemaläggaren
+            dropped.incrementAndGet();
+            completed();
+        }
+    }
+
+    private void completed() {
+        if (pending.decrementAndGet() == 0) {
+            synchronized (idleMonitor) {
+                idleMonitor.notifyAll();
+            }
+        }
+    }
+
+    private static final class PendingNotification {
+        private final Booking booking;
+        private final boolean cancellation;
+        private final int attempt;
+
+        private PendingNotification(Booking booking, boolean cancellation) {
+            this(booking, cancellation, 1);
+        }
+
+        private PendingNotification(Booking booking, boolean cancellation, int attempt) {
+            this.booking = booking;
+            this.cancellation = cancellation;
+            this.attempt = attempt;
+        }
+
+        private PendingNotification nextAttempt() {
+            return new PendingNotification(booking, cancellation, attempt + 1);
+        }
+    }
+}
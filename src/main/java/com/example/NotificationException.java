@@ -1,6 +1,11 @@
 package com.example;
 
+import java.io.Serial;
+
 public class NotificationException extends Exception {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
     public NotificationException(String message) {
         super(message);
     }
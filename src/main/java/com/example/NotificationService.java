@@ -1,6 +1,35 @@
 package com.example;
 
+import java.util.ArrayList;
+import java.util.List;
+
 public interface NotificationService {
     void sendBookingConfirmation(Booking booking) throws NotificationException;
     void sendCancellationConfirmation(Booking booking) throws NotificationException;
+
+    // Skickar flera bekräftelser i ett anrop och returnerar de bokningar som inte gick att skicka.
+    // Tjänster med ett batch-API bör ersätta standardimplementationen som skickar en i taget.
+    default List<Booking> sendBookingConfirmations(List<Booking> bookings) {
+        List<Booking> failed = new ArrayList<>();
+        for (Booking booking : bookings) {
+            try {
+                sendBookingConfirmation(booking);
+            } catch (NotificationException | RuntimeException e) {
+                failed.add(booking);
+            }
+        }
+        return failed;
+    }
+
+    default List<Booking> sendCancellationConfirmations(List<Booking> bookings) {
+        List<Booking> failed = new ArrayList<>();
+        for (Booking booking : bookings) {
+            try {
+                sendCancellationConfirmation(booking);
+            } catch (NotificationException | RuntimeException e) {
+                failed.add(booking);
+            }
+        }
+        return failed;
+    }
 }
@@ -0,0 +1,80 @@
+package com.example;
+
+import java.io.Serial;
+import java.util.List;
+import java.util.concurrent.RecursiveAction;
+
+// Delar upp rummen i intervall. Varje löv skriver i en egen resultatarray som det själv allokerar, så
+// trådarna delar aldrig cache-rader när de skriver; resultaten samlas ihop i rummens ordning efteråt
+class ParallelAvailabilityTask extends RecursiveAction {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    // Uppgiften körs bara i en ForkJoinPool och serialiseras aldrig
+    @SuppressWarnings("serial")
+    private final List<Room> rooms;
+    private final long[] starts;
+    private final long[] ends;
+    private final int from;
+    private final int to;
+    private final int threshold;
+
+    private ParallelAvailabilityTask left;
+    private ParallelAvailabilityTask right;
+    // Lövets resultat, rum för rum: index (rum - from) * antal fönster + fönster
+    private boolean[] available;
+
+    ParallelAvailabilityTask(List<Room> rooms, long[] starts, long[] ends, int threshold) {
+        this(rooms, starts, ends, 0, rooms.size(), threshold);
+    }
+
+    private ParallelAvailabilityTask(List<Room> rooms, long[] starts, long[] ends, int from, int to, int threshold) {
+        this.rooms = rooms;
+        this.starts = starts;
+        this.ends = ends;
+        this.from = from;
+        this.to = to;
+        this.threshold = threshold;
+    }
+
+    @Override
+    protected void compute() {
+        if (to - from <= threshold) {
+            int windows = starts.length;
+            boolean[] result = new boolean[(to - from) * windows];
+            for (int i = from; i < to; i++) {
+                Room room = rooms.get(i);
+                int row = (i - from) * windows;
+                for (int window = 0; window < windows; window++) {
+                    result[row + window] = room.isAvailable(starts[window], ends[window]);
+                }
+            }
+            available = result;
+            return;
+        }
+
+        int middle = (from + to) >>> 1;
+        left = new ParallelAvailabilityTask(rooms, starts, ends, from, middle, threshold);
+        right = new ParallelAvailabilityTask(rooms, starts, ends, middle, to, threshold);
+        invokeAll(left, right);
+    }
+
+    // Anropas efter invoke; lägger till de lediga rummen per fönster i rummens ordning
+    void collect(List<List<Room>> availableByWindow) {
+        if (available == null) {
+            left.collect(availableByWindow);
+            right.collect(availableByWindow);
+            return;
+        }
+
+        int windows = starts.length;
+        for (int i = from; i < to; i++) {
+            int row = (i - from) * windows;
+            for (int window = 0; window < windows; window++) {
+                if (available[row + window]) {
+                    availableByWindow.get(window).add(rooms.get(i));
+                }
+            }
+        }
+    }
+}
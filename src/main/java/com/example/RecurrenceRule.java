@@ -0,0 +1,61 @@
+package com.example;
+
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+public class RecurrenceRule {
+    public enum Frequency {
+        DAILY,
+        WEEKLY,
+        MONTHLY
+    }
+
+    private final Frequency frequency;
+    private final int interval;
+    private final int count;
+    private final LocalDateTime until;
+
+    public RecurrenceRule(Frequency frequency, int interval, int count) {
+        this(frequency, interval, count, null);
+        if (count < 1) {
+            throw new IllegalArgumentException("Antal tillfällen måste vara minst 1");
+        }
+    }
+
+    public RecurrenceRule(Frequency frequency, int interval, LocalDateTime until) {
+        this(frequency, interval, 0, until);
+        if (until == null) {
+            throw new IllegalArgumentException("Måste ange sista datum för serien");
+        }
+    }
+
+    private RecurrenceRule(Frequency frequency, int interval, int count, LocalDateTime until) {
+        if (frequency == null) {
+            throw new IllegalArgumentException("Måste ange hur ofta bokningen upprepas");
+        }
+        if (interval < 1) {
+            throw new IllegalArgumentException("Intervallet måste vara minst 1");
+        }
+        this.frequency = frequency;
+        this.interval = interval;
+        this.count = count;
+        this.until = until;
+    }
+
+    public Frequency getFrequency() {
+        return frequency;
+    }
+
+    public int getInterval() {
+        return interval;
+    }
+
+    // 0 när serien avgränsas av ett sista datum i stället
+    public int getCount() {
+        return count;
+    }
+
+    public Optional<LocalDateTime> getUntil() {
+        return Optional.ofNullable(until);
+    }
+}
@@ -0,0 +1,222 @@
+package com.example;
+
+import java.time.DateTimeException;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Collection;
+import java.util.NavigableSet;
+import java.util.OptionalLong;
+import java.util.TreeSet;
+
+// En serie lagras som en regel; enskilda tillfällen räknas fram vid behov i stället för att sparas som bokningar
+public final class RecurringBooking {
+    private static final long NANOS_PER_DAY = 86_400_000_000_000L;
+
+    private final String id;
+    private final String roomId;
+    private final LocalDateTime firstStartTime;
+    private final long firstStartEpochNanos;
+    private final long durationNanos;
+    private final RecurrenceRule rule;
+    private final long periodNanos;
+    private final long lastIndex;
+    private final NavigableSet<Long> cancelledIndexes;
+
+    public RecurringBooking(String id, String roomId, LocalDateTime startTime, LocalDateTime endTime, RecurrenceRule rule) {
+        this(id, roomId, EpochTime.toEpochNanos(startTime),
+                EpochTime.saturatedSubtract(EpochTime.toEpochNanos(endTime), EpochTime.toEpochNanos(startTime)),
+                rule, new TreeSet<>());
+    }
+
+    RecurringBooking(String id, String roomId, long firstStartEpochNanos, long durationNanos,
+                     RecurrenceRule rule, Collection<Long> cancelledIndexes) {
+        if (rule == null) {
+            throw new IllegalArgumentException("Måste ange regel för serien");
+        }
+        if (durationNanos < 0) {
+            throw new IllegalArgumentException("Sluttid måste vara efter starttid");
+        }
+        this.id = id;
+        this.roomId = roomId;
+        this.firstStartTime = EpochTime.toLocalDateTime(firstStartEpochNanos);
+        this.firstStartEpochNanos = firstStartEpochNanos;
+        this.durationNanos = durationNanos;
+        this.rule = rule;
+        this.periodNanos = periodNanos(rule);
+        // Annars överlappar varje tillfälle nästa och serien krockar med sig själv
+        if (durationNanos > shortestGapNanos(rule, periodNanos)) {
+            throw new IllegalArgumentException("Ett tillfälle kan inte vara längre än tiden mellan tillfällena");
+        }
+        this.lastIndex = computeLastIndex();
+        this.cancelledIndexes = new TreeSet<>(cancelledIndexes);
+    }
+
+    public RecurringBooking withCancelledOccurrence(long index) {
+        NavigableSet<Long> cancelled = new TreeSet<>(cancelledIndexes);
+        cancelled.add(index);
+        return new RecurringBooking(id, roomId, firstStartEpochNanos, durationNanos, rule, cancelled);
+    }
+
+    // Samma serie men utan tillfällen från och med index; tidigare avbokningar följer med
+    public RecurringBooking endingBefore(long index) {
+        if (index < 1 || index > lastIndex) {
+            throw new IllegalArgumentException("Serien måste behålla minst ett tillfälle och förkortas");
+        }
+        if (index > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Serien har för många tillfällen för att förkortas");
+        }
+        RecurrenceRule shortened = new RecurrenceRule(rule.getFrequency(), rule.getInterval(), (int) index);
+        return new RecurringBooking(id, roomId, firstStartEpochNanos, durationNanos, shortened, cancelledIndexes.headSet(index));
+    }
+
+    public OptionalLong firstIndexStartingAtOrAfter(long epochNanos) {
+        long index = firstIndexEndingAtOrAfter(EpochTime.saturatedAdd(epochNanos, durationNanos));
+        return index <= lastIndex ? OptionalLong.of(index) : OptionalLong.empty();
+    }
+
+    public boolean overlaps(long startEpochNanos, long endEpochNanos) {
+        return conflictingOccurrenceEnd(startEpochNanos, endEpochNanos).isPresent();
+    }
+
+    // Sluttiden för det första ej avbokade tillfälle som överlappar intervallet
+    public OptionalLong conflictingOccurrenceEnd(long startEpochNanos, long endEpochNanos) {
+        for (long index = firstIndexEndingAtOrAfter(startEpochNanos); index <= lastIndex; index++) {
+            long occurrenceStart = occurrenceStart(index);
+            if (occurrenceStart > endEpochNanos) {
+                break;
+            }
+            if (!cancelledIndexes.contains(index)) {
+                return OptionalLong.of(EpochTime.saturatedAdd(occurrenceStart, durationNanos));
+            }
+        }
+        return OptionalLong.empty();
+    }
+
+    public OptionalLong indexOf(long occurrenceStartEpochNanos) {
+        long index = firstIndexEndingAtOrAfter(EpochTime.saturatedAdd(occurrenceStartEpochNanos, durationNanos));
+        if (index <= lastIndex && occurrenceStart(index) == occurrenceStartEpochNanos) {
+            return OptionalLong.of(index);
+        }
+        return OptionalLong.empty();
+    }
+
+    public boolean isCancelled(long index) {
+        return cancelledIndexes.contains(index);
+    }
+
+    public long occurrenceStart(long index) {
+        if (periodNanos > 0) {
+            return EpochTime.saturatedAdd(firstStartEpochNanos, periodNanos * index);
+        }
+        return EpochTime.toEpochNanosSaturated(firstStartTime.plusMonths(index * rule.getInterval()));
+    }
+
+    public Booking occurrence(long index) {
+        long start = occurrenceStart(index);
+        return new Booking(id, roomId, start, EpochTime.saturatedAdd(start, durationNanos));
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getRoomId() {
+        return roomId;
+    }
+
+    public RecurrenceRule getRule() {
+        return rule;
+    }
+
+    public LocalDateTime getFirstStartTime() {
+        return firstStartTime;
+    }
+
+    public long getFirstStartEpochNanos() {
+        return firstStartEpochNanos;
+    }
+
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+
+    public long getOccurrenceCount() {
+        return lastIndex + 1;
+    }
+
+    public NavigableSet<Long> getCancelledIndexes() {
+        return new TreeSet<>(cancelledIndexes);
+    }
+
+    private long firstIndexEndingAtOrAfter(long epochNanos) {
+        long earliestStart = EpochTime.saturatedSubtract(epochNanos, durationNanos);
+        if (earliestStart <= firstStartEpochNanos) {
+            return 0;
+        }
+        if (periodNanos > 0) {
+            long distance = earliestStart - firstStartEpochNanos;
+            // Negativt betyder att subtraktionen slog runt, dvs långt efter seriens slut
+            return distance < 0 ? lastIndex + 1 : Math.ceilDiv(distance, periodNanos);
+        }
+
+        // Månadslängden varierar, så uppskattningen justeras med några steg framåt
+        long months = ChronoUnit.MONTHS.between(firstStartTime.withDayOfMonth(1), EpochTime.toLocalDateTime(earliestStart).withDayOfMonth(1));
+        long index = Math.max(0, months / rule.getInterval() - 1);
+        while (index <= lastIndex && occurrenceStart(index) < earliestStart) {
+            index++;
+        }
+        return index;
+    }
+
+    private static long periodNanos(RecurrenceRule rule) {
+        try {
+            return switch (rule.getFrequency()) {
+                case DAILY -> Math.multiplyExact(NANOS_PER_DAY, (long) rule.getInterval());
+                case WEEKLY -> Math.multiplyExact(7 * NANOS_PER_DAY, (long) rule.getInterval());
+                case MONTHLY -> 0;
+            };
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Serien sträcker sig utanför det intervall som stöds");
+        }
+    }
+
+    private static long shortestGapNanos(RecurrenceRule rule, long periodNanos) {
+        if (periodNanos > 0) {
+            return periodNanos;
+        }
+        // Kortaste möjliga avstånd mellan två månadstillfällen, t.ex. 31 januari till 28 februari
+        long monthNanos = 28 * NANOS_PER_DAY;
+        return rule.getInterval() > Long.MAX_VALUE / monthNanos ? Long.MAX_VALUE : monthNanos * rule.getInterval();
+    }
+
+    private long computeLastIndex() {
+        try {
+            long last;
+            if (rule.getUntil().isEmpty()) {
+                last = rule.getCount() - 1L;
+            } else {
+                long until = EpochTime.toEpochNanos(rule.getUntil().get());
+                if (until < firstStartEpochNanos) {
+                    throw new IllegalArgumentException("Serien har inga tillfällen");
+                }
+                if (periodNanos > 0) {
+                    last = Math.subtractExact(until, firstStartEpochNanos) / periodNanos;
+                } else {
+                    last = ChronoUnit.MONTHS.between(firstStartTime.withDayOfMonth(1), rule.getUntil().get().withDayOfMonth(1)) / rule.getInterval();
+                    while (last > 0 && occurrenceStart(last) > until) {
+                        last--;
+                    }
+                }
+            }
+
+            // Sista tillfället måste rymmas i det tidsintervall som stöds
+            LocalDateTime lastStart = periodNanos > 0
+                    ? firstStartTime.plusNanos(Math.multiplyExact(periodNanos, last))
+                    : firstStartTime.plusMonths(Math.multiplyExact(last, (long) rule.getInterval()));
+            EpochTime.toEpochNanos(lastStart.plusNanos(durationNanos));
+            return last;
+        } catch (ArithmeticException | DateTimeException e) {
+            throw new IllegalArgumentException("Serien sträcker sig utanför det intervall som stöds");
+        }
+    }
+}
@@ -1,13 +1,25 @@
 package com.example;
 
 import java.time.LocalDateTime;
-import java.util.HashSet;
-import java.util.Set;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.OptionalLong;
+import java.util.TreeMap;
 
 public class Room {
     private final String id;
     private final String name;
-    private final Set<Booking> bookings = new HashSet<>();
+    private final NavigableMap<Long, List<Booking>> bookingsByStart = new TreeMap<>();
+    private final Map<String, Booking> bookingsById = new HashMap<>();
+    private final Map<String, RecurringBooking> recurringBookingsById = new HashMap<>();
+    // Största sluttid per starttid; en bokning som startar senast intervallets slut krockar om den slutar efter dess start
+    private final MaxEndIndex maxEndByStart = new MaxEndIndex();
+    // Ändringar sedan senaste save, null om inget repository spårar rummet
+    private RoomChanges changes;
 
     public Room(String id, String name) {
         this.id = id;
@@ -15,29 +27,210 @@ public class Room {
     }
 
     public boolean isAvailable(LocalDateTime startTime, LocalDateTime endTime) {
-        return bookings.stream()
-                .noneMatch(booking ->
-                        booking.overlaps(startTime, endTime));
+        return isAvailable(EpochTime.toEpochNanosSaturated(startTime), EpochTime.toEpochNanosSaturated(endTime));
     }
 
-    public void addBooking(Booking booking) {
-        bookings.add(booking);
+    public synchronized boolean isAvailable(long startEpochNanos, long endEpochNanos) {
+        if (maxEndByStart.maxEndAtOrBefore(endEpochNanos) >= startEpochNanos) {
+            return false;
+        }
+
+        // Serier räknar fram bara de tillfällen som kan ligga i intervallet
+        for (RecurringBooking series : recurringBookingsById.values()) {
+            if (series.overlaps(startEpochNanos, endEpochNanos)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public synchronized boolean isAvailable(RecurringBooking series) {
+        for (long index = 0; index < series.getOccurrenceCount(); index++) {
+            long start = series.occurrenceStart(index);
+            if (!series.isCancelled(index)
+                    && !isAvailable(start, EpochTime.saturatedAdd(start, series.getDurationNanos()))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Tidigaste start >= fromEpochNanos där en bokning av given längd ryms, eller tomt om den måste börja efter latestStart
+    public synchronized OptionalLong findFirstFreeStart(long fromEpochNanos, long durationNanos, long latestStartEpochNanos) {
+        long candidate = fromEpochNanos;
+        while (candidate <= latestStartEpochNanos) {
+            long candidateEnd = EpochTime.saturatedAdd(candidate, durationNanos);
+            boolean conflict = false;
+            long conflictEnd = candidate;
+
+            // Alla bokningar som startar senast kandidatens slut hoppas över på en gång
+            long maxEnd = maxEndByStart.maxEndAtOrBefore(candidateEnd);
+            if (maxEnd >= candidate) {
+                conflict = true;
+                conflictEnd = maxEnd;
+            }
+            for (RecurringBooking series : recurringBookingsById.values()) {
+                OptionalLong seriesConflictEnd = series.conflictingOccurrenceEnd(candidate, candidateEnd);
+                if (seriesConflictEnd.isPresent()) {
+                    conflict = true;
+                    conflictEnd = Math.max(conflictEnd, seriesConflictEnd.getAsLong());
+                }
+            }
+
+            if (!conflict) {
+                return OptionalLong.of(candidate);
+            }
+            if (conflictEnd == Long.MAX_VALUE) {
+                return OptionalLong.empty();
+            }
+            // Överlapp räknas inklusive sluttiden, så nästa möjliga start är en nanosekund efter
+            candidate = conflictEnd + 1;
+        }
+        return OptionalLong.empty();
+    }
+
+    public synchronized void addBooking(Booking booking) {
+        // Ett id som redan finns får aldrig ersätta den befintliga bokningen
+        if (bookingsById.containsKey(booking.getId())) {
+            throw new IllegalArgumentException("Bokningen finns redan");
+        }
+
+        bookingsById.put(booking.getId(), booking);
+        List<Booking> sameStart = bookingsByStart.computeIfAbsent(booking.getStartEpochNanos(), start -> new ArrayList<>(1));
+        sameStart.add(booking);
+        maxEndByStart.put(booking.getStartEpochNanos(), maxEndOf(sameStart));
+        if (changes != null) {
+            changes.bookingAdded(booking);
+        }
+    }
+
+    public synchronized void removeBooking(String bookingId) {
+        Booking booking = bookingsById.remove(bookingId);
+        if (booking == null) {
+            return;
+        }
+        if (changes != null) {
+            changes.bookingRemoved(booking);
+        }
+
+        List<Booking> sameStart = bookingsByStart.get(booking.getStartEpochNanos());
+        sameStart.remove(booking);
+        if (sameStart.isEmpty()) {
+            bookingsByStart.remove(booking.getStartEpochNanos());
+            maxEndByStart.remove(booking.getStartEpochNanos());
+        } else {
+            maxEndByStart.put(booking.getStartEpochNanos(), maxEndOf(sameStart));
+        }
+    }
+
+    private static long maxEndOf(List<Booking> sameStart) {
+        long maxEnd = Long.MIN_VALUE;
+        for (Booking booking : sameStart) {
+            maxEnd = Math.max(maxEnd, booking.getEndEpochNanos());
+        }
+        return maxEnd;
+    }
+
+    // Bara bokningar som startat före tidpunkten behöver gås igenom
+    public synchronized List<Booking> getBookingsEndingBefore(long epochNanos) {
+        List<Booking> ended = new ArrayList<>();
+        for (List<Booking> sameStart : bookingsByStart.headMap(epochNanos, false).values()) {
+            for (Booking booking : sameStart) {
+                if (booking.getEndEpochNanos() < epochNanos) {
+                    ended.add(booking);
+                }
+            }
+        }
+        return ended;
+    }
+
+    public synchronized boolean hasBooking(String bookingId) {
+        return bookingsById.containsKey(bookingId);
+    }
+
+    public synchronized Booking getBooking(String bookingId) {
+        Booking booking = bookingsById.get(bookingId);
+        if (booking == null) {
+            throw new IllegalArgumentException("Bokning finns inte");
+        }
+        return booking;
+    }
+
+    public synchronized Collection<Booking> getBookings() {
+        return List.copyOf(bookingsById.values());
+    }
+
+    public synchronized void addRecurringBooking(RecurringBooking series) {
+        RecurringBooking previous = recurringBookingsById.put(series.getId(), series);
+        if (changes != null) {
+            changes.seriesChanged(series.getId(), previous, series);
+        }
+    }
+
+    public synchronized void removeRecurringBooking(String seriesId) {
+        RecurringBooking previous = recurringBookingsById.remove(seriesId);
+        if (changes != null && previous != null) {
+            changes.seriesChanged(seriesId, previous, null);
+        }
+    }
+
+    public synchronized boolean hasRecurringBooking(String seriesId) {
+        return recurringBookingsById.containsKey(seriesId);
+    }
+
+    public synchronized RecurringBooking getRecurringBooking(String seriesId) {
+        RecurringBooking series = recurringBookingsById.get(seriesId);
+        if (series == null) {
+            throw new IllegalArgumentException("Bokning finns inte");
+        }
+        return series;
+    }
+
+    public synchronized Collection<RecurringBooking> getRecurringBookings() {
+        return List.copyOf(recurringBookingsById.values());
+    }
+
+    // Rummets nuvarande innehåll räknas som sparat; ändringar efter detta samlas tills drainChanges
+    synchronized void trackChanges() {
+        changes = new RoomChanges();
+    }
+
+    synchronized RoomChanges drainChanges() {
+        RoomChanges drained = changes;
+        changes = new RoomChanges();
+        return drained;
     }
 
-    public void removeBooking(String bookingId) {
-        bookings.removeIf(booking -> booking.getId().equals(bookingId));
+    // Ändringar som inte kunde sparas läggs före de som gjorts sedan de hämtades
+    synchronized void restoreChanges(RoomChanges drained) {
+        drained.append(changes);
+        changes = drained;
     }
 
-    public boolean hasBooking(String bookingId) {
-        return bookings.stream()
-                .anyMatch(booking -> booking.getId().equals(bookingId));
+    // Bokningarna som de såg ut vid senaste save, utan ändringar som ännu inte sparats
+    synchronized Collection<Booking> getSavedBookings() {
+        if (changes == null) {
+            return getBookings();
+        }
+        Map<String, Booking> saved = new HashMap<>(bookingsById);
+        saved.keySet().removeAll(changes.getAddedBookings().keySet());
+        saved.putAll(changes.getRemovedBookings());
+        return saved.values();
     }
 
-    public Booking getBooking(String bookingId) {
-        return bookings.stream()
-                .filter(booking -> booking.getId().equals(bookingId))
-                .findFirst()
-                .orElseThrow(() -> new IllegalArgumentException("Bokning finns inte"));
+    synchronized Collection<RecurringBooking> getSavedRecurringBookings() {
+        if (changes == null) {
+            return getRecurringBookings();
+        }
+        Map<String, RecurringBooking> saved = new HashMap<>(recurringBookingsById);
+        changes.getSeriesBefore().forEach((seriesId, before) -> {
+            if (before == null) {
+                saved.remove(seriesId);
+            } else {
+                saved.put(seriesId, before);
+            }
+        });
+        return saved.values();
     }
 
     public String getId() {
@@ -0,0 +1,57 @@
+package com.example;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Nettoändringar i ett rum sedan senaste save. Bara FileRoomRepository slår på spårningen, så att en save
+// kan skriva de ändrade bokningarna till loggen i stället för att jämföra hela rummet med det som finns på disk
+final class RoomChanges {
+    // Borttagna bokningar som fanns vid senaste save, och tillagda som inte fanns då
+    private final Map<String, Booking> removedBookings = new LinkedHashMap<>();
+    private final Map<String, Booking> addedBookings = new LinkedHashMap<>();
+    // Serien vid senaste save (null om den inte fanns) och nu (null om den tagits bort)
+    private final Map<String, RecurringBooking> seriesBefore = new LinkedHashMap<>();
+    private final Map<String, RecurringBooking> seriesAfter = new HashMap<>();
+
+    void bookingAdded(Booking booking) {
+        addedBookings.put(booking.getId(), booking);
+    }
+
+    void bookingRemoved(Booking booking) {
+        // En bokning som lagts till efter senaste save har aldrig skrivits och behöver inte tas bort
+        if (addedBookings.remove(booking.getId()) == null) {
+            removedBookings.putIfAbsent(booking.getId(), booking);
+        }
+    }
+
+    void seriesChanged(String seriesId, RecurringBooking before, RecurringBooking after) {
+        if (!seriesBefore.containsKey(seriesId)) {
+            seriesBefore.put(seriesId, before);
+        }
+        seriesAfter.put(seriesId, after);
+    }
+
+    // Lägger till senare ändringar så att resultatet blir nettot av båda
+    void append(RoomChanges later) {
+        later.removedBookings.values().forEach(this::bookingRemoved);
+        later.addedBookings.values().forEach(this::bookingAdded);
+        later.seriesBefore.forEach((seriesId, before) -> seriesChanged(seriesId, before, later.seriesAfter.get(seriesId)));
+    }
+
+    Map<String, Booking> getRemovedBookings() {
+        return removedBookings;
+    }
+
+    Map<String, Booking> getAddedBookings() {
+        return addedBookings;
+    }
+
+    Map<String, RecurringBooking> getSeriesBefore() {
+        return seriesBefore;
+    }
+
+    RecurringBooking getSeriesAfter(String seriesId) {
+        return seriesAfter.get(seriesId);
+    }
+}
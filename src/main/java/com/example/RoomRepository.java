@@ -7,4 +7,14 @@ public interface RoomRepository {
     Optional<Room> findById(String id);
     List<Room> findAll();
     void save(Room room);
+
+    default Optional<Room> findByBookingId(String bookingId) {
+        return findAll().stream()
+                .filter(room -> room.hasBooking(bookingId) || room.hasRecurringBooking(bookingId))
+                .findFirst();
+    }
+
+    // Rum sorterade på id efter afterRoomId (null ger början), högst limit stycken. Ska läsa ur ett index
+    // sorterat på id; en genomläsning i bitar får inte kosta en findAll per bit.
+    List<Room> findChunk(String afterRoomId, int limit);
 }
@@ -0,0 +1,201 @@
+package com.example;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+public class SlotAvailabilityEngine {
+    // En vecka med kvartsluckor
+    private static final int DEFAULT_MAX_SLOTS_PER_BOOKING = 7 * 24 * 4;
+
+    private final long slotNanos;
+    private final long maxSlotsPerBooking;
+    private final List<Room> rooms = new ArrayList<>();
+    private final Map<String, Integer> bitByRoomId = new HashMap<>();
+    // En BitSet per tidslucka, en bit per rum som har någon bokning i luckan
+    private final NavigableMap<Long, BitSet> busyBySlot = new TreeMap<>();
+    // Rum med serier indexeras inte per lucka utan kontrolleras alltid exakt
+    private final BitSet roomsWithRecurring = new BitSet();
+    // Bokningar över maxSlotsPerBooking indexeras inte heller, så att en lång bokning inte fyller indexet; rummet kontrolleras exakt
+    private final BitSet roomsWithLongBookings = new BitSet();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    public SlotAvailabilityEngine() {
+        this(Duration.ofMinutes(15));
+    }
+
+    public SlotAvailabilityEngine(Duration slotLength) {
+        this(slotLength, DEFAULT_MAX_SLOTS_PER_BOOKING);
+    }
+
+    public SlotAvailabilityEngine(Duration slotLength, int maxSlotsPerBooking) {
+        if (slotLength == null || slotLength.getSeconds() < 1 || slotLength.getNano() != 0) {
+            throw new IllegalArgumentException("Tidsluckan måste vara ett helt antal sekunder");
+        }
+        if (maxSlotsPerBooking < 1) {
+            throw new IllegalArgumentException("Högsta antal luckor per bokning måste vara positivt");
+        }
+        this.slotNanos = slotLength.toNanos();
+        this.maxSlotsPerBooking = maxSlotsPerBooking;
+    }
+
+    public void addRooms(Collection<Room> roomsToAdd) {
+        lock.writeLock().lock();
+        try {
+            for (Room room : roomsToAdd) {
+                index(bitFor(room), room);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void bookingAdded(Room room, Booking booking) {
+        lock.writeLock().lock();
+        try {
+            markBusy(bitFor(room), booking);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void recurringBookingsChanged(Room room) {
+        lock.writeLock().lock();
+        try {
+            roomsWithRecurring.set(bitFor(room), !room.getRecurringBookings().isEmpty());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void bookingRemoved(Room room, Booking booking) {
+        lock.writeLock().lock();
+        try {
+            int bit = bitFor(room);
+            if (isLong(booking)) {
+                roomsWithLongBookings.set(bit, room.getBookings().stream().anyMatch(this::isLong));
+                return;
+            }
+            long lastSlot = slotOf(booking.getEndEpochNanos());
+            for (long slot = slotOf(booking.getStartEpochNanos()); slot <= lastSlot; slot++) {
+                BitSet busy = busyBySlot.get(slot);
+                if (busy == null) {
+                    continue;
+                }
+                // Andra bokningar i samma rum kan dela luckan, räkna om den exakt
+                if (room.isAvailable(startOf(slot), startOf(slot + 1) - 1)) {
+                    busy.clear(bit);
+                    if (busy.isEmpty()) {
+                        busyBySlot.remove(slot);
+                    }
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public List<Room> findAvailableRooms(LocalDateTime startTime, LocalDateTime endTime) {
+        long start = EpochTime.toEpochNanosSaturated(startTime);
+        long end = EpochTime.toEpochNanosSaturated(endTime);
+
+        lock.readLock().lock();
+        try {
+            // Luckor som helt täcks av intervallet ger ett säkert svar, kantluckorna kräver exakt kontroll
+            BitSet busy = new BitSet(rooms.size());
+            BitSet uncertain = new BitSet(rooms.size());
+            for (Map.Entry<Long, BitSet> entry : busyBySlot.subMap(slotOf(start), true, slotOf(end), true).entrySet()) {
+                long slot = entry.getKey();
+                boolean fullyCovered = startOf(slot) >= start && startOf(slot + 1) <= end;
+                if (fullyCovered) {
+                    busy.or(entry.getValue());
+                } else {
+                    uncertain.or(entry.getValue());
+                }
+            }
+            uncertain.or(roomsWithRecurring);
+            uncertain.or(roomsWithLongBookings);
+            uncertain.andNot(busy);
+
+            List<Room> available = new ArrayList<>();
+            for (int bit = busy.nextClearBit(0); bit < rooms.size(); bit = busy.nextClearBit(bit + 1)) {
+                Room room = rooms.get(bit);
+                if (!uncertain.get(bit) || room.isAvailable(start, end)) {
+                    available.add(room);
+                }
+            }
+            return available;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean containsRoom(String roomId) {
+        lock.readLock().lock();
+        try {
+            return bitByRoomId.containsKey(roomId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    int indexedSlotCount() {
+        lock.readLock().lock();
+        try {
+            return busyBySlot.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int bitFor(Room room) {
+        Integer bit = bitByRoomId.get(room.getId());
+        if (bit == null) {
+            bit = rooms.size();
+            rooms.add(room);
+            bitByRoomId.put(room.getId(), bit);
+            // Ett rum som inte lagts till i förväg indexeras från sitt fulla tillstånd, inte bara den ändrade bokningen
+            index(bit, room);
+        } else {
+            // Behåll senast sparade instans så att den exakta kontrollen ser aktuella bokningar
+            rooms.set(bit, room);
+        }
+        return bit;
+    }
+
+    private void index(int bit, Room room) {
+        for (Booking booking : room.getBookings()) {
+            markBusy(bit, booking);
+        }
+        roomsWithRecurring.set(bit, !room.getRecurringBookings().isEmpty());
+    }
+
+    private void markBusy(int bit, Booking booking) {
+        if (isLong(booking)) {
+            roomsWithLongBookings.set(bit);
+            return;
+        }
+        long lastSlot = slotOf(booking.getEndEpochNanos());
+        for (long slot = slotOf(booking.getStartEpochNanos()); slot <= lastSlot; slot++) {
+            busyBySlot.computeIfAbsent(slot, s -> new BitSet()).set(bit);
+        }
+    }
+
+    private boolean isLong(Booking booking) {
+        return slotOf(booking.getEndEpochNanos()) - slotOf(booking.getStartEpochNanos()) >= maxSlotsPerBooking;
+    }
+
+    private long slotOf(long epochNanos) {
+        return Math.floorDiv(epochNanos, slotNanos);
+    }
+
+    private long startOf(long slot) {
+        long start = slot * slotNanos;
+        if (Math.multiplyHigh(slot, slotNanos) != (start >> 63)) {
+            return slot < 0 ? Long.MIN_VALUE : Long.MAX_VALUE;
+        }
+        return start;
+    }
+}
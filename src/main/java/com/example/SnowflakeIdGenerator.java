@@ -0,0 +1,104 @@
+package com.example;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+// 64-bitars id: 41 bitar millisekunder sedan 2024-01-01, 12 bitar löpnummer och 10 bitar nod.
+// Som sträng kodas id:t med 13 tecken Crockford base32 så att strängordning följer tidsordning.
+// Nod-id måste vara unikt bland alla processer som skriver till samma lagring; i ett kluster är det shardens nummer,
+// så att ägarsharden kan läsas direkt ur id:t med nodeOf.
+// Generatorn kan ligga före väggklockan när löpnumren tar slut. Efter en omstart ska den därför fortsätta
+// efter senast utdelade id med resumeAfter, annars kan samma id delas ut igen.
+public class SnowflakeIdGenerator implements BookingIdGenerator {
+    public static final int MAX_NODE_ID = 1023;
+
+    private static final long EPOCH_MILLIS = 1_704_067_200_000L;
+    private static final int SEQUENCE_BITS = 12;
+    private static final int NODE_BITS = 10;
+    private static final int ENCODED_LENGTH = 13;
+    private static final char[] ALPHABET = "0123456789ABCDEFGHJKMNPQRSTVWXYZ".toCharArray();
+
+    private final long nodeId;
+    private final LongSupplier clockMillis;
+    // Tid och löpnummer i samma long, så att ett enda CAS både ger unikhet och ordning
+    private final AtomicLong lastTimeAndSequence = new AtomicLong();
+
+    public SnowflakeIdGenerator(int nodeId) {
+        this(nodeId, System::currentTimeMillis);
+    }
+
+    SnowflakeIdGenerator(int nodeId, LongSupplier clockMillis) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("Nod-id måste vara mellan 0 och " + MAX_NODE_ID);
+        }
+        this.nodeId = nodeId;
+        this.clockMillis = clockMillis;
+    }
+
+    @Override
+    public String nextId() {
+        return encode(nextLongId());
+    }
+
+    public int getNodeId() {
+        return (int) nodeId;
+    }
+
+    public void resumeAfter(long issuedId) {
+        long issuedTimeAndSequence = issuedId >>> NODE_BITS;
+        lastTimeAndSequence.accumulateAndGet(issuedTimeAndSequence, Math::max);
+    }
+
+    public long nextLongId() {
+        long now = Math.max(0, clockMillis.getAsLong() - EPOCH_MILLIS) << SEQUENCE_BITS;
+        long previous;
+        long next;
+        do {
+            previous = lastTimeAndSequence.get();
+            // Går klockan bakåt eller tar löpnumren slut fortsätter vi från förra värdet, som då lånar nästa millisekund
+            next = Math.max(previous + 1, now);
+        } while (!lastTimeAndSequence.compareAndSet(previous, next));
+        return (next << NODE_BITS) | nodeId;
+    }
+
+    public static int nodeOf(long id) {
+        return (int) (id & MAX_NODE_ID);
+    }
+
+    public static long timestampMillisOf(long id) {
+        return (id >>> (NODE_BITS + SEQUENCE_BITS)) + EPOCH_MILLIS;
+    }
+
+    public static String encode(long id) {
+        char[] chars = new char[ENCODED_LENGTH];
+        for (int i = ENCODED_LENGTH - 1; i >= 0; i--) {
+            chars[i] = ALPHABET[(int) (id & 31)];
+            id >>>= 5;
+        }
+        return new String(chars);
+    }
+
+    public static long decode(String encoded) {
+        if (encoded == null || encoded.length() != ENCODED_LENGTH) {
+            throw new IllegalArgumentException("Ogiltigt id");
+        }
+        long id = 0;
+        for (int i = 0; i < ENCODED_LENGTH; i++) {
+            int value = valueOf(encoded.charAt(i));
+            if (value < 0 || (i == 0 && value > 15)) {
+                throw new IllegalArgumentException("Ogiltigt id");
+            }
+            id = (id << 5) | value;
+        }
+        return id;
+    }
+
+    private static int valueOf(char c) {
+        for (int i = 0; i < ALPHABET.length; i++) {
+            if (ALPHABET[i] == c) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,61 @@
+package com.example;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.zone.ZoneOffsetTransition;
+import java.time.zone.ZoneRules;
+
+public class SystemTimeProvider implements TimeProvider {
+    private final Clock clock;
+    private final ZoneRules rules;
+    // Zonens offset gäller fram till nästa övergång, så den slås bara upp på nytt när klockan passerat den
+    private volatile CachedOffset offset;
+
+    public SystemTimeProvider() {
+        this(Clock.systemDefaultZone());
+    }
+
+    public SystemTimeProvider(Clock clock) {
+        this.clock = clock;
+        this.rules = clock.getZone().getRules();
+        this.offset = offsetAt(clock.millis());
+    }
+
+    @Override
+    public LocalDateTime getCurrentTime() {
+        return LocalDateTime.now(clock);
+    }
+
+    @Override
+    public long getCurrentEpochNanos() {
+        long millis = clock.millis();
+        CachedOffset current = offset;
+        if (millis < current.validFromMillis || millis >= current.validUntilMillis) {
+            current = offsetAt(millis);
+            offset = current;
+        }
+        return (millis + current.offsetMillis) * 1_000_000L;
+    }
+
+    private CachedOffset offsetAt(long millis) {
+        Instant instant = Instant.ofEpochMilli(millis);
+        ZoneOffsetTransition next = rules.nextTransition(instant);
+        return new CachedOffset(
+                rules.getOffset(instant).getTotalSeconds() * 1000L,
+                millis,
+                next == null ? Long.MAX_VALUE : next.toEpochSecond() * 1000L);
+    }
+
+    private static final class CachedOffset {
+        private final long offsetMillis;
+        private final long validFromMillis;
+        private final long validUntilMillis;
+
+        private CachedOffset(long offsetMillis, long validFromMillis, long validUntilMillis) {
+            this.offsetMillis = offsetMillis;
+            this.validFromMillis = validFromMillis;
+            this.validUntilMillis = validUntilMillis;
+        }
+    }
+}
@@ -4,4 +4,8 @@ import java.time.LocalDateTime;
 
 public interface TimeProvider {
     LocalDateTime getCurrentTime();
+
+    default long getCurrentEpochNanos() {
+        return EpochTime.toEpochNanos(getCurrentTime());
+    }
 }
@@ -0,0 +1,50 @@
+package com.example;
+
+import java.time.LocalDateTime;
+import java.util.Objects;
+
+public class TimeWindow {
+    private final LocalDateTime startTime;
+    private final LocalDateTime endTime;
+
+    public TimeWindow(LocalDateTime startTime, LocalDateTime endTime) {
+        if (startTime == null || endTime == null) {
+            throw new IllegalArgumentException("Måste ange både start- och sluttid");
+        }
+        if (endTime.isBefore(startTime)) {
+            throw new IllegalArgumentException("Sluttid måste vara efter starttid");
+        }
+        this.startTime = startTime;
+        this.endTime = endTime;
+    }
+
+    public LocalDateTime getStartTime() {
+        return startTime;
+    }
+
+    public LocalDateTime getEndTime() {
+        return endTime;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof TimeWindow)) {
+            return false;
+        }
+        TimeWindow other = (TimeWindow) o;
+        return startTime.equals(other.startTime) && endTime.equals(other.endTime);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(startTime, endTime);
+    }
+
+    @Override
+    public String toString() {
+        return startTime + "–" + endTime;
+    }
+}
@@ -0,0 +1,61 @@
+package com.example.async;
+
+import com.example.BookingResult;
+import com.example.BookingSystem;
+import com.example.Room;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.function.Supplier;
+
+// Kör anrop mot ett vanligt BookingSystem på virtuella trådar så att anroparens tråd aldrig väntar.
+// Lås, index, motor, journal, mätning och idempotens är desamma som för de synkrona anroparna; varje
+// anrop blockerar sin egen virtuella tråd. Ett misslyckat anrop avslutar steget med samma undantag som
+// det synkrona API:t kastar, inte inslaget i ett CompletionException.
+public class AsyncBookingSystem {
+    private static final Executor VIRTUAL_THREADS = task -> Thread.ofVirtual().start(task);
+
+    private final BookingSystem bookingSystem;
+    private final Executor executor;
+
+    public AsyncBookingSystem(BookingSystem bookingSystem) {
+        this(bookingSystem, VIRTUAL_THREADS);
+    }
+
+    public AsyncBookingSystem(BookingSystem bookingSystem, Executor executor) {
+        this.bookingSystem = bookingSystem;
+        this.executor = executor;
+    }
+
+    public CompletionStage<Boolean> bookRoom(String roomId, LocalDateTime startTime, LocalDateTime endTime) {
+        return submit(() -> bookingSystem.bookRoom(roomId, startTime, endTime));
+    }
+
+    public CompletionStage<BookingResult> bookRoom(String idempotencyKey, String roomId,
+                                                   LocalDateTime startTime, LocalDateTime endTime) {
+        return submit(() -> bookingSystem.bookRoom(idempotencyKey, roomId, startTime, endTime));
+    }
+
+    public CompletionStage<Boolean> cancelBooking(String bookingId) {
+        return submit(() -> bookingSystem.cancelBooking(bookingId));
+    }
+
+    public CompletionStage<List<Room>> getAvailableRooms(LocalDateTime startTime, LocalDateTime endTime) {
+        return submit(() -> bookingSystem.getAvailableRooms(startTime, endTime));
+    }
+
+    private <T> CompletionStage<T> submit(Supplier<T> operation) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        executor.execute(() -> {
+            try {
+                result.complete(operation.get());
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        });
+        return result;
+    }
+}
@@ -0,0 +1,16 @@
+package com.example.cluster;
+
+import com.example.Booking;
+import com.example.Room;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+// De operationer en shard exponerar mot routern, oberoende av hur anropet transporteras
+public interface BookingNode {
+    boolean bookRoom(String roomId, LocalDateTime startTime, LocalDateTime endTime);
+    boolean cancelBooking(String bookingId);
+    Optional<Booking> findBooking(String bookingId);
+    List<Room> getAvailableRooms(LocalDateTime startTime, LocalDateTime endTime);
+}
@@ -0,0 +1,68 @@
+package com.example.cluster;
+
+import com.example.Booking;
+import com.example.BookingSystem;
+import com.example.Room;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+// Lokal transport: anropen går direkt till nodens BookingSystem i samma process
+public class LocalBookingNode implements BookingNode {
+    private final int shard;
+    private final BookingSystem bookingSystem;
+    private volatile boolean connected = true;
+
+    public LocalBookingNode(int shard, BookingSystem bookingSystem) {
+        this.shard = shard;
+        this.bookingSystem = bookingSystem;
+    }
+
+    @Override
+    public boolean bookRoom(String roomId, LocalDateTime startTime, LocalDateTime endTime) {
+        ensureConnected();
+        return bookingSystem.bookRoom(roomId, startTime, endTime);
+    }
+
+    @Override
+    public boolean cancelBooking(String bookingId) {
+        ensureConnected();
+        return bookingSystem.cancelBooking(bookingId);
+    }
+
+    @Override
+    public Optional<Booking> findBooking(String bookingId) {
+        ensureConnected();
+        return bookingSystem.findBooking(bookingId);
+    }
+
+    @Override
+    public List<Room> getAvailableRooms(LocalDateTime startTime, LocalDateTime endTime) {
+        ensureConnected();
+        return bookingSystem.getAvailableRooms(startTime, endTime);
+    }
+
+    // Simulerar ett nätverksavbrott mot noden
+    public void disconnect() {
+        connected = false;
+    }
+
+    public void reconnect() {
+        connected = true;
+    }
+
+    public int getShard() {
+        return shard;
+    }
+
+    public BookingSystem getBookingSystem() {
+        return bookingSystem;
+    }
+
+    private void ensureConnected() {
+        if (!connected) {
+            throw new ShardUnavailableException("Shard " + shard + " svarar inte");
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.cluster;
+
+import com.example.BookingSystem;
+import com.example.InMemoryRoomRepository;
+import com.example.NotificationService;
+import com.example.Room;
+import com.example.RoomRepository;
+import com.example.SlotAvailabilityEngine;
+import com.example.TimeProvider;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Startar N noder i samma process med var sitt repository, för tester och lokal körning
+public class LocalCluster implements AutoCloseable {
+    private final List<InMemoryRoomRepository> repositories = new ArrayList<>();
+    private final List<BookingSystem> bookingSystems = new ArrayList<>();
+    private final List<LocalBookingNode> nodes = new ArrayList<>();
+    private final ShardedBookingSystem router;
+
+    public LocalCluster(int nodeCount, TimeProvider timeProvider, NotificationService notificationService) {
+        if (nodeCount < 1) {
+            throw new IllegalArgumentException("Klustret måste ha minst en nod");
+        }
+        for (int shard = 0; shard < nodeCount; shard++) {
+            InMemoryRoomRepository repository = new InMemoryRoomRepository();
+            BookingSystem bookingSystem = BookingSystem.builder(timeProvider, repository, notificationService)
+                    .availabilityEngine(new SlotAvailabilityEngine())
+                    .nodeId(shard)
+                    .build();
+            repositories.add(repository);
+            bookingSystems.add(bookingSystem);
+            nodes.add(new LocalBookingNode(shard, bookingSystem));
+        }
+        this.router = new ShardedBookingSystem(nodes);
+    }
+
+    public void addRoom(Room room) {
+        int shard = router.shardForRoom(room.getId());
+        bookingSystems.get(shard).addRoom(room);
+    }
+
+    public ShardedBookingSystem getRouter() {
+        return router;
+    }
+
+    public LocalBookingNode getNode(int shard) {
+        return nodes.get(shard);
+    }
+
+    public RoomRepository getRepository(int shard) {
+        return repositories.get(shard);
+    }
+
+    public int getNodeCount() {
+        return nodes.size();
+    }
+
+    @Override
+    public void close() {
+        router.close();
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.cluster;
+
+import java.io.Serial;
+
+public class ShardUnavailableException extends RuntimeException {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    public ShardUnavailableException(String message) {
+        super(message);
+    }
+}
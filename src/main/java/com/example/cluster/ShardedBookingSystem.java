@@ -0,0 +1,141 @@
+package com.example.cluster;
+
+import com.example.Booking;
+import com.example.Room;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.OptionalInt;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+
+public class ShardedBookingSystem implements AutoCloseable {
+    private final List<BookingNode> nodes;
+    private final ExecutorService scatterExecutor;
+    private final boolean ownsExecutor;
+
+    public ShardedBookingSystem(List<? extends BookingNode> nodes) {
+        this(nodes, Executors.newVirtualThreadPerTaskExecutor(), true);
+    }
+
+    public ShardedBookingSystem(List<? extends BookingNode> nodes, ExecutorService scatterExecutor) {
+        this(nodes, scatterExecutor, false);
+    }
+
+    private ShardedBookingSystem(List<? extends BookingNode> nodes, ExecutorService scatterExecutor, boolean ownsExecutor) {
+        if (nodes == null || nodes.isEmpty() || nodes.contains(null)) {
+            throw new IllegalArgumentException("Klustret måste ha minst en nod");
+        }
+        this.nodes = List.copyOf(nodes);
+        this.scatterExecutor = scatterExecutor;
+        this.ownsExecutor = ownsExecutor;
+    }
+
+    public boolean bookRoom(String roomId, LocalDateTime startTime, LocalDateTime endTime) {
+        if (roomId == null) {
+            throw new IllegalArgumentException("Bokning kräver giltiga start- och sluttider samt rum-id");
+        }
+        return nodeForRoom(roomId).bookRoom(roomId, startTime, endTime);
+    }
+
+    public boolean cancelBooking(String bookingId) {
+        if (bookingId == null) {
+            throw new IllegalArgumentException("Boknings-id kan inte vara null");
+        }
+        Optional<BookingNode> owner = nodeForBooking(bookingId);
+        if (owner.isPresent() && owner.get().cancelBooking(bookingId)) {
+            return true;
+        }
+        // Id:t bär ingen giltig shard (t.ex. UUID eller id från före uppdelningen), så alla övriga shards tillfrågas
+        return scatter(otherNodes(owner), node -> node.cancelBooking(bookingId)).contains(true);
+    }
+
+    public Optional<Booking> findBooking(String bookingId) {
+        if (bookingId == null) {
+            throw new IllegalArgumentException("Boknings-id kan inte vara null");
+        }
+        Optional<BookingNode> owner = nodeForBooking(bookingId);
+        Optional<Booking> found = owner.flatMap(node -> node.findBooking(bookingId));
+        if (found.isPresent()) {
+            return found;
+        }
+        return scatter(otherNodes(owner), node -> node.findBooking(bookingId)).stream()
+                .flatMap(Optional::stream)
+                .findFirst();
+    }
+
+    public List<Room> getAvailableRooms(LocalDateTime startTime, LocalDateTime endTime) {
+        if (nodes.size() == 1) {
+            return nodes.get(0).getAvailableRooms(startTime, endTime);
+        }
+
+        List<Room> available = new ArrayList<>();
+        for (List<Room> rooms : scatter(nodes, node -> node.getAvailableRooms(startTime, endTime))) {
+            available.addAll(rooms);
+        }
+        available.sort(Comparator.comparing(Room::getId));
+        return available;
+    }
+
+    public int getShardCount() {
+        return nodes.size();
+    }
+
+    public int shardForRoom(String roomId) {
+        return Sharding.shardForRoom(roomId, nodes.size());
+    }
+
+    @Override
+    public void close() {
+        if (ownsExecutor) {
+            scatterExecutor.close();
+        }
+    }
+
+    private BookingNode nodeForRoom(String roomId) {
+        return nodes.get(shardForRoom(roomId));
+    }
+
+    private List<BookingNode> otherNodes(Optional<BookingNode> owner) {
+        return owner.isEmpty() ? nodes : nodes.stream().filter(node -> node != owner.get()).toList();
+    }
+
+    private <T> List<T> scatter(List<BookingNode> targets, Function<BookingNode, T> call) {
+        if (targets.size() == 1) {
+            return List.of(call.apply(targets.get(0)));
+        }
+
+        List<CompletableFuture<T>> responses = new ArrayList<>(targets.size());
+        for (BookingNode node : targets) {
+            responses.add(CompletableFuture.supplyAsync(() -> call.apply(node), scatterExecutor));
+        }
+
+        List<T> results = new ArrayList<>(targets.size());
+        for (CompletableFuture<T> response : responses) {
+            try {
+                results.add(response.join());
+            } catch (CompletionException e) {
+                // Nodens eget fel, t.ex. ogiltiga tider, ska nå anroparen oförändrat
+                if (e.getCause() instanceof RuntimeException cause) {
+                    throw cause;
+                }
+                throw e;
+            }
+        }
+        return results;
+    }
+
+    private Optional<BookingNode> nodeForBooking(String bookingId) {
+        OptionalInt shard = Sharding.shardOf(bookingId);
+        if (shard.isEmpty() || shard.getAsInt() >= nodes.size()) {
+            return Optional.empty();
+        }
+        return Optional.of(nodes.get(shard.getAsInt()));
+    }
+}
@@ -0,0 +1,31 @@
+package com.example.cluster;
+
+import com.example.SnowflakeIdGenerator;
+
+import java.util.OptionalInt;
+
+// Varje shard delar ut Snowflake-id med shardens nummer som nod-id, så ägarsharden kan läsas direkt ur boknings-id:t
+public final class Sharding {
+    private Sharding() {
+    }
+
+    public static int shardForRoom(String roomId, int shardCount) {
+        if (shardCount < 1) {
+            throw new IllegalArgumentException("Antal shards måste vara positivt");
+        }
+        // String.hashCode är specificerad och ger samma fördelning i alla JVM:er
+        return Math.floorMod(roomId.hashCode(), shardCount);
+    }
+
+    public static SnowflakeIdGenerator idGenerator(int shard) {
+        return new SnowflakeIdGenerator(shard);
+    }
+
+    public static OptionalInt shardOf(String bookingId) {
+        try {
+            return OptionalInt.of(SnowflakeIdGenerator.nodeOf(SnowflakeIdGenerator.decode(bookingId)));
+        } catch (IllegalArgumentException e) {
+            return OptionalInt.empty();
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.example.journal;
+
+import com.example.Booking;
+
+// Bokningen har flyttats till arkivet; den finns inte längre i schemat men räknas fortfarande i beläggningen
+public final class BookingArchived extends BookingEvent {
+    private final Booking booking;
+
+    BookingArchived(long sequence, Booking booking) {
+        super(sequence);
+        this.booking = booking;
+    }
+
+    public Booking getBooking() {
+        return booking;
+    }
+
+    @Override
+    public String getRoomId() {
+        return booking.getRoomId();
+    }
+}
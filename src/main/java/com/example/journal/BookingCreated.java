@@ -0,0 +1,21 @@
+package com.example.journal;
+
+import com.example.Booking;
+
+public final class BookingCreated extends BookingEvent {
+    private final Booking booking;
+
+    BookingCreated(long sequence, Booking booking) {
+        super(sequence);
+        this.booking = booking;
+    }
+
+    public Booking getBooking() {
+        return booking;
+    }
+
+    @Override
+    public String getRoomId() {
+        return booking.getRoomId();
+    }
+}
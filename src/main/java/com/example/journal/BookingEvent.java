@@ -0,0 +1,15 @@
+package com.example.journal;
+
+public abstract class BookingEvent {
+    private final long sequence;
+
+    BookingEvent(long sequence) {
+        this.sequence = sequence;
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public abstract String getRoomId();
+}
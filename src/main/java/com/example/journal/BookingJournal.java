@@ -0,0 +1,99 @@
+package com.example.journal;
+
+import com.example.Booking;
+import com.example.RecurringBooking;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongFunction;
+
+// Händelserna får löpnummer från 1 i den ordning de skrivs; läsare som kvitterat ett löpnummer kan rensa allt till och med det
+public class BookingJournal {
+    private final List<BookingEvent> events = new ArrayList<>();
+    // Löpnumret för events.get(0)
+    private long firstSequence = 1;
+
+    public synchronized BookingCreated appendCreated(Booking booking) {
+        return append(booking, sequence -> new BookingCreated(sequence, booking));
+    }
+
+    public synchronized BookingCancelled appendCancelled(Booking booking) {
+        return append(booking, sequence -> new BookingCancelled(sequence, booking));
+    }
+
+    public synchronized BookingArchived appendArchived(Booking booking) {
+        return append(booking, sequence -> new BookingArchived(sequence, booking));
+    }
+
+    public synchronized SeriesCreated appendSeriesCreated(RecurringBooking series) {
+        return append(series, sequence -> new SeriesCreated(sequence, series));
+    }
+
+    public synchronized SeriesChanged appendSeriesChanged(RecurringBooking series) {
+        return append(series, sequence -> new SeriesChanged(sequence, series));
+    }
+
+    public synchronized SeriesCancelled appendSeriesCancelled(RecurringBooking series) {
+        return append(series, sequence -> new SeriesCancelled(sequence, series));
+    }
+
+    public synchronized long getLastSequence() {
+        return firstSequence + events.size() - 1;
+    }
+
+    // Första löpnummer som fortfarande kan läsas
+    public synchronized long getFirstRetainedSequence() {
+        return firstSequence;
+    }
+
+    public synchronized List<BookingEvent> readAfter(long sequence, int maxEvents) {
+        if (sequence < 0 || maxEvents < 1) {
+            throw new IllegalArgumentException("Löpnummer kan inte vara negativt och antal måste vara positivt");
+        }
+        if (sequence < firstSequence - 1) {
+            throw new IllegalStateException("Händelserna efter löpnummer " + sequence + " har redan rensats");
+        }
+        if (sequence >= getLastSequence()) {
+            return List.of();
+        }
+        int from = (int) (sequence - firstSequence + 1);
+        return List.copyOf(events.subList(from, (int) Math.min(events.size(), from + (long) maxEvents)));
+    }
+
+    // Väntar tills det finns händelser efter löpnumret eller tiden gått ut
+    public synchronized List<BookingEvent> awaitAfter(long sequence, int maxEvents, Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        while (getLastSequence() <= sequence) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return List.of();
+            }
+            TimeUnit.NANOSECONDS.timedWait(this, remaining);
+        }
+        return readAfter(sequence, maxEvents);
+    }
+
+    // Tar bort händelserna till och med löpnumret; returnerar antalet som togs bort
+    public synchronized int truncateThrough(long sequence) {
+        long last = Math.min(sequence, getLastSequence());
+        if (last < firstSequence) {
+            return 0;
+        }
+        int removed = (int) (last - firstSequence + 1);
+        events.subList(0, removed).clear();
+        firstSequence += removed;
+        return removed;
+    }
+
+    private <E extends BookingEvent> E append(Object payload, LongFunction<E> factory) {
+        if (payload == null) {
+            throw new IllegalArgumentException("Händelsen måste ha en bokning");
+        }
+        E event = factory.apply(getLastSequence() + 1);
+        events.add(event);
+        notifyAll();
+        return event;
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.journal;
+
+import com.example.SystemTimeProvider;
+import com.example.TimeProvider;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+// Läser journalen i bakgrunden och publicerar en ny oföränderlig läsmodell efter varje batch
+public class BookingProjector implements AutoCloseable {
+    private static final System.Logger LOG = System.getLogger(BookingProjector.class.getName());
+    private static final Duration DEFAULT_OCCUPANCY_RETENTION = Duration.ofDays(366);
+
+    private final BookingJournal journal;
+    private final int batchSize;
+    private final boolean truncateJournal;
+    private final TimeProvider timeProvider;
+    private final Duration occupancyRetention;
+    private final Object progressMonitor = new Object();
+    private final Thread worker;
+    private volatile BookingReadModel current = BookingReadModel.empty();
+    private volatile Throwable failure;
+    private volatile boolean closed;
+
+    public BookingProjector(BookingJournal journal) {
+        this(journal, 1_000);
+    }
+
+    public BookingProjector(BookingJournal journal, int batchSize) {
+        this(journal, batchSize, true);
+    }
+
+    // Med truncateJournal rensas journalen upp till det som publicerats; sätt false om fler läsare delar journalen
+    public BookingProjector(BookingJournal journal, int batchSize, boolean truncateJournal) {
+        this(journal, batchSize, truncateJournal, new SystemTimeProvider(), DEFAULT_OCCUPANCY_RETENTION);
+    }
+
+    // Beläggning för dagar äldre än occupancyRetention bakåt från dagens datum rensas ur läsmodellen
+    public BookingProjector(BookingJournal journal, int batchSize, boolean truncateJournal,
+                            TimeProvider timeProvider, Duration occupancyRetention) {
+        if (journal == null || batchSize < 1) {
+            throw new IllegalArgumentException("Måste ange journal och positiv batchstorlek");
+        }
+        if (timeProvider == null || occupancyRetention == null || occupancyRetention.isNegative()) {
+            throw new IllegalArgumentException("Måste ange tidskälla och en icke-negativ lagringstid");
+        }
+        this.journal = journal;
+        this.batchSize = batchSize;
+        this.truncateJournal = truncateJournal;
+        this.timeProvider = timeProvider;
+        this.occupancyRetention = occupancyRetention;
+        this.worker = Thread.ofVirtual().name("booking-projector").start(this::projectLoop);
+    }
+
+    public BookingReadModel snapshot() {
+        return current;
+    }
+
+    public Optional<Throwable> getFailure() {
+        return Optional.ofNullable(failure);
+    }
+
+    // Kastar IllegalStateException om projektionen har stoppats på ett fel i stället för att vänta ut tiden
+    public boolean awaitSequence(long sequence, Duration timeout) throws InterruptedException {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        synchronized (progressMonitor) {
+            while (current.getSequence() < sequence) {
+                if (failure != null) {
+                    throw new IllegalStateException("Projektionen stoppades vid löpnummer " + current.getSequence(), failure);
+                }
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return false;
+                }
+                TimeUnit.NANOSECONDS.timedWait(progressMonitor, remaining);
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        try {
+            worker.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void projectLoop() {
+        while (!closed) {
+            try {
+                List<BookingEvent> batch = journal.awaitAfter(current.getSequence(), batchSize, Duration.ofMillis(50));
+                if (!batch.isEmpty()) {
+                    project(batch);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException | Error e) {
+                // Samma batch skulle misslyckas igen, så projektionen stannar och felet lämnas till de som väntar
+                LOG.log(System.Logger.Level.ERROR, "Projektionen av bokningsjournalen stoppades efter löpnummer "
+                        + current.getSequence(), e);
+                synchronized (progressMonitor) {
+                    failure = e;
+                    progressMonitor.notifyAll();
+                }
+                return;
+            }
+        }
+    }
+
+    private void project(List<BookingEvent> batch) {
+        LocalDate retainFrom = timeProvider.getCurrentTime().toLocalDate().minusDays(occupancyRetention.toDays());
+        current = current.apply(batch, retainFrom);
+        if (truncateJournal) {
+            journal.truncateThrough(current.getSequence());
+        }
+        synchronized (progressMonitor) {
+            progressMonitor.notifyAll();
+        }
+    }
+}
@@ -0,0 +1,214 @@
+package com.example.journal;
+
+import com.example.Booking;
+import com.example.EpochTime;
+import com.example.RecurringBooking;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.OptionalLong;
+import java.util.Set;
+
+// Oföränderlig ögonblicksbild av alla läsmodeller upp till och med ett visst löpnummer i journalen
+public final class BookingReadModel {
+    private static final long NANOS_PER_DAY = Duration.ofDays(1).toNanos();
+    private static final int ROOM_BUCKETS = 1024;
+    private static final int DAY_BUCKETS = 256;
+    private static final int BOOKING_BUCKETS = 4096;
+
+    private final long sequence;
+    private final BucketMap<String, RoomSchedule> schedulesByRoomId;
+    // Beläggning från enstaka bokningar; serier räknas fram per dag vid frågan eftersom de kan sakna slut
+    private final BucketMap<LocalDate, Map<String, Long>> bookedNanosByDay;
+    // Dagar före den här har rensats ur beläggningen
+    private final LocalDate firstRetainedDay;
+    private final Set<String> roomIdsWithSeries;
+    private final BucketMap<String, Booking> bookingsById;
+
+    private BookingReadModel(long sequence,
+                             BucketMap<String, RoomSchedule> schedulesByRoomId,
+                             BucketMap<LocalDate, Map<String, Long>> bookedNanosByDay,
+                             LocalDate firstRetainedDay,
+                             Set<String> roomIdsWithSeries,
+                             BucketMap<String, Booking> bookingsById) {
+        this.sequence = sequence;
+        this.schedulesByRoomId = schedulesByRoomId;
+        this.bookedNanosByDay = bookedNanosByDay;
+        this.firstRetainedDay = firstRetainedDay;
+        this.roomIdsWithSeries = roomIdsWithSeries;
+        this.bookingsById = bookingsById;
+    }
+
+    static BookingReadModel empty() {
+        return new BookingReadModel(0, BucketMap.empty(ROOM_BUCKETS), BucketMap.empty(DAY_BUCKETS), LocalDate.MIN,
+                Set.of(), BucketMap.empty(BOOKING_BUCKETS));
+    }
+
+    public long getSequence() {
+        return sequence;
+    }
+
+    public LocalDate getFirstRetainedDay() {
+        return firstRetainedDay;
+    }
+
+    public RoomSchedule getSchedule(String roomId) {
+        return schedulesByRoomId.getOrDefault(roomId, RoomSchedule.EMPTY);
+    }
+
+    public boolean isAvailable(String roomId, LocalDateTime startTime, LocalDateTime endTime) {
+        if (roomId == null || startTime == null || endTime == null) {
+            throw new IllegalArgumentException("Måste ange rum samt start- och sluttid");
+        }
+        if (endTime.isBefore(startTime)) {
+            throw new IllegalArgumentException("Sluttid måste vara efter starttid");
+        }
+        return getSchedule(roomId).isAvailable(EpochTime.toEpochNanosSaturated(startTime), EpochTime.toEpochNanosSaturated(endTime));
+    }
+
+    public Optional<Booking> findBooking(String bookingId) {
+        return Optional.ofNullable(bookingsById.get(bookingId));
+    }
+
+    // Tom för dagar som rensats bort, se getFirstRetainedDay
+    public Map<String, Duration> getOccupancy(LocalDate day) {
+        if (day.isBefore(firstRetainedDay)) {
+            return Map.of();
+        }
+        Map<String, Long> bookedNanos = bookedNanosByDay.getOrDefault(day, Map.of());
+        Map<String, Duration> occupancy = new HashMap<>();
+        bookedNanos.forEach((roomId, nanos) -> occupancy.put(roomId, Duration.ofNanos(nanos)));
+
+        long dayStart = day.toEpochDay() * NANOS_PER_DAY;
+        long dayEnd = EpochTime.saturatedAdd(dayStart, NANOS_PER_DAY);
+        for (String roomId : roomIdsWithSeries) {
+            long seriesNanos = 0;
+            for (RecurringBooking series : getSchedule(roomId).getSeries()) {
+                seriesNanos += bookedNanos(series, dayStart, dayEnd);
+            }
+            if (seriesNanos > 0) {
+                occupancy.merge(roomId, Duration.ofNanos(seriesNanos), Duration::plus);
+            }
+        }
+        return occupancy;
+    }
+
+    // Bara hinkarna för rum, dagar och bokningar som berörs av batchen kopieras, övriga delas med föregående bild.
+    // Beläggning före retainFrom rensas och tas inte längre emot.
+    BookingReadModel apply(List<BookingEvent> events, LocalDate retainFrom) {
+        if (events.isEmpty()) {
+            return this;
+        }
+
+        Map<String, List<BookingEvent>> eventsByRoom = new LinkedHashMap<>();
+        for (BookingEvent event : events) {
+            eventsByRoom.computeIfAbsent(event.getRoomId(), roomId -> new ArrayList<>()).add(event);
+        }
+        BucketMap.Builder<String, RoomSchedule> schedules = schedulesByRoomId.toBuilder();
+        Set<String> withSeries = null;
+        for (Map.Entry<String, List<BookingEvent>> roomEvents : eventsByRoom.entrySet()) {
+            String roomId = roomEvents.getKey();
+            RoomSchedule schedule = getSchedule(roomId).apply(roomEvents.getValue());
+            if (schedule.isEmpty()) {
+                schedules.remove(roomId);
+            } else {
+                schedules.put(roomId, schedule);
+            }
+            if (schedule.getSeries().isEmpty() == roomIdsWithSeries.contains(roomId)) {
+                withSeries = withSeries == null ? new HashSet<>(roomIdsWithSeries) : withSeries;
+                if (schedule.getSeries().isEmpty()) {
+                    withSeries.remove(roomId);
+                } else {
+                    withSeries.add(roomId);
+                }
+            }
+        }
+
+        LocalDate firstDay = retainFrom.isAfter(firstRetainedDay) ? retainFrom : firstRetainedDay;
+        BucketMap.Builder<LocalDate, Map<String, Long>> occupancy = bookedNanosByDay.toBuilder();
+        if (firstDay.isAfter(firstRetainedDay)) {
+            // Gränsen flyttas högst en gång per dag, så genomgången av alla dagar sker sällan
+            bookedNanosByDay.forEach((day, perRoom) -> {
+                if (day.isBefore(firstDay)) {
+                    occupancy.remove(day);
+                }
+            });
+        }
+        Set<LocalDate> copiedDays = new HashSet<>();
+        BucketMap.Builder<String, Booking> index = bookingsById.toBuilder();
+        for (BookingEvent event : events) {
+            if (event instanceof BookingCreated created) {
+                addOccupancy(occupancy, copiedDays, firstDay, created.getBooking(), 1);
+                index.put(created.getBooking().getId(), created.getBooking());
+            } else if (event instanceof BookingCancelled cancelled) {
+                addOccupancy(occupancy, copiedDays, firstDay, cancelled.getBooking(), -1);
+                index.remove(cancelled.getBooking().getId());
+            } else if (event instanceof BookingArchived archived) {
+                // Arkiverade bokningar har ägt rum och ligger kvar i beläggningen
+                index.remove(archived.getBooking().getId());
+            }
+        }
+
+        return new BookingReadModel(events.get(events.size() - 1).getSequence(),
+                schedules.build(),
+                occupancy.build(),
+                firstDay,
+                withSeries == null ? roomIdsWithSeries : Set.copyOf(withSeries),
+                index.build());
+    }
+
+    private static long bookedNanos(RecurringBooking series, long dayStart, long dayEnd) {
+        long booked = 0;
+        long from = dayStart;
+        while (from < dayEnd) {
+            OptionalLong end = series.conflictingOccurrenceEnd(from, dayEnd - 1);
+            if (end.isEmpty()) {
+                break;
+            }
+            long start = EpochTime.saturatedSubtract(end.getAsLong(), series.getDurationNanos());
+            booked += Math.max(0, Math.min(end.getAsLong(), dayEnd) - Math.max(start, dayStart));
+            if (end.getAsLong() == Long.MAX_VALUE) {
+                break;
+            }
+            from = end.getAsLong() + 1;
+        }
+        return booked;
+    }
+
+    private static void addOccupancy(BucketMap.Builder<LocalDate, Map<String, Long>> occupancy, Set<LocalDate> copiedDays,
+                                     LocalDate firstDay, Booking booking, int sign) {
+        long start = booking.getStartEpochNanos();
+        long end = booking.getEndEpochNanos();
+        for (long day = Math.max(Math.floorDiv(start, NANOS_PER_DAY), firstDay.toEpochDay()); day <= Math.floorDiv(end, NANOS_PER_DAY); day++) {
+            long dayStart = day * NANOS_PER_DAY;
+            long booked = Math.min(end, EpochTime.saturatedAdd(dayStart, NANOS_PER_DAY)) - Math.max(start, dayStart);
+            if (booked <= 0) {
+                continue;
+            }
+
+            LocalDate date = LocalDate.ofEpochDay(day);
+            Map<String, Long> perRoom = copiedDays.add(date)
+                    ? new HashMap<>(occupancy.getOrDefault(date, Map.of()))
+                    : occupancy.get(date);
+            long total = perRoom.getOrDefault(booking.getRoomId(), 0L) + sign * booked;
+            if (total == 0) {
+                perRoom.remove(booking.getRoomId());
+            } else {
+                perRoom.put(booking.getRoomId(), total);
+            }
+            if (perRoom.isEmpty()) {
+                occupancy.remove(date);
+            } else {
+                occupancy.put(date, perRoom);
+            }
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.journal;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+// Oföränderlig tabell uppdelad i hinkar. En ny version delar alla hinkar med den förra utom de som ändrats,
+// så en batch kostar hinktabellen plus de berörda hinkarna i stället för hela tabellen.
+final class BucketMap<K, V> {
+    private final List<Map<K, V>> buckets;
+
+    private BucketMap(List<Map<K, V>> buckets) {
+        this.buckets = buckets;
+    }
+
+    // Antalet hinkar måste vara en tvåpotens
+    static <K, V> BucketMap<K, V> empty(int bucketCount) {
+        if (Integer.bitCount(bucketCount) != 1) {
+            throw new IllegalArgumentException("Antalet hinkar måste vara en tvåpotens: " + bucketCount);
+        }
+        return new BucketMap<>(Collections.nCopies(bucketCount, Map.of()));
+    }
+
+    V get(K key) {
+        return buckets.get(bucketOf(key, buckets.size())).get(key);
+    }
+
+    V getOrDefault(K key, V defaultValue) {
+        V value = get(key);
+        return value == null ? defaultValue : value;
+    }
+
+    void forEach(BiConsumer<? super K, ? super V> action) {
+        for (Map<K, V> bucket : buckets) {
+            bucket.forEach(action);
+        }
+    }
+
+    Builder<K, V> toBuilder() {
+        return new Builder<>(this);
+    }
+
+    private static int bucketOf(Object key, int bucketCount) {
+        int hash = key.hashCode();
+        return (hash ^ (hash >>> 16)) & (bucketCount - 1);
+    }
+
+    static final class Builder<K, V> {
+        private final BucketMap<K, V> base;
+        private List<Map<K, V>> buckets;
+        // Hinkar som redan kopierats i den här batchen och får ändras direkt
+        private boolean[] copied;
+
+        private Builder(BucketMap<K, V> base) {
+            this.base = base;
+        }
+
+        V get(K key) {
+            return bucketFor(key).get(key);
+        }
+
+        V getOrDefault(K key, V defaultValue) {
+            V value = get(key);
+            return value == null ? defaultValue : value;
+        }
+
+        void put(K key, V value) {
+            writableBucket(key).put(key, value);
+        }
+
+        void remove(K key) {
+            if (bucketFor(key).containsKey(key)) {
+                writableBucket(key).remove(key);
+            }
+        }
+
+        BucketMap<K, V> build() {
+            return buckets == null ? base : new BucketMap<>(Collections.unmodifiableList(buckets));
+        }
+
+        private Map<K, V> bucketFor(K key) {
+            List<Map<K, V>> current = buckets == null ? base.buckets : buckets;
+            return current.get(bucketOf(key, current.size()));
+        }
+
+        private Map<K, V> writableBucket(K key) {
+            if (buckets == null) {
+                buckets = new ArrayList<>(base.buckets);
+                copied = new boolean[buckets.size()];
+            }
+            int bucket = bucketOf(key, buckets.size());
+            if (!copied[bucket]) {
+                buckets.set(bucket, new HashMap<>(buckets.get(bucket)));
+                copied[bucket] = true;
+            }
+            return buckets.get(bucket);
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package com.example.journal;
+
+import com.example.Booking;
+import com.example.RecurringBooking;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Oföränderligt schema för ett rum, bokningarna sorterade på starttid; serier hålls som regler och kontrolleras exakt
+public final class RoomSchedule {
+    static final RoomSchedule EMPTY = new RoomSchedule(new Booking[0], new long[0], List.of());
+    // Fler bokningsändringar än så i en batch sorteras om från början i stället för att flyttas in en och en
+    private static final int MAX_INCREMENTAL_CHANGES = 32;
+
+    private final Booking[] bookingsByStart;
+    // Största sluttid bland bokningarna till och med index i
+    private final long[] maxEndUpTo;
+    private final List<RecurringBooking> series;
+
+    private RoomSchedule(Booking[] bookingsByStart, long[] maxEndUpTo, List<RecurringBooking> series) {
+        this.bookingsByStart = bookingsByStart;
+        this.maxEndUpTo = maxEndUpTo;
+        this.series = series;
+    }
+
+    public boolean isAvailable(long startEpochNanos, long endEpochNanos) {
+        // Någon bokning som startar senast intervallets slut och slutar efter dess start krockar
+        int last = firstStartingAfter(bookingsByStart, bookingsByStart.length, endEpochNanos) - 1;
+        if (last >= 0 && maxEndUpTo[last] >= startEpochNanos) {
+            return false;
+        }
+        for (RecurringBooking recurring : series) {
+            if (recurring.overlaps(startEpochNanos, endEpochNanos)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public List<Booking> getBookings() {
+        return List.of(bookingsByStart);
+    }
+
+    public List<RecurringBooking> getSeries() {
+        return series;
+    }
+
+    public int size() {
+        return bookingsByStart.length;
+    }
+
+    boolean isEmpty() {
+        return bookingsByStart.length == 0 && series.isEmpty();
+    }
+
+    RoomSchedule apply(List<BookingEvent> events) {
+        List<BookingEvent> bookingEvents = new ArrayList<>();
+        Map<String, RecurringBooking> seriesById = null;
+        for (BookingEvent event : events) {
+            switch (event) {
+                case BookingCreated created -> bookingEvents.add(created);
+                case BookingCancelled cancelled -> bookingEvents.add(cancelled);
+                case BookingArchived archived -> bookingEvents.add(archived);
+                case SeriesCreated created -> {
+                    seriesById = seriesById == null ? seriesById() : seriesById;
+                    seriesById.put(created.getSeries().getId(), created.getSeries());
+                }
+                case SeriesChanged changed -> {
+                    seriesById = seriesById == null ? seriesById() : seriesById;
+                    seriesById.put(changed.getSeries().getId(), changed.getSeries());
+                }
+                case SeriesCancelled cancelled -> {
+                    seriesById = seriesById == null ? seriesById() : seriesById;
+                    seriesById.remove(cancelled.getSeries().getId());
+                }
+                default -> throw new IllegalArgumentException("Okänd händelse: " + event.getClass().getSimpleName());
+            }
+        }
+
+        List<RecurringBooking> newSeries = seriesById == null ? series : List.copyOf(seriesById.values());
+        if (bookingEvents.isEmpty()) {
+            return new RoomSchedule(bookingsByStart, maxEndUpTo, newSeries);
+        }
+        return bookingEvents.size() <= MAX_INCREMENTAL_CHANGES
+                ? withChanges(bookingEvents, newSeries)
+                : rebuilt(bookingEvents, newSeries);
+    }
+
+    // Varje ändring hittar sin plats med binärsökning; maxsluttiderna före första ändrade plats återanvänds
+    private RoomSchedule withChanges(List<BookingEvent> bookingEvents, List<RecurringBooking> newSeries) {
+        Booking[] bookings = bookingsByStart;
+        int size = bookings.length;
+        int firstChanged = size;
+        for (BookingEvent event : bookingEvents) {
+            Booking booking = bookingOf(event);
+            if (event instanceof BookingCreated) {
+                int index = firstStartingAfter(bookings, size, booking.getStartEpochNanos());
+                Booking[] grown = new Booking[size + 1];
+                System.arraycopy(bookings, 0, grown, 0, index);
+                grown[index] = booking;
+                System.arraycopy(bookings, index, grown, index + 1, size - index);
+                bookings = grown;
+                size++;
+                firstChanged = Math.min(firstChanged, index);
+            } else {
+                int index = indexOf(bookings, size, booking);
+                if (index < 0) {
+                    continue;
+                }
+                Booking[] shrunk = new Booking[size - 1];
+                System.arraycopy(bookings, 0, shrunk, 0, index);
+                System.arraycopy(bookings, index + 1, shrunk, index, size - index - 1);
+                bookings = shrunk;
+                size--;
+                firstChanged = Math.min(firstChanged, index);
+            }
+        }
+
+        long[] maxEnds = new long[size];
+        System.arraycopy(maxEndUpTo, 0, maxEnds, 0, Math.min(firstChanged, size));
+        fillMaxEnds(bookings, maxEnds, Math.min(firstChanged, size));
+        return new RoomSchedule(bookings, maxEnds, newSeries);
+    }
+
+    private RoomSchedule rebuilt(List<BookingEvent> bookingEvents, List<RecurringBooking> newSeries) {
+        Map<String, Booking> byId = new LinkedHashMap<>();
+        for (Booking booking : bookingsByStart) {
+            byId.put(booking.getId(), booking);
+        }
+        for (BookingEvent event : bookingEvents) {
+            Booking booking = bookingOf(event);
+            if (event instanceof BookingCreated) {
+                byId.put(booking.getId(), booking);
+            } else {
+                byId.remove(booking.getId());
+            }
+        }
+        Booking[] sorted = byId.values().toArray(new Booking[0]);
+        Arrays.sort(sorted, Comparator.comparingLong(Booking::getStartEpochNanos));
+        long[] maxEnds = new long[sorted.length];
+        fillMaxEnds(sorted, maxEnds, 0);
+        return new RoomSchedule(sorted, maxEnds, newSeries);
+    }
+
+    private static Booking bookingOf(BookingEvent event) {
+        return switch (event) {
+            case BookingCreated created -> created.getBooking();
+            case BookingCancelled cancelled -> cancelled.getBooking();
+            case BookingArchived archived -> archived.getBooking();
+            default -> throw new IllegalArgumentException("Okänd händelse: " + event.getClass().getSimpleName());
+        };
+    }
+
+    private static void fillMaxEnds(Booking[] bookings, long[] maxEnds, int from) {
+        long maxEnd = from == 0 ? Long.MIN_VALUE : maxEnds[from - 1];
+        for (int i = from; i < maxEnds.length; i++) {
+            maxEnd = Math.max(maxEnd, bookings[i].getEndEpochNanos());
+            maxEnds[i] = maxEnd;
+        }
+    }
+
+    private Map<String, RecurringBooking> seriesById() {
+        Map<String, RecurringBooking> byId = new LinkedHashMap<>();
+        for (RecurringBooking recurring : series) {
+            byId.put(recurring.getId(), recurring);
+        }
+        return byId;
+    }
+
+    private static int firstStartingAfter(Booking[] bookings, int size, long epochNanos) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (bookings[mid].getStartEpochNanos() <= epochNanos) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // Bokningar med samma starttid ligger intill varandra, så bara de behöver jämföras på id
+    private static int indexOf(Booking[] bookings, int size, Booking booking) {
+        int index = booking.getStartEpochNanos() == Long.MIN_VALUE
+                ? 0 : firstStartingAfter(bookings, size, booking.getStartEpochNanos() - 1);
+        for (; index < size && bookings[index].getStartEpochNanos() == booking.getStartEpochNanos(); index++) {
+            if (bookings[index].getId().equals(booking.getId())) {
+                return index;
+            }
+        }
+        return -1;
+    }
+}
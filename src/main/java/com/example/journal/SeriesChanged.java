@@ -0,0 +1,22 @@
+package com.example.journal;
+
+import com.example.RecurringBooking;
+
+// Hela seriens nya tillstånd, t.ex. efter att ett tillfälle avbokats
+public final class SeriesChanged extends BookingEvent {
+    private final RecurringBooking series;
+
+    SeriesChanged(long sequence, RecurringBooking series) {
+        super(sequence);
+        this.series = series;
+    }
+
+    public RecurringBooking getSeries() {
+        return series;
+    }
+
+    @Override
+    public String getRoomId() {
+        return series.getRoomId();
+    }
+}
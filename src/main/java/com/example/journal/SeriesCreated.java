@@ -0,0 +1,21 @@
+package com.example.journal;
+
+import com.example.RecurringBooking;
+
+public final class SeriesCreated extends BookingEvent {
+    private final RecurringBooking series;
+
+    SeriesCreated(long sequence, RecurringBooking series) {
+        super(sequence);
+        this.series = series;
+    }
+
+    public RecurringBooking getSeries() {
+        return series;
+    }
+
+    @Override
+    public String getRoomId() {
+        return series.getRoomId();
+    }
+}
@@ -0,0 +1,40 @@
+package com.example.metrics;
+
+public interface BookingMetrics {
+
+    BookingMetrics NOOP = new BookingMetrics() {
+        @Override
+        public boolean isEnabled() {
+            return false;
+        }
+
+        @Override
+        public long startTimer() {
+            return 0;
+        }
+
+        @Override
+        public long recordPhase(Operation operation, Phase phase, long startNanos) {
+            return 0;
+        }
+
+        @Override
+        public void recordOutcome(Operation operation, Outcome outcome) {
+        }
+
+        @Override
+        public void recordRepositoryCall(RepositoryCall call) {
+        }
+    };
+
+    boolean isEnabled();
+
+    long startTimer();
+
+    // Returnerar sluttiden så att nästa fas kan mätas utan ett extra anrop till klockan
+    long recordPhase(Operation operation, Phase phase, long startNanos);
+
+    void recordOutcome(Operation operation, Outcome outcome);
+
+    void recordRepositoryCall(RepositoryCall call);
+}
@@ -0,0 +1,22 @@
+package com.example.metrics;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+public class InMemoryMetricsExporter implements MetricsExporter {
+    private final List<MetricsSnapshot> snapshots = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void export(MetricsSnapshot snapshot) {
+        snapshots.add(snapshot);
+    }
+
+    public List<MetricsSnapshot> getSnapshots() {
+        return List.copyOf(snapshots);
+    }
+
+    public Optional<MetricsSnapshot> getLatest() {
+        return snapshots.isEmpty() ? Optional.empty() : Optional.of(snapshots.get(snapshots.size() - 1));
+    }
+}
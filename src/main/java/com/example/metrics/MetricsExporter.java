@@ -0,0 +1,5 @@
+package com.example.metrics;
+
+public interface MetricsExporter {
+    void export(MetricsSnapshot snapshot);
+}
@@ -0,0 +1,36 @@
+package com.example.metrics;
+
+import java.util.Map;
+
+public class MetricsSnapshot {
+    private final long takenAtNanos;
+    private final Map<Operation, Map<Phase, LatencyHistogram.Snapshot>> latencies;
+    private final Map<Operation, Map<Outcome, Long>> outcomes;
+    private final Map<RepositoryCall, Long> repositoryCalls;
+
+    MetricsSnapshot(long takenAtNanos,
+                    Map<Operation, Map<Phase, LatencyHistogram.Snapshot>> latencies,
+                    Map<Operation, Map<Outcome, Long>> outcomes,
+                    Map<RepositoryCall, Long> repositoryCalls) {
+        this.takenAtNanos = takenAtNanos;
+        this.latencies = latencies;
+        this.outcomes = outcomes;
+        this.repositoryCalls = repositoryCalls;
+    }
+
+    public long getTakenAtNanos() {
+        return takenAtNanos;
+    }
+
+    public LatencyHistogram.Snapshot getLatency(Operation operation, Phase phase) {
+        return latencies.get(operation).get(phase);
+    }
+
+    public long getOutcomeCount(Operation operation, Outcome outcome) {
+        return outcomes.get(operation).get(outcome);
+    }
+
+    public long getRepositoryCallCount(RepositoryCall call) {
+        return repositoryCalls.get(call);
+    }
+}
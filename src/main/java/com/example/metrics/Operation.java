@@ -0,0 +1,11 @@
+package com.example.metrics;
+
+public enum Operation {
+    BOOK_ROOM,
+    BOOK_ROOMS,
+    GET_AVAILABLE_ROOMS,
+    CANCEL_BOOKING,
+    BOOK_RECURRING,
+    CANCEL_OCCURRENCE,
+    CANCEL_SERIES
+}
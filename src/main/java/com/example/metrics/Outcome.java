@@ -0,0 +1,12 @@
+package com.example.metrics;
+
+public enum Outcome {
+    BOOKED,
+    DOUBLE_BOOKED,
+    ROOM_NOT_FOUND,
+    INVALID,
+    ABORTED,
+    CANCELLED,
+    BOOKING_NOT_FOUND,
+    CANCEL_REJECTED
+}
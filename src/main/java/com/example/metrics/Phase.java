@@ -0,0 +1,12 @@
+package com.example.metrics;
+
+public enum Phase {
+    VALIDATION,
+    LOCK_WAIT,
+    FIND_ROOM,
+    FIND_ALL,
+    AVAILABILITY_CHECK,
+    SAVE,
+    NOTIFICATION,
+    TOTAL
+}
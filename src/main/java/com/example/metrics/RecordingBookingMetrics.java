@@ -0,0 +1,84 @@
+package com.example.metrics;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+public class RecordingBookingMetrics implements BookingMetrics {
+    private final LatencyHistogram[][] histograms = new LatencyHistogram[Operation.values().length][Phase.values().length];
+    private final LongAdder[][] outcomes = new LongAdder[Operation.values().length][Outcome.values().length];
+    private final LongAdder[] repositoryCalls = new LongAdder[RepositoryCall.values().length];
+
+    public RecordingBookingMetrics() {
+        for (LatencyHistogram[] byPhase : histograms) {
+            for (int i = 0; i < byPhase.length; i++) {
+                byPhase[i] = new LatencyHistogram();
+            }
+        }
+        for (LongAdder[] byOutcome : outcomes) {
+            for (int i = 0; i < byOutcome.length; i++) {
+                byOutcome[i] = new LongAdder();
+            }
+        }
+        for (int i = 0; i < repositoryCalls.length; i++) {
+            repositoryCalls[i] = new LongAdder();
+        }
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+
+    @Override
+    public long startTimer() {
+        return System.nanoTime();
+    }
+
+    @Override
+    public long recordPhase(Operation operation, Phase phase, long startNanos) {
+        long now = System.nanoTime();
+        histograms[operation.ordinal()][phase.ordinal()].record(now - startNanos);
+        return now;
+    }
+
+    @Override
+    public void recordOutcome(Operation operation, Outcome outcome) {
+        outcomes[operation.ordinal()][outcome.ordinal()].increment();
+    }
+
+    @Override
+    public void recordRepositoryCall(RepositoryCall call) {
+        repositoryCalls[call.ordinal()].increment();
+    }
+
+    public MetricsSnapshot snapshot() {
+        Map<Operation, Map<Phase, LatencyHistogram.Snapshot>> latencies = new EnumMap<>(Operation.class);
+        for (Operation operation : Operation.values()) {
+            Map<Phase, LatencyHistogram.Snapshot> byPhase = new EnumMap<>(Phase.class);
+            for (Phase phase : Phase.values()) {
+                byPhase.put(phase, histograms[operation.ordinal()][phase.ordinal()].snapshot());
+            }
+            latencies.put(operation, byPhase);
+        }
+
+        Map<Operation, Map<Outcome, Long>> outcomeCounts = new EnumMap<>(Operation.class);
+        for (Operation operation : Operation.values()) {
+            Map<Outcome, Long> byOutcome = new EnumMap<>(Outcome.class);
+            for (Outcome outcome : Outcome.values()) {
+                byOutcome.put(outcome, outcomes[operation.ordinal()][outcome.ordinal()].sum());
+            }
+            outcomeCounts.put(operation, byOutcome);
+        }
+
+        Map<RepositoryCall, Long> callCounts = new EnumMap<>(RepositoryCall.class);
+        for (RepositoryCall call : RepositoryCall.values()) {
+            callCounts.put(call, repositoryCalls[call.ordinal()].sum());
+        }
+        return new MetricsSnapshot(System.nanoTime(), latencies, outcomeCounts, callCounts);
+    }
+
+    public void exportTo(MetricsExporter exporter) {
+        exporter.export(snapshot());
+    }
+}
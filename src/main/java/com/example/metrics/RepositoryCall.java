@@ -0,0 +1,9 @@
+package com.example.metrics;
+
+public enum RepositoryCall {
+    FIND_BY_ID,
+    FIND_ALL,
+    FIND_CHUNK,
+    SAVE,
+    FIND_BY_BOOKING_ID
+}
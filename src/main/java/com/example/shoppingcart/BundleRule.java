@@ -0,0 +1,61 @@
+package com.example.shoppingcart;
+
+import java.util.List;
+import java.util.Set;
+
+public class BundleRule implements PricingRule {
+
+    private final Set<String> itemNames;
+    // Fixed order, so rounding cents always land on the same line
+    private final List<String> sortedItemNames;
+    private final long bundlePriceInMinorUnits;
+
+    public BundleRule(Set<String> itemNames, double bundlePrice) {
+        if (itemNames == null || itemNames.size() < 2) {
+            throw new IllegalArgumentException("A bundle needs at least two items");
+        }
+        itemNames.forEach(PricingRule::requireValidItemName);
+        if (bundlePrice <= 0 || Item.toMinorUnits(bundlePrice) <= 0) {
+            throw new IllegalArgumentException("Price must be greater than zero");
+        }
+        this.itemNames = Set.copyOf(itemNames);
+        this.sortedItemNames = itemNames.stream().sorted().toList();
+        this.bundlePriceInMinorUnits = Item.toMinorUnits(bundlePrice);
+    }
+
+    @Override
+    public Set<String> getItemNames() {
+        return itemNames;
+    }
+
+    @Override
+    public void discountLines(LineTotals lines) {
+        // One bundle per complete set of items, each priced at the bundle price instead of what is left of the units
+        int bundles = Integer.MAX_VALUE;
+        for (String itemName : sortedItemNames) {
+            bundles = Math.min(bundles, lines.getQuantity(itemName));
+        }
+        if (bundles == 0) {
+            return;
+        }
+
+        long[] bundledValues = new long[sortedItemNames.size()];
+        long bundledValue = 0;
+        for (int i = 0; i < bundledValues.length; i++) {
+            String itemName = sortedItemNames.get(i);
+            bundledValues[i] = lines.getRemainingInMinorUnits(itemName) * bundles / lines.getQuantity(itemName);
+            bundledValue += bundledValues[i];
+        }
+        long discount = bundledValue - bundlePriceInMinorUnits * bundles;
+        if (discount <= 0) {
+            return;
+        }
+
+        // Spread over the lines by their share of the bundled value; the last line takes the rounding
+        long left = discount;
+        for (int i = 0; i < bundledValues.length - 1; i++) {
+            left -= lines.discount(sortedItemNames.get(i), discount * bundledValues[i] / bundledValue);
+        }
+        lines.discount(sortedItemNames.get(bundledValues.length - 1), left);
+    }
+}
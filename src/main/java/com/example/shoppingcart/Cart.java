@@ -0,0 +1,13 @@
+package com.example.shoppingcart;
+
+public interface Cart {
+    void addItem(String itemName, double price, int quantity);
+    void deleteItem(String itemName);
+    boolean containsItem(String itemName);
+    int getItemsCount();
+    double getTotalPrice();
+    long getSubtotalInMinorUnits();
+    void applyDiscount(double discountPercentage);
+    int getItemQuantity(String itemName);
+    long getItemPriceInMinorUnits(String itemName);
+}
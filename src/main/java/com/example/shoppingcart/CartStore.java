@@ -0,0 +1,441 @@
+package com.example.shoppingcart;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class CartStore {
+
+    private static final int NONE = -1;
+    private static final long NO_CART = -1L;
+    private static final int REMOVED = -1;
+    private static final int DEFAULT_SEGMENTS = 16;
+
+    // Item names are interned once and shared by all segments; lines refer to them by index
+    private final Map<String, Integer> itemIdByName = new ConcurrentHashMap<>();
+    private final AtomicInteger nextItemId = new AtomicInteger();
+
+    // Carts are spread over independently locked segments so that unrelated carts don't contend.
+    // A cart id holds the slot's generation in the high 32 bits and slot * segments.length + segment index
+    // in the low 32, so an id of a removed cart never matches the cart that later reuses the slot.
+    private final Segment[] segments;
+    private final AtomicInteger nextSegment = new AtomicInteger();
+    private final AtomicInteger freeCarts = new AtomicInteger();
+
+    public CartStore() {
+        this(16, 64);
+    }
+
+    public CartStore(int initialCarts, int initialLines) {
+        this(initialCarts, initialLines, DEFAULT_SEGMENTS);
+    }
+
+    public CartStore(int initialCarts, int initialLines, int segmentCount) {
+        if (initialCarts < 1 || initialLines < 1 || segmentCount < 1) {
+            throw new IllegalArgumentException("Initial capacity must be greater than zero");
+        }
+        segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment(ceilDiv(initialCarts, segmentCount), ceilDiv(initialLines, segmentCount));
+        }
+    }
+
+    public long createCart() {
+        // Freed slots are reused first so the columns stay dense
+        if (freeCarts.get() > 0) {
+            int first = Math.floorMod(nextSegment.get(), segments.length);
+            for (int i = 0; i < segments.length; i++) {
+                int segmentIndex = (first + i) % segments.length;
+                long reused = segments[segmentIndex].reuseCart();
+                if (reused != NO_CART) {
+                    freeCarts.decrementAndGet();
+                    return cartId((int) reused, generationOf(reused), segmentIndex);
+                }
+            }
+        }
+        int segmentIndex = Math.floorMod(nextSegment.getAndIncrement(), segments.length);
+        return cartId(segments[segmentIndex].createCart(), 0, segmentIndex);
+    }
+
+    public Cart cart(long cartId) {
+        Segment segment = segmentOf(cartId);
+        int slot = slotOf(cartId);
+        int generation = generationOf(cartId);
+        segment.requireLiveCart(slot, generation);
+        return new CartView(segment, slot, generation);
+    }
+
+    public void removeCart(long cartId) {
+        segmentOf(cartId).removeCart(slotOf(cartId), generationOf(cartId));
+        freeCarts.incrementAndGet();
+    }
+
+    public int getCartCount() {
+        int count = 0;
+        for (Segment segment : segments) {
+            count += segment.getLiveCarts();
+        }
+        return count;
+    }
+
+    public int getLineCount() {
+        int count = 0;
+        for (Segment segment : segments) {
+            count += segment.getLiveLines();
+        }
+        return count;
+    }
+
+    private long cartId(int slot, int generation, int segmentIndex) {
+        long position = (long) slot * segments.length + segmentIndex;
+        if (position > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Cart store is full");
+        }
+        return (long) generation << 32 | position;
+    }
+
+    private Segment segmentOf(long cartId) {
+        if (positionOf(cartId) < 0) {
+            throw new IllegalArgumentException("Cart does not exist");
+        }
+        return segments[positionOf(cartId) % segments.length];
+    }
+
+    private int slotOf(long cartId) {
+        return positionOf(cartId) / segments.length;
+    }
+
+    private static int positionOf(long cartId) {
+        return (int) cartId;
+    }
+
+    private static int generationOf(long cartId) {
+        return (int) (cartId >>> 32);
+    }
+
+    private int internItem(String itemName) {
+        return itemIdByName.computeIfAbsent(itemName, name -> nextItemId.getAndIncrement());
+    }
+
+    private static int ceilDiv(int value, int divisor) {
+        return Math.max(1, (value + divisor - 1) / divisor);
+    }
+
+    private static void requireValidItemName(String itemName) {
+        if (itemName == null || itemName.isEmpty()) {
+            throw new IllegalArgumentException("Item name cannot be null or empty");
+        }
+    }
+
+    private final class Segment {
+        // Line columns, one slot per line item, chained per cart through lineNext
+        private int[] lineItemId;
+        private long[] linePriceInMinorUnits;
+        private int[] lineQuantity;
+        private int[] lineNext;
+        private int lineCapacityUsed;
+        private int freeLine = NONE;
+        private int liveLines;
+
+        // Cart columns, indexed by slot
+        private int[] cartHead;
+        private int[] cartLineCount;
+        private long[] cartSubtotalInMinorUnits;
+        private double[] cartDiscount;
+        // Bumped when a slot is freed so views of the old cart can't reach the one that reuses the slot
+        private int[] cartGeneration;
+        private int cartCapacityUsed;
+        private int freeCart = NONE;
+        private int liveCarts;
+
+        private Segment(int initialCarts, int initialLines) {
+            lineItemId = new int[initialLines];
+            linePriceInMinorUnits = new long[initialLines];
+            lineQuantity = new int[initialLines];
+            lineNext = new int[initialLines];
+            cartHead = new int[initialCarts];
+            cartLineCount = new int[initialCarts];
+            cartSubtotalInMinorUnits = new long[initialCarts];
+            cartDiscount = new double[initialCarts];
+            cartGeneration = new int[initialCarts];
+        }
+
+        // Returns the reused slot with its generation in the high 32 bits, or NO_CART
+        private synchronized long reuseCart() {
+            if (freeCart == NONE) {
+                return NO_CART;
+            }
+            // Removed carts keep the next free slot in their head slot
+            int slot = freeCart;
+            freeCart = cartHead[slot];
+            initCart(slot);
+            return (long) cartGeneration[slot] << 32 | slot;
+        }
+
+        private synchronized int createCart() {
+            if (cartCapacityUsed == cartHead.length) {
+                growCarts();
+            }
+            int slot = cartCapacityUsed++;
+            initCart(slot);
+            return slot;
+        }
+
+        private void initCart(int slot) {
+            cartHead[slot] = NONE;
+            cartLineCount[slot] = 0;
+            cartSubtotalInMinorUnits[slot] = 0;
+            cartDiscount[slot] = 0.0;
+            liveCarts++;
+        }
+
+        private synchronized void requireLiveCart(int slot, int generation) {
+            requireLive(slot, generation);
+        }
+
+        private synchronized void removeCart(int slot, int generation) {
+            requireLive(slot, generation);
+
+            int line = cartHead[slot];
+            while (line != NONE) {
+                int next = lineNext[line];
+                freeLine(line);
+                line = next;
+            }
+            cartLineCount[slot] = REMOVED;
+            cartGeneration[slot]++;
+            cartHead[slot] = freeCart;
+            freeCart = slot;
+            liveCarts--;
+        }
+
+        private synchronized int getLiveCarts() {
+            return liveCarts;
+        }
+
+        private synchronized int getLiveLines() {
+            return liveLines;
+        }
+
+        private synchronized void addItem(int slot, int generation, String itemName, double price, int quantity) {
+            requireValidItemName(itemName);
+            long priceInMinorUnits = Item.toMinorUnits(price);
+            if (price <= 0 || priceInMinorUnits <= 0) {
+                throw new IllegalArgumentException("Price must be greater than zero");
+            }
+            if (quantity <= 0) {
+                throw new IllegalArgumentException("Quantity must be greater than zero");
+            }
+            requireLive(slot, generation);
+
+            int itemId = internItem(itemName);
+            int line = findLine(slot, itemId);
+            if (line != NONE) {
+                long subtotal = Math.addExact(cartSubtotalInMinorUnits[slot],
+                        Math.multiplyExact(linePriceInMinorUnits[line], (long) quantity));
+                lineQuantity[line] = Math.addExact(lineQuantity[line], quantity);
+                cartSubtotalInMinorUnits[slot] = subtotal;
+            } else {
+                long subtotal = Math.addExact(cartSubtotalInMinorUnits[slot],
+                        Math.multiplyExact(priceInMinorUnits, (long) quantity));
+                line = allocateLine();
+                lineItemId[line] = itemId;
+                linePriceInMinorUnits[line] = priceInMinorUnits;
+                lineQuantity[line] = quantity;
+                lineNext[line] = cartHead[slot];
+                cartHead[slot] = line;
+                cartLineCount[slot]++;
+                cartSubtotalInMinorUnits[slot] = subtotal;
+            }
+        }
+
+        private synchronized void deleteItem(int slot, int generation, String itemName) {
+            requireValidItemName(itemName);
+            requireLive(slot, generation);
+
+            Integer itemId = itemIdByName.get(itemName);
+            if (itemId == null) {
+                return;
+            }
+            int previous = NONE;
+            for (int line = cartHead[slot]; line != NONE; previous = line, line = lineNext[line]) {
+                if (lineItemId[line] == itemId) {
+                    if (previous == NONE) {
+                        cartHead[slot] = lineNext[line];
+                    } else {
+                        lineNext[previous] = lineNext[line];
+                    }
+                    cartSubtotalInMinorUnits[slot] -= linePriceInMinorUnits[line] * lineQuantity[line];
+                    cartLineCount[slot]--;
+                    freeLine(line);
+                    return;
+                }
+            }
+        }
+
+        private synchronized int lineFor(int slot, int generation, String itemName) {
+            requireLive(slot, generation);
+            if (itemName == null) {
+                return NONE;
+            }
+            Integer itemId = itemIdByName.get(itemName);
+            return itemId == null ? NONE : findLine(slot, itemId);
+        }
+
+        private synchronized int getItemQuantity(int slot, int generation, String itemName) {
+            requireValidItemName(itemName);
+            int line = lineFor(slot, generation, itemName);
+            return line == NONE ? 0 : lineQuantity[line];
+        }
+
+        private synchronized long getItemPriceInMinorUnits(int slot, int generation, String itemName) {
+            requireValidItemName(itemName);
+            int line = lineFor(slot, generation, itemName);
+            return line == NONE ? 0 : linePriceInMinorUnits[line];
+        }
+
+        private synchronized int getItemsCount(int slot, int generation) {
+            requireLive(slot, generation);
+            return cartLineCount[slot];
+        }
+
+        private synchronized long getSubtotalInMinorUnits(int slot, int generation) {
+            requireLive(slot, generation);
+            return cartSubtotalInMinorUnits[slot];
+        }
+
+        private synchronized double getTotalPrice(int slot, int generation) {
+            requireLive(slot, generation);
+            double total = cartSubtotalInMinorUnits[slot] / 100.0;
+            return total - (total * cartDiscount[slot] / 100);
+        }
+
+        private synchronized void applyDiscount(int slot, int generation, double discountPercentage) {
+            if (discountPercentage < 0 || discountPercentage > 100) {
+                throw new IllegalArgumentException("Discount must be between 0 and 100");
+            }
+            requireLive(slot, generation);
+
+            cartDiscount[slot] = discountPercentage;
+        }
+
+        private int findLine(int slot, int itemId) {
+            // Carts hold a handful of lines, so a walk of the chain beats a per-cart index
+            for (int line = cartHead[slot]; line != NONE; line = lineNext[line]) {
+                if (lineItemId[line] == itemId) {
+                    return line;
+                }
+            }
+            return NONE;
+        }
+
+        private int allocateLine() {
+            int line;
+            if (freeLine != NONE) {
+                line = freeLine;
+                freeLine = lineNext[line];
+            } else {
+                if (lineCapacityUsed == lineItemId.length) {
+                    growLines();
+                }
+                line = lineCapacityUsed++;
+            }
+            liveLines++;
+            return line;
+        }
+
+        private void freeLine(int line) {
+            lineNext[line] = freeLine;
+            freeLine = line;
+            liveLines--;
+        }
+
+        private void growLines() {
+            int capacity = newCapacity(lineItemId.length);
+            lineItemId = Arrays.copyOf(lineItemId, capacity);
+            linePriceInMinorUnits = Arrays.copyOf(linePriceInMinorUnits, capacity);
+            lineQuantity = Arrays.copyOf(lineQuantity, capacity);
+            lineNext = Arrays.copyOf(lineNext, capacity);
+        }
+
+        private void growCarts() {
+            int capacity = newCapacity(cartHead.length);
+            cartHead = Arrays.copyOf(cartHead, capacity);
+            cartLineCount = Arrays.copyOf(cartLineCount, capacity);
+            cartSubtotalInMinorUnits = Arrays.copyOf(cartSubtotalInMinorUnits, capacity);
+            cartDiscount = Arrays.copyOf(cartDiscount, capacity);
+            cartGeneration = Arrays.copyOf(cartGeneration, capacity);
+        }
+
+        private void requireLive(int slot, int generation) {
+            if (slot >= cartCapacityUsed || cartLineCount[slot] == REMOVED || cartGeneration[slot] != generation) {
+                throw new IllegalArgumentException("Cart does not exist");
+            }
+        }
+    }
+
+    private static int newCapacity(int current) {
+        if (current == Integer.MAX_VALUE - 8) {
+            throw new IllegalStateException("Cart store is full");
+        }
+        return (int) Math.min((long) current + (current >> 1) + 1, Integer.MAX_VALUE - 8);
+    }
+
+    private static final class CartView implements Cart {
+        private final Segment segment;
+        private final int slot;
+        private final int generation;
+
+        private CartView(Segment segment, int slot, int generation) {
+            this.segment = segment;
+            this.slot = slot;
+            this.generation = generation;
+        }
+
+        @Override
+        public void addItem(String itemName, double price, int quantity) {
+            segment.addItem(slot, generation, itemName, price, quantity);
+        }
+
+        @Override
+        public void deleteItem(String itemName) {
+            segment.deleteItem(slot, generation, itemName);
+        }
+
+        @Override
+        public boolean containsItem(String itemName) {
+            return segment.lineFor(slot, generation, itemName) != NONE;
+        }
+
+        @Override
+        public int getItemsCount() {
+            return segment.getItemsCount(slot, generation);
+        }
+
+        @Override
+        public double getTotalPrice() {
+            return segment.getTotalPrice(slot, generation);
+        }
+
+        @Override
+        public long getSubtotalInMinorUnits() {
+            return segment.getSubtotalInMinorUnits(slot, generation);
+        }
+
+        @Override
+        public void applyDiscount(double discountPercentage) {
+            segment.applyDiscount(slot, generation, discountPercentage);
+        }
+
+        @Override
+        public int getItemQuantity(String itemName) {
+            return segment.getItemQuantity(slot, generation, itemName);
+        }
+
+        @Override
+        public long getItemPriceInMinorUnits(String itemName) {
+            return segment.getItemPriceInMinorUnits(slot, generation, itemName);
+        }
+    }
+}
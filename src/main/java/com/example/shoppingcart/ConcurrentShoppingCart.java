@@ -0,0 +1,107 @@
+package com.example.shoppingcart;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class ConcurrentShoppingCart implements Cart {
+
+    private final ConcurrentHashMap<String, Line> lines = new ConcurrentHashMap<>();
+    private final AtomicLong subtotalInMinorUnits = new AtomicLong();
+    private volatile double discount;
+
+    @Override
+    public void addItem(String itemName, double price, int quantity) {
+        if (itemName == null || itemName.isEmpty()) {
+            throw new IllegalArgumentException("Item name cannot be null or empty");
+        }
+        long priceInMinorUnits = Item.toMinorUnits(price);
+        if (price <= 0 || priceInMinorUnits <= 0) {
+            throw new IllegalArgumentException("Price must be greater than zero");
+        }
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Quantity must be greater than zero");
+        }
+
+        // compute is atomic per key, so the line and the subtotal change together
+        lines.compute(itemName, (name, line) -> {
+            Line updated = line == null
+                    ? new Line(priceInMinorUnits, quantity)
+                    : new Line(line.priceInMinorUnits, Math.addExact(line.quantity, quantity));
+            long delta = Math.multiplyExact(updated.priceInMinorUnits, (long) quantity);
+            subtotalInMinorUnits.accumulateAndGet(delta, Math::addExact);
+            return updated;
+        });
+    }
+
+    @Override
+    public void deleteItem(String itemName) {
+        if (itemName == null || itemName.isEmpty()) {
+            throw new IllegalArgumentException("Item name cannot be null or empty");
+        }
+
+        lines.computeIfPresent(itemName, (name, line) -> {
+            subtotalInMinorUnits.addAndGet(-line.priceInMinorUnits * line.quantity);
+            return null;
+        });
+    }
+
+    @Override
+    public boolean containsItem(String itemName) {
+        return lines.containsKey(itemName);
+    }
+
+    @Override
+    public int getItemsCount() {
+        return lines.size();
+    }
+
+    @Override
+    public double getTotalPrice() {
+        double total = subtotalInMinorUnits.get() / 100.0;
+        return total - (total * discount / 100);
+    }
+
+    @Override
+    public long getSubtotalInMinorUnits() {
+        return subtotalInMinorUnits.get();
+    }
+
+    @Override
+    public void applyDiscount(double discountPercentage) {
+        if (discountPercentage < 0 || discountPercentage > 100) {
+            throw new IllegalArgumentException("Discount must be between 0 and 100");
+        }
+
+        this.discount = discountPercentage;
+    }
+
+    @Override
+    public int getItemQuantity(String itemName) {
+        if (itemName == null || itemName.isEmpty()) {
+            throw new IllegalArgumentException("Item name cannot be null or empty");
+        }
+
+        Line line = lines.get(itemName);
+        return line == null ? 0 : line.quantity;
+    }
+
+    @Override
+    public long getItemPriceInMinorUnits(String itemName) {
+        if (itemName == null || itemName.isEmpty()) {
+            throw new IllegalArgumentException("Item name cannot be null or empty");
+        }
+
+        Line line = lines.get(itemName);
+        return line == null ? 0 : line.priceInMinorUnits;
+    }
+
+    private static final class Line {
+        private final long priceInMinorUnits;
+        private final int quantity;
+
+        private Line(long priceInMinorUnits, int quantity) {
+            this.priceInMinorUnits = priceInMinorUnits;
+            this.quantity = quantity;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.shoppingcart;
+
+import java.util.Set;
+
+public class CouponRule implements PricingRule {
+
+    private final double percentage;
+    private final long amountInMinorUnits;
+
+    private CouponRule(double percentage, long amountInMinorUnits) {
+        this.percentage = percentage;
+        this.amountInMinorUnits = amountInMinorUnits;
+    }
+
+    public static CouponRule percentageOff(double percentage) {
+        PricingRule.requireValidPercentage(percentage);
+        return new CouponRule(percentage, 0);
+    }
+
+    public static CouponRule amountOff(double amount) {
+        if (amount <= 0 || Item.toMinorUnits(amount) <= 0) {
+            throw new IllegalArgumentException("Amount must be greater than zero");
+        }
+        return new CouponRule(0, Item.toMinorUnits(amount));
+    }
+
+    boolean isPercentageOnly() {
+        return amountInMinorUnits == 0;
+    }
+
+    // Two stacked percentage coupons compound into one, so the pipeline applies a single step
+    CouponRule compoundWith(CouponRule next) {
+        double remaining = (1 - percentage / 100) * (1 - next.percentage / 100);
+        return new CouponRule(100 * (1 - remaining), 0);
+    }
+
+    @Override
+    public Set<String> getItemNames() {
+        return Set.of();
+    }
+
+    @Override
+    public long applyToTotal(long totalInMinorUnits) {
+        long discounted = totalInMinorUnits - PricingRule.percentageOf(totalInMinorUnits, percentage) - amountInMinorUnits;
+        return Math.max(0, discounted);
+    }
+}
@@ -2,17 +2,25 @@ package com.example.shoppingcart;
 
 public class Item {
     private String name;
-    private double price;
+    private long priceInMinorUnits;
     private int quantity;
 
     public Item(String name, double price, int quantity) {
         this.name = name;
-        this.price = price;
+        this.priceInMinorUnits = toMinorUnits(price);
         this.quantity = quantity;
     }
 
+    static long toMinorUnits(double price) {
+        return Math.round(price * 100);
+    }
+
     public double getPrice() {
-        return price;
+        return priceInMinorUnits / 100.0;
+    }
+
+    public long getPriceInMinorUnits() {
+        return priceInMinorUnits;
     }
 
     public int getQuantity() {
@@ -0,0 +1,26 @@
+package com.example.shoppingcart;
+
+import java.util.Set;
+
+public class ItemDiscountRule implements PricingRule {
+
+    private final String itemName;
+    private final double percentage;
+
+    public ItemDiscountRule(String itemName, double percentage) {
+        PricingRule.requireValidItemName(itemName);
+        PricingRule.requireValidPercentage(percentage);
+        this.itemName = itemName;
+        this.percentage = percentage;
+    }
+
+    @Override
+    public Set<String> getItemNames() {
+        return Set.of(itemName);
+    }
+
+    @Override
+    public void discountLines(LineTotals lines) {
+        lines.discount(itemName, PricingRule.percentageOf(lines.getRemainingInMinorUnits(itemName), percentage));
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.shoppingcart;
+
+import java.util.HashMap;
+import java.util.Map;
+
+// What is left of each line's total while line rules run in pipeline order; a line never goes below zero
+public final class LineTotals {
+
+    private final Cart cart;
+    private final Map<String, Long> remainingByItem = new HashMap<>();
+    private long discountInMinorUnits;
+
+    public LineTotals(Cart cart) {
+        this.cart = cart;
+    }
+
+    public int getQuantity(String itemName) {
+        return cart.getItemQuantity(itemName);
+    }
+
+    public long getRemainingInMinorUnits(String itemName) {
+        return remainingByItem.computeIfAbsent(itemName,
+                name -> cart.getItemPriceInMinorUnits(name) * cart.getItemQuantity(name));
+    }
+
+    // Takes at most what is left of the line and returns the amount actually taken
+    public long discount(String itemName, long amountInMinorUnits) {
+        long remaining = getRemainingInMinorUnits(itemName);
+        long taken = Math.max(0, Math.min(amountInMinorUnits, remaining));
+        remainingByItem.put(itemName, remaining - taken);
+        discountInMinorUnits += taken;
+        return taken;
+    }
+
+    public long getDiscountInMinorUnits() {
+        return discountInMinorUnits;
+    }
+}
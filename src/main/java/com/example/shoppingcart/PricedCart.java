@@ -0,0 +1,101 @@
+package com.example.shoppingcart;
+
+public class PricedCart implements Cart {
+
+    private final Cart cart;
+    private final PricingPipeline pipeline;
+    // Latest discount of each item group, so a changed line only re-evaluates the rules linked to it
+    private final long[] discountByGroup;
+    private long lineDiscountInMinorUnits;
+    private long cachedTotalInMinorUnits;
+    private boolean totalStale;
+    private double discount;
+
+    public PricedCart(Cart cart, PricingPipeline pipeline) {
+        if (cart == null || pipeline == null) {
+            throw new IllegalArgumentException("Cart and pricing pipeline cannot be null");
+        }
+        this.cart = cart;
+        this.pipeline = pipeline;
+        this.discountByGroup = new long[pipeline.getGroupCount()];
+        for (int group = 0; group < discountByGroup.length; group++) {
+            discountByGroup[group] = pipeline.groupDiscount(group, cart);
+            lineDiscountInMinorUnits += discountByGroup[group];
+        }
+        this.totalStale = true;
+    }
+
+    @Override
+    public void addItem(String itemName, double price, int quantity) {
+        cart.addItem(itemName, price, quantity);
+        lineChanged(itemName);
+    }
+
+    @Override
+    public void deleteItem(String itemName) {
+        cart.deleteItem(itemName);
+        lineChanged(itemName);
+    }
+
+    @Override
+    public boolean containsItem(String itemName) {
+        return cart.containsItem(itemName);
+    }
+
+    @Override
+    public int getItemsCount() {
+        return cart.getItemsCount();
+    }
+
+    @Override
+    public double getTotalPrice() {
+        return getTotalInMinorUnits() / 100.0;
+    }
+
+    public long getTotalInMinorUnits() {
+        if (totalStale) {
+            long afterLineRules = cart.getSubtotalInMinorUnits() - lineDiscountInMinorUnits;
+            long afterCartRules = pipeline.applyCartRules(afterLineRules);
+            cachedTotalInMinorUnits = afterCartRules - PricingRule.percentageOf(afterCartRules, discount);
+            totalStale = false;
+        }
+        return cachedTotalInMinorUnits;
+    }
+
+    @Override
+    public long getSubtotalInMinorUnits() {
+        return cart.getSubtotalInMinorUnits();
+    }
+
+    public long getLineDiscountInMinorUnits() {
+        return lineDiscountInMinorUnits;
+    }
+
+    @Override
+    public void applyDiscount(double discountPercentage) {
+        PricingRule.requireValidPercentage(discountPercentage);
+
+        this.discount = discountPercentage;
+        totalStale = true;
+    }
+
+    @Override
+    public int getItemQuantity(String itemName) {
+        return cart.getItemQuantity(itemName);
+    }
+
+    @Override
+    public long getItemPriceInMinorUnits(String itemName) {
+        return cart.getItemPriceInMinorUnits(itemName);
+    }
+
+    private void lineChanged(String itemName) {
+        int group = pipeline.groupFor(itemName);
+        if (group >= 0) {
+            long updated = pipeline.groupDiscount(group, cart);
+            lineDiscountInMinorUnits += updated - discountByGroup[group];
+            discountByGroup[group] = updated;
+        }
+        totalStale = true;
+    }
+}
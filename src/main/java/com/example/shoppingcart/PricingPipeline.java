@@ -0,0 +1,127 @@
+package com.example.shoppingcart;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class PricingPipeline {
+
+    private static final int NO_GROUP = -1;
+
+    private final PricingRule[] lineRules;
+    private final PricingRule[] cartRules;
+    // Items linked by a line rule form a group; a group's rules run in pipeline order against its lines only
+    private final int[][] lineRulesByGroup;
+    private final Map<String, Integer> groupByItem;
+
+    private PricingPipeline(PricingRule[] lineRules, PricingRule[] cartRules, int[][] lineRulesByGroup,
+                            Map<String, Integer> groupByItem) {
+        this.lineRules = lineRules;
+        this.cartRules = cartRules;
+        this.lineRulesByGroup = lineRulesByGroup;
+        this.groupByItem = groupByItem;
+    }
+
+    public static PricingPipeline compile(List<? extends PricingRule> rules) {
+        if (rules == null) {
+            throw new IllegalArgumentException("Rules cannot be null");
+        }
+
+        List<PricingRule> lineRules = new ArrayList<>();
+        List<PricingRule> cartRules = new ArrayList<>();
+        Map<String, String> parentByItem = new HashMap<>();
+        for (PricingRule rule : rules) {
+            if (rule == null) {
+                throw new IllegalArgumentException("Rules cannot be null");
+            }
+            if (rule.getItemNames().isEmpty()) {
+                addCartRule(cartRules, rule);
+                continue;
+            }
+            lineRules.add(rule);
+            String first = null;
+            for (String itemName : rule.getItemNames()) {
+                parentByItem.putIfAbsent(itemName, itemName);
+                if (first == null) {
+                    first = itemName;
+                } else {
+                    parentByItem.put(root(parentByItem, itemName), root(parentByItem, first));
+                }
+            }
+        }
+
+        Map<String, Integer> groupByRoot = new HashMap<>();
+        Map<String, Integer> groupByItem = new HashMap<>();
+        for (String itemName : parentByItem.keySet()) {
+            String root = root(parentByItem, itemName);
+            groupByItem.put(itemName, groupByRoot.computeIfAbsent(root, r -> groupByRoot.size()));
+        }
+        List<List<Integer>> rulesByGroup = new ArrayList<>();
+        for (int i = 0; i < groupByRoot.size(); i++) {
+            rulesByGroup.add(new ArrayList<>());
+        }
+        for (int index = 0; index < lineRules.size(); index++) {
+            String anyItem = lineRules.get(index).getItemNames().iterator().next();
+            rulesByGroup.get(groupByItem.get(anyItem)).add(index);
+        }
+
+        int[][] lineRulesByGroup = new int[rulesByGroup.size()][];
+        for (int group = 0; group < lineRulesByGroup.length; group++) {
+            lineRulesByGroup[group] = rulesByGroup.get(group).stream().mapToInt(Integer::intValue).toArray();
+        }
+        return new PricingPipeline(lineRules.toArray(new PricingRule[0]), cartRules.toArray(new PricingRule[0]),
+                lineRulesByGroup, groupByItem);
+    }
+
+    private static String root(Map<String, String> parentByItem, String itemName) {
+        String root = itemName;
+        while (!parentByItem.get(root).equals(root)) {
+            root = parentByItem.get(root);
+        }
+        parentByItem.put(itemName, root);
+        return root;
+    }
+
+    private static void addCartRule(List<PricingRule> cartRules, PricingRule rule) {
+        int last = cartRules.size() - 1;
+        if (rule instanceof CouponRule coupon && coupon.isPercentageOnly()
+                && last >= 0 && cartRules.get(last) instanceof CouponRule previous && previous.isPercentageOnly()) {
+            cartRules.set(last, previous.compoundWith(coupon));
+        } else {
+            cartRules.add(rule);
+        }
+    }
+
+    int getCartRuleCount() {
+        return cartRules.length;
+    }
+
+    int getLineRuleCount() {
+        return lineRules.length;
+    }
+
+    int getGroupCount() {
+        return lineRulesByGroup.length;
+    }
+
+    int groupFor(String itemName) {
+        return groupByItem.getOrDefault(itemName, NO_GROUP);
+    }
+
+    long groupDiscount(int group, Cart cart) {
+        LineTotals lines = new LineTotals(cart);
+        for (int ruleIndex : lineRulesByGroup[group]) {
+            lineRules[ruleIndex].discountLines(lines);
+        }
+        return lines.getDiscountInMinorUnits();
+    }
+
+    long applyCartRules(long totalInMinorUnits) {
+        long total = totalInMinorUnits;
+        for (PricingRule rule : cartRules) {
+            total = rule.applyToTotal(total);
+        }
+        return total;
+    }
+}
@@ -0,0 +1,33 @@
+package com.example.shoppingcart;
+
+import java.util.Set;
+
+public interface PricingRule {
+
+    // Items whose lines the rule reads; an empty set makes it a cart-level rule
+    Set<String> getItemNames();
+
+    // Takes the rule's discount from what earlier line rules left of its lines
+    default void discountLines(LineTotals lines) {
+    }
+
+    default long applyToTotal(long totalInMinorUnits) {
+        return totalInMinorUnits;
+    }
+
+    static long percentageOf(long amountInMinorUnits, double percentage) {
+        return Math.round(amountInMinorUnits * percentage / 100);
+    }
+
+    static void requireValidPercentage(double percentage) {
+        if (percentage < 0 || percentage > 100) {
+            throw new IllegalArgumentException("Discount must be between 0 and 100");
+        }
+    }
+
+    static void requireValidItemName(String itemName) {
+        if (itemName == null || itemName.isEmpty()) {
+            throw new IllegalArgumentException("Item name cannot be null or empty");
+        }
+    }
+}
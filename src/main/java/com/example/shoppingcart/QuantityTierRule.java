@@ -0,0 +1,40 @@
+package com.example.shoppingcart;
+
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+
+public class QuantityTierRule implements PricingRule {
+
+    private final String itemName;
+    private final NavigableMap<Integer, Double> percentageByMinQuantity;
+
+    public QuantityTierRule(String itemName, Map<Integer, Double> percentageByMinQuantity) {
+        PricingRule.requireValidItemName(itemName);
+        if (percentageByMinQuantity == null || percentageByMinQuantity.isEmpty()) {
+            throw new IllegalArgumentException("At least one quantity tier is required");
+        }
+        for (Map.Entry<Integer, Double> tier : percentageByMinQuantity.entrySet()) {
+            if (tier.getKey() == null || tier.getKey() <= 0) {
+                throw new IllegalArgumentException("Quantity must be greater than zero");
+            }
+            PricingRule.requireValidPercentage(tier.getValue());
+        }
+        this.itemName = itemName;
+        this.percentageByMinQuantity = new TreeMap<>(percentageByMinQuantity);
+    }
+
+    @Override
+    public Set<String> getItemNames() {
+        return Set.of(itemName);
+    }
+
+    @Override
+    public void discountLines(LineTotals lines) {
+        Map.Entry<Integer, Double> tier = percentageByMinQuantity.floorEntry(lines.getQuantity(itemName));
+        if (tier != null) {
+            lines.discount(itemName, PricingRule.percentageOf(lines.getRemainingInMinorUnits(itemName), tier.getValue()));
+        }
+    }
+}
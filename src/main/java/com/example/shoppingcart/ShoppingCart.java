@@ -3,58 +3,76 @@ package com.example.shoppingcart;
 import java.util.HashMap;
 import java.util.Map;
 
-public class ShoppingCart {
+public class ShoppingCart implements Cart {
 
     private Map<String, Item> items;
+    private long subtotalInMinorUnits;
     private double discount;
 
     public ShoppingCart() {
         items = new HashMap<>();
+        subtotalInMinorUnits = 0;
         discount = 0.0;
     }
 
+    @Override
     public void addItem(String itemName, double price, int quantity) {
         if (itemName == null || itemName.isEmpty()) {
             throw new IllegalArgumentException("Item name cannot be null or empty");
         }
-        if (price <= 0) {
+        if (price <= 0 || Item.toMinorUnits(price) <= 0) {
             throw new IllegalArgumentException("Price must be greater than zero");
         }
         if (quantity <= 0) {
             throw new IllegalArgumentException("Quantity must be greater than zero");
         }
 
-        if (items.containsKey(itemName)) {
-            Item item = items.get(itemName);
-            item.setQuantity(item.getQuantity() + quantity);
+        Item item = items.get(itemName);
+        if (item != null) {
+            long subtotal = Math.addExact(subtotalInMinorUnits, Math.multiplyExact(item.getPriceInMinorUnits(), (long) quantity));
+            item.setQuantity(Math.addExact(item.getQuantity(), quantity));
+            subtotalInMinorUnits = subtotal;
         } else {
-            items.put(itemName, new Item(itemName, price, quantity));
+            item = new Item(itemName, price, quantity);
+            subtotalInMinorUnits = Math.addExact(subtotalInMinorUnits, Math.multiplyExact(item.getPriceInMinorUnits(), (long) quantity));
+            items.put(itemName, item);
         }
     }
 
+    @Override
     public void deleteItem(String itemName) {
         if (itemName == null || itemName.isEmpty()) {
             throw new IllegalArgumentException("Item name cannot be null or empty");
         }
 
-        items.remove(itemName);
+        Item removed = items.remove(itemName);
+        if (removed != null) {
+            subtotalInMinorUnits -= removed.getPriceInMinorUnits() * removed.getQuantity();
+        }
     }
 
+    @Override
     public boolean containsItem(String itemName) {
         return items.containsKey(itemName);
     }
 
+    @Override
     public int getItemsCount() {
         return items.size();
     }
 
+    @Override
     public double getTotalPrice() {
-        double total = items.values().stream()
-                .mapToDouble(item -> item.getPrice() * item.getQuantity())
-                .sum();
+        double total = subtotalInMinorUnits / 100.0;
         return total - (total * discount / 100);
     }
 
+    @Override
+    public long getSubtotalInMinorUnits() {
+        return subtotalInMinorUnits;
+    }
+
+    @Override
     public void applyDiscount(double discountPercentage) {
         if (discountPercentage < 0 || discountPercentage > 100) {
             throw new IllegalArgumentException("Discount must be between 0 and 100");
@@ -63,6 +81,7 @@ public class ShoppingCart {
         this.discount = discountPercentage;
     }
 
+    @Override
     public int getItemQuantity(String itemName) {
         if (itemName == null || itemName.isEmpty()) {
             throw new IllegalArgumentException("Item name cannot be null or empty");
@@ -70,4 +89,14 @@ public class ShoppingCart {
 
         return items.containsKey(itemName) ? items.get(itemName).getQuantity() : 0;
     }
+
+    @Override
+    public long getItemPriceInMinorUnits(String itemName) {
+        if (itemName == null || itemName.isEmpty()) {
+            throw new IllegalArgumentException("Item name cannot be null or empty");
+        }
+
+        Item item = items.get(itemName);
+        return item == null ? 0 : item.getPriceInMinorUnits();
+    }
 }
\ No newline at end of file
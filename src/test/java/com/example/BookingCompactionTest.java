@@ -0,0 +1,162 @@
+package com.example;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class BookingCompactionTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2030, 1, 1, 8, 0);
+
+    private final AtomicReference<LocalDateTime> now = new AtomicReference<>(START);
+    private InMemoryRoomRepository roomRepository;
+    private InMemoryBookingArchive archive;
+    private SlotAvailabilityEngine engine;
+    private BookingSystem bookingSystem;
+
+    @BeforeEach
+    void setUp() {
+        roomRepository = new InMemoryRoomRepository();
+        roomRepository.save(new Room("room1", "Rum 1"));
+        archive = new InMemoryBookingArchive();
+        engine = new SlotAvailabilityEngine();
+        engine.addRooms(roomRepository.findAll());
+        bookingSystem = BookingSystem.builder(now::get, roomRepository, mock(NotificationService.class))
+                .availabilityEngine(engine)
+                .archive(archive)
+                .build();
+    }
+
+    private String bookingIdAt(LocalDateTime start) {
+        return roomRepository.findById("room1").orElseThrow().getBookings().stream()
+                .filter(booking -> booking.getStartTime().equals(start))
+                .findFirst().orElseThrow().getId();
+    }
+
+    @Test
+    void shouldMoveOnlyEndedBookingsToArchive() {
+        bookingSystem.bookRoom("room1", START.plusHours(1), START.plusHours(2));
+        bookingSystem.bookRoom("room1", START.plusHours(3), START.plusHours(5));
+        bookingSystem.bookRoom("room1", START.plusHours(6), START.plusHours(7));
+        String ended = bookingIdAt(START.plusHours(1));
+        String ongoing = bookingIdAt(START.plusHours(3));
+
+        now.set(START.plusHours(4));
+        int archived = bookingSystem.archiveExpiredBookings(Duration.ZERO);
+
+        assertThat(archived).isEqualTo(1);
+        assertThat(archive.size()).isEqualTo(1);
+        Room room = roomRepository.findById("room1").orElseThrow();
+        assertThat(room.hasBooking(ended)).isFalse();
+        assertThat(room.hasBooking(ongoing)).isTrue();
+        assertThat(room.getBookings()).hasSize(2);
+    }
+
+    @Test
+    void shouldFindBookingByIdAfterArchiving() {
+        bookingSystem.bookRoom("room1", START.plusHours(1), START.plusHours(2));
+        String id = bookingIdAt(START.plusHours(1));
+
+        now.set(START.plusDays(1));
+        bookingSystem.archiveExpiredBookings(Duration.ZERO);
+
+        assertThat(bookingSystem.findBooking(id)).get()
+                .extracting(Booking::getStartTime).isEqualTo(START.plusHours(1));
+        assertThat(bookingSystem.findBooking("okänd")).isEmpty();
+    }
+
+    @Test
+    void shouldFindLiveBookingById() {
+        bookingSystem.bookRoom("room1", START.plusHours(1), START.plusHours(2));
+        String id = bookingIdAt(START.plusHours(1));
+
+        assertThat(bookingSystem.findBooking(id)).get().extracting(Booking::getRoomId).isEqualTo("room1");
+    }
+
+    @Test
+    void shouldKeepBookingsWithinRetention() {
+        bookingSystem.bookRoom("room1", START.plusHours(1), START.plusHours(2));
+
+        now.set(START.plusHours(3));
+
+        assertThat(bookingSystem.archiveExpiredBookings(Duration.ofHours(2))).isZero();
+        assertThat(bookingSystem.archiveExpiredBookings(Duration.ofMinutes(30))).isEqualTo(1);
+    }
+
+    @Test
+    void shouldNotCancelArchivedBooking() {
+        bookingSystem.bookRoom("room1", START.plusHours(1), START.plusHours(2));
+        String id = bookingIdAt(START.plusHours(1));
+
+        now.set(START.plusDays(1));
+        bookingSystem.archiveExpiredBookings(Duration.ZERO);
+
+        assertThat(bookingSystem.cancelBooking(id)).isFalse();
+        assertThat(bookingSystem.findBooking(id)).isPresent();
+    }
+
+    @Test
+    void shouldKeepAvailabilityIndexConsistentAfterArchiving() {
+        bookingSystem.bookRoom("room1", START.plusHours(1), START.plusHours(2));
+
+        now.set(START.plusDays(1));
+        bookingSystem.archiveExpiredBookings(Duration.ZERO);
+
+        assertThat(engine.findAvailableRooms(START.plusHours(1), START.plusHours(2)))
+                .extracting(Room::getId).containsExactly("room1");
+        assertThat(bookingSystem.bookRoom("room1", START.plusDays(1).plusHours(1), START.plusDays(1).plusHours(2))).isTrue();
+    }
+
+    @Test
+    void shouldRejectNegativeRetention() {
+        assertThatThrownBy(() -> bookingSystem.archiveExpiredBookings(Duration.ofHours(-1)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void compactorShouldArchiveInBackground() throws InterruptedException {
+        bookingSystem.bookRoom("room1", START.plusHours(1), START.plusHours(2));
+        now.set(START.plusDays(1));
+
+        try (BookingCompactor compactor = new BookingCompactor(bookingSystem, Duration.ofMillis(10))) {
+            long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+            while (compactor.getArchivedCount() == 0 && System.nanoTime() < deadline) {
+                Thread.sleep(10);
+            }
+            assertThat(compactor.getArchivedCount()).isEqualTo(1);
+            assertThat(compactor.getFailureCount()).isZero();
+        }
+        assertThat(archive.size()).isEqualTo(1);
+    }
+
+    @Test
+    void compactorShouldSurviveFailingRun() {
+        BookingSystem failing = mock(BookingSystem.class);
+        when(failing.hasArchive()).thenReturn(true);
+        when(failing.archiveExpiredBookings(any())).thenThrow(new IllegalStateException("fel")).thenReturn(2);
+
+        try (BookingCompactor compactor = new BookingCompactor(failing, Duration.ofHours(1))) {
+            assertThat(compactor.compactNow()).isZero();
+            assertThat(compactor.compactNow()).isEqualTo(2);
+            assertThat(compactor.getFailureCount()).isEqualTo(1);
+            assertThat(compactor.getArchivedCount()).isEqualTo(2);
+        }
+    }
+
+    @Test
+    void shouldRequireExplicitArchive() {
+        BookingSystem withoutArchive = new BookingSystem(now::get, new InMemoryRoomRepository(), mock(NotificationService.class));
+
+        assertThat(withoutArchive.hasArchive()).isFalse();
+        assertThatThrownBy(() -> withoutArchive.archiveExpiredBookings(Duration.ZERO)).isInstanceOf(IllegalStateException.class);
+        assertThatThrownBy(() -> new BookingCompactor(withoutArchive, Duration.ofHours(1)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThat(withoutArchive.findBooking("okänd")).isEmpty();
+    }
+}
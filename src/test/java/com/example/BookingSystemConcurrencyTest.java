@@ -0,0 +1,103 @@
+package com.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.*;
+
+class BookingSystemConcurrencyTest {
+
+    private static final int THREADS = 64;
+    private static final LocalDateTime FIRST_SLOT = LocalDateTime.parse("2030-01-01T08:00");
+
+    private final NotificationService noOpNotifications = new NotificationService() {
+        @Override
+        public void sendBookingConfirmation(Booking booking) {
+        }
+
+        @Override
+        public void sendCancellationConfirmation(Booking booking) {
+        }
+    };
+
+    @Test
+    void shouldNeverDoubleBookUnderContention() throws Exception {
+        InMemoryRoomRepository roomRepository = new InMemoryRoomRepository();
+        for (int i = 0; i < 4; i++) {
+            roomRepository.save(new Room("room" + i, "Room" + i));
+        }
+        BookingSystem bookingSystem = new BookingSystem(() -> FIRST_SLOT.minusDays(1), roomRepository, noOpNotifications);
+        AtomicInteger successfulBookings = new AtomicInteger();
+        CyclicBarrier start = new CyclicBarrier(THREADS);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < 500; i++) {
+                    // Överlappande 90-minutersbokningar på halvtimmesgränser ger hög konkurrens
+                    LocalDateTime startTime = FIRST_SLOT.plusMinutes(30L * random.nextInt(40));
+                    if (bookingSystem.bookRoom("room" + random.nextInt(4), startTime, startTime.plusMinutes(90))) {
+                        successfulBookings.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        int storedBookings = 0;
+        for (Room room : roomRepository.findAll()) {
+            List<Booking> bookings = new ArrayList<>(room.getBookings());
+            storedBookings += bookings.size();
+            for (int i = 0; i < bookings.size(); i++) {
+                for (int j = i + 1; j < bookings.size(); j++) {
+                    Booking other = bookings.get(j);
+                    assertThat(bookings.get(i).overlaps(other.getStartTime(), other.getEndTime()))
+                            .as("%s överlappar %s", bookings.get(i).getId(), other.getId())
+                            .isFalse();
+                }
+            }
+        }
+        assertThat(storedBookings).isEqualTo(successfulBookings.get()).isPositive();
+    }
+
+    @Test
+    void shouldCancelBookingExactlyOnceUnderContention() throws Exception {
+        InMemoryRoomRepository roomRepository = new InMemoryRoomRepository();
+        Room room = new Room("room1", "Room1");
+        room.addBooking(new Booking("booking1", "room1", FIRST_SLOT, FIRST_SLOT.plusHours(1)));
+        roomRepository.save(room);
+        BookingSystem bookingSystem = new BookingSystem(() -> FIRST_SLOT.minusDays(1), roomRepository, noOpNotifications);
+        CyclicBarrier start = new CyclicBarrier(THREADS);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<Boolean>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(executor.submit(() -> {
+                start.await();
+                return bookingSystem.cancelBooking("booking1");
+            }));
+        }
+        int cancelled = 0;
+        for (Future<Boolean> future : futures) {
+            if (future.get(60, TimeUnit.SECONDS)) {
+                cancelled++;
+            }
+        }
+        executor.shutdown();
+
+        assertThat(cancelled).isEqualTo(1);
+        assertThat(room.hasBooking("booking1")).isFalse();
+    }
+}
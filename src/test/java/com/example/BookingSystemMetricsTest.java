@@ -0,0 +1,125 @@
+package com.example;
+
+import com.example.metrics.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.*;
+
+class BookingSystemMetricsTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2030, 1, 1, 8, 0);
+
+    private RecordingBookingMetrics metrics;
+    private BookingSystem bookingSystem;
+
+    @BeforeEach
+    void setUp() {
+        InMemoryRoomRepository roomRepository = new InMemoryRoomRepository();
+        roomRepository.save(new Room("room1", "Rum 1"));
+        metrics = new RecordingBookingMetrics();
+        bookingSystem = BookingSystem.builder(() -> NOW, roomRepository, new NotificationService() {
+            @Override
+            public void sendBookingConfirmation(Booking booking) {
+            }
+
+            @Override
+            public void sendCancellationConfirmation(Booking booking) {
+            }
+        }).metrics(metrics).build();
+    }
+
+    @Test
+    void shouldCountBookingOutcomes() {
+        bookingSystem.bookRoom("room1", NOW.plusHours(1), NOW.plusHours(2));
+        bookingSystem.bookRoom("room1", NOW.plusHours(1), NOW.plusHours(2));
+        assertThatThrownBy(() -> bookingSystem.bookRoom("saknas", NOW.plusHours(1), NOW.plusHours(2)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> bookingSystem.bookRoom("room1", NOW.minusHours(1), NOW))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        MetricsSnapshot snapshot = metrics.snapshot();
+
+        assertThat(snapshot.getOutcomeCount(Operation.BOOK_ROOM, Outcome.BOOKED)).isEqualTo(1);
+        assertThat(snapshot.getOutcomeCount(Operation.BOOK_ROOM, Outcome.DOUBLE_BOOKED)).isEqualTo(1);
+        assertThat(snapshot.getOutcomeCount(Operation.BOOK_ROOM, Outcome.ROOM_NOT_FOUND)).isEqualTo(1);
+        assertThat(snapshot.getOutcomeCount(Operation.BOOK_ROOM, Outcome.INVALID)).isEqualTo(1);
+    }
+
+    @Test
+    void shouldRecordPhaseLatenciesForSuccessfulBooking() {
+        bookingSystem.bookRoom("room1", NOW.plusHours(1), NOW.plusHours(2));
+
+        MetricsSnapshot snapshot = metrics.snapshot();
+
+        for (Phase phase : new Phase[]{Phase.VALIDATION, Phase.LOCK_WAIT, Phase.FIND_ROOM,
+                Phase.AVAILABILITY_CHECK, Phase.SAVE, Phase.NOTIFICATION, Phase.TOTAL}) {
+            assertThat(snapshot.getLatency(Operation.BOOK_ROOM, phase).getCount()).as(phase.name()).isEqualTo(1);
+        }
+        assertThat(snapshot.getLatency(Operation.BOOK_ROOM, Phase.FIND_ALL).getCount()).isZero();
+    }
+
+    @Test
+    void shouldRecordTotalLatencyAlsoWhenOperationFails() {
+        assertThatThrownBy(() -> bookingSystem.bookRoom(null, NOW, NOW))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        MetricsSnapshot snapshot = metrics.snapshot();
+
+        assertThat(snapshot.getLatency(Operation.BOOK_ROOM, Phase.TOTAL).getCount()).isEqualTo(1);
+        assertThat(snapshot.getLatency(Operation.BOOK_ROOM, Phase.VALIDATION).getCount()).isZero();
+    }
+
+    @Test
+    void shouldCountRepositoryCalls() {
+        bookingSystem.bookRoom("room1", NOW.plusHours(1), NOW.plusHours(2));
+        bookingSystem.getAvailableRooms(NOW.plusHours(3), NOW.plusHours(4));
+
+        MetricsSnapshot snapshot = metrics.snapshot();
+
+        assertThat(snapshot.getRepositoryCallCount(RepositoryCall.FIND_BY_ID)).isEqualTo(1);
+        assertThat(snapshot.getRepositoryCallCount(RepositoryCall.SAVE)).isEqualTo(1);
+        assertThat(snapshot.getRepositoryCallCount(RepositoryCall.FIND_ALL)).isEqualTo(1);
+        assertThat(snapshot.getLatency(Operation.GET_AVAILABLE_ROOMS, Phase.FIND_ALL).getCount()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldCountCancellationOutcomes() {
+        bookingSystem.bookRoom("room1", NOW.plusHours(1), NOW.plusHours(2));
+        String bookingId = bookingSystem.bookRooms(
+                        List.of(new BookingRequest("room1", NOW.plusHours(5), NOW.plusHours(6))),
+                        BulkBookingMode.ATOMIC)
+                .get(0).getBooking().orElseThrow().getId();
+
+        bookingSystem.cancelBooking(bookingId);
+        bookingSystem.cancelBooking("okänd");
+
+        MetricsSnapshot snapshot = metrics.snapshot();
+
+        assertThat(snapshot.getOutcomeCount(Operation.BOOK_ROOMS, Outcome.BOOKED)).isEqualTo(1);
+        assertThat(snapshot.getOutcomeCount(Operation.CANCEL_BOOKING, Outcome.CANCELLED)).isEqualTo(1);
+        assertThat(snapshot.getOutcomeCount(Operation.CANCEL_BOOKING, Outcome.BOOKING_NOT_FOUND)).isEqualTo(1);
+    }
+
+    @Test
+    void shouldExportSnapshotsToExporter() {
+        InMemoryMetricsExporter exporter = new InMemoryMetricsExporter();
+        bookingSystem.bookRoom("room1", NOW.plusHours(1), NOW.plusHours(2));
+
+        metrics.exportTo(exporter);
+        bookingSystem.bookRoom("room1", NOW.plusHours(3), NOW.plusHours(4));
+        metrics.exportTo(exporter);
+
+        assertThat(exporter.getSnapshots()).hasSize(2);
+        assertThat(exporter.getLatest().orElseThrow().getOutcomeCount(Operation.BOOK_ROOM, Outcome.BOOKED)).isEqualTo(2);
+    }
+
+    @Test
+    void shouldUseDisabledNoOpMetricsByDefault() {
+        assertThat(BookingMetrics.NOOP.isEnabled()).isFalse();
+        assertThat(BookingMetrics.NOOP.startTimer()).isZero();
+    }
+}
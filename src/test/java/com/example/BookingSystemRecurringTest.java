@@ -0,0 +1,176 @@
+package com.example;
+
+import com.example.metrics.MetricsSnapshot;
+import com.example.metrics.Operation;
+import com.example.metrics.Outcome;
+import com.example.metrics.RecordingBookingMetrics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class BookingSystemRecurringTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2030, 1, 1, 8, 0);
+    private static final LocalDateTime STANDUP = LocalDateTime.of(2030, 1, 7, 9, 0);
+    private static final RecurrenceRule WEEKLY_FOR_A_YEAR = new RecurrenceRule(RecurrenceRule.Frequency.WEEKLY, 1, 52);
+
+    private InMemoryRoomRepository roomRepository;
+    private NotificationService notificationService;
+    private SlotAvailabilityEngine engine;
+    private BookingSystem bookingSystem;
+
+    @BeforeEach
+    void setUp() {
+        roomRepository = new InMemoryRoomRepository();
+        roomRepository.save(new Room("room1", "Rum 1"));
+        roomRepository.save(new Room("room2", "Rum 2"));
+        notificationService = mock(NotificationService.class);
+        engine = new SlotAvailabilityEngine();
+        engine.addRooms(roomRepository.findAll());
+        bookingSystem = BookingSystem.builder(() -> NOW, roomRepository, notificationService)
+                .availabilityEngine(engine)
+                .build();
+    }
+
+    @Test
+    void shouldStoreSeriesAsSingleRule() throws NotificationException {
+        Optional<RecurringBooking> series = bookingSystem.bookRecurring("room1", STANDUP, STANDUP.plusMinutes(15), WEEKLY_FOR_A_YEAR);
+
+        Room room = roomRepository.findById("room1").orElseThrow();
+        assertThat(series).isPresent();
+        assertThat(room.getBookings()).isEmpty();
+        assertThat(room.getRecurringBookings()).hasSize(1);
+        assertThat(bookingSystem.bookRoom("room1", STANDUP.plusWeeks(30), STANDUP.plusWeeks(30).plusMinutes(5))).isFalse();
+        assertThat(bookingSystem.bookRoom("room1", STANDUP.plusWeeks(30).plusHours(1), STANDUP.plusWeeks(30).plusHours(2))).isTrue();
+        verify(notificationService, times(2)).sendBookingConfirmation(any());
+    }
+
+    @Test
+    void shouldRejectSeriesThatCollidesWithExistingBookings() {
+        bookingSystem.bookRoom("room1", STANDUP.plusWeeks(10), STANDUP.plusWeeks(10).plusMinutes(30));
+
+        assertThat(bookingSystem.bookRecurring("room1", STANDUP, STANDUP.plusMinutes(15), WEEKLY_FOR_A_YEAR)).isEmpty();
+        assertThat(bookingSystem.bookRecurring("room1", STANDUP.plusMinutes(30).plusSeconds(1), STANDUP.plusMinutes(45), WEEKLY_FOR_A_YEAR)).isPresent();
+        assertThat(bookingSystem.bookRecurring("room1", STANDUP.plusMinutes(40),
+                STANDUP.plusMinutes(50), new RecurrenceRule(RecurrenceRule.Frequency.DAILY, 1, 30))).isEmpty();
+    }
+
+    @Test
+    void shouldCancelSingleOccurrenceAsException() throws NotificationException {
+        RecurringBooking series = bookingSystem.bookRecurring("room1", STANDUP, STANDUP.plusMinutes(15), WEEKLY_FOR_A_YEAR).orElseThrow();
+
+        boolean cancelled = bookingSystem.cancelOccurrence(series.getId(), STANDUP.plusWeeks(3));
+
+        assertThat(cancelled).isTrue();
+        assertThat(bookingSystem.bookRoom("room1", STANDUP.plusWeeks(3), STANDUP.plusWeeks(3).plusMinutes(15))).isTrue();
+        assertThat(bookingSystem.bookRoom("room1", STANDUP.plusWeeks(4), STANDUP.plusWeeks(4).plusMinutes(15))).isFalse();
+        RecurringBooking stored = roomRepository.findById("room1").orElseThrow().getRecurringBooking(series.getId());
+        assertThat(stored.getCancelledIndexes()).containsExactly(3L);
+        verify(notificationService).sendCancellationConfirmation(argThat(b -> b.getStartTime().equals(STANDUP.plusWeeks(3))));
+    }
+
+    @Test
+    void shouldNotCancelUnknownOrAlreadyCancelledOccurrences() {
+        RecurringBooking series = bookingSystem.bookRecurring("room1", STANDUP, STANDUP.plusMinutes(15), WEEKLY_FOR_A_YEAR).orElseThrow();
+
+        assertThat(bookingSystem.cancelOccurrence(series.getId(), STANDUP.plusDays(1))).isFalse();
+        assertThat(bookingSystem.cancelOccurrence("okänd", STANDUP)).isFalse();
+        assertThat(bookingSystem.cancelOccurrence(series.getId(), STANDUP)).isTrue();
+        assertThat(bookingSystem.cancelOccurrence(series.getId(), STANDUP)).isFalse();
+    }
+
+    @Test
+    void shouldNotCancelOccurrenceThatHasStarted() {
+        RecurringBooking series = bookingSystem.bookRecurring("room1", STANDUP, STANDUP.plusMinutes(15), WEEKLY_FOR_A_YEAR).orElseThrow();
+        BookingSystem later = new BookingSystem(() -> STANDUP.plusWeeks(2).plusMinutes(5), roomRepository, notificationService);
+
+        assertThatThrownBy(() -> later.cancelOccurrence(series.getId(), STANDUP.plusWeeks(2)))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("Kan inte avboka påbörjad eller avslutad bokning");
+    }
+
+    @Test
+    void shouldExcludeOccupiedRoomsInEngineAndSlotSearch() {
+        bookingSystem.bookRecurring("room1", STANDUP, STANDUP.plusHours(1), WEEKLY_FOR_A_YEAR);
+
+        assertThat(bookingSystem.getAvailableRooms(STANDUP.plusWeeks(5), STANDUP.plusWeeks(5).plusMinutes(30)))
+                .extracting(Room::getId).containsExactly("room2");
+        assertThat(bookingSystem.getAvailableRooms(STANDUP.plusWeeks(5).plusHours(2), STANDUP.plusWeeks(5).plusHours(3)))
+                .extracting(Room::getId).containsExactlyInAnyOrder("room1", "room2");
+
+        Optional<AvailableSlot> slot = bookingSystem.findNextAvailableSlot("room1", Duration.ofMinutes(90),
+                STANDUP.plusWeeks(5).minusMinutes(30), STANDUP.plusWeeks(6));
+        assertThat(slot).get().extracting(AvailableSlot::getStartTime).isEqualTo(STANDUP.plusWeeks(5).plusHours(1).plusNanos(1));
+    }
+
+    @Test
+    void shouldCancelWholeSeriesBeforeItStarts() throws NotificationException {
+        RecurringBooking series = bookingSystem.bookRecurring("room1", STANDUP, STANDUP.plusMinutes(15), WEEKLY_FOR_A_YEAR).orElseThrow();
+
+        assertThat(bookingSystem.cancelSeries(series.getId())).isTrue();
+
+        assertThat(roomRepository.findById("room1").orElseThrow().getRecurringBookings()).isEmpty();
+        assertThat(bookingSystem.getAvailableRooms(STANDUP, STANDUP.plusMinutes(15))).extracting(Room::getId)
+                .containsExactlyInAnyOrder("room1", "room2");
+        assertThat(bookingSystem.cancelSeries(series.getId())).isFalse();
+        verify(notificationService).sendCancellationConfirmation(argThat(b -> b.getStartTime().equals(STANDUP)));
+    }
+
+    @Test
+    void shouldKeepStartedOccurrencesWhenCancellingSeries() {
+        RecurringBooking series = bookingSystem.bookRecurring("room1", STANDUP, STANDUP.plusMinutes(15), WEEKLY_FOR_A_YEAR).orElseThrow();
+        bookingSystem.cancelOccurrence(series.getId(), STANDUP.plusWeeks(1));
+        BookingSystem later = new BookingSystem(() -> STANDUP.plusWeeks(2).plusMinutes(5), roomRepository, notificationService);
+
+        assertThat(later.cancelSeries(series.getId())).isTrue();
+
+        RecurringBooking stored = roomRepository.findById("room1").orElseThrow().getRecurringBooking(series.getId());
+        assertThat(stored.getOccurrenceCount()).isEqualTo(3);
+        assertThat(stored.getCancelledIndexes()).containsExactly(1L);
+        assertThat(later.bookRoom("room1", STANDUP.plusWeeks(3), STANDUP.plusWeeks(3).plusMinutes(15))).isTrue();
+    }
+
+    @Test
+    void cancelBookingWithSeriesIdShouldCancelSeries() {
+        RecurringBooking series = bookingSystem.bookRecurring("room1", STANDUP, STANDUP.plusMinutes(15), WEEKLY_FOR_A_YEAR).orElseThrow();
+
+        assertThat(bookingSystem.cancelBooking(series.getId())).isTrue();
+
+        assertThat(roomRepository.findById("room1").orElseThrow().hasRecurringBooking(series.getId())).isFalse();
+    }
+
+    @Test
+    void shouldRejectOccurrenceLongerThanPeriod() {
+        assertThatThrownBy(() -> bookingSystem.bookRecurring("room1", STANDUP, STANDUP.plusDays(2),
+                new RecurrenceRule(RecurrenceRule.Frequency.DAILY, 1, 5)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("längre än tiden mellan tillfällena");
+        assertThatThrownBy(() -> bookingSystem.bookRecurring("room1", STANDUP, STANDUP.plusDays(29),
+                new RecurrenceRule(RecurrenceRule.Frequency.MONTHLY, 1, 5)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void shouldRecordMetricsForSeries() {
+        RecordingBookingMetrics metrics = new RecordingBookingMetrics();
+        BookingSystem system = BookingSystem.builder(() -> NOW, roomRepository, notificationService).metrics(metrics).build();
+
+        RecurringBooking series = system.bookRecurring("room1", STANDUP, STANDUP.plusMinutes(15), WEEKLY_FOR_A_YEAR).orElseThrow();
+        system.bookRecurring("room1", STANDUP, STANDUP.plusMinutes(15), WEEKLY_FOR_A_YEAR);
+        system.cancelOccurrence(series.getId(), STANDUP.plusWeeks(1));
+        system.cancelSeries(series.getId());
+
+        MetricsSnapshot snapshot = metrics.snapshot();
+        assertThat(snapshot.getOutcomeCount(Operation.BOOK_RECURRING, Outcome.BOOKED)).isEqualTo(1);
+        assertThat(snapshot.getOutcomeCount(Operation.BOOK_RECURRING, Outcome.DOUBLE_BOOKED)).isEqualTo(1);
+        assertThat(snapshot.getOutcomeCount(Operation.CANCEL_OCCURRENCE, Outcome.CANCELLED)).isEqualTo(1);
+        assertThat(snapshot.getOutcomeCount(Operation.CANCEL_SERIES, Outcome.CANCELLED)).isEqualTo(1);
+    }
+}
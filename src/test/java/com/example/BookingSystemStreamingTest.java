@@ -0,0 +1,101 @@
+package com.example;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class BookingSystemStreamingTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2030, 1, 1, 8, 0);
+    private static final LocalDateTime START = NOW.plusHours(1);
+    private static final LocalDateTime END = NOW.plusHours(2);
+
+    private InMemoryRoomRepository roomRepository;
+    private BookingSystem bookingSystem;
+
+    @BeforeEach
+    void setUp() {
+        roomRepository = spy(new InMemoryRoomRepository());
+        for (int i = 0; i < 500; i++) {
+            Room room = new Room(String.format("room%03d", i), "Rum " + i);
+            // Vart tredje rum är upptaget under den efterfrågade tiden
+            if (i % 3 == 0) {
+                room.addBooking(new Booking("b" + i, room.getId(), START, END));
+            }
+            roomRepository.save(room);
+        }
+        bookingSystem = new BookingSystem(() -> NOW, roomRepository, mock(NotificationService.class));
+    }
+
+    @Test
+    void shouldStopReadingRoomsOnceEnoughAreFound() {
+        List<Room> firstFive = bookingSystem.streamAvailableRooms(START, END)
+                .limit(5)
+                .collect(Collectors.toList());
+
+        assertThat(firstFive).extracting(Room::getId)
+                .containsExactly("room001", "room002", "room004", "room005", "room007");
+        verify(roomRepository, times(1)).findChunk(isNull(), anyInt());
+        verify(roomRepository, never()).findAll();
+    }
+
+    @Test
+    void shouldStreamSameRoomsAsGetAvailableRooms() {
+        assertThat(bookingSystem.streamAvailableRooms(START, END).collect(Collectors.toList()))
+                .containsExactlyElementsOf(bookingSystem.getAvailableRooms(START, END));
+    }
+
+    @Test
+    void shouldPageThroughAllAvailableRoomsWithCursor() {
+        List<Room> collected = new ArrayList<>();
+        String cursor = null;
+        int pages = 0;
+        do {
+            AvailableRoomsPage page = bookingSystem.getAvailableRooms(START, END, 50, cursor);
+            collected.addAll(page.getRooms());
+            cursor = page.getNextCursor().orElse(null);
+            pages++;
+        } while (cursor != null);
+
+        assertThat(collected).hasSize(333);
+        assertThat(collected).doesNotHaveDuplicates();
+        assertThat(pages).isEqualTo(7);
+    }
+
+    @Test
+    void shouldReturnEmptyLastPageWithoutCursor() {
+        AvailableRoomsPage page = bookingSystem.getAvailableRooms(START, END, 10, "room497");
+
+        assertThat(page.getRooms()).extracting(Room::getId).containsExactly("room499");
+        assertThat(page.getNextCursor()).isEmpty();
+    }
+
+    @Test
+    void shouldRejectInvalidQueries() {
+        assertThatThrownBy(() -> bookingSystem.streamAvailableRooms(null, END))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> bookingSystem.getAvailableRooms(START, END, 0, null))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Antal rum per sida måste vara minst 1");
+    }
+
+    @Test
+    void shouldReadChunksFromSortedIndexThroughCachingRepository() {
+        BookingSystem cached = new BookingSystem(() -> NOW, new CachingRoomRepository(roomRepository, 100),
+                mock(NotificationService.class));
+        clearInvocations(roomRepository);
+
+        assertThat(cached.streamAvailableRooms(START, END).count()).isEqualTo(333);
+
+        verify(roomRepository, never()).findAll();
+        verify(roomRepository, atLeast(2)).findChunk(any(), anyInt());
+    }
+}
@@ -5,6 +5,8 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvSource;
+import org.mockito.Answers;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
@@ -22,7 +24,7 @@ class BookingSystemTest {
 
     @Mock
     private RoomRepository roomRepository;
-    @Mock
+    @Mock(answer = Answers.CALLS_REAL_METHODS)
     private TimeProvider timeProvider;
     @Mock
     private NotificationService notificationService;
@@ -122,10 +124,12 @@ class BookingSystemTest {
         LocalDateTime endTime = LocalDateTime.parse(endTimeStr);
         Room room = mock(Room.class);
         Booking booking = mock(Booking.class);
-        when(booking.getStartTime()).thenReturn(startTime);
+        when(booking.getStartEpochNanos()).thenReturn(EpochTime.toEpochNanos(startTime));
         when(room.hasBooking(anyString())).thenReturn(true);
+        when(room.getId()).thenReturn("room1");
         when(room.getBooking(anyString())).thenReturn(booking);
-        when(roomRepository.findAll()).thenReturn(List.of(room));
+        when(roomRepository.findByBookingId("mockBookingId")).thenReturn(Optional.of(room));
+        when(roomRepository.findById("room1")).thenReturn(Optional.of(room));
 
         assertThatThrownBy(() -> bookingSystem.cancelBooking("mockBookingId"))
                 .isInstanceOf(IllegalStateException.class)
@@ -230,4 +234,235 @@ class BookingSystemTest {
         verifyNoInteractions(roomRepository, notificationService);
     }
 
+    @Test
+    void shouldCancelBookingThroughBookingIndexWithoutScanningRooms() throws NotificationException {
+        String roomId = "room1";
+        LocalDateTime startTime = LocalDateTime.now().plusHours(2);
+        LocalDateTime endTime = startTime.plusHours(1);
+        Room room = new Room(roomId, "Room1");
+        when(roomRepository.findById(roomId)).thenReturn(Optional.of(room));
+
+        ArgumentCaptor<Booking> bookingCaptor = ArgumentCaptor.forClass(Booking.class);
+        bookingSystem.bookRoom(roomId, startTime, endTime);
+        verify(notificationService).sendBookingConfirmation(bookingCaptor.capture());
+        String bookingId = bookingCaptor.getValue().getId();
+
+        boolean cancelled = bookingSystem.cancelBooking(bookingId);
+
+        assertThat(cancelled).isTrue();
+        assertThat(room.hasBooking(bookingId)).isFalse();
+        verify(roomRepository, never()).findAll();
+        verify(roomRepository, never()).findByBookingId(anyString());
+        verify(notificationService).sendCancellationConfirmation(bookingCaptor.getValue());
+    }
+
+    @Test
+    void shouldFallBackToRepositoryLookupForUnindexedBooking() throws NotificationException {
+        Room room = new Room("room1", "Room1");
+        Booking booking = new Booking("existing", "room1",
+                LocalDateTime.now().plusHours(2), LocalDateTime.now().plusHours(3));
+        room.addBooking(booking);
+        when(roomRepository.findByBookingId("existing")).thenReturn(Optional.of(room));
+        when(roomRepository.findById("room1")).thenReturn(Optional.of(room));
+
+        boolean cancelled = bookingSystem.cancelBooking("existing");
+
+        assertThat(cancelled).isTrue();
+        verify(roomRepository).save(room);
+        verify(notificationService).sendCancellationConfirmation(booking);
+    }
+
+    @Test
+    void shouldReturnFalseWhenCancellingUnknownBooking() {
+        when(roomRepository.findByBookingId("unknown")).thenReturn(Optional.empty());
+
+        assertThat(bookingSystem.cancelBooking("unknown")).isFalse();
+        verify(roomRepository, never()).save(any());
+    }
+
+    @Test
+    void shouldKeepAvailabilityEngineInSyncWithBookingsAndCancellations() {
+        Room room1 = new Room("room1", "Room1");
+        Room room2 = new Room("room2", "Room2");
+        SlotAvailabilityEngine engine = new SlotAvailabilityEngine();
+        engine.addRooms(List.of(room1, room2));
+        BookingSystem systemWithEngine = BookingSystem.builder(timeProvider, roomRepository, notificationService)
+                .availabilityEngine(engine)
+                .build();
+        when(roomRepository.findById("room1")).thenReturn(Optional.of(room1));
+        LocalDateTime startTime = LocalDateTime.now().plusDays(1).withHour(10).withMinute(0).withSecond(0).withNano(0);
+        LocalDateTime endTime = startTime.plusHours(1);
+
+        systemWithEngine.bookRoom("room1", startTime, endTime);
+
+        assertThat(systemWithEngine.getAvailableRooms(startTime, endTime)).containsExactly(room2);
+
+        String bookingId = room1.getBookings().iterator().next().getId();
+        systemWithEngine.cancelBooking(bookingId);
+
+        assertThat(systemWithEngine.getAvailableRooms(startTime, endTime)).containsExactly(room1, room2);
+        // Bara den första inläsningen när motorn fylls, frågorna går inte till repositoryt
+        verify(roomRepository, times(1)).findAll();
+    }
+
+    @Test
+    void shouldBookAllRequestsAndSaveEachRoomOnce() throws NotificationException {
+        Room room1 = new Room("room1", "Room1");
+        Room room2 = new Room("room2", "Room2");
+        when(roomRepository.findById("room1")).thenReturn(Optional.of(room1));
+        when(roomRepository.findById("room2")).thenReturn(Optional.of(room2));
+        LocalDateTime startTime = LocalDateTime.now().plusDays(1);
+
+        List<BookingResult> results = bookingSystem.bookRooms(List.of(
+                new BookingRequest("room1", startTime, startTime.plusHours(1)),
+                new BookingRequest("room2", startTime, startTime.plusHours(1)),
+                new BookingRequest("room1", startTime.plusHours(2), startTime.plusHours(3))
+        ), BulkBookingMode.ATOMIC);
+
+        assertThat(results).extracting(BookingResult::getStatus).containsOnly(BookingResult.Status.BOOKED);
+        assertThat(room1.getBookings()).hasSize(2);
+        assertThat(room2.getBookings()).hasSize(1);
+        verify(roomRepository, times(1)).findById("room1");
+        verify(roomRepository, times(1)).save(room1);
+        verify(roomRepository, times(1)).save(room2);
+        verify(notificationService, times(3)).sendBookingConfirmation(any(Booking.class));
+    }
+
+    @Test
+    void shouldBookNothingInAtomicModeWhenOneRequestCollides() {
+        Room room1 = new Room("room1", "Room1");
+        when(roomRepository.findById("room1")).thenReturn(Optional.of(room1));
+        LocalDateTime startTime = LocalDateTime.now().plusDays(1);
+
+        List<BookingResult> results = bookingSystem.bookRooms(List.of(
+                new BookingRequest("room1", startTime, startTime.plusHours(2)),
+                new BookingRequest("room1", startTime.plusHours(1), startTime.plusHours(3))
+        ), BulkBookingMode.ATOMIC);
+
+        assertThat(results).extracting(BookingResult::getStatus)
+                .containsExactly(BookingResult.Status.ABORTED, BookingResult.Status.UNAVAILABLE);
+        assertThat(room1.getBookings()).isEmpty();
+        verify(roomRepository, never()).save(any());
+        verifyNoInteractions(notificationService);
+    }
+
+    @Test
+    void shouldBookRemainingRequestsInBestEffortMode() {
+        Room room1 = new Room("room1", "Room1");
+        when(roomRepository.findById("room1")).thenReturn(Optional.of(room1));
+        when(roomRepository.findById("roomX")).thenReturn(Optional.empty());
+        LocalDateTime startTime = LocalDateTime.now().plusDays(1);
+
+        List<BookingResult> results = bookingSystem.bookRooms(List.of(
+                new BookingRequest("room1", startTime, startTime.plusHours(2)),
+                new BookingRequest("roomX", startTime, startTime.plusHours(1)),
+                new BookingRequest("room1", startTime.plusHours(1), startTime.plusHours(3)),
+                new BookingRequest("room1", startTime.minusDays(2), startTime.minusDays(2).plusHours(1))
+        ), BulkBookingMode.BEST_EFFORT);
+
+        assertThat(results).extracting(BookingResult::getStatus).containsExactly(
+                BookingResult.Status.BOOKED,
+                BookingResult.Status.ROOM_NOT_FOUND,
+                BookingResult.Status.UNAVAILABLE,
+                BookingResult.Status.INVALID);
+        assertThat(results.get(3).getMessage()).contains("Kan inte boka tid i dåtid");
+        assertThat(room1.getBookings()).containsExactly(results.get(0).getBooking().orElseThrow());
+        verify(roomRepository, times(1)).save(room1);
+    }
+
+    @Test
+    void shouldRollBackRoomWhenSaveFails() {
+        Room room1 = new Room("room1", "Room1");
+        when(roomRepository.findById("room1")).thenReturn(Optional.of(room1));
+        doThrow(new IllegalStateException("disk full")).when(roomRepository).save(room1);
+        LocalDateTime startTime = LocalDateTime.now().plusDays(1);
+
+        assertThatThrownBy(() -> bookingSystem.bookRoom("room1", startTime, startTime.plusHours(1)))
+                .isInstanceOf(IllegalStateException.class);
+
+        assertThat(room1.getBookings()).isEmpty();
+        verifyNoInteractions(notificationService);
+    }
+
+    @Test
+    void shouldKeepBookingWhenCancellationSaveFails() {
+        Room room1 = new Room("room1", "Room1");
+        LocalDateTime startTime = LocalDateTime.now().plusDays(1);
+        Booking booking = new Booking("b1", "room1", startTime, startTime.plusHours(1));
+        room1.addBooking(booking);
+        when(roomRepository.findById("room1")).thenReturn(Optional.of(room1));
+        when(roomRepository.findByBookingId("b1")).thenReturn(Optional.of(room1));
+        doThrow(new IllegalStateException("disk full")).when(roomRepository).save(room1);
+
+        assertThatThrownBy(() -> bookingSystem.cancelBooking("b1")).isInstanceOf(IllegalStateException.class);
+
+        assertThat(room1.getBookings()).containsExactly(booking);
+    }
+
+    @Test
+    void shouldSeedAvailabilityEngineFromRepository() {
+        Room room1 = new Room("room1", "Room1");
+        Room room2 = new Room("room2", "Room2");
+        LocalDateTime startTime = LocalDateTime.now().plusDays(1).withHour(10).withMinute(0).withSecond(0).withNano(0);
+        room1.addBooking(new Booking("b1", "room1", startTime, startTime.plusHours(1)));
+        when(roomRepository.findAll()).thenReturn(List.of(room1, room2));
+        BookingSystem systemWithEngine = BookingSystem.builder(timeProvider, roomRepository, notificationService)
+                .availabilityEngine(new SlotAvailabilityEngine())
+                .build();
+
+        assertThat(systemWithEngine.getAvailableRooms(startTime, startTime.plusHours(1))).containsExactly(room2);
+
+        Room room3 = new Room("room3", "Room3");
+        systemWithEngine.addRoom(room3);
+
+        verify(roomRepository).save(room3);
+        assertThat(systemWithEngine.getAvailableRooms(startTime, startTime.plusHours(1))).containsExactly(room2, room3);
+    }
+
+    @Test
+    void shouldRollBackCommittedRoomsWhenAtomicSaveFails() {
+        Room room1 = new Room("room1", "Room1");
+        Room room2 = new Room("room2", "Room2");
+        when(roomRepository.findById("room1")).thenReturn(Optional.of(room1));
+        when(roomRepository.findById("room2")).thenReturn(Optional.of(room2));
+        doThrow(new IllegalStateException("disk full")).when(roomRepository).save(room2);
+        LocalDateTime startTime = LocalDateTime.now().plusDays(1);
+
+        assertThatThrownBy(() -> bookingSystem.bookRooms(List.of(
+                new BookingRequest("room1", startTime, startTime.plusHours(1)),
+                new BookingRequest("room2", startTime, startTime.plusHours(1))
+        ), BulkBookingMode.ATOMIC)).isInstanceOf(IllegalStateException.class);
+
+        assertThat(room1.getBookings()).isEmpty();
+        assertThat(room2.getBookings()).isEmpty();
+        verify(roomRepository, times(2)).save(room1);
+        verifyNoInteractions(notificationService);
+    }
+
+    @Test
+    void builderShouldRequireTimeProviderRepositoryAndNotifications() {
+        assertThatThrownBy(() -> BookingSystem.builder(null, roomRepository, notificationService))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> BookingSystem.builder(timeProvider, roomRepository, notificationService).archive(null))
+                .isInstanceOf(NullPointerException.class);
+    }
+
+    @Test
+    void shouldIssueSnowflakeIdsAfterStoredOnesWhenNodeIdIsGiven() {
+        long farFutureMillis = System.currentTimeMillis() + 3_600_000;
+        String storedId = new SnowflakeIdGenerator(7, () -> farFutureMillis).nextId();
+        InMemoryRoomRepository repository = new InMemoryRoomRepository();
+        Room room = new Room("room1", "Room1");
+        LocalDateTime startTime = LocalDateTime.now().plusDays(1);
+        room.addBooking(new Booking(storedId, "room1", startTime, startTime.plusHours(1)));
+        repository.save(room);
+        when(timeProvider.getCurrentTime()).thenReturn(LocalDateTime.now());
+
+        BookingSystem system = BookingSystem.builder(timeProvider, repository, notificationService).nodeId(7).build();
+        system.bookRoom("room1", startTime.plusHours(2), startTime.plusHours(3));
+
+        String newId = room.getBookings().stream().map(Booking::getId).filter(id -> !id.equals(storedId)).findFirst().orElseThrow();
+        assertThat(SnowflakeIdGenerator.nodeOf(SnowflakeIdGenerator.decode(newId))).isEqualTo(7);
+        assertThat(newId).isGreaterThan(storedId);
+    }
 }
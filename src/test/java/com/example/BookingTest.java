@@ -0,0 +1,57 @@
+package com.example;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.*;
+
+class BookingTest {
+
+    private final Booking booking = new Booking("b1", "room1",
+            LocalDateTime.parse("2025-01-01T10:00"), LocalDateTime.parse("2025-01-01T12:00"));
+
+    @ParameterizedTest
+    @CsvSource({
+            "'2025-01-01T09:00', '2025-01-01T09:59:59.999999999', false",
+            "'2025-01-01T09:00', '2025-01-01T10:00', true",
+            "'2025-01-01T12:00', '2025-01-01T13:00', true",
+            "'2025-01-01T12:00:00.000000001', '2025-01-01T13:00', false",
+            "'1500-01-01T00:00', '2999-01-01T00:00', true"
+    })
+    void shouldCompareEpochTimesInclusively(String startTimeStr, String endTimeStr, boolean expectedOverlap) {
+        assertThat(booking.overlaps(LocalDateTime.parse(startTimeStr), LocalDateTime.parse(endTimeStr)))
+                .isEqualTo(expectedOverlap);
+    }
+
+    @Test
+    void shouldKeepNanosecondPrecision() {
+        LocalDateTime startTime = LocalDateTime.parse("2025-06-30T23:59:59.123456789");
+        LocalDateTime endTime = LocalDateTime.parse("1969-12-31T23:59:59.987654321");
+
+        Booking precise = new Booking("b2", "room1", startTime, endTime);
+
+        assertThat(precise.getStartTime()).isEqualTo(startTime);
+        assertThat(precise.getEndTime()).isEqualTo(endTime);
+    }
+
+    @Test
+    void shouldRejectTimesOutsideSupportedRange() {
+        assertThatThrownBy(() -> new Booking("b3", "room1", LocalDateTime.MAX, LocalDateTime.MAX))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Tiden ligger utanför det intervall som stöds (1677-09-21T00:12:43.145224192"
+                        + " till 2262-04-11T23:47:16.854775807)");
+    }
+
+    @Test
+    void shouldAcceptTimesAtEdgesOfSupportedRange() {
+        Booking edges = new Booking("b4", "room1", EpochTime.MIN_TIME, EpochTime.MAX_TIME);
+
+        assertThat(edges.getStartTime()).isEqualTo(EpochTime.MIN_TIME);
+        assertThat(edges.getEndTime()).isEqualTo(EpochTime.MAX_TIME);
+        assertThatThrownBy(() -> new Booking("b5", "room1", EpochTime.MIN_TIME.minusNanos(1), EpochTime.MAX_TIME))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
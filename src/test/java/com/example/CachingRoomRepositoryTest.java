@@ -0,0 +1,137 @@
+package com.example;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.mockito.Mockito.*;
+import static org.assertj.core.api.Assertions.*;
+
+class CachingRoomRepositoryTest {
+
+    private CachingRoomRepository cachingRepository;
+    private AutoCloseable mocks;
+
+    @Mock
+    private RoomRepository backingRepository;
+
+    private final Room room1 = new Room("room1", "Room1");
+    private final Room room2 = new Room("room2", "Room2");
+
+    @BeforeEach
+    void setUp() {
+        mocks = MockitoAnnotations.openMocks(this);
+        cachingRepository = new CachingRoomRepository(backingRepository, 2);
+
+        when(backingRepository.findById("room1")).thenReturn(Optional.of(room1));
+        when(backingRepository.findById("room2")).thenReturn(Optional.of(room2));
+        when(backingRepository.findAll()).thenReturn(List.of(room1, room2));
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        mocks.close();
+    }
+
+    @Test
+    void shouldServeRepeatedLookupsFromCache() {
+        cachingRepository.findById("room1");
+        Optional<Room> room = cachingRepository.findById("room1");
+
+        assertThat(room).contains(room1);
+        verify(backingRepository, times(1)).findById("room1");
+        assertThat(cachingRepository.getHitCount()).isEqualTo(1);
+        assertThat(cachingRepository.getMissCount()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldNotCacheMissingRooms() {
+        when(backingRepository.findById("roomX")).thenReturn(Optional.empty());
+
+        cachingRepository.findById("roomX");
+        cachingRepository.findById("roomX");
+
+        verify(backingRepository, times(2)).findById("roomX");
+    }
+
+    @Test
+    void shouldEvictLeastRecentlyUsedRoom() {
+        Room room3 = new Room("room3", "Room3");
+        when(backingRepository.findById("room3")).thenReturn(Optional.of(room3));
+
+        cachingRepository.findById("room1");
+        cachingRepository.findById("room2");
+        cachingRepository.findById("room1");
+        cachingRepository.findById("room3");
+        cachingRepository.findById("room1");
+        cachingRepository.findById("room2");
+
+        verify(backingRepository, times(1)).findById("room1");
+        verify(backingRepository, times(2)).findById("room2");
+        assertThat(cachingRepository.getEvictionCount()).isEqualTo(2);
+        assertThat(cachingRepository.size()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldWriteThroughAndInvalidateFindAllSnapshot() {
+        cachingRepository.findAll();
+        cachingRepository.findAll();
+        verify(backingRepository, times(1)).findAll();
+
+        Room updated = new Room("room1", "Room1");
+        cachingRepository.save(updated);
+
+        verify(backingRepository).save(updated);
+        assertThat(cachingRepository.findById("room1")).containsSame(updated);
+        cachingRepository.findAll();
+        verify(backingRepository, times(2)).findAll();
+        verify(backingRepository, never()).findById("room1");
+    }
+
+    @Test
+    void shouldInvalidateRoomWhenSaveFails() {
+        cachingRepository.findById("room1");
+        Room changed = new Room("room1", "Room1");
+        doThrow(new IllegalStateException("disk full")).when(backingRepository).save(changed);
+
+        assertThatThrownBy(() -> cachingRepository.save(changed)).isInstanceOf(IllegalStateException.class);
+
+        assertThat(cachingRepository.findById("room1")).containsSame(room1);
+        verify(backingRepository, times(2)).findById("room1");
+    }
+
+    @Test
+    void shouldKeepLoadedRoomWhenAnotherRoomIsSavedDuringLoad() {
+        when(backingRepository.findById("room1")).thenAnswer(invocation -> {
+            cachingRepository.save(room2);
+            return Optional.of(room1);
+        });
+
+        cachingRepository.findById("room1");
+        cachingRepository.findById("room1");
+
+        verify(backingRepository, times(1)).findById("room1");
+    }
+
+    @Test
+    void shouldNotCacheRoomLoadedWhileSameRoomWasSaved() {
+        Room updated = new Room("room1", "Room1");
+        when(backingRepository.findById("room1"))
+                .thenAnswer(invocation -> {
+                    cachingRepository.save(updated);
+                    cachingRepository.invalidateAll();
+                    return Optional.of(room1);
+                })
+                .thenReturn(Optional.of(updated));
+
+        cachingRepository.findById("room1");
+
+        assertThat(cachingRepository.findById("room1")).containsSame(updated);
+        verify(backingRepository, times(2)).findById("room1");
+    }
+}
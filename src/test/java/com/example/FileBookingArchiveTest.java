@@ -0,0 +1,95 @@
+package com.example;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class FileBookingArchiveTest {
+
+    private static final LocalDateTime START = LocalDateTime.parse("2030-01-01T10:00");
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldFindArchivedBookingsAfterReopen() throws IOException {
+        List<Booking> bookings = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            bookings.add(new Booking("b" + i, "room" + (i % 7), START.plusMinutes(i), START.plusMinutes(i + 1)));
+        }
+        try (FileBookingArchive archive = new FileBookingArchive(directory)) {
+            archive.archive(bookings.subList(0, 2_000));
+            archive.archive(bookings.subList(2_000, 5_000));
+            archive.archive(bookings.subList(0, 10));
+            assertThat(archive.size()).isEqualTo(5_000);
+        }
+
+        try (FileBookingArchive reopened = new FileBookingArchive(directory)) {
+            assertThat(reopened.size()).isEqualTo(5_000);
+            assertThat(reopened.findById("b4321")).hasValueSatisfying(booking -> {
+                assertThat(booking.getRoomId()).isEqualTo("room" + (4321 % 7));
+                assertThat(booking.getStartTime()).isEqualTo(START.plusMinutes(4321));
+            });
+            assertThat(reopened.findById("okänd")).isEmpty();
+        }
+    }
+
+    @Test
+    void shouldIgnoreTornRecordAtEnd() throws IOException {
+        try (FileBookingArchive archive = new FileBookingArchive(directory)) {
+            archive.archive(List.of(new Booking("b1", "room1", START, START.plusHours(1))));
+        }
+        Files.write(directory.resolve("bookings.archive"), new byte[]{0, 0, 0, 40, 1, 2},
+                StandardOpenOption.APPEND);
+
+        try (FileBookingArchive reopened = new FileBookingArchive(directory)) {
+            reopened.archive(List.of(new Booking("b2", "room1", START.plusHours(2), START.plusHours(3))));
+        }
+
+        try (FileBookingArchive reopened = new FileBookingArchive(directory)) {
+            assertThat(reopened.size()).isEqualTo(2);
+            assertThat(reopened.findById("b2")).isPresent();
+        }
+    }
+
+    @Test
+    void archivedBookingsShouldSurviveRestartWithFileRepository() throws IOException {
+        AtomicReference<LocalDateTime> now = new AtomicReference<>(START);
+        String bookingId;
+        try (FileRoomRepository repository = new FileRoomRepository(directory.resolve("rooms"));
+             FileBookingArchive archive = new FileBookingArchive(directory.resolve("archive"))) {
+            repository.save(new Room("room1", "Rum 1"));
+            BookingSystem bookingSystem = BookingSystem.builder(now::get, repository, mock(NotificationService.class))
+                    .archive(archive)
+                    .build();
+            bookingSystem.bookRoom("room1", START.plusHours(1), START.plusHours(2));
+            bookingId = repository.findById("room1").orElseThrow().getBookings().iterator().next().getId();
+
+            now.set(START.plusHours(3));
+            assertThat(bookingSystem.archiveExpiredBookings(Duration.ZERO)).isEqualTo(1);
+        }
+
+        try (FileRoomRepository repository = new FileRoomRepository(directory.resolve("rooms"));
+             FileBookingArchive archive = new FileBookingArchive(directory.resolve("archive"))) {
+            BookingSystem bookingSystem = BookingSystem.builder(now::get, repository, mock(NotificationService.class))
+                    .archive(archive)
+                    .build();
+
+            assertThat(repository.findById("room1").orElseThrow().hasBooking(bookingId)).isFalse();
+            assertThat(bookingSystem.findBooking(bookingId)).get()
+                    .extracting(Booking::getStartTime).isEqualTo(START.plusHours(1));
+        }
+    }
+}
@@ -0,0 +1,270 @@
+package com.example;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.*;
+
+class FileRoomRepositoryTest {
+
+    private static final LocalDateTime START = LocalDateTime.parse("2030-01-01T10:00");
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void shouldRecoverRoomsAndBookingsFromLog() throws IOException {
+        try (FileRoomRepository repository = new FileRoomRepository(directory)) {
+            Room room = new Room("room1", "Room1");
+            room.addBooking(new Booking("b1", "room1", START, START.plusHours(1)));
+            room.addBooking(new Booking("b2", "room1", START.plusHours(2), START.plusHours(3)));
+            repository.save(room);
+
+            room.removeBooking("b1");
+            repository.save(room);
+        }
+
+        try (FileRoomRepository recovered = new FileRoomRepository(directory)) {
+            Room room = recovered.findById("room1").orElseThrow();
+
+            assertThat(room.getName()).isEqualTo("Room1");
+            assertThat(room.hasBooking("b1")).isFalse();
+            assertThat(room.getBooking("b2").getStartTime()).isEqualTo(START.plusHours(2));
+            assertThat(recovered.findByBookingId("b2")).containsSame(room);
+        }
+    }
+
+    @Test
+    void shouldAppendOnlyTheChangedBookingsOnSave() throws IOException {
+        try (FileRoomRepository repository = new FileRoomRepository(directory)) {
+            Room room = new Room("room1", "Room1");
+            for (int i = 0; i < 100; i++) {
+                room.addBooking(new Booking("b" + i, "room1", START.plusHours(i), START.plusHours(i).plusMinutes(30)));
+            }
+            repository.save(room);
+            long sizeAfterFirstSave = logPosition();
+
+            room.addBooking(new Booking("extra", "room1", START.minusHours(5), START.minusHours(4)));
+            repository.save(room);
+            long growth = logPosition() - sizeAfterFirstSave;
+
+            assertThat(growth).isLessThan(sizeAfterFirstSave / 50);
+        }
+    }
+
+    @Test
+    void shouldRecoverFromSnapshotAndReplayOnlyTheLogTail() throws IOException {
+        try (FileRoomRepository repository = new FileRoomRepository(directory)) {
+            Room room = new Room("room1", "Room1");
+            room.addBooking(new Booking("b1", "room1", START, START.plusHours(1)));
+            repository.save(room);
+            repository.snapshot();
+
+            room.addBooking(new Booking("b2", "room1", START.plusHours(2), START.plusHours(3)));
+            repository.save(room);
+        }
+
+        try (FileRoomRepository recovered = new FileRoomRepository(directory)) {
+            Room room = recovered.findById("room1").orElseThrow();
+
+            assertThat(room.getBookings()).extracting(Booking::getId).containsExactlyInAnyOrder("b1", "b2");
+        }
+    }
+
+    @Test
+    void shouldTakeSnapshotAutomaticallyWhenLogGrowsPastThreshold() throws IOException {
+        try (FileRoomRepository repository = new FileRoomRepository(directory, 4096)) {
+            Room room = new Room("room1", "Room1");
+            repository.save(room);
+            for (int i = 0; i < 200; i++) {
+                room.addBooking(new Booking("b" + i, "room1", START.plusHours(i), START.plusHours(i).plusMinutes(30)));
+                repository.save(room);
+            }
+        }
+
+        assertThat(directory.resolve("rooms.snapshot")).exists();
+        try (FileRoomRepository recovered = new FileRoomRepository(directory)) {
+            assertThat(recovered.findById("room1").orElseThrow().getBookings()).hasSize(200);
+        }
+    }
+
+    @Test
+    void shouldIgnoreTornRecordAtEndOfLog() throws IOException {
+        try (FileRoomRepository repository = new FileRoomRepository(directory)) {
+            Room room = new Room("room1", "Room1");
+            room.addBooking(new Booking("b1", "room1", START, START.plusHours(1)));
+            repository.save(room);
+        }
+        long validEnd = logPosition();
+        try (FileChannel channel = FileChannel.open(directory.resolve("rooms.log"), StandardOpenOption.WRITE)) {
+            // Längd och kontrollsumma för en post vars innehåll aldrig hann skrivas
+            channel.write(ByteBuffer.allocate(8).putInt(40).putInt(12345).flip(), validEnd);
+        }
+
+        try (FileRoomRepository recovered = new FileRoomRepository(directory)) {
+            Room room = recovered.findById("room1").orElseThrow();
+            room.addBooking(new Booking("b2", "room1", START.plusHours(2), START.plusHours(3)));
+            recovered.save(room);
+        }
+
+        try (FileRoomRepository recovered = new FileRoomRepository(directory)) {
+            assertThat(recovered.findById("room1").orElseThrow().getBookings())
+                    .extracting(Booking::getId).containsExactlyInAnyOrder("b1", "b2");
+        }
+    }
+
+    @Test
+    void shouldKeepUnsavedChangesOutOfSnapshot() throws IOException {
+        try (FileRoomRepository repository = new FileRoomRepository(directory)) {
+            Room room = new Room("room1", "Room1");
+            room.addBooking(new Booking("b1", "room1", START, START.plusHours(1)));
+            repository.save(room);
+
+            // Ändrat i minnet men aldrig sparat, t.ex. mellan en misslyckad save och återställningen
+            room.addBooking(new Booking("b2", "room1", START.plusHours(2), START.plusHours(3)));
+            room.removeBooking("b1");
+            repository.snapshot();
+        }
+
+        try (FileRoomRepository recovered = new FileRoomRepository(directory)) {
+            assertThat(recovered.findById("room1").orElseThrow().getBookings())
+                    .extracting(Booking::getId).containsExactly("b1");
+        }
+    }
+
+    @Test
+    void shouldDiffAnotherInstanceWithSameIdOnceAndThenTrackIt() throws IOException {
+        try (FileRoomRepository repository = new FileRoomRepository(directory)) {
+            Room original = new Room("room1", "Room1");
+            original.addBooking(new Booking("b1", "room1", START, START.plusHours(1)));
+            original.addBooking(new Booking("b2", "room1", START.plusHours(2), START.plusHours(3)));
+            repository.save(original);
+
+            Room replacement = new Room("room1", "Room1");
+            replacement.addBooking(new Booking("b2", "room1", START.plusHours(2), START.plusHours(3)));
+            replacement.addBooking(new Booking("b3", "room1", START.plusHours(4), START.plusHours(5)));
+            repository.save(replacement);
+
+            replacement.removeBooking("b2");
+            repository.save(replacement);
+        }
+
+        try (FileRoomRepository recovered = new FileRoomRepository(directory)) {
+            assertThat(recovered.findById("room1").orElseThrow().getBookings())
+                    .extracting(Booking::getId).containsExactly("b3");
+            assertThat(recovered.findByBookingId("b1")).isEmpty();
+        }
+    }
+
+    @Test
+    void shouldPersistShortenedSeries() throws IOException {
+        RecurrenceRule weekly = new RecurrenceRule(RecurrenceRule.Frequency.WEEKLY, 1, 52);
+        try (FileRoomRepository repository = new FileRoomRepository(directory)) {
+            Room room = new Room("room1", "Room1");
+            RecurringBooking series = new RecurringBooking("s1", "room1", START, START.plusMinutes(15), weekly)
+                    .withCancelledOccurrence(2);
+            room.addRecurringBooking(series);
+            repository.save(room);
+
+            room.addRecurringBooking(series.endingBefore(10));
+            repository.save(room);
+        }
+
+        try (FileRoomRepository recovered = new FileRoomRepository(directory)) {
+            RecurringBooking series = recovered.findById("room1").orElseThrow().getRecurringBooking("s1");
+
+            assertThat(series.getOccurrenceCount()).isEqualTo(10);
+            assertThat(series.getCancelledIndexes()).containsExactly(2L);
+        }
+    }
+
+    private long logPosition() throws IOException {
+        ByteBuffer log = ByteBuffer.wrap(Files.readAllBytes(directory.resolve("rooms.log")));
+        int position = 12;
+        while (log.getInt(position) > 0) {
+            position += 8 + log.getInt(position);
+        }
+        return position;
+    }
+
+    @Test
+    void shouldRecoverRecurringBookingsAndExceptionsFromLogAndSnapshot() throws IOException {
+        RecurrenceRule weekly = new RecurrenceRule(RecurrenceRule.Frequency.WEEKLY, 1, 52);
+        try (FileRoomRepository repository = new FileRoomRepository(directory)) {
+            Room room = new Room("room1", "Room1");
+            RecurringBooking series = new RecurringBooking("s1", "room1", START, START.plusMinutes(15), weekly);
+            room.addRecurringBooking(series);
+            repository.save(room);
+
+            room.addRecurringBooking(series.withCancelledOccurrence(3));
+            repository.save(room);
+        }
+
+        try (FileRoomRepository recovered = new FileRoomRepository(directory)) {
+            RecurringBooking series = recovered.findById("room1").orElseThrow().getRecurringBooking("s1");
+
+            assertThat(series.getOccurrenceCount()).isEqualTo(52);
+            assertThat(series.getCancelledIndexes()).containsExactly(3L);
+            assertThat(recovered.findByBookingId("s1")).isPresent();
+
+            Room room = recovered.findById("room1").orElseThrow();
+            room.addRecurringBooking(series.withCancelledOccurrence(7));
+            recovered.save(room);
+            recovered.snapshot();
+        }
+
+        try (FileRoomRepository fromSnapshot = new FileRoomRepository(directory)) {
+            RecurringBooking series = fromSnapshot.findById("room1").orElseThrow().getRecurringBooking("s1");
+
+            assertThat(series.getCancelledIndexes()).containsExactly(3L, 7L);
+            assertThat(series.getRule().getFrequency()).isEqualTo(RecurrenceRule.Frequency.WEEKLY);
+        }
+    }
+
+
+    @Test
+    void shouldKeepChangesForNextSaveWhenAppendFails() throws IOException {
+        try (FileRoomRepository repository = new FileRoomRepository(directory)) {
+            Room room = new Room("room1", "Room1");
+            repository.save(room);
+
+            room.addBooking(new Booking("b1", "room1", START, START.plusHours(1)));
+            room.addBooking(new Booking("x".repeat(70_000), "room1", START.plusHours(2), START.plusHours(3)));
+            assertThatThrownBy(() -> repository.save(room)).isInstanceOf(IllegalArgumentException.class);
+            assertThat(repository.findByBookingId("b1")).isEmpty();
+
+            room.removeBooking("x".repeat(70_000));
+            repository.save(room);
+            assertThat(repository.findByBookingId("b1")).contains(room);
+        }
+
+        try (FileRoomRepository recovered = new FileRoomRepository(directory)) {
+            Room room = recovered.findById("room1").orElseThrow();
+
+            assertThat(room.getBookings()).extracting(Booking::getId).containsExactly("b1");
+        }
+    }
+
+    @Test
+    void shouldRecoverWhenEverySaveIsForced() throws IOException {
+        try (FileRoomRepository repository = new FileRoomRepository(directory, 4096, true)) {
+            Room room = new Room("room1", "Room1");
+            for (int i = 0; i < 100; i++) {
+                room.addBooking(new Booking("b" + i, "room1", START.plusHours(i), START.plusHours(i).plusMinutes(30)));
+                repository.save(room);
+            }
+        }
+
+        try (FileRoomRepository recovered = new FileRoomRepository(directory)) {
+            assertThat(recovered.findById("room1").orElseThrow().getBookings()).hasSize(100);
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.example;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class IdempotentBookingTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2030, 1, 1, 8, 0);
+
+    private final AtomicReference<LocalDateTime> now = new AtomicReference<>(NOW);
+    private InMemoryRoomRepository roomRepository;
+    private NotificationService notificationService;
+    private BookingSystem bookingSystem;
+
+    @BeforeEach
+    void setUp() {
+        roomRepository = spy(new InMemoryRoomRepository());
+        roomRepository.save(new Room("room1", "Rum 1"));
+        notificationService = mock(NotificationService.class);
+        bookingSystem = bookingSystemWithCache(new IdempotencyCache(2, Duration.ofMinutes(10)));
+        clearInvocations(roomRepository);
+    }
+
+    private BookingSystem bookingSystemWithCache(IdempotencyCache cache) {
+        return BookingSystem.builder(now::get, roomRepository, notificationService).idempotencyCache(cache).build();
+    }
+
+    @Test
+    void retryShouldReturnOriginalBookingWithoutRepositoryCalls() throws NotificationException {
+        BookingResult first = bookingSystem.bookRoom("key1", "room1", NOW.plusHours(1), NOW.plusHours(2));
+        clearInvocations(roomRepository);
+
+        BookingResult retry = bookingSystem.bookRoom("key1", "room1", NOW.plusHours(1), NOW.plusHours(2));
+
+        assertThat(first.isBooked()).isTrue();
+        assertThat(retry).isSameAs(first);
+        verifyNoInteractions(roomRepository);
+        verify(notificationService, times(1)).sendBookingConfirmation(any());
+    }
+
+    @Test
+    void newKeyForSameSlotShouldBeUnavailable() {
+        bookingSystem.bookRoom("key1", "room1", NOW.plusHours(1), NOW.plusHours(2));
+
+        BookingResult other = bookingSystem.bookRoom("key2", "room1", NOW.plusHours(1), NOW.plusHours(2));
+
+        assertThat(other.getStatus()).isEqualTo(BookingResult.Status.UNAVAILABLE);
+        assertThat(other.getBooking()).isEmpty();
+    }
+
+    @Test
+    void shouldRejectKeyReusedForDifferentRequest() {
+        bookingSystem.bookRoom("key1", "room1", NOW.plusHours(1), NOW.plusHours(2));
+
+        assertThatThrownBy(() -> bookingSystem.bookRoom("key1", "room1", NOW.plusHours(3), NOW.plusHours(4)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("Idempotensnyckeln");
+    }
+
+    @Test
+    void shouldNotRememberFailures() {
+        assertThatThrownBy(() -> bookingSystem.bookRoom("key1", "room2", NOW.plusHours(1), NOW.plusHours(2)))
+                .isInstanceOf(IllegalArgumentException.class);
+        roomRepository.save(new Room("room2", "Rum 2"));
+
+        assertThat(bookingSystem.bookRoom("key1", "room2", NOW.plusHours(1), NOW.plusHours(2)).isBooked()).isTrue();
+    }
+
+    @Test
+    void shouldExpireEntries() {
+        BookingResult first = bookingSystem.bookRoom("key1", "room1", NOW.plusHours(1), NOW.plusHours(2));
+        now.set(NOW.plusMinutes(11));
+
+        BookingResult afterExpiry = bookingSystem.bookRoom("key1", "room1", NOW.plusHours(1), NOW.plusHours(2));
+
+        assertThat(first.isBooked()).isTrue();
+        assertThat(afterExpiry.getStatus()).isEqualTo(BookingResult.Status.UNAVAILABLE);
+    }
+
+    @Test
+    void shouldEvictOldestWhenFull() {
+        IdempotencyCache cache = new IdempotencyCache(2, Duration.ofMinutes(10));
+        BookingSystem system = bookingSystemWithCache(cache);
+
+        system.bookRoom("key1", "room1", NOW.plusHours(1), NOW.plusHours(2));
+        system.bookRoom("key2", "room1", NOW.plusHours(3), NOW.plusHours(4));
+        system.bookRoom("key3", "room1", NOW.plusHours(5), NOW.plusHours(6));
+
+        assertThat(cache.size()).isEqualTo(2);
+        assertThat(system.bookRoom("key1", "room1", NOW.plusHours(1), NOW.plusHours(2)).getStatus())
+                .isEqualTo(BookingResult.Status.UNAVAILABLE);
+    }
+
+    @Test
+    void concurrentDuplicatesShouldShareOneExecution() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            loading.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return invocation.callRealMethod();
+        }).when(roomRepository).findById("room1");
+
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<BookingResult>> results = new ArrayList<>();
+            results.add(executor.submit(() -> bookingSystem.bookRoom("key1", "room1", NOW.plusHours(1), NOW.plusHours(2))));
+            assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+            for (int i = 0; i < 3; i++) {
+                results.add(executor.submit(() -> bookingSystem.bookRoom("key1", "room1", NOW.plusHours(1), NOW.plusHours(2))));
+            }
+            release.countDown();
+
+            BookingResult first = results.get(0).get(5, TimeUnit.SECONDS);
+            for (Future<BookingResult> result : results) {
+                assertThat(result.get(5, TimeUnit.SECONDS)).isSameAs(first);
+            }
+            assertThat(first.isBooked()).isTrue();
+            verify(roomRepository, times(1)).findById("room1");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void shouldRejectNullKeyAndInvalidCache() {
+        assertThatThrownBy(() -> bookingSystem.bookRoom(null, "room1", NOW.plusHours(1), NOW.plusHours(2)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new IdempotencyCache(0, Duration.ofMinutes(1)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void errorInOriginalCallShouldReleaseWaitingDuplicates() throws Exception {
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            loading.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            throw new AssertionError("trasig");
+        }).when(roomRepository).findById("room1");
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<BookingResult> first = executor.submit(() -> bookingSystem.bookRoom("key1", "room1", NOW.plusHours(1), NOW.plusHours(2)));
+            assertThat(loading.await(5, TimeUnit.SECONDS)).isTrue();
+            Future<BookingResult> duplicate = executor.submit(() -> bookingSystem.bookRoom("key1", "room1", NOW.plusHours(1), NOW.plusHours(2)));
+            release.countDown();
+
+            assertThatThrownBy(() -> first.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(AssertionError.class);
+            assertThatThrownBy(() -> duplicate.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(AssertionError.class);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void shouldNotEvictEntriesInFlight() {
+        IdempotencyCache cache = new IdempotencyCache(1, Duration.ofMinutes(10));
+        BookingRequest request = new BookingRequest("room1", NOW.plusHours(1), NOW.plusHours(2));
+        long now = EpochTime.toEpochNanos(NOW);
+
+        IdempotencyCache.Claim inFlight = cache.claim("key1", request, now);
+        cache.claim("key2", new BookingRequest("room1", NOW.plusHours(3), NOW.plusHours(4)), now);
+
+        assertThat(inFlight.isOwner()).isTrue();
+        assertThat(cache.claim("key1", request, now).isOwner()).isFalse();
+    }
+
+    @Test
+    void duplicateShouldGiveUpAfterAwaitTimeout() {
+        IdempotencyCache cache = new IdempotencyCache(10, Duration.ofMinutes(10), Duration.ofMillis(20));
+        BookingRequest request = new BookingRequest("room1", NOW.plusHours(1), NOW.plusHours(2));
+        long now = EpochTime.toEpochNanos(NOW);
+        cache.claim("key1", request, now);
+
+        IdempotencyCache.Claim duplicate = cache.claim("key1", request, now);
+
+        assertThatThrownBy(duplicate::await).isInstanceOf(IllegalStateException.class);
+    }
+}
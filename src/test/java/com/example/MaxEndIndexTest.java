@@ -0,0 +1,55 @@
+package com.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.*;
+
+class MaxEndIndexTest {
+
+    @Test
+    void shouldReturnMinValueWhenEmpty() {
+        assertThat(new MaxEndIndex().maxEndAtOrBefore(100)).isEqualTo(Long.MIN_VALUE);
+    }
+
+    @Test
+    void shouldLowerMaxEndWhenLongEntryIsRemoved() {
+        MaxEndIndex index = new MaxEndIndex();
+        index.put(0, 1_000);
+        index.put(10, 20);
+
+        index.remove(0);
+
+        assertThat(index.maxEndAtOrBefore(500)).isEqualTo(20);
+        assertThat(index.maxEndAtOrBefore(5)).isEqualTo(Long.MIN_VALUE);
+    }
+
+    @Test
+    void shouldMatchBruteForceUnderRandomChanges() {
+        Random random = new Random(42);
+        MaxEndIndex index = new MaxEndIndex();
+        TreeMap<Long, Long> expected = new TreeMap<>();
+
+        for (int i = 0; i < 20_000; i++) {
+            long start = random.nextInt(2_000);
+            if (random.nextInt(3) == 0) {
+                index.remove(start);
+                expected.remove(start);
+            } else {
+                long end = start + random.nextInt(500);
+                index.put(start, end);
+                expected.put(start, end);
+            }
+
+            long query = random.nextInt(2_200) - 100;
+            long bruteForce = Long.MIN_VALUE;
+            for (Map.Entry<Long, Long> entry : expected.headMap(query, true).entrySet()) {
+                bruteForce = Math.max(bruteForce, entry.getValue());
+            }
+            assertThat(index.maxEndAtOrBefore(query)).isEqualTo(bruteForce);
+        }
+    }
+}
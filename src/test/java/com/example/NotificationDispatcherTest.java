@@ -0,0 +1,198 @@
+package com.example;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.*;
+
+class NotificationDispatcherTest {
+
+    private final Booking booking = new Booking("booking1", "room1",
+            LocalDateTime.parse("2030-01-01T10:00"), LocalDateTime.parse("2030-01-01T11:00"));
+
+    private NotificationDispatcher dispatcher;
+
+    @AfterEach
+    void tearDown() {
+        if (dispatcher != null) {
+            dispatcher.close();
+        }
+    }
+
+    @Test
+    void shouldDeliverConfirmationsAsynchronously() throws Exception {
+        StubNotificationService stub = new StubNotificationService(0);
+        dispatcher = new NotificationDispatcher(stub);
+
+        dispatcher.sendBookingConfirmation(booking);
+        dispatcher.sendCancellationConfirmation(booking);
+
+        assertThat(dispatcher.awaitIdle(Duration.ofSeconds(5))).isTrue();
+        assertThat(stub.confirmations).containsExactly(booking);
+        assertThat(stub.cancellations).containsExactly(booking);
+        assertThat(dispatcher.getSentCount()).isEqualTo(2);
+        assertThat(dispatcher.getQueueDepth()).isZero();
+    }
+
+    @Test
+    void shouldRetryFailedNotificationWithBackoff() throws Exception {
+        StubNotificationService stub = new StubNotificationService(2);
+        dispatcher = new NotificationDispatcher(stub, 10, 10, 3, Duration.ofMillis(1), Duration.ofMillis(10));
+
+        dispatcher.sendBookingConfirmation(booking);
+
+        assertThat(dispatcher.awaitIdle(Duration.ofSeconds(5))).isTrue();
+        assertThat(stub.confirmations).containsExactly(booking);
+        assertThat(dispatcher.getRetryCount()).isEqualTo(2);
+        assertThat(dispatcher.getDroppedCount()).isZero();
+    }
+
+    @Test
+    void shouldDropNotificationWhenAttemptsAreExhausted() throws Exception {
+        StubNotificationService stub = new StubNotificationService(Integer.MAX_VALUE);
+        dispatcher = new NotificationDispatcher(stub, 10, 10, 3, Duration.ofMillis(1), Duration.ofMillis(10));
+
+        dispatcher.sendBookingConfirmation(booking);
+
+        assertThat(dispatcher.awaitIdle(Duration.ofSeconds(5))).isTrue();
+        assertThat(stub.confirmations).isEmpty();
+        assertThat(dispatcher.getRetryCount()).isEqualTo(2);
+        assertThat(dispatcher.getDroppedCount()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldRejectWhenQueueIsFull() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        NotificationService blocking = new NotificationService() {
+            @Override
+            public void sendBookingConfirmation(Booking booking) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+            @Override
+            public void sendCancellationConfirmation(Booking booking) {
+            }
+        };
+        dispatcher = new NotificationDispatcher(blocking, 1, 1, 1, Duration.ofMillis(1), Duration.ofMillis(10));
+
+        assertThatThrownBy(() -> {
+            for (int i = 0; i < 10; i++) {
+                dispatcher.sendBookingConfirmation(booking);
+            }
+        }).isInstanceOf(NotificationException.class)
+                .hasMessage("Notifieringskön är full");
+
+        release.countDown();
+        assertThat(dispatcher.awaitIdle(Duration.ofSeconds(5))).isTrue();
+        assertThat(dispatcher.getRejectedCount()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldHandQueuedNotificationsToDelegateAsOneBatch() throws Exception {
+        CountDownLatch firstBatchStarted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+        NotificationService batching = new NotificationService() {
+            @Override
+            public void sendBookingConfirmation(Booking booking) {
+                throw new AssertionError("Enstaka utskick ska inte användas");
+            }
+
+            @Override
+            public void sendCancellationConfirmation(Booking booking) {
+                throw new AssertionError("Enstaka utskick ska inte användas");
+            }
+
+            @Override
+            public List<Booking> sendBookingConfirmations(List<Booking> bookings) {
+                batchSizes.add(bookings.size());
+                firstBatchStarted.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return List.of();
+            }
+        };
+        dispatcher = new NotificationDispatcher(batching, 100, 100, 1, Duration.ofMillis(1), Duration.ofMillis(10));
+
+        dispatcher.sendBookingConfirmation(booking);
+        firstBatchStarted.await();
+        for (int i = 0; i < 5; i++) {
+            dispatcher.sendBookingConfirmation(booking);
+        }
+        release.countDown();
+
+        assertThat(dispatcher.awaitIdle(Duration.ofSeconds(5))).isTrue();
+        assertThat(batchSizes).containsExactly(1, 5);
+        assertThat(dispatcher.getSentCount()).isEqualTo(6);
+    }
+
+    @Test
+    void shouldDeliverEveryAcceptedNotificationWhenClosedConcurrently() throws Exception {
+        StubNotificationService stub = new StubNotificationService(0);
+        dispatcher = new NotificationDispatcher(stub, 10_000, 10, 1, Duration.ofMillis(1), Duration.ofMillis(10));
+        AtomicInteger accepted = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> senders = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            senders.add(Thread.ofVirtual().start(() -> {
+                try {
+                    start.await();
+                    for (int i = 0; i < 1_000; i++) {
+                        dispatcher.sendBookingConfirmation(booking);
+                        accepted.incrementAndGet();
+                    }
+                } catch (InterruptedException | NotificationException e) {
+                    // Stängd under tiden
+                }
+            }));
+        }
+
+        start.countDown();
+        dispatcher.close();
+        for (Thread sender : senders) {
+            sender.join();
+        }
+
+        assertThat(dispatcher.awaitIdle(Duration.ZERO)).isTrue();
+        assertThat(stub.confirmations).hasSize(accepted.get());
+        assertThat(dispatcher.getQueueDepth()).isZero();
+    }
+
+    private static class StubNotificationService implements NotificationService {
+        private final AtomicInteger failuresLeft;
+        private final List<Booking> confirmations = new CopyOnWriteArrayList<>();
+        private final List<Booking> cancellations = new CopyOnWriteArrayList<>();
+
+        StubNotificationService(int failures) {
+            this.failuresLeft = new AtomicInteger(failures);
+        }
+
+        @Override
+        public void sendBookingConfirmation(Booking booking) throws NotificationException {
+            if (failuresLeft.getAndDecrement() > 0) {
+                throw new NotificationException("Test exception");
+            }
+            confirmations.add(booking);
+        }
+
+        @Override
+        public void sendCancellationConfirmation(Booking booking) {
+            cancellations.add(booking);
+        }
+    }
+}
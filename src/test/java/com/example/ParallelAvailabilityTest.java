@@ -0,0 +1,95 @@
+package com.example;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ParallelAvailabilityTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2030, 1, 1, 8, 0);
+    private static final int ROOMS = 5_000;
+
+    private InMemoryRoomRepository roomRepository;
+    private BookingSystem bookingSystem;
+    private ForkJoinPool pool;
+
+    @BeforeEach
+    void setUp() {
+        roomRepository = new InMemoryRoomRepository();
+        for (int i = 0; i < ROOMS; i++) {
+            Room room = new Room("room" + i, "Rum " + i);
+            // Rum i bokas en timme med start i % 8 timmar efter NOW
+            LocalDateTime start = NOW.plusHours(i % 8);
+            room.addBooking(new Booking("b" + i, room.getId(), start, start.plusMinutes(59)));
+            roomRepository.save(room);
+        }
+        bookingSystem = new BookingSystem(() -> NOW, roomRepository, mock(NotificationService.class));
+        pool = new ForkJoinPool(4);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    void shouldMatchSequentialEvaluationForEveryWindow() {
+        List<TimeWindow> windows = List.of(
+                new TimeWindow(NOW, NOW.plusMinutes(30)),
+                new TimeWindow(NOW.plusHours(3).plusMinutes(10), NOW.plusHours(3).plusMinutes(20)),
+                new TimeWindow(NOW.plusHours(2), NOW.plusHours(6)),
+                new TimeWindow(NOW.plusDays(1), NOW.plusDays(2)));
+
+        Map<TimeWindow, List<Room>> matrix = bookingSystem.getAvailableRooms(windows, pool);
+
+        assertThat(matrix.keySet()).containsExactlyElementsOf(windows);
+        for (TimeWindow window : windows) {
+            assertThat(matrix.get(window))
+                    .containsExactlyElementsOf(bookingSystem.getAvailableRooms(window.getStartTime(), window.getEndTime()));
+        }
+        assertThat(matrix.get(windows.get(0))).hasSize(ROOMS * 7 / 8);
+        assertThat(matrix.get(windows.get(3))).hasSize(ROOMS);
+    }
+
+    @Test
+    void shouldStayCorrectForExistingBookingsDuringConcurrentWrites() throws Exception {
+        AtomicBoolean running = new AtomicBoolean(true);
+        Thread writer = new Thread(() -> {
+            int i = 0;
+            while (running.get()) {
+                LocalDateTime start = NOW.plusDays(10).plusMinutes(i++);
+                bookingSystem.bookRoom("room" + (i % ROOMS), start, start);
+            }
+        });
+        writer.start();
+        try {
+            TimeWindow busyForEighth = new TimeWindow(NOW, NOW.plusMinutes(30));
+            for (int attempt = 0; attempt < 20; attempt++) {
+                List<Room> available = bookingSystem.getAvailableRooms(List.of(busyForEighth), pool).get(busyForEighth);
+
+                assertThat(available).hasSize(ROOMS * 7 / 8);
+            }
+        } finally {
+            running.set(false);
+            writer.join();
+        }
+    }
+
+    @Test
+    void shouldRejectInvalidWindows() {
+        assertThatThrownBy(() -> new TimeWindow(NOW.plusHours(1), NOW))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Sluttid måste vara efter starttid");
+        assertThatThrownBy(() -> bookingSystem.getAvailableRooms(null, pool))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
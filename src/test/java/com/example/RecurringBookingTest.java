@@ -0,0 +1,110 @@
+package com.example;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+import static org.assertj.core.api.Assertions.*;
+
+class RecurringBookingTest {
+
+    private static final LocalDateTime START = LocalDateTime.of(2030, 1, 7, 9, 0);
+
+    private static RecurringBooking weeklyStandup(int count) {
+        return new RecurringBooking("s1", "room1", START, START.plusMinutes(15),
+                new RecurrenceRule(RecurrenceRule.Frequency.WEEKLY, 1, count));
+    }
+
+    private static long nanos(LocalDateTime time) {
+        return EpochTime.toEpochNanos(time);
+    }
+
+    @Test
+    void shouldComputeOccurrencesArithmetically() {
+        RecurringBooking series = weeklyStandup(52);
+
+        assertThat(series.getOccurrenceCount()).isEqualTo(52);
+        assertThat(series.occurrence(51).getStartTime()).isEqualTo(START.plusWeeks(51));
+        assertThat(series.occurrence(51).getEndTime()).isEqualTo(START.plusWeeks(51).plusMinutes(15));
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "0, 09:00, 09:15, true",
+            "7, 09:10, 09:30, true",
+            "7, 09:16, 10:00, false",
+            "7, 08:00, 09:00, true",
+            "3, 09:00, 09:15, false",
+            "357, 09:00, 09:15, true",
+            "364, 09:00, 09:15, false"
+    })
+    void shouldDetectOverlapWithinWindow(int dayOffset, LocalTime from, LocalTime to, boolean overlaps) {
+        RecurringBooking series = weeklyStandup(52);
+        LocalDate day = START.toLocalDate().plusDays(dayOffset);
+
+        boolean result = series.overlaps(nanos(day.atTime(from)), nanos(day.atTime(to)));
+
+        assertThat(result).isEqualTo(overlaps);
+    }
+
+    @Test
+    void shouldIgnoreCancelledOccurrences() {
+        RecurringBooking series = weeklyStandup(52).withCancelledOccurrence(1);
+
+        assertThat(series.overlaps(nanos(START.plusWeeks(1)), nanos(START.plusWeeks(1).plusMinutes(5)))).isFalse();
+        assertThat(series.overlaps(nanos(START.plusWeeks(1)), nanos(START.plusWeeks(2)))).isTrue();
+        assertThat(series.conflictingOccurrenceEnd(nanos(START.plusWeeks(1)), nanos(START.plusWeeks(3))))
+                .hasValue(nanos(START.plusWeeks(2).plusMinutes(15)));
+    }
+
+    @Test
+    void shouldFindIndexOfOccurrenceStart() {
+        RecurringBooking series = weeklyStandup(10);
+
+        assertThat(series.indexOf(nanos(START.plusWeeks(4)))).hasValue(4);
+        assertThat(series.indexOf(nanos(START.plusWeeks(4).plusMinutes(1)))).isEmpty();
+        assertThat(series.indexOf(nanos(START.plusWeeks(10)))).isEmpty();
+    }
+
+    @Test
+    void shouldStopAtUntil() {
+        RecurringBooking series = new RecurringBooking("s1", "room1", START, START.plusHours(1),
+                new RecurrenceRule(RecurrenceRule.Frequency.DAILY, 2, START.plusDays(9)));
+
+        assertThat(series.getOccurrenceCount()).isEqualTo(5);
+        assertThat(series.overlaps(nanos(START.plusDays(10)), nanos(START.plusDays(11)))).isFalse();
+    }
+
+    @Test
+    void shouldClampMonthlyOccurrencesToEndOfMonth() {
+        LocalDateTime endOfJanuary = LocalDateTime.of(2030, 1, 31, 14, 0);
+        RecurringBooking series = new RecurringBooking("s1", "room1", endOfJanuary, endOfJanuary.plusHours(1),
+                new RecurrenceRule(RecurrenceRule.Frequency.MONTHLY, 1, LocalDateTime.of(2030, 12, 31, 23, 59)));
+
+        assertThat(series.getOccurrenceCount()).isEqualTo(12);
+        assertThat(series.occurrence(1).getStartTime()).isEqualTo(LocalDateTime.of(2030, 2, 28, 14, 0));
+        assertThat(series.overlaps(nanos(LocalDateTime.of(2030, 2, 28, 14, 30)), nanos(LocalDateTime.of(2030, 2, 28, 16, 0)))).isTrue();
+        assertThat(series.overlaps(nanos(LocalDateTime.of(2030, 3, 1, 0, 0)), nanos(LocalDateTime.of(2030, 3, 30, 0, 0)))).isFalse();
+        assertThat(series.indexOf(nanos(LocalDateTime.of(2030, 6, 30, 14, 0)))).hasValue(5);
+    }
+
+    @Test
+    void shouldRejectInvalidRules() {
+        assertThatThrownBy(() -> new RecurrenceRule(RecurrenceRule.Frequency.DAILY, 0, 5))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new RecurrenceRule(RecurrenceRule.Frequency.DAILY, 1, 0))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new RecurringBooking("s1", "room1", START, START.plusHours(1),
+                new RecurrenceRule(RecurrenceRule.Frequency.DAILY, 1, START.minusDays(1))))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Serien har inga tillfällen");
+        assertThatThrownBy(() -> new RecurringBooking("s1", "room1", START, START.plusHours(1),
+                new RecurrenceRule(RecurrenceRule.Frequency.WEEKLY, 1, Integer.MAX_VALUE)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Serien sträcker sig utanför det intervall som stöds");
+    }
+}
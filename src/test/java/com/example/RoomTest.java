@@ -0,0 +1,101 @@
+package com.example;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.*;
+
+class RoomTest {
+
+    private Room room;
+
+    @BeforeEach
+    void setUp() {
+        room = new Room("room1", "Room1");
+        room.addBooking(new Booking("b1", "room1",
+                LocalDateTime.parse("2025-01-01T10:00"), LocalDateTime.parse("2025-01-01T12:00")));
+        room.addBooking(new Booking("b2", "room1",
+                LocalDateTime.parse("2025-01-01T14:00"), LocalDateTime.parse("2025-01-01T15:00")));
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "'2025-01-01T08:00', '2025-01-01T09:59', true",
+            "'2025-01-01T08:00', '2025-01-01T10:00', false",
+            "'2025-01-01T11:00', '2025-01-01T11:30', false",
+            "'2025-01-01T09:00', '2025-01-01T16:00', false",
+            "'2025-01-01T12:00', '2025-01-01T13:00', false",
+            "'2025-01-01T12:01', '2025-01-01T13:59', true",
+            "'2025-01-01T15:01', '2025-01-01T18:00', true"
+    })
+    void shouldDetectOverlappingBookings(String startTimeStr, String endTimeStr, boolean expectedAvailable) {
+        LocalDateTime startTime = LocalDateTime.parse(startTimeStr);
+        LocalDateTime endTime = LocalDateTime.parse(endTimeStr);
+
+        assertThat(room.isAvailable(startTime, endTime)).isEqualTo(expectedAvailable);
+    }
+
+    @Test
+    void shouldFindLongBookingThatStartedWellBeforeRequestedTime() {
+        room.addBooking(new Booking("b3", "room1",
+                LocalDateTime.parse("2025-01-02T00:00"), LocalDateTime.parse("2025-01-09T00:00")));
+
+        assertThat(room.isAvailable(LocalDateTime.parse("2025-01-05T10:00"), LocalDateTime.parse("2025-01-05T11:00")))
+                .isFalse();
+    }
+
+    @Test
+    void shouldFreeTimeWhenBookingIsRemoved() {
+        room.removeBooking("b1");
+
+        assertThat(room.hasBooking("b1")).isFalse();
+        assertThat(room.isAvailable(LocalDateTime.parse("2025-01-01T10:00"), LocalDateTime.parse("2025-01-01T12:00")))
+                .isTrue();
+    }
+
+    @Test
+    void shouldKeepBookingsThatShareStartTime() {
+        room.addBooking(new Booking("b3", "room1",
+                LocalDateTime.parse("2025-01-01T10:00"), LocalDateTime.parse("2025-01-01T10:30")));
+
+        room.removeBooking("b1");
+
+        assertThat(room.getBooking("b3").getEndTime()).isEqualTo(LocalDateTime.parse("2025-01-01T10:30"));
+        assertThat(room.isAvailable(LocalDateTime.parse("2025-01-01T10:15"), LocalDateTime.parse("2025-01-01T10:20")))
+                .isFalse();
+    }
+
+    @Test
+    void shouldThrowExceptionForUnknownBookingId() {
+        assertThatThrownBy(() -> room.getBooking("missing"))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Bokning finns inte");
+    }
+
+    @Test
+    void shouldRejectDuplicateBookingId() {
+        Booking duplicate = new Booking("b1", "room1",
+                LocalDateTime.parse("2025-01-02T10:00"), LocalDateTime.parse("2025-01-02T11:00"));
+
+        assertThatThrownBy(() -> room.addBooking(duplicate))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Bokningen finns redan");
+        assertThat(room.getBooking("b1").getStartTime()).isEqualTo(LocalDateTime.parse("2025-01-01T10:00"));
+    }
+
+    @Test
+    void shouldNotBlockAfterLongBookingIsRemoved() {
+        room.addBooking(new Booking("long", "room1",
+                LocalDateTime.parse("2024-01-01T00:00"), LocalDateTime.parse("2025-06-01T00:00")));
+        assertThat(room.isAvailable(LocalDateTime.parse("2025-02-01T10:00"), LocalDateTime.parse("2025-02-01T11:00"))).isFalse();
+
+        room.removeBooking("long");
+
+        assertThat(room.isAvailable(LocalDateTime.parse("2025-02-01T10:00"), LocalDateTime.parse("2025-02-01T11:00"))).isTrue();
+        assertThat(room.isAvailable(LocalDateTime.parse("2025-01-01T11:00"), LocalDateTime.parse("2025-01-01T11:30"))).isFalse();
+    }
+}
@@ -0,0 +1,126 @@
+package com.example;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.*;
+
+class SlotAvailabilityEngineTest {
+
+    private static final LocalDateTime DAY = LocalDateTime.parse("2030-01-01T00:00");
+
+    private SlotAvailabilityEngine engine;
+    private Room room1;
+    private Room room2;
+
+    @BeforeEach
+    void setUp() {
+        engine = new SlotAvailabilityEngine();
+        room1 = new Room("room1", "Room1");
+        room2 = new Room("room2", "Room2");
+        room1.addBooking(new Booking("b1", "room1", DAY.plusHours(10), DAY.plusHours(11)));
+        room2.addBooking(new Booking("b2", "room2", DAY.plusHours(12).plusMinutes(5), DAY.plusHours(12).plusMinutes(20)));
+        engine.addRooms(List.of(room1, room2));
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "'2030-01-01T09:00', '2030-01-01T09:45', 'Room1,Room2'",
+            "'2030-01-01T09:00', '2030-01-01T10:00', 'Room2'",
+            "'2030-01-01T10:15', '2030-01-01T10:30', 'Room2'",
+            "'2030-01-01T11:00', '2030-01-01T12:00', 'Room2'",
+            "'2030-01-01T12:00', '2030-01-01T12:04', 'Room1,Room2'",
+            "'2030-01-01T12:21', '2030-01-01T12:40', 'Room1,Room2'",
+            "'2030-01-01T11:30', '2030-01-01T13:00', 'Room1'"
+    })
+    void shouldReturnSameRoomsAsExactCheck(String startTimeStr, String endTimeStr, String expectedRooms) {
+        LocalDateTime startTime = LocalDateTime.parse(startTimeStr);
+        LocalDateTime endTime = LocalDateTime.parse(endTimeStr);
+
+        List<Room> availableRooms = engine.findAvailableRooms(startTime, endTime);
+
+        assertThat(availableRooms).extracting(Room::getName).containsExactly(expectedRooms.split(","));
+    }
+
+    @Test
+    void shouldKeepSlotBusyWhileAnotherBookingInSameRoomRemains() {
+        Booking second = new Booking("b3", "room1", DAY.plusHours(11).plusMinutes(5), DAY.plusHours(11).plusMinutes(10));
+        room1.addBooking(second);
+        engine.bookingAdded(room1, second);
+
+        Booking first = room1.getBooking("b1");
+        room1.removeBooking("b1");
+        engine.bookingRemoved(room1, first);
+
+        assertThat(engine.findAvailableRooms(DAY.plusHours(10), DAY.plusHours(10).plusMinutes(45)))
+                .containsExactly(room1, room2);
+        assertThat(engine.findAvailableRooms(DAY.plusHours(11).plusMinutes(1), DAY.plusHours(11).plusMinutes(14)))
+                .containsExactly(room2);
+    }
+
+    @Test
+    void shouldMatchExactCheckForRandomBookingsAndQueries() {
+        Random random = new Random(42);
+        List<Room> rooms = new ArrayList<>();
+        SlotAvailabilityEngine randomEngine = new SlotAvailabilityEngine();
+        for (int i = 0; i < 50; i++) {
+            Room room = new Room("r" + i, "R" + i);
+            for (int j = 0; j < 5; j++) {
+                LocalDateTime start = DAY.plusMinutes(random.nextInt(24 * 60));
+                room.addBooking(new Booking("r" + i + "b" + j, room.getId(), start, start.plusMinutes(1 + random.nextInt(120))));
+            }
+            rooms.add(room);
+        }
+        randomEngine.addRooms(rooms);
+
+        for (int q = 0; q < 500; q++) {
+            LocalDateTime start = DAY.plusMinutes(random.nextInt(24 * 60));
+            LocalDateTime end = start.plusMinutes(random.nextInt(180));
+            List<Room> expected = rooms.stream().filter(room -> room.isAvailable(start, end)).toList();
+
+            assertThat(randomEngine.findAvailableRooms(start, end)).containsExactlyElementsOf(expected);
+        }
+    }
+
+    @Test
+    void shouldIndexAllBookingsOfRoomSeenForTheFirstTime() {
+        Room room3 = new Room("room3", "Room3");
+        room3.addBooking(new Booking("b4", "room3", DAY.plusHours(8), DAY.plusHours(9)));
+        Booking added = new Booking("b5", "room3", DAY.plusHours(14), DAY.plusHours(15));
+        room3.addBooking(added);
+
+        engine.bookingAdded(room3, added);
+
+        assertThat(engine.containsRoom("room3")).isTrue();
+        assertThat(engine.findAvailableRooms(DAY.plusHours(8), DAY.plusHours(9)))
+                .extracting(Room::getName).containsExactly("Room1", "Room2");
+    }
+
+    @Test
+    void shouldCheckVeryLongBookingExactlyInsteadOfIndexingEverySlot() {
+        Room room3 = new Room("room3", "Room3");
+        Booking yearLong = new Booking("b6", "room3", DAY, DAY.plusYears(1));
+        room3.addBooking(yearLong);
+        int indexedBefore = engine.indexedSlotCount();
+        engine.bookingAdded(room3, yearLong);
+
+        assertThat(engine.indexedSlotCount()).isEqualTo(indexedBefore);
+        assertThat(engine.findAvailableRooms(DAY.plusMonths(6), DAY.plusMonths(6).plusHours(1)))
+                .extracting(Room::getName).containsExactly("Room1", "Room2");
+        assertThat(engine.findAvailableRooms(DAY.plusYears(1).plusHours(1), DAY.plusYears(1).plusHours(2)))
+                .extracting(Room::getName).containsExactly("Room1", "Room2", "Room3");
+
+        room3.removeBooking("b6");
+        engine.bookingRemoved(room3, yearLong);
+
+        assertThat(engine.findAvailableRooms(DAY.plusMonths(6), DAY.plusMonths(6).plusHours(1)))
+                .extracting(Room::getName).containsExactly("Room1", "Room2", "Room3");
+    }
+}
@@ -0,0 +1,135 @@
+package com.example;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class SlotSearchTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2030, 1, 1, 8, 0);
+
+    private InMemoryRoomRepository roomRepository;
+    private BookingSystem bookingSystem;
+
+    @BeforeEach
+    void setUp() {
+        roomRepository = new InMemoryRoomRepository();
+        bookingSystem = new BookingSystem(() -> NOW, roomRepository, mock(NotificationService.class));
+    }
+
+    private Room roomWithBookings(String roomId, int... startAndEndHours) {
+        Room room = new Room(roomId, roomId);
+        for (int i = 0; i < startAndEndHours.length; i += 2) {
+            room.addBooking(new Booking(roomId + "-" + i, roomId,
+                    NOW.plusHours(startAndEndHours[i]), NOW.plusHours(startAndEndHours[i + 1])));
+        }
+        roomRepository.save(room);
+        return room;
+    }
+
+    @Test
+    void shouldReturnFromWhenRoomIsFree() {
+        roomWithBookings("room1");
+
+        Optional<AvailableSlot> slot = bookingSystem.findNextAvailableSlot("room1", Duration.ofMinutes(90), NOW, NOW.plusDays(1));
+
+        assertThat(slot).get().extracting(AvailableSlot::getStartTime).isEqualTo(NOW);
+        assertThat(slot.get().getEndTime()).isEqualTo(NOW.plusMinutes(90));
+    }
+
+    @Test
+    void shouldSkipPastBookingsTooCloseTogether() {
+        // Luckan 2-3 är för kort för 90 minuter, luckan efter 5 räcker
+        roomWithBookings("room1", 1, 2, 3, 4, 4, 5, 8, 9);
+
+        Optional<AvailableSlot> slot = bookingSystem.findNextAvailableSlot("room1", Duration.ofMinutes(90), NOW.plusHours(1), NOW.plusDays(1));
+
+        assertThat(slot).get().extracting(AvailableSlot::getStartTime).isEqualTo(NOW.plusHours(5).plusNanos(1));
+        Room room = roomRepository.findById("room1").orElseThrow();
+        assertThat(room.isAvailable(slot.get().getStartTime(), slot.get().getEndTime())).isTrue();
+    }
+
+    @Test
+    void shouldFindSlotInsideLongBookingsShadow() {
+        // En lång bokning som startar tidigt får inte missas av den begränsade sökningen
+        roomWithBookings("room1", 0, 10, 11, 12);
+
+        Optional<AvailableSlot> slot = bookingSystem.findNextAvailableSlot("room1", Duration.ofHours(2), NOW.plusHours(3), NOW.plusDays(1));
+
+        assertThat(slot).get().extracting(AvailableSlot::getStartTime).isEqualTo(NOW.plusHours(12).plusNanos(1));
+    }
+
+    @Test
+    void shouldReturnEmptyWhenSlotWouldEndAfterUntil() {
+        roomWithBookings("room1", 0, 10);
+
+        assertThat(bookingSystem.findNextAvailableSlot("room1", Duration.ofHours(1), NOW, NOW.plusHours(11))).isEmpty();
+        assertThat(bookingSystem.findNextAvailableSlot("room1", Duration.ofHours(1), NOW, NOW.plusHours(12))).isPresent();
+    }
+
+    @Test
+    void shouldNotSuggestTimesInThePast() {
+        roomWithBookings("room1");
+
+        Optional<AvailableSlot> slot = bookingSystem.findNextAvailableSlot("room1", Duration.ofHours(1), NOW.minusDays(1), NOW.plusDays(1));
+
+        assertThat(slot).get().extracting(AvailableSlot::getStartTime).isEqualTo(NOW);
+    }
+
+    @Test
+    void shouldFindEarliestSlotAcrossRooms() {
+        roomWithBookings("room1", 0, 5);
+        roomWithBookings("room2", 0, 2, 3, 6);
+        roomWithBookings("room3", 0, 3);
+
+        Optional<AvailableSlot> slot = bookingSystem.findEarliestSlotAcrossRooms(Duration.ofMinutes(90), NOW);
+
+        assertThat(slot).get().extracting(AvailableSlot::getRoomId).isEqualTo("room3");
+        assertThat(slot.get().getStartTime()).isEqualTo(NOW.plusHours(3).plusNanos(1));
+    }
+
+    @Test
+    void shouldReturnEarliestSlotsInOrder() {
+        roomWithBookings("room1", 0, 5);
+        roomWithBookings("room2", 0, 2, 3, 6);
+        roomWithBookings("room3", 0, 3);
+        roomWithBookings("room4", 0, 4);
+
+        List<AvailableSlot> slots = bookingSystem.findEarliestSlotsAcrossRooms(Duration.ofMinutes(90), NOW, 3);
+
+        assertThat(slots).extracting(AvailableSlot::getRoomId).containsExactly("room3", "room4", "room1");
+    }
+
+    @Test
+    void shouldMatchBruteForceProbing() {
+        Room room = roomWithBookings("room1", 1, 3, 2, 4, 6, 7, 7, 8, 10, 14, 11, 12, 15, 16);
+
+        for (int fromHour = 0; fromHour < 18; fromHour++) {
+            LocalDateTime from = NOW.plusHours(fromHour);
+            AvailableSlot slot = bookingSystem.findNextAvailableSlot("room1", Duration.ofMinutes(45), from, NOW.plusDays(2)).orElseThrow();
+
+            LocalDateTime probe = from;
+            while (!room.isAvailable(probe, probe.plusMinutes(45))) {
+                probe = probe.plusMinutes(1);
+            }
+            assertThat(slot.getStartTime()).isBetween(from, probe);
+            assertThat(room.isAvailable(slot.getStartTime(), slot.getEndTime())).isTrue();
+        }
+    }
+
+    @Test
+    void shouldRejectUnknownRoomAndInvalidInput() {
+        assertThatThrownBy(() -> bookingSystem.findNextAvailableSlot("saknas", Duration.ofHours(1), NOW, NOW.plusDays(1)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Rummet existerar inte");
+        assertThatThrownBy(() -> bookingSystem.findEarliestSlotAcrossRooms(Duration.ofHours(-1), NOW))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,127 @@
+package com.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.*;
+
+class SnowflakeIdGeneratorTest {
+
+    private static final long NOW_MILLIS = 1_900_000_000_000L;
+
+    @Test
+    void shouldEmbedNodeAndTimestamp() {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(42, () -> NOW_MILLIS);
+
+        long id = generator.nextLongId();
+
+        assertThat(SnowflakeIdGenerator.nodeOf(id)).isEqualTo(42);
+        assertThat(SnowflakeIdGenerator.timestampMillisOf(id)).isEqualTo(NOW_MILLIS);
+        assertThat(id).isPositive();
+    }
+
+    @Test
+    void shouldStayIncreasingWithinSameMillisecond() {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1, () -> NOW_MILLIS);
+
+        long first = generator.nextLongId();
+        long second = generator.nextLongId();
+
+        assertThat(second).isGreaterThan(first);
+        assertThat(SnowflakeIdGenerator.timestampMillisOf(second)).isEqualTo(NOW_MILLIS);
+    }
+
+    @Test
+    void shouldBorrowNextMillisecondWhenSequenceRunsOut() {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1, () -> NOW_MILLIS);
+
+        long last = 0;
+        for (int i = 0; i < 4096 + 1; i++) {
+            long id = generator.nextLongId();
+            assertThat(id).isGreaterThan(last);
+            last = id;
+        }
+
+        assertThat(SnowflakeIdGenerator.timestampMillisOf(last)).isEqualTo(NOW_MILLIS + 1);
+    }
+
+    @Test
+    void shouldStayIncreasingWhenClockGoesBackwards() {
+        AtomicLong clock = new AtomicLong(NOW_MILLIS);
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(1, clock::get);
+
+        long before = generator.nextLongId();
+        clock.set(NOW_MILLIS - 10_000);
+        long after = generator.nextLongId();
+
+        assertThat(after).isGreaterThan(before);
+    }
+
+    @Test
+    void stringOrderShouldFollowIdOrder() {
+        AtomicLong clock = new AtomicLong(NOW_MILLIS);
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(7, clock::getAndIncrement);
+
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            ids.add(generator.nextId());
+        }
+
+        assertThat(ids).isSorted().allMatch(id -> id.length() == 13);
+        assertThat(SnowflakeIdGenerator.nodeOf(SnowflakeIdGenerator.decode(ids.get(0)))).isEqualTo(7);
+    }
+
+    @Test
+    void shouldRoundTripEncoding() {
+        for (long id : new long[]{0, 1, 31, 32, 123_456_789_012_345L, Long.MAX_VALUE}) {
+            assertThat(SnowflakeIdGenerator.decode(SnowflakeIdGenerator.encode(id))).isEqualTo(id);
+        }
+        assertThatThrownBy(() -> SnowflakeIdGenerator.decode("kort")).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> SnowflakeIdGenerator.decode("000000000000U")).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void shouldRejectInvalidNodeId() {
+        assertThatThrownBy(() -> new SnowflakeIdGenerator(-1)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new SnowflakeIdGenerator(SnowflakeIdGenerator.MAX_NODE_ID + 1))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void shouldGenerateUniqueIdsAcrossThreads() throws InterruptedException {
+        SnowflakeIdGenerator generator = new SnowflakeIdGenerator(3);
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            threads.add(Thread.ofPlatform().start(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    ids.add(generator.nextLongId());
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertThat(ids).hasSize(80_000);
+    }
+
+    @Test
+    void shouldContinueAfterResumedIdFromEarlierRun() {
+        SnowflakeIdGenerator earlierRun = new SnowflakeIdGenerator(1, () -> NOW_MILLIS);
+        long last = 0;
+        for (int i = 0; i < 5000; i++) {
+            last = earlierRun.nextLongId();
+        }
+
+        SnowflakeIdGenerator restarted = new SnowflakeIdGenerator(1, () -> NOW_MILLIS);
+        restarted.resumeAfter(last);
+
+        assertThat(restarted.nextLongId()).isGreaterThan(last);
+    }
+}
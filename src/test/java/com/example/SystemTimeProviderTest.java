@@ -0,0 +1,78 @@
+package com.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+import static org.assertj.core.api.Assertions.*;
+
+class SystemTimeProviderTest {
+
+    @Test
+    void shouldFollowDaylightSavingTransitions() {
+        // Sommartid börjar 2030-03-31 01:00 UTC i Stockholm
+        MutableClock clock = new MutableClock(Instant.parse("2030-03-31T00:59:59Z"), ZoneId.of("Europe/Stockholm"));
+        SystemTimeProvider timeProvider = new SystemTimeProvider(clock);
+
+        assertThat(timeProvider.getCurrentEpochNanos())
+                .isEqualTo(EpochTime.toEpochNanos(LocalDateTime.parse("2030-03-31T01:59:59")));
+
+        clock.instant = Instant.parse("2030-03-31T01:00:00Z");
+        assertThat(timeProvider.getCurrentEpochNanos())
+                .isEqualTo(EpochTime.toEpochNanos(LocalDateTime.parse("2030-03-31T03:00:00")));
+
+        // Sommartiden slutar 2030-10-27 01:00 UTC
+        clock.instant = Instant.parse("2030-10-27T01:00:00Z");
+        assertThat(timeProvider.getCurrentEpochNanos())
+                .isEqualTo(EpochTime.toEpochNanos(LocalDateTime.parse("2030-10-27T02:00:00")));
+    }
+
+    @Test
+    void shouldLookUpOffsetAgainWhenClockMovesBackwards() {
+        MutableClock clock = new MutableClock(Instant.parse("2030-07-01T12:00:00Z"), ZoneId.of("Europe/Stockholm"));
+        SystemTimeProvider timeProvider = new SystemTimeProvider(clock);
+
+        clock.instant = Instant.parse("2030-01-01T12:00:00Z");
+
+        assertThat(timeProvider.getCurrentEpochNanos())
+                .isEqualTo(EpochTime.toEpochNanos(LocalDateTime.parse("2030-01-01T13:00:00")));
+    }
+
+    @Test
+    void shouldMatchCurrentTimeForFixedOffset() {
+        MutableClock clock = new MutableClock(Instant.parse("2030-07-01T12:00:00Z"), ZoneOffset.ofHours(-5));
+        SystemTimeProvider timeProvider = new SystemTimeProvider(clock);
+
+        assertThat(timeProvider.getCurrentEpochNanos())
+                .isEqualTo(EpochTime.toEpochNanos(timeProvider.getCurrentTime()));
+    }
+
+    private static class MutableClock extends Clock {
+        private final ZoneId zone;
+        private Instant instant;
+
+        MutableClock(Instant instant, ZoneId zone) {
+            this.instant = instant;
+            this.zone = zone;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return zone;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return new MutableClock(instant, zone);
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
@@ -0,0 +1,189 @@
+package com.example.async;
+
+import com.example.Booking;
+import com.example.BookingResult;
+import com.example.BookingSystem;
+import com.example.InMemoryRoomRepository;
+import com.example.NotificationException;
+import com.example.NotificationService;
+import com.example.Room;
+import com.example.RoomRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class AsyncBookingSystemTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2030, 1, 1, 8, 0);
+
+    private InMemoryRoomRepository syncRepository;
+    private NotificationService syncNotifications;
+    private AsyncBookingSystem bookingSystem;
+
+    @BeforeEach
+    void setUp() {
+        syncRepository = new InMemoryRoomRepository();
+        syncRepository.save(new Room("room1", "Rum 1"));
+        syncRepository.save(new Room("room2", "Rum 2"));
+        syncNotifications = mock(NotificationService.class);
+        bookingSystem = new AsyncBookingSystem(new BookingSystem(() -> NOW, syncRepository, syncNotifications));
+    }
+
+    private static <T> T await(CompletionStage<T> stage) throws Exception {
+        return stage.toCompletableFuture().get(5, TimeUnit.SECONDS);
+    }
+
+    private String onlyBookingId(String roomId) {
+        return syncRepository.findById(roomId).orElseThrow().getBookings().iterator().next().getId();
+    }
+
+    @Test
+    void shouldBookAndNotify() throws Exception {
+        assertThat(await(bookingSystem.bookRoom("room1", NOW.plusHours(1), NOW.plusHours(2)))).isTrue();
+
+        assertThat(syncRepository.findById("room1").orElseThrow().getBookings()).hasSize(1);
+        verify(syncNotifications, timeout(5_000)).sendBookingConfirmation(any(Booking.class));
+    }
+
+    @Test
+    void shouldRejectOverlappingBooking() throws Exception {
+        await(bookingSystem.bookRoom("room1", NOW.plusHours(1), NOW.plusHours(2)));
+
+        assertThat(await(bookingSystem.bookRoom("room1", NOW.plusMinutes(90), NOW.plusHours(3)))).isFalse();
+    }
+
+    @Test
+    void shouldBookEvenIfNotificationFails() throws Exception {
+        doThrow(new NotificationException("fel")).when(syncNotifications).sendBookingConfirmation(any());
+
+        assertThat(await(bookingSystem.bookRoom("room1", NOW.plusHours(1), NOW.plusHours(2)))).isTrue();
+    }
+
+    @Test
+    void shouldFailStageForInvalidInput() {
+        assertThatThrownBy(() -> await(bookingSystem.bookRoom("room1", NOW.minusHours(1), NOW.plusHours(1))))
+                .isInstanceOf(ExecutionException.class).hasCauseInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> await(bookingSystem.bookRoom("okänt", NOW.plusHours(1), NOW.plusHours(2))))
+                .isInstanceOf(ExecutionException.class).hasCauseInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> await(bookingSystem.getAvailableRooms(NOW.plusHours(2), NOW.plusHours(1))))
+                .isInstanceOf(ExecutionException.class).hasCauseInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void shouldFailStageWithSameExceptionAsSynchronousApi() {
+        Throwable failure = bookingSystem.bookRoom("okänt", NOW.plusHours(1), NOW.plusHours(2))
+                .handle((booked, e) -> e)
+                .toCompletableFuture().join();
+
+        assertThat(failure).isInstanceOf(IllegalArgumentException.class).hasMessage("Rummet existerar inte");
+    }
+
+    @Test
+    void shouldCancelBookingAndNotify() throws Exception {
+        await(bookingSystem.bookRoom("room1", NOW.plusHours(1), NOW.plusHours(2)));
+        String bookingId = onlyBookingId("room1");
+
+        assertThat(await(bookingSystem.cancelBooking(bookingId))).isTrue();
+        assertThat(await(bookingSystem.cancelBooking(bookingId))).isFalse();
+        assertThat(syncRepository.findById("room1").orElseThrow().getBookings()).isEmpty();
+        verify(syncNotifications, timeout(5_000)).sendCancellationConfirmation(any(Booking.class));
+    }
+
+    @Test
+    void shouldNotCancelStartedBooking() {
+        Room room = syncRepository.findById("room1").orElseThrow();
+        room.addBooking(new Booking("started", "room1", NOW.minusHours(1), NOW.plusHours(1)));
+
+        assertThatThrownBy(() -> await(bookingSystem.cancelBooking("started")))
+                .isInstanceOf(ExecutionException.class).hasCauseInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void shouldListAvailableRooms() throws Exception {
+        await(bookingSystem.bookRoom("room1", NOW.plusHours(1), NOW.plusHours(2)));
+
+        assertThat(await(bookingSystem.getAvailableRooms(NOW.plusHours(1), NOW.plusHours(2))))
+                .extracting(Room::getId).containsExactly("room2");
+    }
+
+    @Test
+    void concurrentBookingsOfSameSlotShouldOnlySucceedOnce() throws Exception {
+        List<CompletableFuture<Boolean>> attempts = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            attempts.add(bookingSystem.bookRoom("room1", NOW.plusHours(1), NOW.plusHours(2)).toCompletableFuture());
+        }
+
+        long booked = 0;
+        for (CompletableFuture<Boolean> attempt : attempts) {
+            if (await(attempt)) {
+                booked++;
+            }
+        }
+        assertThat(booked).isEqualTo(1);
+        assertThat(syncRepository.findById("room1").orElseThrow().getBookings()).hasSize(1);
+    }
+
+    @Test
+    void shouldNotBlockCallerWhileRepositoryIsPending() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        RoomRepository slowRepository = spy(syncRepository);
+        doAnswer(invocation -> {
+            release.await();
+            return invocation.callRealMethod();
+        }).when(slowRepository).findById("room1");
+        AsyncBookingSystem system = new AsyncBookingSystem(new BookingSystem(() -> NOW, slowRepository, syncNotifications));
+
+        CompletableFuture<Boolean> first = system.bookRoom("room1", NOW.plusHours(1), NOW.plusHours(2)).toCompletableFuture();
+        CompletableFuture<Boolean> second = system.bookRoom("room1", NOW.plusHours(1), NOW.plusHours(2)).toCompletableFuture();
+
+        assertThat(first).isNotDone();
+        assertThat(second).isNotDone();
+        // Andra operationen på rummet väntar på rummets lås tills den första är klar
+        verify(slowRepository, timeout(5_000)).findById("room1");
+        verify(slowRepository, after(100).times(1)).findById("room1");
+
+        release.countDown();
+
+        assertThat(List.of(await(first), await(second))).containsExactlyInAnyOrder(true, false);
+    }
+
+    @Test
+    void shouldShareStateWithSynchronousBookingSystem() throws Exception {
+        BookingSystem core = new BookingSystem(() -> NOW, syncRepository, syncNotifications);
+        AsyncBookingSystem system = new AsyncBookingSystem(core);
+
+        BookingResult first = await(system.bookRoom("key-1", "room1", NOW.plusHours(1), NOW.plusHours(2)));
+        BookingResult retried = core.bookRoom("key-1", "room1", NOW.plusHours(1), NOW.plusHours(2));
+
+        assertThat(first.isBooked()).isTrue();
+        assertThat(retried.getBooking()).isEqualTo(first.getBooking());
+        assertThat(core.bookRoom("room1", NOW.plusMinutes(90), NOW.plusHours(3))).isFalse();
+        assertThat(await(system.cancelBooking(first.getBooking().orElseThrow().getId()))).isTrue();
+        assertThat(core.bookRoom("room1", NOW.plusMinutes(90), NOW.plusHours(3))).isTrue();
+    }
+
+    @Test
+    void shouldRollBackRoomWhenSaveFails() {
+        Room room = new Room("room1", "Rum 1");
+        RoomRepository failingRepository = mock(RoomRepository.class);
+        when(failingRepository.findById("room1")).thenReturn(Optional.of(room));
+        doThrow(new IllegalStateException("nere")).when(failingRepository).save(any());
+        AsyncBookingSystem system = new AsyncBookingSystem(new BookingSystem(() -> NOW, failingRepository, syncNotifications));
+
+        assertThatThrownBy(() -> await(system.bookRoom("room1", NOW.plusHours(1), NOW.plusHours(2))))
+                .isInstanceOf(ExecutionException.class).hasCauseInstanceOf(IllegalStateException.class);
+        assertThat(room.getBookings()).isEmpty();
+    }
+}
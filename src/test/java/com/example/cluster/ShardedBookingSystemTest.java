@@ -0,0 +1,155 @@
+package com.example.cluster;
+
+import com.example.Booking;
+import com.example.NotificationService;
+import com.example.Room;
+import com.example.SnowflakeIdGenerator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.OptionalInt;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ShardedBookingSystemTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2030, 1, 1, 8, 0);
+    private static final int NODES = 3;
+    private static final int ROOMS = 30;
+
+    private LocalCluster cluster;
+    private ShardedBookingSystem router;
+
+    @BeforeEach
+    void setUp() {
+        cluster = new LocalCluster(NODES, () -> NOW, mock(NotificationService.class));
+        for (int i = 0; i < ROOMS; i++) {
+            cluster.addRoom(new Room("room" + i, "Rum " + i));
+        }
+        router = cluster.getRouter();
+    }
+
+    @AfterEach
+    void tearDown() {
+        cluster.close();
+    }
+
+    private Booking onlyBookingIn(String roomId) {
+        int shard = router.shardForRoom(roomId);
+        return cluster.getRepository(shard).findById(roomId).orElseThrow().getBookings().iterator().next();
+    }
+
+    @Test
+    void shouldSpreadRoomsOverAllShards() {
+        for (int shard = 0; shard < NODES; shard++) {
+            assertThat(cluster.getRepository(shard).findAll()).isNotEmpty();
+        }
+        int total = IntStream.range(0, NODES).map(shard -> cluster.getRepository(shard).findAll().size()).sum();
+        assertThat(total).isEqualTo(ROOMS);
+    }
+
+    @Test
+    void shouldBookOnOwningShard() {
+        assertThat(router.bookRoom("room7", NOW.plusHours(1), NOW.plusHours(2))).isTrue();
+        assertThat(router.bookRoom("room7", NOW.plusHours(1), NOW.plusHours(2))).isFalse();
+
+        Booking booking = onlyBookingIn("room7");
+        assertThat(Sharding.shardOf(booking.getId())).hasValue(router.shardForRoom("room7"));
+    }
+
+    @Test
+    void shouldCancelOnlyOnOwningShard() {
+        router.bookRoom("room7", NOW.plusHours(1), NOW.plusHours(2));
+        String bookingId = onlyBookingIn("room7").getId();
+        int owner = router.shardForRoom("room7");
+        // Övriga noder är nere, avbokningen får ändå inte fråga dem
+        for (int shard = 0; shard < NODES; shard++) {
+            if (shard != owner) {
+                cluster.getNode(shard).disconnect();
+            }
+        }
+
+        assertThat(router.cancelBooking(bookingId)).isTrue();
+        assertThat(router.bookRoom("room7", NOW.plusHours(1), NOW.plusHours(2))).isTrue();
+    }
+
+    @Test
+    void shouldNotCancelIdWithoutKnownShard() {
+        assertThat(router.cancelBooking("okänd")).isFalse();
+        // Giltigt id men från en nod som inte finns i klustret
+        assertThat(router.cancelBooking(Sharding.idGenerator(99).nextId())).isFalse();
+        assertThat(router.findBooking("okänd")).isEmpty();
+    }
+
+    @Test
+    void shouldAskAllShardsForIdsWithoutValidShard() {
+        String roomId = IntStream.range(0, ROOMS).mapToObj(i -> "room" + i)
+                .filter(id -> router.shardForRoom(id) != 0).findFirst().orElseThrow();
+        Room room = cluster.getRepository(router.shardForRoom(roomId)).findById(roomId).orElseThrow();
+        // Ett UUID och ett Snowflake-id från nod 0 som skapades innan rummet flyttades till en annan shard
+        String uuid = "0b0c2f0e-6f0a-4d8e-9d51-0c8f4d1e2a33";
+        String preSharding = Sharding.idGenerator(0).nextId();
+        room.addBooking(new Booking(uuid, roomId, NOW.plusHours(1), NOW.plusHours(2)));
+        room.addBooking(new Booking(preSharding, roomId, NOW.plusHours(3), NOW.plusHours(4)));
+        cluster.getRepository(router.shardForRoom(roomId)).save(room);
+
+        assertThat(router.findBooking(uuid)).get().extracting(Booking::getRoomId).isEqualTo(roomId);
+        assertThat(router.cancelBooking(uuid)).isTrue();
+        assertThat(router.cancelBooking(preSharding)).isTrue();
+        assertThat(router.cancelBooking(uuid)).isFalse();
+        assertThat(router.bookRoom(roomId, NOW.plusHours(1), NOW.plusHours(4))).isTrue();
+    }
+
+    @Test
+    void shouldFindBookingThroughOwningShard() {
+        router.bookRoom("room3", NOW.plusHours(1), NOW.plusHours(2));
+        String bookingId = onlyBookingIn("room3").getId();
+
+        assertThat(router.findBooking(bookingId)).get().extracting(Booking::getRoomId).isEqualTo("room3");
+    }
+
+    @Test
+    void shouldGatherAvailableRoomsFromAllShards() {
+        router.bookRoom("room1", NOW.plusHours(1), NOW.plusHours(2));
+        router.bookRoom("room2", NOW.plusHours(1), NOW.plusHours(2));
+
+        List<Room> available = router.getAvailableRooms(NOW.plusHours(1), NOW.plusHours(2));
+
+        assertThat(available).hasSize(ROOMS - 2);
+        assertThat(available).extracting(Room::getId).doesNotContain("room1", "room2").isSorted();
+    }
+
+    @Test
+    void shouldPropagateValidationErrorFromShards() {
+        assertThatThrownBy(() -> router.getAvailableRooms(NOW.plusHours(2), NOW.plusHours(1)))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> router.bookRoom(null, NOW.plusHours(1), NOW.plusHours(2)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void shouldFailScatterWhenShardIsUnavailable() {
+        cluster.getNode(1).disconnect();
+
+        assertThatThrownBy(() -> router.getAvailableRooms(NOW.plusHours(1), NOW.plusHours(2)))
+                .isInstanceOf(ShardUnavailableException.class);
+
+        cluster.getNode(1).reconnect();
+        assertThat(router.getAvailableRooms(NOW.plusHours(1), NOW.plusHours(2))).hasSize(ROOMS);
+    }
+
+    @Test
+    void shouldReadShardFromBookingId() {
+        String bookingId = Sharding.idGenerator(12).nextId();
+
+        assertThat(Sharding.shardOf(bookingId)).hasValue(12);
+        assertThat(SnowflakeIdGenerator.nodeOf(SnowflakeIdGenerator.decode(bookingId))).isEqualTo(12);
+        assertThat(Sharding.shardOf("abc")).isEqualTo(OptionalInt.empty());
+        assertThat(Sharding.shardOf("12:abc")).isEmpty();
+    }
+}
@@ -0,0 +1,319 @@
+package com.example.journal;
+
+import com.example.Booking;
+import com.example.BookingIdGenerator;
+import com.example.BookingRequest;
+import com.example.BookingSystem;
+import com.example.BulkBookingMode;
+import com.example.InMemoryRoomRepository;
+import com.example.NotificationService;
+import com.example.RecurrenceRule;
+import com.example.Room;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class BookingProjectionTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2030, 1, 1, 8, 0);
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+
+    private final AtomicInteger nextId = new AtomicInteger();
+    private InMemoryRoomRepository roomRepository;
+    private BookingJournal journal;
+    private BookingProjector projector;
+    private BookingSystem bookingSystem;
+
+    @BeforeEach
+    void setUp() {
+        roomRepository = new InMemoryRoomRepository();
+        roomRepository.save(new Room("room1", "Rum 1"));
+        roomRepository.save(new Room("room2", "Rum 2"));
+        journal = new BookingJournal();
+        projector = new BookingProjector(journal);
+        BookingIdGenerator ids = () -> "b" + nextId.incrementAndGet();
+        bookingSystem = BookingSystem.builder(() -> NOW, roomRepository, mock(NotificationService.class))
+                .idGenerator(ids)
+                .journal(journal)
+                .build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        projector.close();
+    }
+
+    private BookingReadModel caughtUp() throws InterruptedException {
+        assertThat(projector.awaitSequence(journal.getLastSequence(), TIMEOUT)).isTrue();
+        return projector.snapshot();
+    }
+
+    private BookingSystem bookingSystemWithUnreadJournal(BookingJournal unread) {
+        return BookingSystem.builder(() -> NOW, roomRepository, mock(NotificationService.class))
+                .idGenerator(() -> "b" + nextId.incrementAndGet())
+                .journal(unread)
+                .build();
+    }
+
+    @Test
+    void shouldAppendEventsForBookingsAndCancellations() {
+        BookingJournal unread = new BookingJournal();
+        BookingSystem system = bookingSystemWithUnreadJournal(unread);
+        system.bookRoom("room1", NOW.plusHours(1), NOW.plusHours(2));
+        system.bookRoom("room1", NOW.plusHours(1), NOW.plusHours(2));
+        system.cancelBooking("b1");
+
+        List<BookingEvent> events = unread.readAfter(0, 10);
+
+        assertThat(events).extracting(BookingEvent::getSequence).containsExactly(1L, 2L);
+        assertThat(events.get(0)).isInstanceOfSatisfying(BookingCreated.class,
+                created -> assertThat(created.getBooking().getId()).isEqualTo("b1"));
+        assertThat(events.get(1)).isInstanceOfSatisfying(BookingCancelled.class,
+                cancelled -> assertThat(cancelled.getBooking().getId()).isEqualTo("b1"));
+    }
+
+    @Test
+    void shouldAppendEventsForSeriesAndArchival() {
+        BookingJournal unread = new BookingJournal();
+        BookingSystem system = bookingSystemWithUnreadJournal(unread);
+        system.bookRecurring("room1", NOW.plusHours(1), NOW.plusHours(2), new RecurrenceRule(RecurrenceRule.Frequency.DAILY, 1, 3));
+        system.cancelOccurrence("b1", NOW.plusDays(1).plusHours(1));
+
+        assertThat(unread.readAfter(0, 10)).extracting(event -> event.getClass().getSimpleName())
+                .containsExactly("SeriesCreated", "SeriesChanged");
+    }
+
+    @Test
+    void shouldProjectScheduleAndLookup() throws InterruptedException {
+        bookingSystem.bookRoom("room1", NOW.plusHours(3), NOW.plusHours(4));
+        bookingSystem.bookRoom("room1", NOW.plusHours(1), NOW.plusHours(2));
+
+        BookingReadModel model = caughtUp();
+
+        assertThat(model.getSchedule("room1").getBookings()).extracting(Booking::getId).containsExactly("b2", "b1");
+        assertThat(model.isAvailable("room1", NOW.plusMinutes(90), NOW.plusMinutes(100))).isFalse();
+        assertThat(model.isAvailable("room1", NOW.plusMinutes(150), NOW.plusMinutes(170))).isTrue();
+        assertThat(model.isAvailable("room2", NOW.plusMinutes(90), NOW.plusMinutes(100))).isTrue();
+        assertThat(model.findBooking("b1")).get().extracting(Booking::getRoomId).isEqualTo("room1");
+        assertThat(model.findBooking("okänd")).isEmpty();
+    }
+
+    @Test
+    void shouldRemoveCancelledBookingFromReadModels() throws InterruptedException {
+        bookingSystem.bookRoom("room1", NOW.plusHours(1), NOW.plusHours(2));
+        bookingSystem.cancelBooking("b1");
+
+        BookingReadModel model = caughtUp();
+
+        assertThat(model.getSchedule("room1").getBookings()).isEmpty();
+        assertThat(model.findBooking("b1")).isEmpty();
+        assertThat(model.getOccupancy(NOW.toLocalDate())).isEmpty();
+    }
+
+    @Test
+    void shouldSplitOccupancyOverDays() throws InterruptedException {
+        bookingSystem.bookRoom("room1", NOW.plusHours(1), NOW.plusHours(2));
+        bookingSystem.bookRoom("room2", NOW.withHour(22), NOW.withHour(22).plusHours(4));
+
+        BookingReadModel model = caughtUp();
+
+        LocalDate today = NOW.toLocalDate();
+        assertThat(model.getOccupancy(today))
+                .containsEntry("room1", Duration.ofHours(1))
+                .containsEntry("room2", Duration.ofHours(2));
+        assertThat(model.getOccupancy(today.plusDays(1))).containsOnly(entry("room2", Duration.ofHours(2)));
+    }
+
+    @Test
+    void olderSnapshotShouldStayUnchanged() throws InterruptedException {
+        bookingSystem.bookRoom("room1", NOW.plusHours(1), NOW.plusHours(2));
+        BookingReadModel before = caughtUp();
+
+        bookingSystem.bookRoom("room1", NOW.plusHours(3), NOW.plusHours(4));
+        BookingReadModel after = caughtUp();
+
+        assertThat(before.getSequence()).isEqualTo(1);
+        assertThat(before.getSchedule("room1").size()).isEqualTo(1);
+        assertThat(before.isAvailable("room1", NOW.plusHours(3), NOW.plusHours(4))).isTrue();
+        assertThat(after.getSequence()).isEqualTo(2);
+        assertThat(after.getSchedule("room1").size()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldProjectBulkBookings() throws InterruptedException {
+        bookingSystem.bookRooms(List.of(
+                new BookingRequest("room1", NOW.plusHours(1), NOW.plusHours(2)),
+                new BookingRequest("room2", NOW.plusHours(1), NOW.plusHours(2))),
+                BulkBookingMode.ATOMIC);
+
+        BookingReadModel model = caughtUp();
+
+        assertThat(model.getSequence()).isEqualTo(2);
+        assertThat(model.isAvailable("room1", NOW.plusHours(1), NOW.plusHours(2))).isFalse();
+        assertThat(model.isAvailable("room2", NOW.plusHours(1), NOW.plusHours(2))).isFalse();
+    }
+
+    @Test
+    void shouldReadJournalInBatches() {
+        BookingJournal journal = new BookingJournal();
+        for (int i = 0; i < 5; i++) {
+            journal.appendCreated(new Booking("x" + i, "room1", NOW.plusHours(i), NOW.plusHours(i).plusMinutes(30)));
+        }
+
+        assertThat(journal.readAfter(1, 2)).extracting(BookingEvent::getSequence).containsExactly(2L, 3L);
+        assertThat(journal.readAfter(5, 2)).isEmpty();
+        assertThatThrownBy(() -> journal.readAfter(-1, 2)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void shouldRejectInvalidQuery() {
+        BookingReadModel model = projector.snapshot();
+
+        assertThatThrownBy(() -> model.isAvailable("room1", NOW.plusHours(2), NOW.plusHours(1)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void olderSnapshotShouldStillFindBookingCancelledLater() throws InterruptedException {
+        bookingSystem.bookRoom("room1", NOW.plusHours(1), NOW.plusHours(2));
+        BookingReadModel before = caughtUp();
+
+        bookingSystem.cancelBooking("b1");
+        BookingReadModel after = caughtUp();
+
+        assertThat(before.findBooking("b1")).isPresent();
+        assertThat(after.findBooking("b1")).isEmpty();
+    }
+
+    @Test
+    void shouldProjectSeriesAsBusy() throws InterruptedException {
+        bookingSystem.bookRecurring("room1", NOW.plusHours(1), NOW.plusHours(2),
+                new RecurrenceRule(RecurrenceRule.Frequency.DAILY, 1, 3));
+        bookingSystem.cancelOccurrence("b1", NOW.plusDays(1).plusHours(1));
+
+        BookingReadModel model = caughtUp();
+
+        assertThat(model.isAvailable("room1", NOW.plusDays(2).plusMinutes(90), NOW.plusDays(2).plusMinutes(100))).isFalse();
+        assertThat(model.isAvailable("room1", NOW.plusDays(1).plusMinutes(90), NOW.plusDays(1).plusMinutes(100))).isTrue();
+        assertThat(model.getOccupancy(NOW.toLocalDate())).containsOnly(entry("room1", Duration.ofHours(1)));
+        assertThat(model.getOccupancy(NOW.toLocalDate().plusDays(1))).isEmpty();
+        assertThat(model.getOccupancy(NOW.toLocalDate().plusDays(3))).isEmpty();
+    }
+
+    @Test
+    void shouldDropArchivedBookingFromScheduleButKeepOccupancy() throws InterruptedException {
+        Booking booking = new Booking("a1", "room1", NOW.plusHours(1), NOW.plusHours(2));
+        journal.appendCreated(booking);
+        journal.appendArchived(booking);
+
+        BookingReadModel model = caughtUp();
+
+        assertThat(model.getSchedule("room1").getBookings()).isEmpty();
+        assertThat(model.findBooking("a1")).isEmpty();
+        assertThat(model.getOccupancy(NOW.toLocalDate())).containsOnly(entry("room1", Duration.ofHours(1)));
+    }
+
+    @Test
+    void shouldKeepScheduleSortedWhenBookingsArriveOneByOne() throws InterruptedException {
+        bookingSystem.bookRoom("room1", NOW.plusHours(1), NOW.plusHours(10));
+        caughtUp();
+        bookingSystem.bookRoom("room1", NOW.plusHours(12), NOW.plusHours(13));
+        caughtUp();
+        bookingSystem.bookRoom("room1", NOW.plusMinutes(30), NOW.plusMinutes(45));
+        caughtUp();
+        bookingSystem.cancelBooking("b1");
+
+        BookingReadModel model = caughtUp();
+
+        assertThat(model.getSchedule("room1").getBookings()).extracting(Booking::getId).containsExactly("b3", "b2");
+        assertThat(model.isAvailable("room1", NOW.plusHours(5), NOW.plusHours(6))).isTrue();
+        assertThat(model.isAvailable("room1", NOW.plusMinutes(40), NOW.plusMinutes(50))).isFalse();
+        assertThat(model.isAvailable("room1", NOW.plusHours(12), NOW.plusHours(13))).isFalse();
+    }
+
+    @Test
+    void shouldSortLargeBatchForOneRoom() {
+        BookingReadModel model = BookingReadModel.empty();
+        BookingJournal unread = new BookingJournal();
+        for (int i = 100; i > 0; i--) {
+            unread.appendCreated(new Booking("x" + i, "room1", NOW.plusHours(i), NOW.plusHours(i).plusMinutes(30)));
+        }
+        unread.appendCancelled(new Booking("x50", "room1", NOW.plusHours(50), NOW.plusHours(50).plusMinutes(30)));
+
+        model = model.apply(unread.readAfter(0, 1_000), LocalDate.MIN);
+
+        assertThat(model.getSchedule("room1").size()).isEqualTo(99);
+        assertThat(model.getSchedule("room1").getBookings()).extracting(Booking::getStartEpochNanos).isSorted();
+        assertThat(model.isAvailable("room1", NOW.plusHours(50), NOW.plusHours(50).plusMinutes(30))).isTrue();
+        assertThat(model.findBooking("x50")).isEmpty();
+    }
+
+    @Test
+    void untouchedRoomsShouldBeSharedWithOlderSnapshot() throws InterruptedException {
+        bookingSystem.bookRoom("room1", NOW.plusHours(1), NOW.plusHours(2));
+        bookingSystem.bookRoom("room2", NOW.plusHours(1), NOW.plusHours(2));
+        BookingReadModel before = caughtUp();
+
+        bookingSystem.bookRoom("room1", NOW.plusHours(3), NOW.plusHours(4));
+        BookingReadModel after = caughtUp();
+
+        assertThat(after.getSchedule("room2")).isSameAs(before.getSchedule("room2"));
+        assertThat(after.getSchedule("room1")).isNotSameAs(before.getSchedule("room1"));
+    }
+
+    @Test
+    void shouldDropOccupancyOlderThanRetention() throws InterruptedException {
+        AtomicReference<LocalDateTime> now = new AtomicReference<>(NOW);
+        BookingJournal retained = new BookingJournal();
+        try (BookingProjector retaining = new BookingProjector(retained, 1_000, true, now::get, Duration.ofDays(7))) {
+            retained.appendCreated(new Booking("r1", "room1", NOW.plusHours(1), NOW.plusHours(2)));
+            assertThat(retaining.awaitSequence(1, TIMEOUT)).isTrue();
+            assertThat(retaining.snapshot().getOccupancy(NOW.toLocalDate())).containsOnly(entry("room1", Duration.ofHours(1)));
+
+            now.set(NOW.plusDays(10));
+            retained.appendCreated(new Booking("r2", "room1", NOW.plusDays(10), NOW.plusDays(10).plusHours(1)));
+            retained.appendCreated(new Booking("r3", "room2", NOW.minusDays(1), NOW.plusHours(1)));
+            assertThat(retaining.awaitSequence(3, TIMEOUT)).isTrue();
+
+            BookingReadModel model = retaining.snapshot();
+            assertThat(model.getFirstRetainedDay()).isEqualTo(NOW.toLocalDate().plusDays(3));
+            assertThat(model.getOccupancy(NOW.toLocalDate())).isEmpty();
+            assertThat(model.getOccupancy(NOW.toLocalDate().plusDays(10))).containsOnly(entry("room1", Duration.ofHours(1)));
+            assertThat(model.findBooking("r1")).isPresent();
+        }
+    }
+
+    @Test
+    void shouldTruncateJournalUpToProjectedSequence() throws InterruptedException {
+        bookingSystem.bookRoom("room1", NOW.plusHours(1), NOW.plusHours(2));
+        bookingSystem.bookRoom("room2", NOW.plusHours(1), NOW.plusHours(2));
+
+        caughtUp();
+
+        assertThat(journal.getFirstRetainedSequence()).isEqualTo(3);
+        assertThat(journal.readAfter(2, 10)).isEmpty();
+        assertThatThrownBy(() -> journal.readAfter(0, 10)).isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void shouldSurfaceProjectionFailure() throws InterruptedException {
+        Booking broken = mock(Booking.class);
+        when(broken.getRoomId()).thenThrow(new IllegalStateException("trasig"));
+        journal.appendCreated(broken);
+
+        assertThatThrownBy(() -> projector.awaitSequence(1, TIMEOUT))
+                .isInstanceOf(IllegalStateException.class)
+                .hasRootCauseMessage("trasig");
+        assertThat(projector.getFailure()).isPresent();
+    }
+}
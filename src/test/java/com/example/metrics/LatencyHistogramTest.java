@@ -0,0 +1,51 @@
+package com.example.metrics;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import static org.assertj.core.api.Assertions.*;
+
+class LatencyHistogramTest {
+
+    @ParameterizedTest
+    @CsvSource({
+            "0",
+            "63",
+            "64",
+            "1000",
+            "123456789",
+            "9223372036854775807"
+    })
+    void shouldPlaceValueInBucketWithinThreePercent(long value) {
+        long highest = LatencyHistogram.highestValueIn(LatencyHistogram.indexOf(value));
+
+        assertThat(highest).isGreaterThanOrEqualTo(value);
+        assertThat((double) (highest - value)).isLessThanOrEqualTo(value / 32.0);
+    }
+
+    @Test
+    void shouldReportPercentilesCountAndMax() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long i = 1; i <= 10_000; i++) {
+            histogram.record(i * 1_000);
+        }
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+
+        assertThat(snapshot.getCount()).isEqualTo(10_000);
+        assertThat(snapshot.getMax()).isEqualTo(10_000_000);
+        assertThat(snapshot.getMean()).isEqualTo(5_000_500.0);
+        assertThat(snapshot.getValueAtPercentile(50)).isCloseTo(5_000_000, withinPercentage(3));
+        assertThat(snapshot.getValueAtPercentile(99)).isCloseTo(9_900_000, withinPercentage(3));
+        assertThat(snapshot.getValueAtPercentile(100)).isEqualTo(10_000_000);
+    }
+
+    @Test
+    void shouldReturnZeroForEmptyHistogram() {
+        LatencyHistogram.Snapshot snapshot = new LatencyHistogram().snapshot();
+
+        assertThat(snapshot.getCount()).isZero();
+        assertThat(snapshot.getValueAtPercentile(99)).isZero();
+    }
+}
@@ -0,0 +1,169 @@
+package com.example.shoppingcart;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CartStoreTest {
+
+    @Test
+    void shouldBehaveLikeShoppingCart() {
+        CartStore store = new CartStore();
+        Cart cart = store.cart(store.createCart());
+
+        cart.addItem("Headphones", 300.00, 1);
+        cart.addItem("Headphones", 300.00, 2);
+        cart.addItem("Microphone", 500.00, 1);
+        cart.applyDiscount(10);
+
+        assertEquals(2, cart.getItemsCount());
+        assertEquals(3, cart.getItemQuantity("Headphones"));
+        assertEquals(30000, cart.getItemPriceInMinorUnits("Headphones"));
+        assertEquals(1260.00, cart.getTotalPrice());
+    }
+
+    @Test
+    void shouldKeepCartsSeparate() {
+        CartStore store = new CartStore(1, 1);
+        Cart first = store.cart(store.createCart());
+        Cart second = store.cart(store.createCart());
+
+        first.addItem("Headphones", 300.00, 1);
+        second.addItem("Microphone", 500.00, 2);
+        second.addItem("Headphones", 250.00, 1);
+
+        assertTrue(first.containsItem("Headphones"));
+        assertFalse(first.containsItem("Microphone"));
+        assertEquals(300.00, first.getTotalPrice());
+        assertEquals(1250.00, second.getTotalPrice());
+        assertEquals(3, store.getLineCount());
+    }
+
+    @Test
+    void shouldUnlinkDeletedLinesFromAnyPosition() {
+        CartStore store = new CartStore();
+        Cart cart = store.cart(store.createCart());
+        cart.addItem("A", 1.00, 1);
+        cart.addItem("B", 2.00, 1);
+        cart.addItem("C", 3.00, 1);
+
+        cart.deleteItem("B");
+        cart.deleteItem("C");
+        cart.deleteItem("Unknown");
+
+        assertEquals(1, cart.getItemsCount());
+        assertTrue(cart.containsItem("A"));
+        assertEquals(100, cart.getSubtotalInMinorUnits());
+        assertEquals(1, store.getLineCount());
+    }
+
+    @Test
+    void shouldReuseSlotsOfRemovedCarts() {
+        CartStore store = new CartStore(1, 1);
+        long cartId = store.createCart();
+        store.cart(cartId).addItem("Headphones", 300.00, 1);
+        store.cart(cartId).addItem("Microphone", 500.00, 1);
+
+        store.removeCart(cartId);
+        long reused = store.createCart();
+        store.cart(reused).addItem("Cable", 10.00, 1);
+
+        // Same slot, new generation
+        assertEquals((int) cartId, (int) reused);
+        assertNotEquals(cartId, reused);
+        assertEquals(1, store.getCartCount());
+        assertEquals(1, store.getLineCount());
+        assertEquals(10.00, store.cart(reused).getTotalPrice());
+        assertFalse(store.cart(reused).containsItem("Headphones"));
+    }
+
+    @Test
+    void shouldRejectRemovedOrUnknownCart() {
+        CartStore store = new CartStore();
+        long cartId = store.createCart();
+        Cart cart = store.cart(cartId);
+        store.removeCart(cartId);
+
+        assertThrows(IllegalArgumentException.class, () -> cart.addItem("Headphones", 300.00, 1));
+        assertThrows(IllegalArgumentException.class, () -> store.cart(cartId));
+        assertThrows(IllegalArgumentException.class, () -> store.cart(42));
+    }
+
+    @Test
+    void shouldGrowColumnsForManyCarts() {
+        CartStore store = new CartStore(1, 1);
+        for (int i = 0; i < 10_000; i++) {
+            Cart cart = store.cart(store.createCart());
+            cart.addItem("Item" + (i % 100), 1.00, 1 + i % 5);
+            cart.addItem("Item" + ((i + 1) % 100), 2.00, 1);
+        }
+
+        assertEquals(10_000, store.getCartCount());
+        assertEquals(20_000, store.getLineCount());
+        assertEquals(5 * 100 + 200, store.cart(9_999).getSubtotalInMinorUnits());
+    }
+
+    @Test
+    void shouldRejectStaleViewAfterSlotIsReused() {
+        CartStore store = new CartStore(1, 1);
+        long cartId = store.createCart();
+        Cart stale = store.cart(cartId);
+        store.removeCart(cartId);
+        long reused = store.createCart();
+        store.cart(reused).addItem("Cable", 10.00, 1);
+
+        assertNotEquals(cartId, reused);
+        assertThrows(IllegalArgumentException.class, () -> stale.addItem("Headphones", 300.00, 1));
+        assertThrows(IllegalArgumentException.class, stale::getTotalPrice);
+        assertEquals(1, store.cart(reused).getItemsCount());
+    }
+
+    @Test
+    void shouldRejectStaleIdAfterSlotIsReused() {
+        CartStore store = new CartStore(1, 1);
+        long cartId = store.createCart();
+        store.removeCart(cartId);
+        long reused = store.createCart();
+        store.cart(reused).addItem("Cable", 10.00, 1);
+
+        assertThrows(IllegalArgumentException.class, () -> store.cart(cartId));
+        assertThrows(IllegalArgumentException.class, () -> store.removeCart(cartId));
+        assertEquals(1, store.getCartCount());
+        assertTrue(store.cart(reused).containsItem("Cable"));
+    }
+
+    @Test
+    void shouldTreatNullItemLikeShoppingCartDoes() {
+        CartStore store = new CartStore();
+        Cart cart = store.cart(store.createCart());
+
+        assertEquals(new ShoppingCart().containsItem(null), cart.containsItem(null));
+        assertFalse(cart.containsItem(null));
+    }
+
+    @Test
+    void shouldKeepCountsWhenCartsAreUsedFromManyThreads() throws InterruptedException {
+        CartStore store = new CartStore();
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 1_000; i++) {
+                    long cartId = store.createCart();
+                    Cart cart = store.cart(cartId);
+                    cart.addItem("A", 1.00, 1);
+                    cart.addItem("B", 2.00, 2);
+                    if (i % 2 == 0) {
+                        store.removeCart(cartId);
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(4_000, store.getCartCount());
+        assertEquals(8_000, store.getLineCount());
+    }
+}
@@ -0,0 +1,108 @@
+package com.example.shoppingcart;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrentShoppingCartTest {
+
+    private static final int THREADS = 16;
+    private static final int ADDS_PER_THREAD = 10_000;
+
+    @Test
+    void shouldBehaveLikeShoppingCartForSingleThread() {
+        ConcurrentShoppingCart cart = new ConcurrentShoppingCart();
+
+        cart.addItem("Headphones", 300.00, 1);
+        cart.addItem("Headphones", 300.00, 1);
+        cart.addItem("Microphone", 500.00, 1);
+        cart.deleteItem("Microphone");
+        cart.applyDiscount(50);
+
+        assertEquals(1, cart.getItemsCount());
+        assertEquals(2, cart.getItemQuantity("Headphones"));
+        assertEquals(300.00, cart.getTotalPrice());
+    }
+
+    @Test
+    void shouldNotLoseQuantityUpdatesUnderParallelAdds() throws Exception {
+        ConcurrentShoppingCart cart = new ConcurrentShoppingCart();
+        CyclicBarrier start = new CyclicBarrier(THREADS + 1);
+        AtomicBoolean totalWentBackwards = new AtomicBoolean();
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS + 1);
+        List<Future<?>> writers = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            writers.add(executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < ADDS_PER_THREAD; i++) {
+                    cart.addItem("Item" + (i % 10), 1.25, 1);
+                }
+                return null;
+            }));
+        }
+        Future<?> reader = executor.submit(() -> {
+            start.await();
+            long previous = 0;
+            while (!writers.stream().allMatch(Future::isDone)) {
+                long current = cart.getSubtotalInMinorUnits();
+                if (current < previous) {
+                    totalWentBackwards.set(true);
+                }
+                previous = current;
+            }
+            return null;
+        });
+        for (Future<?> writer : writers) {
+            writer.get(60, TimeUnit.SECONDS);
+        }
+        reader.get(60, TimeUnit.SECONDS);
+        executor.shutdown();
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals(THREADS * ADDS_PER_THREAD / 10, cart.getItemQuantity("Item" + i));
+        }
+        assertEquals(THREADS * ADDS_PER_THREAD * 125L, cart.getSubtotalInMinorUnits());
+        assertFalse(totalWentBackwards.get());
+    }
+
+    @Test
+    void shouldKeepTotalConsistentWithParallelAddsAndDeletes() throws Exception {
+        ConcurrentShoppingCart cart = new ConcurrentShoppingCart();
+        CyclicBarrier start = new CyclicBarrier(THREADS);
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            futures.add(executor.submit(() -> {
+                start.await();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < ADDS_PER_THREAD; i++) {
+                    String itemName = "Item" + random.nextInt(20);
+                    if (thread % 4 == 0) {
+                        cart.deleteItem(itemName);
+                    } else {
+                        cart.addItem(itemName, 2.00, 1 + random.nextInt(3));
+                    }
+                }
+                return null;
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        long expected = 0;
+        for (int i = 0; i < 20; i++) {
+            expected += 200L * cart.getItemQuantity("Item" + i);
+        }
+        assertEquals(expected, cart.getSubtotalInMinorUnits());
+    }
+}
@@ -0,0 +1,199 @@
+package com.example.shoppingcart;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PricedCartTest {
+
+    @Test
+    void shouldPriceLikeTheUnderlyingCartWithoutRules() {
+        PricedCart cart = new PricedCart(new ShoppingCart(), PricingPipeline.compile(List.of()));
+
+        cart.addItem("Headphones", 300.00, 1);
+        cart.addItem("Microphone", 500.00, 1);
+        cart.applyDiscount(10);
+
+        assertEquals(720.00, cart.getTotalPrice());
+    }
+
+    @Test
+    void shouldApplyPerItemDiscount() {
+        PricedCart cart = new PricedCart(new ShoppingCart(),
+                PricingPipeline.compile(List.of(new ItemDiscountRule("Headphones", 25))));
+
+        cart.addItem("Headphones", 300.00, 2);
+        cart.addItem("Microphone", 500.00, 1);
+
+        assertEquals(950.00, cart.getTotalPrice());
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            "1, 100.00",
+            "4, 400.00",
+            "5, 450.00",
+            "10, 800.00"
+    })
+    void shouldApplyHighestReachedQuantityTier(int quantity, double expectedTotal) {
+        PricedCart cart = new PricedCart(new ShoppingCart(),
+                PricingPipeline.compile(List.of(new QuantityTierRule("Cable", Map.of(5, 10.0, 10, 20.0)))));
+
+        cart.addItem("Cable", 100.00, quantity);
+
+        assertEquals(expectedTotal, cart.getTotalPrice());
+    }
+
+    @Test
+    void shouldPriceCompleteBundlesOnly() {
+        PricedCart cart = new PricedCart(new ShoppingCart(),
+                PricingPipeline.compile(List.of(new BundleRule(Set.of("Headphones", "Microphone"), 700.00))));
+
+        cart.addItem("Headphones", 300.00, 3);
+        cart.addItem("Microphone", 500.00, 2);
+
+        assertEquals(2 * 700.00 + 300.00, cart.getTotalPrice());
+    }
+
+    @Test
+    void shouldStackCouponsInOrderAfterLineRules() {
+        PricedCart cart = new PricedCart(new ShoppingCart(), PricingPipeline.compile(List.of(
+                CouponRule.percentageOff(10),
+                new ItemDiscountRule("Headphones", 50),
+                CouponRule.amountOff(20.00))));
+
+        cart.addItem("Headphones", 400.00, 1);
+
+        assertEquals(160.00, cart.getTotalPrice());
+    }
+
+    @Test
+    void shouldCompoundAdjacentPercentageCoupons() {
+        PricingPipeline pipeline = PricingPipeline.compile(List.of(
+                CouponRule.percentageOff(10),
+                CouponRule.percentageOff(20),
+                CouponRule.amountOff(5.00),
+                CouponRule.percentageOff(50)));
+        PricedCart cart = new PricedCart(new ShoppingCart(), pipeline);
+
+        cart.addItem("Headphones", 100.00, 1);
+
+        assertEquals(3, pipeline.getCartRuleCount());
+        assertEquals(33.50, cart.getTotalPrice());
+    }
+
+    @Test
+    void shouldNeverGoBelowZero() {
+        PricedCart cart = new PricedCart(new ShoppingCart(), PricingPipeline.compile(List.of(CouponRule.amountOff(50.00))));
+
+        cart.addItem("Cable", 10.00, 1);
+
+        assertEquals(0.00, cart.getTotalPrice());
+    }
+
+    @Test
+    void shouldUpdateDiscountsWhenLinesChange() {
+        PricedCart cart = new PricedCart(new ShoppingCart(), PricingPipeline.compile(List.of(
+                new QuantityTierRule("Cable", Map.of(5, 10.0)),
+                new BundleRule(Set.of("Headphones", "Microphone"), 700.00))));
+
+        cart.addItem("Cable", 100.00, 4);
+        cart.addItem("Headphones", 300.00, 1);
+        assertEquals(0, cart.getLineDiscountInMinorUnits());
+
+        cart.addItem("Cable", 100.00, 1);
+        cart.addItem("Microphone", 500.00, 1);
+        assertEquals(50_00 + 100_00, cart.getLineDiscountInMinorUnits());
+
+        cart.deleteItem("Microphone");
+        assertEquals(50_00, cart.getLineDiscountInMinorUnits());
+        assertEquals(750.00, cart.getTotalPrice());
+    }
+
+    @Test
+    void shouldMatchFullReevaluationWithManyRules() {
+        List<PricingRule> rules = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            rules.add(new ItemDiscountRule("Item" + i, i % 50));
+        }
+        PricedCart cart = new PricedCart(new ShoppingCart(), PricingPipeline.compile(rules));
+
+        long expectedDiscount = 0;
+        for (int i = 0; i < 200; i++) {
+            cart.addItem("Item" + i, 9.99, 1 + i % 3);
+            expectedDiscount += Math.round(999L * (1 + i % 3) * (i % 50) / 100.0);
+        }
+
+        assertEquals(expectedDiscount, cart.getLineDiscountInMinorUnits());
+        assertEquals(cart.getSubtotalInMinorUnits() - expectedDiscount, cart.getTotalInMinorUnits());
+    }
+
+    @Test
+    void shouldNeverDiscountALineMoreThanItCosts() {
+        PricedCart cart = new PricedCart(new ShoppingCart(), PricingPipeline.compile(List.of(
+                new ItemDiscountRule("A", 60),
+                new ItemDiscountRule("A", 60))));
+
+        cart.addItem("A", 100.00, 1);
+        cart.addItem("B", 100.00, 1);
+
+        // The second rule takes 60% of the 40.00 left of A, and B keeps its full price
+        assertEquals(116_00, cart.getTotalInMinorUnits());
+        assertEquals(84_00, cart.getLineDiscountInMinorUnits());
+    }
+
+    @Test
+    void shouldApplyBundleToWhatIsLeftAfterEarlierLineRules() {
+        PricedCart cart = new PricedCart(new ShoppingCart(), PricingPipeline.compile(List.of(
+                new QuantityTierRule("A", Map.of(1, 50.0)),
+                new BundleRule(Set.of("A", "B"), 100.00))));
+
+        cart.addItem("A", 100.00, 1);
+        cart.addItem("B", 100.00, 1);
+
+        // A is already down to 50.00, so the bundle only takes the last 50.00 to reach its price
+        assertEquals(100.00, cart.getTotalPrice());
+    }
+
+    @Test
+    void shouldKeepDiscountsOfLinkedLinesInPipelineOrderWhenLinesChange() {
+        PricedCart cart = new PricedCart(new ShoppingCart(), PricingPipeline.compile(List.of(
+                new BundleRule(Set.of("A", "B"), 150.00),
+                new ItemDiscountRule("B", 100),
+                new ItemDiscountRule("C", 10))));
+
+        cart.addItem("A", 100.00, 1);
+        cart.addItem("C", 100.00, 1);
+        assertEquals(190.00, cart.getTotalPrice());
+
+        // B joins the bundle, which takes 50.00 split over A and B; the full B discount then takes the rest of B
+        cart.addItem("B", 100.00, 1);
+        assertEquals(75.00 + 90.00, cart.getTotalPrice());
+    }
+
+    @Test
+    void shouldPickUpLinesAlreadyInWrappedCart() {
+        ShoppingCart shoppingCart = new ShoppingCart();
+        shoppingCart.addItem("Headphones", 300.00, 1);
+
+        PricedCart cart = new PricedCart(shoppingCart,
+                PricingPipeline.compile(List.of(new ItemDiscountRule("Headphones", 10))));
+
+        assertEquals(270.00, cart.getTotalPrice());
+    }
+
+    @Test
+    void shouldRejectInvalidRules() {
+        assertThrows(IllegalArgumentException.class, () -> new ItemDiscountRule("Headphones", 120));
+        assertThrows(IllegalArgumentException.class, () -> new BundleRule(Set.of("Headphones"), 10.00));
+        assertThrows(IllegalArgumentException.class, () -> new QuantityTierRule("Cable", Map.of()));
+        assertThrows(IllegalArgumentException.class, () -> CouponRule.amountOff(0));
+    }
+}
@@ -62,12 +62,36 @@ class ShoppingCartTest {
         assertEquals(600.00, cart.getTotalPrice());
     }
 
+    @Test
+    void shouldKeepTotalPriceExactForDecimalPrices() {
+        ShoppingCart cart = new ShoppingCart();
+
+        cart.addItem("Sticker", 0.10, 1);
+        cart.addItem("Pen", 0.20, 1);
+
+        assertEquals(0.30, cart.getTotalPrice());
+        assertEquals(30, cart.getSubtotalInMinorUnits());
+    }
+
+    @Test
+    void shouldUpdateTotalPriceWhenItemIsDeleted() {
+        ShoppingCart cart = new ShoppingCart();
+
+        cart.addItem("Headphones", 300.00, 2);
+        cart.addItem("Microphone", 500.00, 1);
+        cart.deleteItem("Headphones");
+        cart.deleteItem("Speaker");
+
+        assertEquals(500.00, cart.getTotalPrice());
+    }
+
     @ParameterizedTest
     @CsvSource({
             "null, 300.00, 1",
             "'', 300.00, 1",
             "'Headphones', 0.00, 1",
             "'Headphones', -100.00, 1",
+            "'Headphones', 0.001, 1",
             "'Headphones', 300.00, 0",
             "'Headphones', 300.00, -1"
     })